@@ -0,0 +1,180 @@
+package spotifyum.benchmarks;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import spotifyum.http.ServidorHttp;
+import spotifyum.musica.Musica;
+import spotifyum.musica.Reprodutor;
+import spotifyum.musica.ReprodutorMetricas;
+import spotifyum.mvc.SpotifyumModel;
+
+/**
+ * Teste de carga local do servidor HTTP: muitos clientes em simultâneo contra um model com dados sintéticos.
+ *
+ * Cada cliente é uma virtual thread que envia pedidos seguidos (sem pausa) com a mistura 80% reproduções,
+ * 10% recomendações e 10% estatísticas. Depois de um aquecimento, são medidos o número de pedidos por
+ * segundo e os percentis de latência de cada operação.
+ *
+ * Uso: CargaHttp [clientes] [segundos] [escala] (por omissão 1000, 10 e MEDIA);
+ * com o Gradle: ./gradlew cargaHttp -Pclientes=1000 -Psegundos=10 -Pescala=MEDIA
+ */
+public final class CargaHttp {
+
+    /** Segundos de aquecimento antes de começar a medir */
+    private static final int AQUECIMENTO = 2;
+
+    /** Operações do teste de carga */
+    private enum Operacao { REPRODUCAO, RECOMENDACAO, ESTATISTICA }
+
+    /**
+     * Latências medidas por um cliente, por operação, em nanossegundos.
+     */
+    private static final class Medicoes {
+        private final long[][] latencias = new long[Operacao.values().length][1024];
+        private final int[] tamanhos = new int[Operacao.values().length];
+        private final long[] erros = new long[Operacao.values().length];
+
+        private void registar(Operacao op, long nanos) {
+            int i = op.ordinal();
+            if (this.tamanhos[i] == this.latencias[i].length) {
+                this.latencias[i] = Arrays.copyOf(this.latencias[i], this.tamanhos[i] * 2);
+            }
+            this.latencias[i][this.tamanhos[i]++] = nanos;
+        }
+    }
+
+    private CargaHttp() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        DadosSinteticos.Escala escala = args.length > 2 ? DadosSinteticos.Escala.valueOf(args[2]) : DadosSinteticos.Escala.MEDIA;
+
+        Reprodutor reprodutor = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        SpotifyumModel model = DadosSinteticos.gerar(escala);
+        PrintStream saida = DadosSinteticos.silenciarSaida();
+        try (ServidorHttp servidor = new ServidorHttp(model, 0);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build()) {
+            servidor.iniciar();
+            String base = "http://localhost:" + servidor.getPorta();
+            saida.printf("%d clientes durante %d s (+%d s de aquecimento), escala %s%n", clientes, segundos, AQUECIMENTO, escala);
+
+            long inicioMedicao = System.nanoTime() + TimeUnit.SECONDS.toNanos(AQUECIMENTO);
+            long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(segundos);
+            List<Medicoes> medicoes = new ArrayList<>(clientes);
+            List<Thread> threads = new ArrayList<>(clientes);
+            for (int c = 0; c < clientes; c++) {
+                Medicoes m = new Medicoes();
+                medicoes.add(m);
+                threads.add(Thread.ofVirtual().start(() -> executarCliente(cliente, base, escala, m, inicioMedicao, fim)));
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            relatorio(saida, medicoes, segundos);
+        } finally {
+            System.setOut(saida);
+            Musica.setReprodutor(reprodutor);
+        }
+    }
+
+    /**
+     * Ciclo de um cliente: envia pedidos até ao fim do teste, registando as latências depois do aquecimento.
+     */
+    private static void executarCliente(HttpClient cliente, String base, DadosSinteticos.Escala escala, Medicoes m,
+                                        long inicioMedicao, long fim) {
+        Random random = ThreadLocalRandom.current();
+        long agora;
+        while ((agora = System.nanoTime()) < fim) {
+            int sorteio = random.nextInt(10);
+            Operacao op = sorteio < 8 ? Operacao.REPRODUCAO : sorteio == 8 ? Operacao.RECOMENDACAO : Operacao.ESTATISTICA;
+            String utilizador = DadosSinteticos.utilizadorAleatorio(escala, random);
+            HttpRequest pedido = switch (op) {
+                case REPRODUCAO -> HttpRequest.newBuilder(URI.create(base + "/reproducoes"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"utilizador\":\"" + utilizador + "\",\"musica\":\""
+                                                              + DadosSinteticos.musicaAleatoria(escala, random) + "\"}"))
+                    .build();
+                case RECOMENDACAO -> HttpRequest.newBuilder(URI.create(base + "/recomendacoes?utilizador=" + utilizador)).build();
+                case ESTATISTICA -> HttpRequest.newBuilder(URI.create(base + "/estatisticas/" + (1 + random.nextInt(7)))).build();
+            };
+            boolean ok;
+            try {
+                int estado = cliente.send(pedido, HttpResponse.BodyHandlers.discarding()).statusCode();
+                ok = estado >= 200 && estado < 300;
+            } catch (Exception e) {
+                ok = false;
+            }
+            long depois = System.nanoTime();
+            if (agora >= inicioMedicao && depois <= fim) {
+                m.registar(op, depois - agora);
+                if (!ok) {
+                    m.erros[op.ordinal()]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Método que junta as medições dos clientes e escreve os pedidos por segundo e os percentis de cada operação.
+     */
+    private static void relatorio(PrintStream saida, List<Medicoes> medicoes, int segundos) {
+        saida.printf("%-14s %10s %8s %12s %10s %10s %10s %10s%n",
+                     "Operação", "Pedidos", "Erros", "Pedidos/s", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "máx (ms)");
+        long[] todas = new long[0];
+        long errosTotal = 0;
+        for (Operacao op : Operacao.values()) {
+            int i = op.ordinal();
+            int n = 0;
+            long erros = 0;
+            for (Medicoes m : medicoes) {
+                n += m.tamanhos[i];
+                erros += m.erros[i];
+            }
+            long[] latencias = new long[n];
+            int pos = 0;
+            for (Medicoes m : medicoes) {
+                System.arraycopy(m.latencias[i], 0, latencias, pos, m.tamanhos[i]);
+                pos += m.tamanhos[i];
+            }
+            linha(saida, op.name(), latencias, erros, segundos);
+            int anterior = todas.length;
+            todas = Arrays.copyOf(todas, anterior + n);
+            System.arraycopy(latencias, 0, todas, anterior, n);
+            errosTotal += erros;
+        }
+        linha(saida, "TOTAL", todas, errosTotal, segundos);
+    }
+
+    private static void linha(PrintStream saida, String nome, long[] latencias, long erros, int segundos) {
+        Arrays.sort(latencias);
+        saida.printf("%-14s %10d %8d %12.0f %10.2f %10.2f %10.2f %10.2f%n", nome, latencias.length, erros,
+                     (double) latencias.length / segundos, percentil(latencias, 0.50), percentil(latencias, 0.99),
+                     percentil(latencias, 0.999), percentil(latencias, 1.0));
+    }
+
+    /**
+     * Método que devolve um percentil de latências ordenadas, em milissegundos (método do posto mais próximo).
+     */
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posto = (int) Math.ceil(p * ordenadas.length);
+        return ordenadas[Math.max(0, posto - 1)] / 1e6;
+    }
+}
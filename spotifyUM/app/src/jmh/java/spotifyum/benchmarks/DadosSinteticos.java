@@ -0,0 +1,202 @@
+package spotifyum.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import spotifyum.album.Album;
+import spotifyum.exceptions.EntidadeExisteException;
+import spotifyum.musica.Musica;
+import spotifyum.musica.MusicaExplicita;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.planos.PlanoFree;
+import spotifyum.planos.PlanoPremiumBase;
+import spotifyum.planos.PlanoPremiumTop;
+import spotifyum.planos.PlanoSubscricao;
+import spotifyum.playlist.PlaylistPersonalizada;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe que gera modelos do SpotifyUM com dados sintéticos para os benchmarks.
+ *
+ * Os dados são determinísticos (semente fixa): N utilizadores, M músicas e K reproduções
+ * distribuídas pelos utilizadores, com as músicas mais antigas a serem mais ouvidas.
+ */
+public final class DadosSinteticos {
+
+    /** Escalas predefinidas dos dados gerados */
+    public enum Escala {
+        PEQUENA(100, 1_000, 10_000),
+        MEDIA(1_000, 10_000, 100_000),
+        GRANDE(10_000, 50_000, 1_000_000);
+
+        public final int utilizadores;
+        public final int musicas;
+        public final int reproducoes;
+
+        Escala(int utilizadores, int musicas, int reproducoes) {
+            this.utilizadores = utilizadores;
+            this.musicas = musicas;
+            this.reproducoes = reproducoes;
+        }
+    }
+
+    /** Semente usada por omissão */
+    public static final long SEMENTE = 42L;
+
+    private static final String[] GENEROS = {
+        "Pop", "Rock", "Jazz", "Classica", "HipHop", "Eletronica",
+        "Fado", "Metal", "Reggae", "Blues", "Country", "Indie"
+    };
+
+    private static final String[] EDITORAS = {
+        "Sony", "Universal", "Warner", "EMI", "Valentim de Carvalho", "Independente"
+    };
+
+    private DadosSinteticos() {}
+
+    /**
+     * Método que gera um modelo na escala indicada.
+     *
+     * @param escala Escala dos dados
+     * @return Modelo gerado
+     */
+    public static SpotifyumModel gerar(Escala escala) {
+        return gerar(escala.utilizadores, escala.musicas, escala.reproducoes, SEMENTE);
+    }
+
+    /**
+     * Método que gera um modelo com N utilizadores, M músicas e K reproduções.
+     *
+     * As reproduções são registadas diretamente no histórico (sem reproduzir as músicas),
+     * com datas crescentes ao longo do último ano.
+     *
+     * @param numUtilizadores Número de utilizadores
+     * @param numMusicas Número de músicas
+     * @param numReproducoes Número total de reproduções
+     * @param semente Semente do gerador aleatório
+     * @return Modelo gerado
+     */
+    public static SpotifyumModel gerar(int numUtilizadores, int numMusicas, int numReproducoes, long semente) {
+        Random random = new Random(semente);
+        List<Musica> musicas = gerarMusicas(numMusicas, random);
+        List<Utilizador> utilizadores = new ArrayList<>(numUtilizadores);
+        for (int i = 0; i < numUtilizadores; i++) {
+            utilizadores.add(new Utilizador("U" + i, "Utilizador " + i, "u" + i + "@spotifyum.pt",
+                                            "Braga", gerarPlano(i)));
+        }
+
+        LocalDate inicio = LocalDate.now().minusDays(365);
+        for (int k = 0; k < numReproducoes; k++) {
+            Utilizador u = utilizadores.get(random.nextInt(numUtilizadores));
+            Musica m = musicas.get(indiceEnviesado(random, numMusicas));
+            LocalDate data = inicio.plusDays((long) k * 365 / numReproducoes);
+            m.setReproducoes(m.getReproducoes() + 1);
+            u.atualizarPontos();
+            u.atualizarNumMusicas();
+            u.atualizarHistorico(m.getId(), data);
+            u.atualizarHistoricoArtistas(m.getArtista());
+        }
+
+        SpotifyumModel model = new SpotifyumModel();
+        try {
+            for (Musica m : musicas) {
+                model.adicionarMusica(m);
+            }
+            for (Utilizador u : utilizadores) {
+                model.adicionarUtilizador(u);
+            }
+            for (int i = 0; i < Math.max(1, numUtilizadores / 10); i++) {
+                model.adicionarPlaylist(new PlaylistPersonalizada("Playlist " + i, amostra(musicas, 20, random),
+                                                                  i % 2 == 0, "U" + (i % numUtilizadores)));
+            }
+            for (int i = 0; i < Math.max(1, numMusicas / 10); i++) {
+                model.adicionarAlbum(new Album("Album " + i, amostra(musicas, 10, random)));
+            }
+        } catch (EntidadeExisteException e) {
+            throw new IllegalStateException(e);
+        }
+        return model;
+    }
+
+    /**
+     * Método que devolve o ID de um utilizador aleatório gerado na escala indicada.
+     *
+     * @param escala Escala dos dados
+     * @param random Gerador aleatório
+     * @return ID do utilizador
+     */
+    public static String utilizadorAleatorio(Escala escala, Random random) {
+        return "U" + random.nextInt(escala.utilizadores);
+    }
+
+    /**
+     * Método que devolve o ID de uma música aleatória gerada na escala indicada.
+     *
+     * @param escala Escala dos dados
+     * @param random Gerador aleatório
+     * @return ID da música
+     */
+    public static String musicaAleatoria(Escala escala, Random random) {
+        return "M" + indiceEnviesado(random, escala.musicas);
+    }
+
+    /**
+     * Método que troca o System.out por um stream que descarta tudo, para que as
+     * mensagens do modelo não dominem as medições.
+     *
+     * @return O System.out original, a repor no fim do benchmark
+     */
+    public static PrintStream silenciarSaida() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+
+    private static List<Musica> gerarMusicas(int numMusicas, Random random) {
+        int numArtistas = Math.max(1, numMusicas / 20);
+        List<Musica> musicas = new ArrayList<>(numMusicas);
+        for (int i = 0; i < numMusicas; i++) {
+            String artista = "Artista " + random.nextInt(numArtistas);
+            String genero = GENEROS[random.nextInt(GENEROS.length)];
+            String editora = EDITORAS[random.nextInt(EDITORAS.length)];
+            int duracao = 90 + random.nextInt(300);
+            if (i % 10 == 0) {
+                musicas.add(new MusicaExplicita("M" + i, "Musica " + i, artista, editora, "", new ArrayList<>(),
+                                                genero, duracao));
+            } else {
+                musicas.add(new Musica("M" + i, "Musica " + i, artista, editora, "", new ArrayList<>(),
+                                       genero, duracao));
+            }
+        }
+        return musicas;
+    }
+
+    private static PlanoSubscricao gerarPlano(int i) {
+        switch (i % 3) {
+            case 0:
+                return new PlanoFree();
+            case 1:
+                return new PlanoPremiumBase();
+            default:
+                return new PlanoPremiumTop();
+        }
+    }
+
+    /** Índice em [0, n) com mais probabilidade para os índices baixos (aproximadamente quadrático) */
+    private static int indiceEnviesado(Random random, int n) {
+        double r = random.nextDouble();
+        return (int) (r * r * n);
+    }
+
+    private static List<Musica> amostra(List<Musica> musicas, int n, Random random) {
+        List<Musica> resultado = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            resultado.add(musicas.get(random.nextInt(musicas.size())));
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,82 @@
+package spotifyum.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spotifyum.importacao.ImportadorCatalogo;
+import spotifyum.mvc.SpotifyumModel;
+
+/**
+ * Benchmark da importação em massa de um CSV de músicas para um model vazio, com vários números de
+ * threads de trabalho. O tempo de cada importação dividido pelo número de linhas dá as linhas por segundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportacaoBenchmark {
+
+    private static final String[] GENEROS = {"Pop", "Rock", "Jazz", "Fado", "Metal", "Indie"};
+
+    private static final String[] TIPOS = {"Normal", "Normal", "Normal", "Explicita", "Multimedia"};
+
+    @Param({"100000", "1000000"})
+    public int linhas;
+
+    @Param({"1", "4"})
+    public int trabalhadores;
+
+    private Path ficheiro;
+    private PrintStream saida;
+
+    @Setup
+    public void setup() throws IOException {
+        this.ficheiro = Files.createTempFile("spotifyum-importacao", ".csv");
+        Random random = new Random(DadosSinteticos.SEMENTE);
+        try (BufferedWriter w = Files.newBufferedWriter(this.ficheiro)) {
+            w.write("id,nome,artista,editora,letra,partitura,genero,duracao,tipo\n");
+            for (int i = 0; i < this.linhas; i++) {
+                w.write("M" + i + ",Musica " + i + ",Artista " + random.nextInt(Math.max(1, this.linhas / 20))
+                        + ",Independente,\"la, la, la\",do;re;mi,"
+                        + GENEROS[random.nextInt(GENEROS.length)] + "," + (90 + random.nextInt(300)) + ","
+                        + TIPOS[random.nextInt(TIPOS.length)] + "\n");
+            }
+        }
+        this.saida = DadosSinteticos.silenciarSaida();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(this.saida);
+        Files.deleteIfExists(this.ficheiro);
+    }
+
+    @Benchmark
+    public ImportadorCatalogo.Resumo importarMusicas() throws IOException {
+        ImportadorCatalogo importador = new ImportadorCatalogo(new SpotifyumModel(), ',', this.trabalhadores,
+                                                               new PrintWriter(Writer.nullWriter()));
+        return importador.importar(this.ficheiro, ImportadorCatalogo.Tipo.MUSICAS, true);
+    }
+}
@@ -0,0 +1,130 @@
+package spotifyum.benchmarks;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import spotifyum.album.Album;
+import spotifyum.musica.Musica;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.planos.PlanoFree;
+import spotifyum.playlist.Playlist;
+import spotifyum.playlist.PlaylistAleatoria;
+import spotifyum.utilizador.Historico;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Benchmark que compara os getters que copiam (getMusicas, getHistorico, ...) com as vistas só de leitura.
+ *
+ * Executar com {@code ./gradlew jmh}; o profiler gc mostra os bytes alocados por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeituraBenchmark {
+
+    /** Número de músicas do catálogo e de reproduções no histórico do utilizador */
+    @Param({"100", "10000"})
+    public int tamanho;
+
+    private SpotifyumModel model;
+    private Playlist playlist;
+    private Album album;
+    private Utilizador utilizador;
+
+    @Setup
+    public void setup() throws Exception {
+        this.model = new SpotifyumModel();
+        List<Musica> musicas = new ArrayList<>();
+        for (int i = 0; i < this.tamanho; i++) {
+            Musica m = new Musica("m" + i, "Musica " + i, "Artista " + (i % 50), "Editora",
+                                  "", new ArrayList<>(), "Genero " + (i % 10), 180);
+            musicas.add(m);
+            this.model.adicionarMusica(m);
+        }
+        this.playlist = new PlaylistAleatoria("benchmark", musicas);
+        this.album = new Album("benchmark", musicas);
+        this.model.adicionarPlaylist(this.playlist);
+        this.model.adicionarAlbum(this.album);
+
+        this.utilizador = new Utilizador("u0", "Utilizador", "u0@spotifyum.pt", "Braga", new PlanoFree());
+        LocalDate inicio = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < this.tamanho; i++) {
+            this.utilizador.atualizarHistorico("m" + i, inicio.plusDays(i / 20));
+        }
+        this.model.adicionarUtilizador(this.utilizador);
+    }
+
+    @Benchmark
+    public void playlistCopia(Blackhole bh) {
+        for (Musica m : this.playlist.getMusicas()) {
+            bh.consume(m);
+        }
+    }
+
+    @Benchmark
+    public void playlistVista(Blackhole bh) {
+        for (Musica m : this.playlist.getMusicasVista()) {
+            bh.consume(m);
+        }
+    }
+
+    @Benchmark
+    public void albumCopia(Blackhole bh) {
+        for (Musica m : this.album.getMusicas()) {
+            bh.consume(m);
+        }
+    }
+
+    @Benchmark
+    public void albumVista(Blackhole bh) {
+        for (Musica m : this.album.getMusicasVista()) {
+            bh.consume(m);
+        }
+    }
+
+    @Benchmark
+    public void historicoCopia(Blackhole bh) {
+        for (Historico h : this.utilizador.getHistorico()) {
+            bh.consume(h.getIdMusica());
+        }
+    }
+
+    @Benchmark
+    public void historicoVista(Blackhole bh) {
+        for (String id : this.utilizador.getIdsMusicasHistorico()) {
+            bh.consume(id);
+        }
+    }
+
+    @Benchmark
+    public void musicasModelCopia(Blackhole bh) {
+        for (Musica m : this.model.getMusicas()) {
+            bh.consume(m.getDuracao());
+        }
+    }
+
+    @Benchmark
+    public void musicasModelVista(Blackhole bh) {
+        for (Musica m : this.model.getMusicasVista()) {
+            bh.consume(m.getDuracao());
+        }
+    }
+}
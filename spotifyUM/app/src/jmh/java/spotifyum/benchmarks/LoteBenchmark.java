@@ -0,0 +1,88 @@
+package spotifyum.benchmarks;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spotifyum.musica.Musica;
+import spotifyum.musica.Reprodutor;
+import spotifyum.musica.ReprodutorMetricas;
+import spotifyum.mvc.SpotifyumModel;
+
+/**
+ * Benchmarks do registo de várias reproduções do mesmo utilizador: uma a uma (como ouvir um álbum
+ * antes dos lotes) e num único lote, para vários tamanhos de lote.
+ *
+ * O tempo medido é o de todas as reproduções do lote, pelo que a diferença entre os dois benchmarks
+ * é o custo fixo por reprodução que o lote evita.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoteBenchmark {
+
+    @Param({"MEDIA"})
+    public DadosSinteticos.Escala escala;
+
+    @Param({"10", "100", "1000"})
+    public int tamanho;
+
+    private SpotifyumModel model;
+    private Random random;
+    private PrintStream saida;
+    private Reprodutor reprodutor;
+
+    @Setup
+    public void setup() {
+        this.reprodutor = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        this.model = DadosSinteticos.gerar(this.escala);
+        this.random = new Random(DadosSinteticos.SEMENTE);
+        this.saida = DadosSinteticos.silenciarSaida();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(this.saida);
+        Musica.setReprodutor(this.reprodutor);
+    }
+
+    private List<String> sortearMusicas() {
+        List<String> ids = new ArrayList<>(this.tamanho);
+        for (int i = 0; i < this.tamanho; i++) {
+            ids.add(DadosSinteticos.musicaAleatoria(this.escala, this.random));
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public void ouvirUmaAUma() throws Exception {
+        String utilizador = DadosSinteticos.utilizadorAleatorio(this.escala, this.random);
+        for (String id : sortearMusicas()) {
+            this.model.ouvirMusica(utilizador, id);
+        }
+    }
+
+    @Benchmark
+    public void ouvirLote() throws Exception {
+        this.model.ouvirLote(DadosSinteticos.utilizadorAleatorio(this.escala, this.random), sortearMusicas());
+    }
+}
@@ -0,0 +1,56 @@
+package spotifyum.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spotifyum.util.Mochila;
+
+/**
+ * Benchmarks do preenchimento das listas com tempo máximo, para catálogos de vários tamanhos
+ * e tempos máximos de uma hora a vários dias.
+ *
+ * As durações seguem a mesma distribuição dos dados sintéticos (90 a 389 segundos).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MochilaBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int numMusicas;
+
+    @Param({"3600", "36000", "360000"})
+    public int tempoMax;
+
+    private int[] duracoes;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        this.random = new Random(DadosSinteticos.SEMENTE);
+        this.duracoes = new int[this.numMusicas];
+        for (int i = 0; i < this.numMusicas; i++) {
+            this.duracoes[i] = 90 + this.random.nextInt(300);
+        }
+    }
+
+    @Benchmark
+    public int[] preencher() {
+        return Mochila.preencher(this.duracoes, this.tempoMax, this.random);
+    }
+}
@@ -0,0 +1,102 @@
+package spotifyum.benchmarks;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spotifyum.musica.Musica;
+import spotifyum.musica.Reprodutor;
+import spotifyum.musica.ReprodutorMetricas;
+import spotifyum.mvc.SpotifyumModel;
+
+/**
+ * Benchmarks das operações do modelo chamadas a cada interação: ouvir uma música
+ * e gerar as listas de favoritos e de tempo/género.
+ *
+ * Cada benchmark é medido em throughput e em SampleTime (percentis de latência).
+ * As músicas são reproduzidas com um ReprodutorMetricas, sem a animação da consola.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModeloBenchmark {
+
+    @Param({"PEQUENA", "MEDIA", "GRANDE"})
+    public DadosSinteticos.Escala escala;
+
+    private SpotifyumModel model;
+    private Random random;
+    private PrintStream saida;
+    private Reprodutor reprodutor;
+
+    @Setup
+    public void setup() {
+        this.reprodutor = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        this.model = DadosSinteticos.gerar(this.escala);
+        this.random = new Random(DadosSinteticos.SEMENTE);
+        this.saida = DadosSinteticos.silenciarSaida();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(this.saida);
+        Musica.setReprodutor(this.reprodutor);
+    }
+
+    @Benchmark
+    public void ouvirMusica() throws Exception {
+        this.model.ouvirMusica(DadosSinteticos.utilizadorAleatorio(this.escala, this.random),
+                               DadosSinteticos.musicaAleatoria(this.escala, this.random));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void ouvirMusicaConcorrente() throws Exception {
+        Random r = ThreadLocalRandom.current();
+        this.model.ouvirMusica(DadosSinteticos.utilizadorAleatorio(this.escala, r),
+                               DadosSinteticos.musicaAleatoria(this.escala, r));
+    }
+
+    @Benchmark
+    public List<String> geraListaFavoritos() throws Exception {
+        return this.model.geraListaFavoritos(DadosSinteticos.utilizadorAleatorio(this.escala, this.random));
+    }
+
+    @Benchmark
+    public List<String> geraListaFavoritosTempo() throws Exception {
+        return this.model.geraListaFavoritosTempo(DadosSinteticos.utilizadorAleatorio(this.escala, this.random), 3600);
+    }
+
+    @Benchmark
+    public List<String> geraListaFavoritosExplicita() throws Exception {
+        return this.model.geraListaFavoritosExplicita(DadosSinteticos.utilizadorAleatorio(this.escala, this.random));
+    }
+
+    @Benchmark
+    public List<String> geraMusicasTempoGenero() {
+        List<String> ids = new ArrayList<>();
+        this.model.geraMusicasTempoGenero(ids, 3600, "Jazz");
+        return ids;
+    }
+}
@@ -0,0 +1,67 @@
+package spotifyum.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spotifyum.mvc.SpotifyumModel;
+
+/**
+ * Benchmarks de saveSpotifyUM e loadSpotifyUM sobre um ficheiro temporário.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenciaBenchmark {
+
+    @Param({"PEQUENA", "MEDIA", "GRANDE"})
+    public DadosSinteticos.Escala escala;
+
+    private SpotifyumModel model;
+    private Path ficheiro;
+    private PrintStream saida;
+
+    @Setup
+    public void setup() throws IOException {
+        this.model = DadosSinteticos.gerar(this.escala);
+        this.ficheiro = Files.createTempFile("spotifyum-benchmark", ".dat");
+        this.model.saveSpotifyUM(this.ficheiro.toString());
+        this.saida = DadosSinteticos.silenciarSaida();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(this.saida);
+        Files.deleteIfExists(this.ficheiro);
+    }
+
+    @Benchmark
+    public void save() {
+        this.model.saveSpotifyUM(this.ficheiro.toString());
+    }
+
+    @Benchmark
+    public SpotifyumModel load() {
+        SpotifyumModel carregado = new SpotifyumModel();
+        carregado.loadSpotifyUM(this.ficheiro.toString());
+        return carregado;
+    }
+}
@@ -0,0 +1,96 @@
+package spotifyum.benchmarks;
+
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spotifyum.musica.Musica;
+import spotifyum.musica.Reprodutor;
+import spotifyum.musica.ReprodutorMetricas;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.util.AnelEventos;
+
+/**
+ * Benchmarks de ouvir músicas com o pipeline de reproduções, para cada estratégia de espera,
+ * comparados com o registo na thread de quem ouve (espera "SEM_PIPELINE").
+ *
+ * Com o pipeline, o tempo medido é o de publicar (incluindo a espera por espaço quando o anel
+ * está cheio, pelo que o throughput sustentado é limitado pelo das etapas). No fim de cada
+ * iteração as reproduções pendentes são aplicadas fora da medição.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"MEDIA"})
+    public DadosSinteticos.Escala escala;
+
+    @Param({"SEM_PIPELINE", "OCUPADA", "CEDER", "DORMIR", "BLOQUEAR"})
+    public String espera;
+
+    @Param({"16384"})
+    public int capacidade;
+
+    private SpotifyumModel model;
+    private Random random;
+    private PrintStream saida;
+    private Reprodutor reprodutor;
+
+    @Setup
+    public void setup() {
+        this.reprodutor = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        this.model = DadosSinteticos.gerar(this.escala);
+        this.random = new Random(DadosSinteticos.SEMENTE);
+        this.saida = DadosSinteticos.silenciarSaida();
+        if (!this.espera.equals("SEM_PIPELINE")) {
+            this.model.ativarPipeline(this.capacidade, AnelEventos.Espera.valueOf(this.espera));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void sincronizar() {
+        this.model.sincronizarReproducoes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.model.desativarPipeline();
+        System.setOut(this.saida);
+        Musica.setReprodutor(this.reprodutor);
+    }
+
+    @Benchmark
+    public void ouvirMusica() throws Exception {
+        this.model.ouvirMusica(DadosSinteticos.utilizadorAleatorio(this.escala, this.random),
+                               DadosSinteticos.musicaAleatoria(this.escala, this.random));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void ouvirMusicaConcorrente() throws Exception {
+        Random r = ThreadLocalRandom.current();
+        this.model.ouvirMusica(DadosSinteticos.utilizadorAleatorio(this.escala, r),
+                               DadosSinteticos.musicaAleatoria(this.escala, r));
+    }
+}
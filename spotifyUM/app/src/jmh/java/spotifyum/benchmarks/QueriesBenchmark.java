@@ -0,0 +1,72 @@
+package spotifyum.benchmarks;
+
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spotifyum.estatisticas.ConsultaParalela;
+import spotifyum.estatisticas.ResultadoQuery;
+import spotifyum.mvc.SpotifyumModel;
+
+/**
+ * Benchmarks das queries estatísticas (executarQuery e executarQueryEspecial).
+ *
+ * As queries que percorrem todos os utilizadores ou playlists (6, 7 e a especial) são medidas
+ * em modo sequencial e em paralelo no pool comum, com o limiar por omissão.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueriesBenchmark {
+
+    @Param({"PEQUENA", "MEDIA", "GRANDE"})
+    public DadosSinteticos.Escala escala;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7"})
+    public int query;
+
+    @Param({"SEQUENCIAL", "PARALELO"})
+    public String modo;
+
+    private SpotifyumModel model;
+    private PrintStream saida;
+
+    @Setup
+    public void setup() {
+        this.model = DadosSinteticos.gerar(this.escala);
+        this.model.setConsultas("SEQUENCIAL".equals(this.modo) ? ConsultaParalela.sequencial() : new ConsultaParalela());
+        this.saida = DadosSinteticos.silenciarSaida();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(this.saida);
+    }
+
+    @Benchmark
+    public ResultadoQuery executarQuery() throws Exception {
+        return this.model.executarQuery(this.query);
+    }
+
+    @Benchmark
+    public ResultadoQuery executarQueryEspecial() {
+        LocalDate hoje = LocalDate.now();
+        return this.model.executarQueryEspecial(hoje.minusDays(90), hoje);
+    }
+}
@@ -1,22 +1,123 @@
 package spotifyum;
 
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import spotifyum.http.ServidorHttp;
+import spotifyum.menu.ExecutorScript;
+import spotifyum.musica.Musica;
+import spotifyum.musica.ReprodutorMetricas;
 import spotifyum.mvc.SpotifyumController;
 import spotifyum.mvc.SpotifyumModel;
 import spotifyum.mvc.SpotifyumView;
 
 /**
  * Classe principal do SpotifyUM
- * 
+ *
  * Esta classe contém o método main que inicia a aplicação.
+ *
+ * Se for indicado um ficheiro como argumento, o estado é recuperado desse ficheiro e do seu diário,
+ * e todas as alterações passam a ser registadas no diário.
+ *
+ * Com a opção --http &lt;porta&gt;, em vez do menu da consola é iniciado o servidor HTTP ({@link ServidorHttp}),
+ * que corre até o processo ser terminado.
+ *
+ * Com a opção --script &lt;ficheiro&gt; (ou "-" para o stdin), os comandos de administração do script são
+ * executados sem interação ({@link ExecutorScript}), em transações de --transacao &lt;n&gt; comandos, e a aplicação termina.
  */
 public class Main {
     public static void main(String[] args) {
+        String ficheiro = null;
+        String script = null;
+        int porta = -1;
+        int tamanhoTransacao = ExecutorScript.TAMANHO_TRANSACAO;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--http") && i + 1 < args.length) {
+                try {
+                    porta = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Porta inválida: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals("--script") && i + 1 < args.length) {
+                script = args[++i];
+            } else if (args[i].equals("--transacao") && i + 1 < args.length) {
+                try {
+                    tamanhoTransacao = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Tamanho de transação inválido: " + args[i]);
+                    return;
+                }
+            } else {
+                ficheiro = args[i];
+            }
+        }
+
         SpotifyumModel model = new SpotifyumModel();
         SpotifyumController controller = new SpotifyumController(model);
         SpotifyumView view = new SpotifyumView(controller);
         controller.setView(view);
         model.setController(controller);
 
-        view.run();
+        if (ficheiro != null) {
+            try {
+                model.abrirDiario(ficheiro);
+            } catch (IOException | RuntimeException e) {
+                // Sem o estado recuperado por inteiro, continuar arriscaria gravar por cima do diário
+                System.out.println("Erro ao abrir o diário: " + e.getMessage());
+                System.out.println("A aplicação não foi iniciada, para não perder o estado guardado em " + ficheiro + ".");
+                return;
+            }
+        }
+
+        if (script != null) {
+            controller.executarScript(script, tamanhoTransacao);
+        } else if (porta >= 0) {
+            servir(model, porta);
+        } else {
+            view.run();
+        }
+
+        try {
+            model.fecharDiario();
+        } catch (IOException e) {
+            System.out.println("Erro ao fechar o diário: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Método que corre o servidor HTTP até o processo ser terminado (por exemplo, com Ctrl+C).
+     *
+     * @param model Model do SpotifyUM
+     * @param porta Porta do servidor
+     */
+    private static void servir(SpotifyumModel model, int porta) {
+        // Sem consola: as reproduções só são contadas
+        Musica.setReprodutor(new ReprodutorMetricas());
+        ServidorHttp servidor;
+        try {
+            servidor = new ServidorHttp(model, porta);
+        } catch (IOException e) {
+            System.out.println("Erro ao iniciar o servidor HTTP: " + e.getMessage());
+            return;
+        }
+        CountDownLatch terminado = new CountDownLatch(1);
+        Thread fecho = new Thread(() -> {
+            servidor.close();
+            try {
+                model.fecharDiario();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar o diário: " + e.getMessage());
+            }
+            terminado.countDown();
+        });
+        Runtime.getRuntime().addShutdownHook(fecho);
+        servidor.iniciar();
+        System.out.println("Servidor HTTP na porta " + servidor.getPorta());
+        try {
+            terminado.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
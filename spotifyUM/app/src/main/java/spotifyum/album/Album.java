@@ -14,6 +14,9 @@ public class Album implements Serializable {
     /** Lista de músicas do Álbum */
     private List<Musica> musicas;
 
+    /** Vista só de leitura da lista de músicas, criada na primeira utilização */
+    private transient List<Musica> vistaMusicas;
+
     /**
      * Construtor vazio
      * 
@@ -70,6 +73,20 @@ public class Album implements Serializable {
     public List<Musica> getMusicas(){
         return new ArrayList<>(this.musicas);
     }
+
+    /**
+     * Método que devolve uma vista só de leitura da lista de músicas do álbum.
+     * 
+     * Ao contrário de getMusicas, não copia a lista, pelo que reflete as alterações ao álbum.
+     * 
+     * @return Vista só de leitura da lista de músicas
+     */
+    public List<Musica> getMusicasVista(){
+        if (this.vistaMusicas == null) {
+            this.vistaMusicas = Collections.unmodifiableList(this.musicas);
+        }
+        return this.vistaMusicas;
+    }
     
     /**
      * Método que define o título do álbum.
@@ -87,6 +104,7 @@ public class Album implements Serializable {
      */
     public void setMusicas(List<Musica> novasMusicas){
         this.musicas = new ArrayList<>(novasMusicas);
+        this.vistaMusicas = null;
     }
 
     /**
@@ -140,7 +158,7 @@ public class Album implements Serializable {
         }
         Album a = (Album) o;
         return this.titulo.equals(a.getTitulo()) &&
-               this.musicas.equals(a.getMusicas());
+               this.musicas.equals(a.getMusicasVista());
     }
 
     /**
@@ -151,8 +169,6 @@ public class Album implements Serializable {
      * @param u Utilizador que está a reproduzir o álbum
      */
     public void reproduzir(Utilizador u){
-        for(Musica m : this.musicas){
-            u.ouvirMusica(m);
-        }
+        u.ouvirLote(this.getMusicasVista());
     }
 }
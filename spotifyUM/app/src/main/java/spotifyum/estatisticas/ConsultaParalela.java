@@ -0,0 +1,269 @@
+package spotifyum.estatisticas;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Classe que executa agregações (contagens e máximos) sobre coleções, em paralelo num ForkJoinPool.
+ *
+ * A coleção é copiada para um array e dividida ao meio recursivamente até cada parte ter no máximo
+ * {@code limiar} elementos; cada parte é agregada sequencialmente num resultado parcial e os parciais
+ * são juntos pela ordem do array. Por isso o resultado é igual ao da execução sequencial, incluindo
+ * os desempates (fica o primeiro elemento pela ordem da coleção). Coleções com até {@code limiar}
+ * elementos são agregadas diretamente na thread que chama, sem cópia e sem usar o pool.
+ */
+public class ConsultaParalela {
+
+    /** Número de elementos a partir do qual uma agregação é dividida, por omissão */
+    public static final int LIMIAR_OMISSAO = 4096;
+
+    /** Pool onde são executadas as agregações paralelas */
+    private final ForkJoinPool pool;
+
+    /** Número máximo de elementos agregados sequencialmente */
+    private final int limiar;
+
+    /**
+     * Agregação de elementos do tipo T em resultados parciais do tipo A.
+     *
+     * @param <T> Tipo dos elementos
+     * @param <A> Tipo dos resultados parciais (mutáveis)
+     */
+    public interface Acumulador<T, A> {
+
+        /**
+         * Método que cria um resultado parcial vazio.
+         *
+         * @return Resultado parcial vazio
+         */
+        A criar();
+
+        /**
+         * Método que junta um elemento a um resultado parcial.
+         *
+         * @param parcial Resultado parcial
+         * @param elemento Elemento a juntar
+         */
+        void acumular(A parcial, T elemento);
+
+        /**
+         * Método que junta dois resultados parciais de partes consecutivas da coleção.
+         *
+         * @param esquerda Resultado da parte anterior
+         * @param direita Resultado da parte seguinte
+         * @return Resultado das duas partes (pode ser um dos argumentos, alterado)
+         */
+        A juntar(A esquerda, A direita);
+    }
+
+    /**
+     * Classe com o elemento de maior valor de uma agregação.
+     *
+     * Só conta valores positivos; em caso de empate fica o primeiro elemento.
+     *
+     * @param <T> Tipo dos elementos
+     */
+    public static class Maximo<T> {
+
+        /** Elemento com maior valor, ou null se nenhum tiver valor positivo */
+        private T elemento;
+
+        /** Maior valor */
+        private double valor;
+
+        /**
+         * Método que devolve o elemento com maior valor.
+         *
+         * @return Elemento com maior valor, ou null se nenhum tiver valor positivo
+         */
+        public T getElemento() {
+            return this.elemento;
+        }
+
+        /**
+         * Método que devolve o maior valor.
+         *
+         * @return Maior valor (0 se nenhum elemento tiver valor positivo)
+         */
+        public double getValor() {
+            return this.valor;
+        }
+    }
+
+    /**
+     * Construtor vazio
+     *
+     * Usa o pool comum e o limiar por omissão.
+     */
+    public ConsultaParalela() {
+        this(ForkJoinPool.commonPool(), LIMIAR_OMISSAO);
+    }
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param pool Pool onde são executadas as agregações paralelas
+     * @param limiar Número máximo de elementos agregados sequencialmente (Integer.MAX_VALUE para nunca paralelizar)
+     */
+    public ConsultaParalela(ForkJoinPool pool, int limiar) {
+        if (limiar < 1) {
+            throw new IllegalArgumentException("Limiar inválido: " + limiar);
+        }
+        this.pool = pool;
+        this.limiar = limiar;
+    }
+
+    /**
+     * Método que cria uma consulta que agrega sempre sequencialmente.
+     *
+     * @return Consulta sequencial
+     */
+    public static ConsultaParalela sequencial() {
+        return new ConsultaParalela(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Método que devolve o número máximo de elementos agregados sequencialmente.
+     *
+     * @return Limiar
+     */
+    public int getLimiar() {
+        return this.limiar;
+    }
+
+    /**
+     * Método que agrega os elementos de uma coleção.
+     *
+     * A coleção não pode ser alterada durante a cópia; depois disso, os elementos são lidos
+     * em paralelo, pelo que o acumulador não pode depender de estado alterado por outras threads.
+     *
+     * @param elementos Elementos a agregar
+     * @param acumulador Agregação
+     * @param <T> Tipo dos elementos
+     * @param <A> Tipo do resultado
+     * @return Resultado da agregação
+     */
+    public <T, A> A executar(Collection<? extends T> elementos, Acumulador<? super T, A> acumulador) {
+        if (elementos.size() <= this.limiar) {
+            A resultado = acumulador.criar();
+            for (T elemento : elementos) {
+                acumulador.acumular(resultado, elemento);
+            }
+            return resultado;
+        }
+        Object[] array = elementos.toArray();
+        return this.pool.invoke(new Tarefa<>(array, 0, array.length, this.limiar, acumulador));
+    }
+
+    /**
+     * Tarefa que agrega uma parte de um array, dividindo-a se tiver mais do que limiar elementos.
+     *
+     * @param <T> Tipo dos elementos
+     * @param <A> Tipo do resultado
+     */
+    private static class Tarefa<T, A> extends RecursiveTask<A> {
+
+        private final Object[] elementos;
+        private final int inicio;
+        private final int fim;
+        private final int limiar;
+        private final Acumulador<? super T, A> acumulador;
+
+        /**
+         * Construtor parametrizado
+         *
+         * @param elementos Array com todos os elementos
+         * @param inicio Primeira posição da parte (inclusiva)
+         * @param fim Última posição da parte (exclusiva)
+         * @param limiar Número máximo de elementos agregados sequencialmente
+         * @param acumulador Agregação
+         */
+        Tarefa(Object[] elementos, int inicio, int fim, int limiar, Acumulador<? super T, A> acumulador) {
+            this.elementos = elementos;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.limiar = limiar;
+            this.acumulador = acumulador;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected A compute() {
+            if (this.fim - this.inicio <= this.limiar) {
+                A resultado = this.acumulador.criar();
+                for (int i = this.inicio; i < this.fim; i++) {
+                    this.acumulador.acumular(resultado, (T) this.elementos[i]);
+                }
+                return resultado;
+            }
+            int meio = (this.inicio + this.fim) >>> 1;
+            Tarefa<T, A> esquerda = new Tarefa<>(this.elementos, this.inicio, meio, this.limiar, this.acumulador);
+            Tarefa<T, A> direita = new Tarefa<>(this.elementos, meio, this.fim, this.limiar, this.acumulador);
+            esquerda.fork();
+            A resultadoDireita = direita.compute();
+            return this.acumulador.juntar(esquerda.join(), resultadoDireita);
+        }
+    }
+
+    /**
+     * Método que cria a agregação que conta os elementos que cumprem uma condição.
+     *
+     * @param condicao Condição
+     * @param <T> Tipo dos elementos
+     * @return Agregação, com o resultado na posição 0 do array
+     */
+    public static <T> Acumulador<T, long[]> contar(Predicate<? super T> condicao) {
+        return new Acumulador<>() {
+            @Override
+            public long[] criar() {
+                return new long[1];
+            }
+
+            @Override
+            public void acumular(long[] parcial, T elemento) {
+                if (condicao.test(elemento)) {
+                    parcial[0]++;
+                }
+            }
+
+            @Override
+            public long[] juntar(long[] esquerda, long[] direita) {
+                esquerda[0] += direita[0];
+                return esquerda;
+            }
+        };
+    }
+
+    /**
+     * Método que cria a agregação que encontra o elemento com maior valor positivo.
+     *
+     * @param valor Função que dá o valor de cada elemento
+     * @param <T> Tipo dos elementos
+     * @return Agregação
+     */
+    public static <T> Acumulador<T, Maximo<T>> maximo(ToDoubleFunction<? super T> valor) {
+        return new Acumulador<>() {
+            @Override
+            public Maximo<T> criar() {
+                return new Maximo<>();
+            }
+
+            @Override
+            public void acumular(Maximo<T> parcial, T elemento) {
+                double v = valor.applyAsDouble(elemento);
+                if (v > parcial.valor) {
+                    parcial.valor = v;
+                    parcial.elemento = elemento;
+                }
+            }
+
+            @Override
+            public Maximo<T> juntar(Maximo<T> esquerda, Maximo<T> direita) {
+                return direita.valor > esquerda.valor ? direita : esquerda;
+            }
+        };
+    }
+}
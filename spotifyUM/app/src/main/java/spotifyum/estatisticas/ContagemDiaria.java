@@ -0,0 +1,154 @@
+package spotifyum.estatisticas;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Classe que guarda o número de reproduções de um utilizador agregadas por dia.
+ *
+ * Os dias (em epoch days) são mantidos ordenados, juntamente com as somas acumuladas das reproduções,
+ * pelo que o número de reproduções num intervalo de datas é obtido com duas pesquisas binárias.
+ * Como as reproduções chegam quase sempre com a data atual, registar uma reprodução custa O(1) amortizado.
+ *
+ * Os métodos são sincronizados na própria contagem, para que as queries por intervalo a possam ler
+ * enquanto as reproduções do utilizador são registadas.
+ */
+public class ContagemDiaria {
+
+    /** Capacidade inicial dos arrays */
+    private static final int CAPACIDADE_INICIAL = 8;
+
+    /** Dias com reproduções, em epoch days, por ordem crescente */
+    private int[] dias;
+
+    /** Soma acumulada das reproduções até cada dia (inclusive) */
+    private int[] acumulado;
+
+    /** Número de dias distintos registados */
+    private int tamanho;
+
+    /**
+     * Construtor vazio
+     *
+     * Cria uma contagem sem reproduções.
+     */
+    public ContagemDiaria() {
+        this.dias = new int[CAPACIDADE_INICIAL];
+        this.acumulado = new int[CAPACIDADE_INICIAL];
+        this.tamanho = 0;
+    }
+
+    /**
+     * Método que devolve o número total de reproduções registadas.
+     *
+     * @return Total de reproduções
+     */
+    public synchronized int total() {
+        return this.tamanho == 0 ? 0 : this.acumulado[this.tamanho - 1];
+    }
+
+    /**
+     * Método que regista uma reprodução numa data.
+     *
+     * @param data Data da reprodução
+     */
+    public void registar(LocalDate data) {
+        registar((int) data.toEpochDay(), 1);
+    }
+
+    /**
+     * Método que regista n reproduções num dia.
+     *
+     * @param dia Dia das reproduções, em epoch days
+     * @param n Número de reproduções
+     */
+    public synchronized void registar(int dia, int n) {
+        int t = this.tamanho;
+        if (t > 0 && this.dias[t - 1] == dia) {
+            this.acumulado[t - 1] += n;
+            return;
+        }
+        if (t == 0 || this.dias[t - 1] < dia) {
+            garantirCapacidade(t + 1);
+            this.dias[t] = dia;
+            this.acumulado[t] = total() + n;
+            this.tamanho++;
+            return;
+        }
+
+        // Reprodução fora de ordem: só acontece ao reconstruir o índice a partir de um histórico arbitrário
+        int pos = Arrays.binarySearch(this.dias, 0, t, dia);
+        if (pos < 0) {
+            pos = -pos - 1;
+            garantirCapacidade(t + 1);
+            System.arraycopy(this.dias, pos, this.dias, pos + 1, t - pos);
+            System.arraycopy(this.acumulado, pos, this.acumulado, pos + 1, t - pos);
+            this.dias[pos] = dia;
+            this.acumulado[pos] = pos > 0 ? this.acumulado[pos - 1] : 0;
+            this.tamanho++;
+        }
+        for (int i = pos; i < this.tamanho; i++) {
+            this.acumulado[i] += n;
+        }
+    }
+
+    /**
+     * Método que conta as reproduções entre duas datas (inclusive).
+     *
+     * @param inicio Data de início
+     * @param fim Data de fim
+     * @return Número de reproduções no intervalo
+     */
+    public int contar(LocalDate inicio, LocalDate fim) {
+        return contar((int) inicio.toEpochDay(), (int) fim.toEpochDay());
+    }
+
+    /**
+     * Método que conta as reproduções entre dois dias (inclusive).
+     *
+     * @param inicio Dia de início, em epoch days
+     * @param fim Dia de fim, em epoch days
+     * @return Número de reproduções no intervalo
+     */
+    public synchronized int contar(int inicio, int fim) {
+        if (inicio > fim) {
+            return 0;
+        }
+        return acumuladoAte(fim) - acumuladoAte(inicio - 1);
+    }
+
+    /**
+     * Método que devolve a soma das reproduções até um dia (inclusive).
+     *
+     * @param dia Dia, em epoch days
+     * @return Reproduções registadas até ao dia
+     */
+    private int acumuladoAte(int dia) {
+        int lo = 0;
+        int hi = this.tamanho - 1;
+        int resultado = -1;
+        while (lo <= hi) {
+            int meio = (lo + hi) >>> 1;
+            if (this.dias[meio] <= dia) {
+                resultado = meio;
+                lo = meio + 1;
+            } else {
+                hi = meio - 1;
+            }
+        }
+        return resultado < 0 ? 0 : this.acumulado[resultado];
+    }
+
+    /**
+     * Método que garante que os arrays têm pelo menos a capacidade indicada.
+     *
+     * @param capacidade Capacidade mínima
+     */
+    private void garantirCapacidade(int capacidade) {
+        if (capacidade > this.dias.length) {
+            int novaCapacidade = Math.max(capacidade, this.dias.length * 2);
+            this.dias = Arrays.copyOf(this.dias, novaCapacidade);
+            this.acumulado = Arrays.copyOf(this.acumulado, novaCapacidade);
+        }
+    }
+}
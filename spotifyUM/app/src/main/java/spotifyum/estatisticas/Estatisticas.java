@@ -0,0 +1,428 @@
+package spotifyum.estatisticas;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import spotifyum.musica.Musica;
+import spotifyum.utilizador.HistoricoCompacto;
+import spotifyum.utilizador.OuvinteReproducao;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe que mantém as estatísticas do SpotifyUM atualizadas a cada reprodução.
+ *
+ * Em vez de percorrer todas as músicas ou utilizadores em cada query, são mantidos rankings
+ * por música, artista, género e utilizador, atualizados incrementalmente sempre que um
+ * utilizador ouve uma música ou o catálogo é alterado.
+ *
+ * As reproduções de vários utilizadores chegam em paralelo, pelo que cada grupo de estruturas tem o
+ * seu próprio lock, mantido apenas durante um punhado de operações: os rankings do catálogo (músicas,
+ * artistas e géneros, que mudam em conjunto) são protegidos pelo ranking das músicas, os rankings dos
+ * utilizadores pelo ranking dos pontos, e cada contagem diária por si própria. As queries por intervalo
+ * percorrem uma cópia das contagens, sem bloquear as reproduções que entretanto cheguem.
+ */
+public class Estatisticas implements OuvinteReproducao {
+
+    /** Ranking das músicas do catálogo por número de reproduções (lock dos rankings do catálogo) */
+    private final Ranking musicas;
+
+    /** Ranking dos artistas por número de reproduções das suas músicas */
+    private final Ranking artistas;
+
+    /** Ranking dos géneros por número de reproduções das suas músicas */
+    private final Ranking generos;
+
+    /** Número de músicas do catálogo de cada artista, indexado pelo ordinal do artista */
+    private int[] musicasPorArtista;
+
+    /** Número de músicas do catálogo de cada género, indexado pelo ordinal do género */
+    private int[] musicasPorGenero;
+
+    /** Ranking dos utilizadores por pontos (lock dos rankings dos utilizadores) */
+    private final Ranking pontos;
+
+    /** Ranking dos utilizadores por número de músicas ouvidas */
+    private final Ranking musicasOuvidas;
+
+    /** Map que associa cada utilizador às suas reproduções agregadas por dia */
+    private final Map<String, ContagemDiaria> reproducoesDiarias;
+
+    /** Execução das queries que percorrem todos os utilizadores */
+    private volatile ConsultaParalela consultas;
+
+    /**
+     * Construtor vazio
+     *
+     * Cria as estatísticas com todos os rankings vazios.
+     */
+    public Estatisticas() {
+        this.musicas = new Ranking();
+        this.artistas = new Ranking();
+        this.generos = new Ranking();
+        this.musicasPorArtista = new int[16];
+        this.musicasPorGenero = new int[16];
+        this.pontos = new Ranking();
+        this.musicasOuvidas = new Ranking();
+        this.reproducoesDiarias = new ConcurrentHashMap<>();
+        this.consultas = new ConsultaParalela();
+    }
+
+    /**
+     * Método que define como são executadas as queries que percorrem todos os utilizadores.
+     *
+     * @param consultas Execução das queries (paralela ou sequencial)
+     */
+    public void setConsultas(ConsultaParalela consultas) {
+        this.consultas = consultas;
+    }
+
+    /**
+     * Método que regista uma música do catálogo, contabilizando as reproduções que já tenha.
+     *
+     * @param m Música adicionada ao catálogo
+     */
+    public void adicionarMusica(Musica m) {
+        int reproducoes = m.getReproducoes();
+        synchronized (this.musicas) {
+            this.musicas.definir(m.getId(), reproducoes);
+            this.artistas.incrementar(m.getArtista(), reproducoes);
+            this.generos.incrementar(m.getGenero(), reproducoes);
+            this.musicasPorArtista = incrementar(this.musicasPorArtista, m.getOrdinalArtista(), 1);
+            this.musicasPorGenero = incrementar(this.musicasPorGenero, m.getOrdinalGenero(), 1);
+        }
+    }
+
+    /**
+     * Método que retira uma música do catálogo, descontando as suas reproduções.
+     *
+     * @param m Música removida do catálogo
+     */
+    public void removerMusica(Musica m) {
+        synchronized (this.musicas) {
+            if (!this.musicas.contem(m.getId())) {
+                return;
+            }
+            double reproducoes = this.musicas.getValor(m.getId());
+            this.musicas.remover(m.getId());
+            this.artistas.incrementar(m.getArtista(), -reproducoes);
+            this.generos.incrementar(m.getGenero(), -reproducoes);
+
+            // Um artista ou género sem músicas no catálogo deixa de contar para os rankings
+            this.musicasPorArtista = incrementar(this.musicasPorArtista, m.getOrdinalArtista(), -1);
+            if (this.musicasPorArtista[m.getOrdinalArtista()] == 0) {
+                this.artistas.remover(m.getArtista());
+            }
+            this.musicasPorGenero = incrementar(this.musicasPorGenero, m.getOrdinalGenero(), -1);
+            if (this.musicasPorGenero[m.getOrdinalGenero()] == 0) {
+                this.generos.remover(m.getGenero());
+            }
+        }
+    }
+
+    /**
+     * Método que soma um valor à contagem de um ordinal, aumentando o array se necessário.
+     *
+     * @param contagens Contagens indexadas pelo ordinal
+     * @param ordinal Ordinal a atualizar
+     * @param delta Valor a somar
+     * @return O array de contagens (um novo array, se teve de crescer)
+     */
+    private static int[] incrementar(int[] contagens, int ordinal, int delta) {
+        if (ordinal >= contagens.length) {
+            contagens = Arrays.copyOf(contagens, Math.max(ordinal + 1, contagens.length * 2));
+        }
+        contagens[ordinal] += delta;
+        return contagens;
+    }
+
+    /**
+     * Método que regista um utilizador, indexando por dia as reproduções do seu histórico.
+     *
+     * O histórico é percorrido pelas suas sequências de reproduções no mesmo dia, pelo que cada sequência
+     * é registada de uma vez, sem criar objetos por reprodução.
+     *
+     * @param u Utilizador a registar
+     */
+    public void adicionarUtilizador(Utilizador u) {
+        ContagemDiaria contagem = new ContagemDiaria();
+        HistoricoCompacto historico = u.getHistoricoCompacto();
+        int inicio = 0;
+        for (int s = 0; s < historico.getNumSequencias(); s++) {
+            int fim = historico.getFimSequencia(s);
+            contagem.registar(historico.getDiaSequencia(s), fim - inicio);
+            inicio = fim;
+        }
+        this.reproducoesDiarias.put(u.getId(), contagem);
+        atualizarUtilizador(u);
+    }
+
+    /**
+     * Método que regista (ou atualiza) os pontos e o número de músicas de um utilizador.
+     *
+     * @param u Utilizador a registar
+     */
+    public void atualizarUtilizador(Utilizador u) {
+        double pontosUtilizador = u.getPontos();
+        int numMusicas = u.getNumMusicas();
+        synchronized (this.pontos) {
+            this.pontos.definir(u.getId(), pontosUtilizador);
+            this.musicasOuvidas.definir(u.getId(), numMusicas);
+        }
+    }
+
+    /**
+     * Método que retira um utilizador das estatísticas.
+     *
+     * @param id ID do utilizador
+     */
+    public void removerUtilizador(String id) {
+        synchronized (this.pontos) {
+            this.pontos.remover(id);
+            this.musicasOuvidas.remover(id);
+        }
+        this.reproducoesDiarias.remove(id);
+    }
+
+    /**
+     * Método invocado quando um utilizador ouve uma música.
+     *
+     * Só as músicas que pertencem ao catálogo contam para os rankings de músicas, artistas e géneros.
+     *
+     * @param u Utilizador que ouviu a música
+     * @param m Música ouvida
+     * @param data Data da reprodução
+     */
+    @Override
+    public void reproducaoRegistada(Utilizador u, Musica m, LocalDate data) {
+        synchronized (this.musicas) {
+            if (this.musicas.contem(m.getId())) {
+                this.musicas.incrementar(m.getId(), 1);
+                this.artistas.incrementar(m.getArtista(), 1);
+                this.generos.incrementar(m.getGenero(), 1);
+            }
+        }
+        this.reproducoesDiarias.computeIfAbsent(u.getId(), id -> new ContagemDiaria()).registar(data);
+        atualizarUtilizador(u);
+    }
+
+    /**
+     * Método invocado quando um utilizador ouve um lote de músicas na mesma data.
+     *
+     * As reproduções são agregadas por música, artista e género antes de atualizar os rankings,
+     * pelo que cada chave é reposicionada uma única vez por lote.
+     *
+     * @param u Utilizador que ouviu as músicas
+     * @param musicas Músicas ouvidas
+     * @param data Data das reproduções
+     */
+    @Override
+    public void reproducoesRegistadas(Utilizador u, List<Musica> musicas, LocalDate data) {
+        Map<String, Integer> porMusica = new LinkedHashMap<>();
+        Map<String, Integer> porArtista = new LinkedHashMap<>();
+        Map<String, Integer> porGenero = new LinkedHashMap<>();
+        synchronized (this.musicas) {
+            for (Musica m : musicas) {
+                if (this.musicas.contem(m.getId())) {
+                    porMusica.merge(m.getId(), 1, Integer::sum);
+                    porArtista.merge(m.getArtista(), 1, Integer::sum);
+                    porGenero.merge(m.getGenero(), 1, Integer::sum);
+                }
+            }
+            porMusica.forEach(this.musicas::incrementar);
+            porArtista.forEach(this.artistas::incrementar);
+            porGenero.forEach(this.generos::incrementar);
+        }
+        this.reproducoesDiarias.computeIfAbsent(u.getId(), id -> new ContagemDiaria()).registar((int) data.toEpochDay(), musicas.size());
+        atualizarUtilizador(u);
+    }
+
+    /**
+     * Método que devolve o ID da música com mais reproduções.
+     *
+     * @return ID da música, ou null se o catálogo estiver vazio
+     */
+    public String getMusicaMaisReproduzida() {
+        synchronized (this.musicas) {
+            return this.musicas.getPrimeiro();
+        }
+    }
+
+    /**
+     * Método que devolve o número de reproduções de uma música.
+     *
+     * @param id ID da música
+     * @return Número de reproduções da música
+     */
+    public long getReproducoesMusica(String id) {
+        synchronized (this.musicas) {
+            return (long) this.musicas.getValor(id);
+        }
+    }
+
+    /**
+     * Método que devolve o artista com mais reproduções.
+     *
+     * @return Nome do artista, ou null se o catálogo estiver vazio
+     */
+    public String getArtistaMaisEscutado() {
+        synchronized (this.musicas) {
+            return this.artistas.getPrimeiro();
+        }
+    }
+
+    /**
+     * Método que devolve o número de reproduções de um artista.
+     *
+     * @param artista Nome do artista
+     * @return Número de reproduções das músicas do artista
+     */
+    public long getReproducoesArtista(String artista) {
+        synchronized (this.musicas) {
+            return (long) this.artistas.getValor(artista);
+        }
+    }
+
+    /**
+     * Método que devolve o género com mais reproduções.
+     *
+     * @return Género, ou null se o catálogo estiver vazio
+     */
+    public String getGeneroMaisReproduzido() {
+        synchronized (this.musicas) {
+            return this.generos.getPrimeiro();
+        }
+    }
+
+    /**
+     * Método que devolve o número de reproduções de um género.
+     *
+     * @param genero Género
+     * @return Número de reproduções das músicas do género
+     */
+    public long getReproducoesGenero(String genero) {
+        synchronized (this.musicas) {
+            return (long) this.generos.getValor(genero);
+        }
+    }
+
+    /**
+     * Método que devolve o ID do utilizador com mais pontos.
+     *
+     * @return ID do utilizador, ou null se não houver utilizadores
+     */
+    public String getUtilizadorMaisPontos() {
+        synchronized (this.pontos) {
+            return this.pontos.getPrimeiro();
+        }
+    }
+
+    /**
+     * Método que devolve os pontos de um utilizador.
+     *
+     * @param id ID do utilizador
+     * @return Pontos do utilizador
+     */
+    public double getPontos(String id) {
+        synchronized (this.pontos) {
+            return this.pontos.getValor(id);
+        }
+    }
+
+    /**
+     * Método que devolve o ID do utilizador com mais músicas ouvidas.
+     *
+     * @return ID do utilizador, ou null se não houver utilizadores
+     */
+    public String getUtilizadorMaisMusicasOuvidas() {
+        synchronized (this.pontos) {
+            return this.musicasOuvidas.getPrimeiro();
+        }
+    }
+
+    /**
+     * Método que devolve o número de músicas ouvidas por um utilizador.
+     *
+     * @param id ID do utilizador
+     * @return Número de músicas ouvidas
+     */
+    public int getNumMusicas(String id) {
+        synchronized (this.pontos) {
+            return (int) this.musicasOuvidas.getValor(id);
+        }
+    }
+
+    /**
+     * Método que devolve o ID do utilizador com mais músicas ouvidas entre duas datas (inclusive).
+     *
+     * Cada utilizador custa duas pesquisas binárias no seu índice diário, em vez de percorrer o histórico.
+     * A query percorre uma cópia das entradas atuais sem nenhum lock das estatísticas; cada contagem só é
+     * bloqueada durante a sua leitura, pelo que as reproduções continuam a ser registadas em paralelo.
+     *
+     * @param inicio Data de início
+     * @param fim Data de fim
+     * @return ID do utilizador, ou null se ninguém ouviu músicas no intervalo
+     */
+    public String getUtilizadorMaisMusicasOuvidas(LocalDate inicio, LocalDate fim) {
+        int diaInicio = (int) inicio.toEpochDay();
+        int diaFim = (int) fim.toEpochDay();
+        // A iteração do ConcurrentHashMap não bloqueia as escritas, e a consulta copia as entradas antes de as dividir
+        Map.Entry<String, ContagemDiaria> max = this.consultas.executar(
+            this.reproducoesDiarias.entrySet(),
+            ConsultaParalela.<Map.Entry<String, ContagemDiaria>>maximo(e -> e.getValue().contar(diaInicio, diaFim))
+        ).getElemento();
+        return max == null ? null : max.getKey();
+    }
+
+    /**
+     * Método que devolve o número de músicas ouvidas por um utilizador entre duas datas (inclusive).
+     *
+     * @param id ID do utilizador
+     * @param inicio Data de início
+     * @param fim Data de fim
+     * @return Número de músicas ouvidas no intervalo
+     */
+    public int getNumMusicas(String id, LocalDate inicio, LocalDate fim) {
+        ContagemDiaria contagem = this.reproducoesDiarias.get(id);
+        return contagem == null ? 0 : contagem.contar(inicio, fim);
+    }
+
+    /**
+     * Método que devolve as n músicas com mais reproduções.
+     *
+     * @param n Número de músicas a devolver
+     * @return Lista de IDs das músicas, por ordem decrescente de reproduções
+     */
+    public List<String> getTopMusicas(int n) {
+        synchronized (this.musicas) {
+            return this.musicas.getTop(n);
+        }
+    }
+
+    /**
+     * Método que devolve os n artistas com mais reproduções.
+     *
+     * @param n Número de artistas a devolver
+     * @return Lista de artistas, por ordem decrescente de reproduções
+     */
+    public List<String> getTopArtistas(int n) {
+        synchronized (this.musicas) {
+            return this.artistas.getTop(n);
+        }
+    }
+
+    /**
+     * Método que devolve os n géneros com mais reproduções.
+     *
+     * @param n Número de géneros a devolver
+     * @return Lista de géneros, por ordem decrescente de reproduções
+     */
+    public List<String> getTopGeneros(int n) {
+        synchronized (this.musicas) {
+            return this.generos.getTop(n);
+        }
+    }
+}
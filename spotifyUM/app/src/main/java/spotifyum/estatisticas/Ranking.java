@@ -0,0 +1,151 @@
+package spotifyum.estatisticas;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Classe que mantém um ranking ordenado de chaves por valor.
+ *
+ * As entradas são guardadas numa árvore ordenada por valor decrescente (e por chave, em caso de empate),
+ * pelo que cada atualização custa O(log n) e a consulta do primeiro lugar custa O(1).
+ */
+public class Ranking {
+
+    /** Entrada do ranking, com a chave e o respetivo valor */
+    private static class Entrada {
+
+        /** Chave da entrada */
+        private final String chave;
+
+        /** Valor associado à chave */
+        private double valor;
+
+        /**
+         * Construtor parametrizado
+         *
+         * @param chave Chave da entrada
+         * @param valor Valor inicial da entrada
+         */
+        private Entrada(String chave, double valor) {
+            this.chave = chave;
+            this.valor = valor;
+        }
+    }
+
+    /** Map que associa cada chave à sua entrada */
+    private Map<String, Entrada> entradas;
+
+    /** Entradas ordenadas por valor decrescente e por chave crescente */
+    private TreeSet<Entrada> ordem;
+
+    /**
+     * Construtor vazio
+     *
+     * Cria um ranking sem entradas.
+     */
+    public Ranking() {
+        this.entradas = new HashMap<>();
+        this.ordem = new TreeSet<>((a, b) -> {
+            int c = Double.compare(b.valor, a.valor);
+            return c != 0 ? c : a.chave.compareTo(b.chave);
+        });
+    }
+
+    /**
+     * Método que devolve o número de entradas do ranking.
+     *
+     * @return Número de entradas
+     */
+    public int tamanho() {
+        return this.entradas.size();
+    }
+
+    /**
+     * Método que verifica se uma chave existe no ranking.
+     *
+     * @param chave Chave a procurar
+     * @return true se a chave existir, false caso contrário
+     */
+    public boolean contem(String chave) {
+        return this.entradas.containsKey(chave);
+    }
+
+    /**
+     * Método que devolve o valor associado a uma chave.
+     *
+     * @param chave Chave a procurar
+     * @return Valor da chave, ou 0 se a chave não existir
+     */
+    public double getValor(String chave) {
+        Entrada e = this.entradas.get(chave);
+        return e == null ? 0 : e.valor;
+    }
+
+    /**
+     * Método que define o valor de uma chave, adicionando-a se ainda não existir.
+     *
+     * @param chave Chave a definir
+     * @param valor Novo valor da chave
+     */
+    public void definir(String chave, double valor) {
+        Entrada e = this.entradas.get(chave);
+        if (e == null) {
+            e = new Entrada(chave, valor);
+            this.entradas.put(chave, e);
+        } else {
+            this.ordem.remove(e);
+            e.valor = valor;
+        }
+        this.ordem.add(e);
+    }
+
+    /**
+     * Método que soma um valor ao valor atual de uma chave, adicionando-a se ainda não existir.
+     *
+     * @param chave Chave a incrementar
+     * @param delta Valor a somar
+     */
+    public void incrementar(String chave, double delta) {
+        definir(chave, getValor(chave) + delta);
+    }
+
+    /**
+     * Método que remove uma chave do ranking.
+     *
+     * @param chave Chave a remover
+     */
+    public void remover(String chave) {
+        Entrada e = this.entradas.remove(chave);
+        if (e != null) {
+            this.ordem.remove(e);
+        }
+    }
+
+    /**
+     * Método que devolve a chave com maior valor.
+     *
+     * @return Chave em primeiro lugar, ou null se o ranking estiver vazio
+     */
+    public String getPrimeiro() {
+        return this.ordem.isEmpty() ? null : this.ordem.first().chave;
+    }
+
+    /**
+     * Método que devolve as n chaves com maior valor, por ordem decrescente.
+     *
+     * @param n Número de chaves a devolver
+     * @return Lista com as n primeiras chaves
+     */
+    public List<String> getTop(int n) {
+        List<String> top = new ArrayList<>(Math.min(n, this.ordem.size()));
+        Iterator<Entrada> it = this.ordem.iterator();
+        while (it.hasNext() && top.size() < n) {
+            top.add(it.next().chave);
+        }
+        return top;
+    }
+}
@@ -0,0 +1,71 @@
+package spotifyum.estatisticas;
+
+import java.time.LocalDate;
+
+/**
+ * Resultado de uma query estatística.
+ *
+ * Cada query devolve um record com os identificadores e as contagens encontrados, sem texto formatado,
+ * para que o resultado possa ser guardado em cache, serializado ou medido sem escrever na consola;
+ * a apresentação fica a cargo da view. Quando nada é encontrado, o identificador é null.
+ */
+public sealed interface ResultadoQuery {
+
+    /**
+     * Resultado da query 1: música com mais reproduções.
+     *
+     * @param id ID da música, ou null se nenhuma foi reproduzida
+     * @param nome Nome da música
+     * @param reproducoes Número de reproduções
+     */
+    record MusicaMaisReproduzida(String id, String nome, long reproducoes) implements ResultadoQuery {}
+
+    /**
+     * Resultado da query 2: artista com mais reproduções.
+     *
+     * @param artista Nome do artista, ou null se nenhum foi escutado
+     * @param reproducoes Número de reproduções
+     */
+    record ArtistaMaisEscutado(String artista, long reproducoes) implements ResultadoQuery {}
+
+    /**
+     * Resultado da query 3: utilizador que mais músicas ouviu, desde sempre ou num intervalo de datas.
+     *
+     * @param id ID do utilizador, ou null se nenhum ouviu músicas
+     * @param musicas Número de músicas ouvidas
+     * @param inicio Data de início do intervalo (inclusive), ou null desde sempre
+     * @param fim Data de fim do intervalo (inclusive), ou null desde sempre
+     */
+    record UtilizadorMaisMusicas(String id, int musicas, LocalDate inicio, LocalDate fim) implements ResultadoQuery {}
+
+    /**
+     * Resultado da query 4: utilizador com mais pontos.
+     *
+     * @param id ID do utilizador, ou null se nenhum tem pontos
+     * @param pontos Número de pontos
+     */
+    record UtilizadorMaisPontos(String id, double pontos) implements ResultadoQuery {}
+
+    /**
+     * Resultado da query 5: género com mais reproduções.
+     *
+     * @param genero Género, ou null se não há reproduções
+     * @param reproducoes Número de reproduções
+     */
+    record GeneroMaisReproduzido(String genero, long reproducoes) implements ResultadoQuery {}
+
+    /**
+     * Resultado da query 6: número de playlists públicas.
+     *
+     * @param numero Número de playlists públicas
+     */
+    record PlaylistsPublicas(long numero) implements ResultadoQuery {}
+
+    /**
+     * Resultado da query 7: utilizador premium com mais playlists.
+     *
+     * @param id ID do utilizador, ou null se nenhum utilizador premium tem playlists
+     * @param playlists Número de playlists
+     */
+    record UtilizadorMaisPlaylists(String id, int playlists) implements ResultadoQuery {}
+}
@@ -0,0 +1,313 @@
+package spotifyum.http;
+
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe com a escrita e a leitura do JSON usado pela API HTTP, sem dependências externas.
+ *
+ * A escrita converte valores simples, mapas, coleções e records (como os resultados das queries,
+ * componente a componente); a leitura devolve objetos como mapas, arrays como listas, números
+ * inteiros como Long e os restantes como Double.
+ */
+public final class Json {
+
+    /**
+     * Construtor privado, porque a classe só tem métodos estáticos.
+     */
+    private Json() {
+    }
+
+    /**
+     * Método que escreve um valor em JSON.
+     *
+     * @param valor Valor a escrever
+     * @return Texto JSON
+     */
+    public static String escrever(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escrever(sb, valor);
+        return sb.toString();
+    }
+
+    /**
+     * Método que escreve um valor em JSON num StringBuilder.
+     *
+     * Valores de outros tipos (datas, enums, ...) são escritos como o texto do seu toString.
+     *
+     * @param sb Destino do texto
+     * @param valor Valor a escrever
+     */
+    public static void escrever(StringBuilder sb, Object valor) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof Boolean || valor instanceof Integer || valor instanceof Long
+                   || valor instanceof Short || valor instanceof Byte) {
+            sb.append(valor);
+        } else if (valor instanceof Number n) {
+            double d = n.doubleValue();
+            sb.append(Double.isFinite(d) ? String.valueOf(d) : "null");
+        } else if (valor instanceof Map<?, ?> mapa) {
+            sb.append('{');
+            boolean primeiro = true;
+            for (Map.Entry<?, ?> e : mapa.entrySet()) {
+                if (!primeiro) {
+                    sb.append(',');
+                }
+                primeiro = false;
+                escreverTexto(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                escrever(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (valor instanceof Iterable<?> elementos) {
+            sb.append('[');
+            boolean primeiro = true;
+            for (Object e : elementos) {
+                if (!primeiro) {
+                    sb.append(',');
+                }
+                primeiro = false;
+                escrever(sb, e);
+            }
+            sb.append(']');
+        } else if (valor instanceof Record registo) {
+            Map<String, Object> campos = new LinkedHashMap<>();
+            for (RecordComponent c : registo.getClass().getRecordComponents()) {
+                try {
+                    campos.put(c.getName(), c.getAccessor().invoke(registo));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalArgumentException("Record sem acesso: " + registo.getClass().getName(), e);
+                }
+            }
+            escrever(sb, campos);
+        } else {
+            escreverTexto(sb, valor.toString());
+        }
+    }
+
+    /**
+     * Método que escreve um texto em JSON, entre aspas e com os caracteres especiais escapados.
+     *
+     * @param sb Destino do texto
+     * @param texto Texto a escrever
+     */
+    private static void escreverTexto(StringBuilder sb, String texto) {
+        sb.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Método que lê um objeto JSON.
+     *
+     * @param texto Texto JSON
+     * @return Mapa com os campos do objeto, pela ordem do texto
+     * @throws IllegalArgumentException Se o texto não for um objeto JSON válido
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> lerObjeto(String texto) {
+        Leitor leitor = new Leitor(texto);
+        leitor.saltarEspacos();
+        if (leitor.pos >= texto.length() || texto.charAt(leitor.pos) != '{') {
+            throw new IllegalArgumentException("Era esperado um objeto JSON.");
+        }
+        Object valor = leitor.lerValor();
+        leitor.saltarEspacos();
+        if (leitor.pos != texto.length()) {
+            throw leitor.erro("Texto a mais depois do objeto");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    /**
+     * Leitor de JSON descendente recursivo sobre um texto.
+     */
+    private static final class Leitor {
+
+        /** Profundidade máxima de objetos e arrays encaixados */
+        private static final int PROFUNDIDADE_MAXIMA = 64;
+
+        private final String texto;
+        private int pos;
+        private int profundidade;
+
+        private Leitor(String texto) {
+            this.texto = texto;
+        }
+
+        private Object lerValor() {
+            saltarEspacos();
+            if (this.pos >= this.texto.length()) {
+                throw erro("Fim inesperado");
+            }
+            char c = this.texto.charAt(this.pos);
+            return switch (c) {
+                case '{' -> lerObjeto();
+                case '[' -> lerArray();
+                case '"' -> lerTexto();
+                case 't' -> lerPalavra("true", Boolean.TRUE);
+                case 'f' -> lerPalavra("false", Boolean.FALSE);
+                case 'n' -> lerPalavra("null", null);
+                default -> lerNumero();
+            };
+        }
+
+        private Map<String, Object> lerObjeto() {
+            entrar();
+            this.pos++;
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            saltarEspacos();
+            if (consumir('}')) {
+                this.profundidade--;
+                return mapa;
+            }
+            do {
+                saltarEspacos();
+                if (this.pos >= this.texto.length() || this.texto.charAt(this.pos) != '"') {
+                    throw erro("Era esperado o nome de um campo");
+                }
+                String chave = lerTexto();
+                saltarEspacos();
+                if (!consumir(':')) {
+                    throw erro("Era esperado ':'");
+                }
+                mapa.put(chave, lerValor());
+                saltarEspacos();
+            } while (consumir(','));
+            if (!consumir('}')) {
+                throw erro("Era esperado '}'");
+            }
+            this.profundidade--;
+            return mapa;
+        }
+
+        private List<Object> lerArray() {
+            entrar();
+            this.pos++;
+            List<Object> lista = new ArrayList<>();
+            saltarEspacos();
+            if (consumir(']')) {
+                this.profundidade--;
+                return lista;
+            }
+            do {
+                lista.add(lerValor());
+                saltarEspacos();
+            } while (consumir(','));
+            if (!consumir(']')) {
+                throw erro("Era esperado ']'");
+            }
+            this.profundidade--;
+            return lista;
+        }
+
+        private String lerTexto() {
+            this.pos++;
+            StringBuilder sb = new StringBuilder();
+            while (this.pos < this.texto.length()) {
+                char c = this.texto.charAt(this.pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (this.pos >= this.texto.length()) {
+                    break;
+                }
+                char e = this.texto.charAt(this.pos++);
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (this.pos + 4 > this.texto.length()) {
+                            throw erro("Escape unicode incompleto");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(this.texto.substring(this.pos, this.pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw erro("Escape unicode inválido");
+                        }
+                        this.pos += 4;
+                    }
+                    default -> throw erro("Escape inválido");
+                }
+            }
+            throw erro("Texto sem aspas de fecho");
+        }
+
+        private Object lerPalavra(String palavra, Object valor) {
+            if (!this.texto.startsWith(palavra, this.pos)) {
+                throw erro("Valor inválido");
+            }
+            this.pos += palavra.length();
+            return valor;
+        }
+
+        private Number lerNumero() {
+            int inicio = this.pos;
+            while (this.pos < this.texto.length() && "+-0123456789.eE".indexOf(this.texto.charAt(this.pos)) >= 0) {
+                this.pos++;
+            }
+            String numero = this.texto.substring(inicio, this.pos);
+            try {
+                if (numero.indexOf('.') < 0 && numero.indexOf('e') < 0 && numero.indexOf('E') < 0) {
+                    return Long.parseLong(numero);
+                }
+                return Double.parseDouble(numero);
+            } catch (NumberFormatException e) {
+                this.pos = inicio;
+                throw erro("Valor inválido");
+            }
+        }
+
+        private void entrar() {
+            if (++this.profundidade > PROFUNDIDADE_MAXIMA) {
+                throw erro("JSON demasiado encaixado");
+            }
+        }
+
+        private boolean consumir(char c) {
+            if (this.pos < this.texto.length() && this.texto.charAt(this.pos) == c) {
+                this.pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void saltarEspacos() {
+            while (this.pos < this.texto.length() && Character.isWhitespace(this.texto.charAt(this.pos))) {
+                this.pos++;
+            }
+        }
+
+        private IllegalArgumentException erro(String mensagem) {
+            return new IllegalArgumentException(mensagem + " na posição " + this.pos + ".");
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package spotifyum.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import spotifyum.exceptions.EntidadeExisteException;
+import spotifyum.exceptions.EntidadeNaoExisteException;
+import spotifyum.exceptions.OpcaoException;
+import spotifyum.exceptions.PlanoException;
+import spotifyum.exceptions.PublicException;
+import spotifyum.mvc.SpotifyumModel;
+
+/**
+ * Servidor HTTP com uma API JSON sobre o model do SpotifyUM, para muitos clientes em simultâneo.
+ *
+ * Usa o servidor HTTP do JDK (com.sun.net.httpserver) e trata cada pedido numa virtual thread, pelo que
+ * milhares de clientes bloqueados (por exemplo, à espera do fsync do diário) não ocupam threads do sistema.
+ * Todos os pedidos partilham o mesmo model, que já é seguro para acessos concorrentes.
+ *
+ * Pedidos:
+ * <ul>
+ *   <li>POST /reproducoes com {"utilizador": id, "musica": id} ou {"utilizador": id, "musicas": [ids]}: 204</li>
+ *   <li>POST /playlists com {"utilizador": id, "nome": nome, "musicas": [ids], "publica": true|false}: 201</li>
+ *   <li>GET /recomendacoes?utilizador=id[&amp;tempo=segundos | &amp;explicitas=true]: 200 com as músicas</li>
+ *   <li>GET /estatisticas/{1..7}[?inicio=data&amp;fim=data]: 200 com o resultado da query</li>
+ * </ul>
+ * Os erros são respondidos com {"erro": mensagem} e o estado correspondente (400, 403, 404, 405, 409, 413 ou 500).
+ */
+public class ServidorHttp implements AutoCloseable {
+
+    /** Número de ligações à espera de serem aceites */
+    private static final int BACKLOG = 1024;
+
+    /** Tamanho máximo do corpo de um pedido, em bytes */
+    private static final int TAMANHO_MAXIMO_CORPO = 1 << 20;
+
+    /**
+     * Resposta de um pedido.
+     *
+     * @param estado Código de estado HTTP
+     * @param corpo Corpo a escrever em JSON, ou null para uma resposta sem corpo
+     */
+    private record Resposta(int estado, Object corpo) {}
+
+    /**
+     * Tratamento de um pedido já validado quanto ao método.
+     */
+    @FunctionalInterface
+    private interface Pedido {
+
+        /**
+         * Método que trata um pedido.
+         *
+         * @param troca Pedido e resposta HTTP
+         * @return Resposta a enviar
+         * @throws Exception Se o pedido falhar (convertida no estado HTTP correspondente)
+         */
+        Resposta tratar(HttpExchange troca) throws Exception;
+    }
+
+    /**
+     * Exceção de um pedido inválido, com o estado HTTP a responder.
+     */
+    private static final class PedidoInvalidoException extends RuntimeException {
+        private final int estado;
+
+        private PedidoInvalidoException(int estado, String mensagem) {
+            super(mensagem);
+            this.estado = estado;
+        }
+    }
+
+    /** Model partilhado por todos os pedidos */
+    private final SpotifyumModel model;
+
+    /** Servidor HTTP do JDK */
+    private final HttpServer servidor;
+
+    /** Executor dos pedidos: uma virtual thread por pedido */
+    private final ExecutorService executor;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param model Model do SpotifyUM
+     * @param porta Porta onde escutar (0 para uma porta livre)
+     * @throws IOException Se não for possível abrir a porta
+     */
+    public ServidorHttp(SpotifyumModel model, int porta) throws IOException {
+        this.model = model;
+        this.servidor = HttpServer.create(new InetSocketAddress(porta), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.servidor.setExecutor(this.executor);
+        this.servidor.createContext("/reproducoes", tratador("POST", this::reproducoes));
+        this.servidor.createContext("/playlists", tratador("POST", this::playlists));
+        this.servidor.createContext("/recomendacoes", tratador("GET", this::recomendacoes));
+        this.servidor.createContext("/estatisticas/", tratador("GET", this::estatisticas));
+    }
+
+    /**
+     * Método que começa a aceitar pedidos.
+     */
+    public void iniciar() {
+        this.servidor.start();
+    }
+
+    /**
+     * Método que devolve a porta onde o servidor escuta.
+     *
+     * @return Porta do servidor
+     */
+    public int getPorta() {
+        return this.servidor.getAddress().getPort();
+    }
+
+    /**
+     * Método que para o servidor, deixando terminar os pedidos em curso durante no máximo um segundo.
+     */
+    @Override
+    public void close() {
+        this.servidor.stop(1);
+        this.executor.close();
+    }
+
+    /**
+     * POST /reproducoes: ouve uma música ou um lote de músicas.
+     */
+    private Resposta reproducoes(HttpExchange troca) throws Exception {
+        Map<String, Object> corpo = lerCorpo(troca);
+        String utilizador = texto(corpo, "utilizador");
+        if (corpo.containsKey("musicas")) {
+            this.model.ouvirLote(utilizador, textos(corpo, "musicas"));
+        } else {
+            this.model.ouvirMusica(utilizador, texto(corpo, "musica"));
+        }
+        return new Resposta(204, null);
+    }
+
+    /**
+     * POST /playlists: cria uma playlist personalizada na biblioteca do utilizador.
+     */
+    private Resposta playlists(HttpExchange troca) throws Exception {
+        Map<String, Object> corpo = lerCorpo(troca);
+        String utilizador = texto(corpo, "utilizador");
+        String nome = texto(corpo, "nome");
+        List<String> musicas = textos(corpo, "musicas");
+        boolean publica = Boolean.TRUE.equals(corpo.get("publica"));
+        if (nome.isBlank() || musicas.isEmpty()) {
+            throw new PedidoInvalidoException(400, "A playlist precisa de um nome e de músicas.");
+        }
+        this.model.criarPlaylistPersonalizada(utilizador, nome, musicas, publica);
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("nome", nome);
+        resposta.put("musicas", musicas);
+        resposta.put("publica", publica);
+        return new Resposta(201, resposta);
+    }
+
+    /**
+     * GET /recomendacoes: lista de favoritos do utilizador (todas, com tempo máximo ou só explícitas).
+     */
+    private Resposta recomendacoes(HttpExchange troca) throws Exception {
+        Map<String, String> parametros = parametros(troca);
+        String utilizador = parametros.get("utilizador");
+        if (utilizador == null) {
+            throw new PedidoInvalidoException(400, "Falta o parâmetro utilizador.");
+        }
+        List<String> musicas;
+        if (parametros.containsKey("tempo")) {
+            musicas = this.model.geraListaFavoritosTempo(utilizador, inteiro(parametros.get("tempo"), "tempo"));
+        } else if (Boolean.parseBoolean(parametros.get("explicitas"))) {
+            musicas = this.model.geraListaFavoritosExplicita(utilizador);
+        } else {
+            musicas = this.model.geraListaFavoritos(utilizador);
+        }
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("utilizador", utilizador);
+        resposta.put("musicas", musicas);
+        return new Resposta(200, resposta);
+    }
+
+    /**
+     * GET /estatisticas/{query}: resultado de uma das queries (a 3 aceita um intervalo de datas).
+     */
+    private Resposta estatisticas(HttpExchange troca) throws Exception {
+        String caminho = troca.getRequestURI().getPath();
+        int query = inteiro(caminho.substring("/estatisticas/".length()), "query");
+        Map<String, String> parametros = parametros(troca);
+        if (query == 3 && (parametros.containsKey("inicio") || parametros.containsKey("fim"))) {
+            if (!parametros.containsKey("inicio") || !parametros.containsKey("fim")) {
+                throw new PedidoInvalidoException(400, "O intervalo precisa de inicio e fim.");
+            }
+            LocalDate inicio = LocalDate.parse(parametros.get("inicio"));
+            LocalDate fim = LocalDate.parse(parametros.get("fim"));
+            return new Resposta(200, this.model.executarQueryEspecial(inicio, fim));
+        }
+        return new Resposta(200, this.model.executarQuery(query));
+    }
+
+    /**
+     * Método que cria o tratador de um contexto: valida o método, trata o pedido e escreve a resposta,
+     * convertendo as exceções no estado HTTP correspondente.
+     *
+     * @param metodo Método HTTP aceite
+     * @param pedido Tratamento do pedido
+     * @return Tratador do contexto
+     */
+    private static HttpHandler tratador(String metodo, Pedido pedido) {
+        return troca -> {
+            try (troca) {
+                Resposta resposta;
+                try {
+                    if (!troca.getRequestMethod().equalsIgnoreCase(metodo)) {
+                        troca.getResponseHeaders().set("Allow", metodo);
+                        throw new PedidoInvalidoException(405, "Método não permitido.");
+                    }
+                    resposta = pedido.tratar(troca);
+                } catch (PedidoInvalidoException e) {
+                    resposta = erro(e.estado, e.getMessage());
+                } catch (EntidadeNaoExisteException e) {
+                    resposta = erro(404, e.getMessage());
+                } catch (EntidadeExisteException e) {
+                    resposta = erro(409, e.getMessage());
+                } catch (PlanoException | PublicException e) {
+                    resposta = erro(403, e.getMessage());
+                } catch (OpcaoException | IllegalArgumentException | DateTimeParseException e) {
+                    resposta = erro(400, e.getMessage());
+                } catch (Exception e) {
+                    resposta = erro(500, "Erro interno: " + e.getMessage());
+                }
+                escreverResposta(troca, resposta);
+            }
+        };
+    }
+
+    /**
+     * Método que cria a resposta de um erro.
+     *
+     * @param estado Código de estado HTTP
+     * @param mensagem Mensagem do erro
+     * @return Resposta com {"erro": mensagem}
+     */
+    private static Resposta erro(int estado, String mensagem) {
+        return new Resposta(estado, Map.of("erro", mensagem == null ? "" : mensagem));
+    }
+
+    /**
+     * Método que escreve uma resposta em JSON.
+     *
+     * @param troca Pedido e resposta HTTP
+     * @param resposta Resposta a escrever
+     * @throws IOException Se a ligação falhar
+     */
+    private static void escreverResposta(HttpExchange troca, Resposta resposta) throws IOException {
+        if (resposta.corpo() == null) {
+            troca.sendResponseHeaders(resposta.estado(), -1);
+            return;
+        }
+        byte[] bytes = Json.escrever(resposta.corpo()).getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        troca.sendResponseHeaders(resposta.estado(), bytes.length);
+        try (OutputStream os = troca.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Método que lê o corpo de um pedido como um objeto JSON.
+     *
+     * @param troca Pedido HTTP
+     * @return Campos do objeto
+     * @throws IOException Se a ligação falhar
+     */
+    private static Map<String, Object> lerCorpo(HttpExchange troca) throws IOException {
+        try (InputStream is = troca.getRequestBody()) {
+            byte[] bytes = is.readNBytes(TAMANHO_MAXIMO_CORPO + 1);
+            if (bytes.length > TAMANHO_MAXIMO_CORPO) {
+                throw new PedidoInvalidoException(413, "Pedido demasiado grande.");
+            }
+            return Json.lerObjeto(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Método que lê os parâmetros da query string de um pedido.
+     *
+     * @param troca Pedido HTTP
+     * @return Parâmetros, já descodificados
+     */
+    private static Map<String, String> parametros(HttpExchange troca) {
+        Map<String, String> parametros = new HashMap<>();
+        String query = troca.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parametros;
+        }
+        for (String par : query.split("&")) {
+            int i = par.indexOf('=');
+            String chave = i < 0 ? par : par.substring(0, i);
+            String valor = i < 0 ? "" : par.substring(i + 1);
+            parametros.put(URLDecoder.decode(chave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    /**
+     * Método que devolve um campo de texto obrigatório do corpo.
+     *
+     * @param corpo Campos do corpo
+     * @param campo Nome do campo
+     * @return Valor do campo
+     */
+    private static String texto(Map<String, Object> corpo, String campo) {
+        if (!(corpo.get(campo) instanceof String valor)) {
+            throw new PedidoInvalidoException(400, "Falta o campo " + campo + ".");
+        }
+        return valor;
+    }
+
+    /**
+     * Método que devolve um campo obrigatório do corpo com uma lista de textos.
+     *
+     * @param corpo Campos do corpo
+     * @param campo Nome do campo
+     * @return Valores do campo
+     */
+    private static List<String> textos(Map<String, Object> corpo, String campo) {
+        if (!(corpo.get(campo) instanceof List<?> valores)) {
+            throw new PedidoInvalidoException(400, "Falta o campo " + campo + ".");
+        }
+        List<String> textos = new ArrayList<>(valores.size());
+        for (Object v : valores) {
+            if (!(v instanceof String s)) {
+                throw new PedidoInvalidoException(400, "O campo " + campo + " só pode ter textos.");
+            }
+            textos.add(s);
+        }
+        return textos;
+    }
+
+    /**
+     * Método que converte um parâmetro num inteiro.
+     *
+     * @param valor Texto do parâmetro
+     * @param nome Nome do parâmetro
+     * @return Valor inteiro
+     */
+    private static int inteiro(String valor, String nome) {
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new PedidoInvalidoException(400, "Parâmetro " + nome + " inválido: " + valor);
+        }
+    }
+}
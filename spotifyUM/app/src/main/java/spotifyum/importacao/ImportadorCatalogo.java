@@ -0,0 +1,575 @@
+package spotifyum.importacao;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import spotifyum.album.Album;
+import spotifyum.musica.Musica;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe que importa em massa músicas, álbuns ou utilizadores de um ficheiro CSV ou TSV.
+ *
+ * O ficheiro é lido em blocos de bytes cortados no fim de uma linha e cada bloco é analisado por uma
+ * thread de trabalho, com um leitor de campos próprio (sem expressões regulares nem cópias das linhas):
+ * os campos são separados, validados e convertidos nas entidades do model. Os blocos analisados são juntados
+ * ao model pela ordem do ficheiro, cada um com uma única operação em lote ({@link SpotifyumModel#adicionarMusicas}
+ * e semelhantes), pelo que o diário é sincronizado uma vez por bloco. O número de blocos em curso é limitado,
+ * pelo que a memória usada não depende do tamanho do ficheiro.
+ *
+ * As colunas de cada tipo são as dos métodos cria* do model:
+ * <pre>
+ * MUSICAS:      id, nome, artista, editora, letra, partitura (separada por ;), género, duração, tipo
+ * ALBUNS:       título, ids das músicas (separados por ;)
+ * UTILIZADORES: id, nome, email, morada, plano
+ * </pre>
+ *
+ * Um campo pode estar entre aspas (com as aspas interiores duplicadas) para conter o separador, mas não
+ * pode conter mudanças de linha. As linhas vazias e as começadas por '#' são ignoradas. Cada linha inválida
+ * ou repetida é reportada com o seu número e não impede a importação das restantes.
+ */
+public class ImportadorCatalogo {
+
+    /** Tamanho, em bytes, dos blocos lidos do ficheiro, por omissão */
+    public static final int TAMANHO_BLOCO = 4 << 20;
+
+    /** Número máximo de erros escritos; os restantes só são contados */
+    public static final int MAXIMO_ERROS_REPORTADOS = 1000;
+
+    /**
+     * Tipos de entidades que podem ser importadas.
+     */
+    public enum Tipo {
+        MUSICAS(9) {
+            @Override
+            Object criar(SpotifyumModel model, String[] c) throws Exception {
+                return model.criaMusica(c[0], c[1], c[2], c[3], c[4], separarLista(c[5]), c[6], lerDuracao(c[7]), c[8]);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            int adicionar(SpotifyumModel model, List<?> entidades, IntConsumer repetida) {
+                return model.adicionarMusicas((List<Musica>) entidades, repetida);
+            }
+        },
+        ALBUNS(2) {
+            @Override
+            Object criar(SpotifyumModel model, String[] c) throws Exception {
+                return model.criaAlbum(c[0], separarLista(c[1]));
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            int adicionar(SpotifyumModel model, List<?> entidades, IntConsumer repetida) {
+                return model.adicionarAlbuns((List<Album>) entidades, repetida);
+            }
+        },
+        UTILIZADORES(5) {
+            @Override
+            Object criar(SpotifyumModel model, String[] c) throws Exception {
+                return model.criaUtilizador(c[0], c[1], c[2], c[3], c[4]);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            int adicionar(SpotifyumModel model, List<?> entidades, IntConsumer repetida) {
+                return model.adicionarUtilizadores((List<Utilizador>) entidades, repetida);
+            }
+        };
+
+        /** Número de colunas de cada linha */
+        private final int campos;
+
+        Tipo(int campos) {
+            this.campos = campos;
+        }
+
+        /**
+         * Método que devolve o número de colunas de cada linha.
+         *
+         * @return Número de colunas
+         */
+        public int getCampos() {
+            return this.campos;
+        }
+
+        /**
+         * Método que cria a entidade de uma linha, a partir dos seus campos.
+         *
+         * @param model Model onde procurar as entidades referidas
+         * @param c Campos da linha
+         * @return Entidade criada
+         * @throws Exception Se algum campo for inválido
+         */
+        abstract Object criar(SpotifyumModel model, String[] c) throws Exception;
+
+        /**
+         * Método que junta ao model as entidades de um bloco.
+         *
+         * @param model Model
+         * @param entidades Entidades criadas por {@link #criar}
+         * @param repetida Ação aplicada à posição de cada entidade que já existia
+         * @return Número de entidades adicionadas
+         */
+        abstract int adicionar(SpotifyumModel model, List<?> entidades, IntConsumer repetida);
+    }
+
+    /**
+     * Resumo de uma importação.
+     *
+     * @param linhas Número de linhas com registos (sem as vazias, os comentários e o cabeçalho)
+     * @param importadas Número de registos adicionados ao model
+     * @param erros Número de registos inválidos ou repetidos
+     * @param bytes Tamanho do ficheiro lido
+     * @param nanos Duração da importação, em nanossegundos
+     */
+    public record Resumo(long linhas, long importadas, long erros, long bytes, long nanos) {
+
+        /**
+         * Método que devolve o número de linhas processadas por segundo.
+         *
+         * @return Linhas por segundo
+         */
+        public double linhasPorSegundo() {
+            return this.nanos == 0 ? 0 : this.linhas * 1e9 / this.nanos;
+        }
+
+        /**
+         * Método que devolve o débito da leitura, em megabytes por segundo.
+         *
+         * @return Megabytes por segundo
+         */
+        public double megabytesPorSegundo() {
+            return this.nanos == 0 ? 0 : this.bytes * 1e9 / this.nanos / (1 << 20);
+        }
+    }
+
+    /**
+     * Bloco do ficheiro, cortado no fim de uma linha.
+     *
+     * @param dados Bytes do bloco (só os primeiros {@code tamanho} pertencem ao bloco)
+     * @param tamanho Número de bytes do bloco
+     */
+    private record Bloco(byte[] dados, int tamanho) {
+    }
+
+    /**
+     * Erro de uma linha de um bloco.
+     *
+     * @param linha Número da linha, contado a partir do início do bloco
+     * @param mensagem Mensagem do erro
+     */
+    private record Erro(int linha, String mensagem) {
+    }
+
+    /**
+     * Resultado da análise de um bloco.
+     */
+    private static final class Lote {
+        /** Entidades criadas, pela ordem do bloco */
+        private final List<Object> entidades = new ArrayList<>();
+        /** Número da linha (no bloco) de cada entidade */
+        private int[] linhas = new int[256];
+        /** Erros das linhas inválidas */
+        private final List<Erro> erros = new ArrayList<>();
+        /** Número de linhas do bloco */
+        private int numLinhas;
+        /** Número de linhas com registos */
+        private int registos;
+
+        private void adicionar(Object entidade, int linha) {
+            int n = this.entidades.size();
+            if (n == this.linhas.length) {
+                this.linhas = Arrays.copyOf(this.linhas, n * 2);
+            }
+            this.linhas[n] = linha;
+            this.entidades.add(entidade);
+        }
+    }
+
+    /** Model onde as entidades são adicionadas */
+    private final SpotifyumModel model;
+
+    /** Separador dos campos */
+    private final byte separador;
+
+    /** Número de threads de trabalho */
+    private final int trabalhadores;
+
+    /** Tamanho dos blocos lidos do ficheiro */
+    private final int tamanhoBloco;
+
+    /** Destino dos erros e do resumo */
+    private final PrintWriter saida;
+
+    /** Número da primeira linha do bloco a juntar (menos 1) */
+    private long linhaBase;
+
+    /** Contadores da importação em curso */
+    private long linhas;
+    private long importadas;
+    private long erros;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param model Model onde as entidades são adicionadas
+     * @param separador Separador dos campos (',' para CSV, '\t' para TSV)
+     * @param trabalhadores Número de threads que analisam os blocos
+     * @param saida Destino dos erros e do resumo
+     */
+    public ImportadorCatalogo(SpotifyumModel model, char separador, int trabalhadores, PrintWriter saida) {
+        this(model, separador, trabalhadores, TAMANHO_BLOCO, saida);
+    }
+
+    /**
+     * Construtor parametrizado, com o tamanho dos blocos.
+     *
+     * @param model Model onde as entidades são adicionadas
+     * @param separador Separador dos campos
+     * @param trabalhadores Número de threads que analisam os blocos
+     * @param tamanhoBloco Tamanho dos blocos lidos do ficheiro
+     * @param saida Destino dos erros e do resumo
+     */
+    ImportadorCatalogo(SpotifyumModel model, char separador, int trabalhadores, int tamanhoBloco, PrintWriter saida) {
+        if (separador > 0x7F || separador == '"' || separador == '\n' || separador == '\r') {
+            throw new IllegalArgumentException("Separador inválido: " + separador);
+        }
+        if (trabalhadores <= 0 || tamanhoBloco <= 0) {
+            throw new IllegalArgumentException("O número de trabalhadores e o tamanho dos blocos têm de ser positivos.");
+        }
+        this.model = model;
+        this.separador = (byte) separador;
+        this.trabalhadores = trabalhadores;
+        this.tamanhoBloco = tamanhoBloco;
+        this.saida = saida;
+    }
+
+    /**
+     * Método que devolve o separador de um ficheiro pela sua extensão: tabulação para .tsv e .tab, vírgula
+     * para os restantes.
+     *
+     * @param ficheiro Caminho do ficheiro
+     * @return Separador dos campos
+     */
+    public static char separador(Path ficheiro) {
+        String nome = ficheiro.getFileName().toString().toLowerCase();
+        return nome.endsWith(".tsv") || nome.endsWith(".tab") ? '\t' : ',';
+    }
+
+    /**
+     * Método que importa um ficheiro.
+     *
+     * As linhas são analisadas em paralelo, mas as entidades são adicionadas pela ordem do ficheiro: se uma
+     * chave aparecer repetida, fica a primeira. Não deve ser chamado por várias threads ao mesmo tempo.
+     *
+     * @param ficheiro Caminho do ficheiro
+     * @param tipo Tipo das entidades do ficheiro
+     * @param cabecalho Indica se a primeira linha é um cabeçalho, a ignorar
+     * @return Resumo da importação
+     * @throws IOException Se não for possível ler o ficheiro
+     */
+    public Resumo importar(Path ficheiro, Tipo tipo, boolean cabecalho) throws IOException {
+        long inicio = System.nanoTime();
+        this.linhaBase = 0;
+        this.linhas = 0;
+        this.importadas = 0;
+        this.erros = 0;
+        long bytes = 0;
+        ExecutorService trabalho = Executors.newFixedThreadPool(this.trabalhadores, r -> {
+            Thread t = new Thread(r, "spotifyum-importacao");
+            t.setDaemon(true);
+            return t;
+        });
+        ArrayDeque<Future<Lote>> pendentes = new ArrayDeque<>();
+        try (FileChannel canal = FileChannel.open(ficheiro, StandardOpenOption.READ)) {
+            byte[] anterior = new byte[0];
+            int inicioResto = 0;
+            int tamanhoResto = 0;
+            boolean primeiro = true;
+            boolean fim = false;
+            while (!fim) {
+                // O resto do bloco anterior (uma linha incompleta) passa para o início do seguinte
+                byte[] dados = new byte[tamanhoResto < this.tamanhoBloco / 2 ? this.tamanhoBloco : 2 * tamanhoResto];
+                System.arraycopy(anterior, inicioResto, dados, 0, tamanhoResto);
+                ByteBuffer buffer = ByteBuffer.wrap(dados, tamanhoResto, dados.length - tamanhoResto);
+                while (buffer.hasRemaining()) {
+                    if (canal.read(buffer) < 0) {
+                        fim = true;
+                        break;
+                    }
+                }
+                int cheio = buffer.position();
+                bytes += cheio - tamanhoResto;
+                int corte = fim ? cheio : ultimaLinha(dados, cheio);
+                if (corte > 0) {
+                    Bloco bloco = new Bloco(dados, corte);
+                    boolean ignorarCabecalho = cabecalho && primeiro;
+                    pendentes.add(trabalho.submit(() -> analisar(bloco, tipo, ignorarCabecalho)));
+                    primeiro = false;
+                }
+                anterior = dados;
+                inicioResto = corte;
+                tamanhoResto = cheio - corte;
+                while (pendentes.size() > 2 * this.trabalhadores) {
+                    juntar(pendentes.poll(), tipo);
+                }
+            }
+            while (!pendentes.isEmpty()) {
+                juntar(pendentes.poll(), tipo);
+            }
+        } finally {
+            trabalho.shutdownNow();
+        }
+        Resumo resumo = new Resumo(this.linhas, this.importadas, this.erros, bytes, System.nanoTime() - inicio);
+        if (this.erros > MAXIMO_ERROS_REPORTADOS) {
+            this.saida.printf("... e mais %d erros.%n", this.erros - MAXIMO_ERROS_REPORTADOS);
+        }
+        this.saida.printf("%d linhas lidas, %d registos importados, %d com erro (%.0f linhas/s, %.1f MB/s).%n",
+                          resumo.linhas(), resumo.importadas(), resumo.erros(), resumo.linhasPorSegundo(),
+                          resumo.megabytesPorSegundo());
+        this.saida.flush();
+        return resumo;
+    }
+
+    /**
+     * Método que devolve a posição a seguir à última mudança de linha de um bloco.
+     *
+     * @param dados Bytes do bloco
+     * @param tamanho Número de bytes do bloco
+     * @return Posição a seguir ao último '\n', ou 0 se não houver nenhum
+     */
+    private static int ultimaLinha(byte[] dados, int tamanho) {
+        for (int i = tamanho - 1; i >= 0; i--) {
+            if (dados[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Método que espera pela análise de um bloco e junta as suas entidades ao model, reportando os erros.
+     *
+     * @param pendente Análise do bloco
+     * @param tipo Tipo das entidades
+     * @throws IOException Se a thread for interrompida
+     */
+    private void juntar(Future<Lote> pendente, Tipo tipo) throws IOException {
+        Lote lote;
+        try {
+            lote = pendente.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importação interrompida.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) {
+                throw r;
+            }
+            if (e.getCause() instanceof Error r) {
+                throw r;
+            }
+            throw new IOException(e.getCause());
+        }
+        for (Erro erro : lote.erros) {
+            reportar(this.linhaBase + erro.linha(), erro.mensagem());
+        }
+        int[] linhasLote = lote.linhas;
+        this.importadas += tipo.adicionar(this.model, lote.entidades,
+                                          i -> reportar(this.linhaBase + linhasLote[i], "registo repetido."));
+        this.linhas += lote.registos;
+        this.linhaBase += lote.numLinhas;
+    }
+
+    /**
+     * Método que conta e, até ao limite, escreve o erro de uma linha.
+     *
+     * @param linha Número da linha no ficheiro
+     * @param mensagem Mensagem do erro
+     */
+    private void reportar(long linha, String mensagem) {
+        if (++this.erros <= MAXIMO_ERROS_REPORTADOS) {
+            this.saida.printf("Linha %d: %s%n", linha, mensagem);
+        }
+    }
+
+    /**
+     * Método que analisa as linhas de um bloco, criando as entidades das linhas válidas.
+     *
+     * Corre nas threads de trabalho: só lê o model, para procurar as entidades referidas.
+     *
+     * @param bloco Bloco a analisar
+     * @param tipo Tipo das entidades
+     * @param ignorarCabecalho Indica se a primeira linha do bloco deve ser ignorada
+     * @return Entidades e erros do bloco
+     */
+    private Lote analisar(Bloco bloco, Tipo tipo, boolean ignorarCabecalho) {
+        Lote lote = new Lote();
+        byte[] d = bloco.dados();
+        String[] campos = new String[tipo.getCampos()];
+        int pos = 0;
+        while (pos < bloco.tamanho()) {
+            lote.numLinhas++;
+            int fimLinha = pos;
+            while (fimLinha < bloco.tamanho() && d[fimLinha] != '\n') {
+                fimLinha++;
+            }
+            int proxima = fimLinha + 1;
+            if (fimLinha > pos && d[fimLinha - 1] == '\r') {
+                fimLinha--;
+            }
+            if (fimLinha == pos || d[pos] == '#' || (ignorarCabecalho && lote.numLinhas == 1)) {
+                pos = proxima;
+                continue;
+            }
+            lote.registos++;
+            try {
+                int n = separarCampos(d, pos, fimLinha, campos);
+                if (n != campos.length) {
+                    throw new IllegalArgumentException("são esperados " + campos.length + " campos, mas há " + n + ".");
+                }
+                if (campos[0].isEmpty()) {
+                    throw new IllegalArgumentException("a chave não pode ser vazia.");
+                }
+                lote.adicionar(tipo.criar(this.model, campos), lote.numLinhas);
+            } catch (Exception e) {
+                lote.erros.add(new Erro(lote.numLinhas, e.getMessage() != null ? e.getMessage() : e.toString()));
+            }
+            pos = proxima;
+        }
+        return lote;
+    }
+
+    /**
+     * Método que separa os campos de uma linha.
+     *
+     * @param d Bytes do bloco
+     * @param inicio Posição do início da linha
+     * @param fim Posição do fim da linha (exclusiva, sem a mudança de linha)
+     * @param campos Destino dos campos (os que não couberem só são contados)
+     * @return Número de campos da linha
+     */
+    private int separarCampos(byte[] d, int inicio, int fim, String[] campos) {
+        int n = 0;
+        int pos = inicio;
+        while (true) {
+            String valor;
+            if (pos < fim && d[pos] == '"') {
+                int i = pos + 1;
+                boolean duplicadas = false;
+                while (true) {
+                    if (i >= fim) {
+                        throw new IllegalArgumentException("aspas sem fecho.");
+                    }
+                    if (d[i] == '"') {
+                        if (i + 1 < fim && d[i + 1] == '"') {
+                            duplicadas = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                valor = duplicadas ? semAspasDuplicadas(d, pos + 1, i) : new String(d, pos + 1, i - pos - 1, StandardCharsets.UTF_8);
+                pos = i + 1;
+                if (pos < fim && d[pos] != this.separador) {
+                    throw new IllegalArgumentException("texto depois das aspas de fecho.");
+                }
+            } else {
+                int i = pos;
+                while (i < fim && d[i] != this.separador) {
+                    i++;
+                }
+                valor = new String(d, pos, i - pos, StandardCharsets.UTF_8);
+                pos = i;
+            }
+            if (n < campos.length) {
+                campos[n] = valor;
+            }
+            n++;
+            if (pos >= fim) {
+                return n;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Método que devolve o texto de um campo entre aspas, com as aspas duplicadas reduzidas a uma.
+     *
+     * @param d Bytes do bloco
+     * @param inicio Posição a seguir às aspas de abertura
+     * @param fim Posição das aspas de fecho
+     * @return Texto do campo
+     */
+    private static String semAspasDuplicadas(byte[] d, int inicio, int fim) {
+        byte[] texto = new byte[fim - inicio];
+        int n = 0;
+        for (int i = inicio; i < fim; i++) {
+            texto[n++] = d[i];
+            if (d[i] == '"') {
+                i++;
+            }
+        }
+        return new String(texto, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Método que separa uma lista de valores separados por ';'. Um texto vazio é uma lista vazia.
+     *
+     * @param texto Texto da lista
+     * @return Valores da lista
+     */
+    static List<String> separarLista(String texto) {
+        List<String> valores = new ArrayList<>();
+        int inicio = 0;
+        while (inicio < texto.length()) {
+            int fim = texto.indexOf(';', inicio);
+            if (fim < 0) {
+                fim = texto.length();
+            }
+            valores.add(texto.substring(inicio, fim));
+            inicio = fim + 1;
+        }
+        return valores;
+    }
+
+    /**
+     * Método que lê uma duração em segundos: só algarismos, sem sinal.
+     *
+     * @param texto Texto da duração
+     * @return Duração em segundos
+     * @throws IllegalArgumentException Se o texto não for uma duração válida
+     */
+    static int lerDuracao(String texto) {
+        if (texto.isEmpty() || texto.length() > 9) {
+            throw new IllegalArgumentException("duração inválida: " + texto);
+        }
+        int valor = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("duração inválida: " + texto);
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+}
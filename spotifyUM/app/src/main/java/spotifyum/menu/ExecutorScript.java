@@ -0,0 +1,322 @@
+package spotifyum.menu;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import spotifyum.album.Album;
+import spotifyum.exceptions.EntidadeExisteException;
+import spotifyum.musica.Musica;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.playlist.Playlist;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe que executa um script de comandos de administração sem interação (ficheiro ou stdin),
+ * em vez de os introduzir um a um nos menus.
+ *
+ * Cada linha é um comando com os campos separados por '|' (as linhas vazias e as começadas por '#' são ignoradas):
+ * <pre>
+ * utilizador | id | nome | email | morada | plano
+ * musica | id | nome | artista | editora | letra | partitura | género | duração | tipo
+ * album | título | ids das músicas (separados por ;)
+ * remover-utilizador | id
+ * remover-musica | id
+ * remover-album | título
+ * remover-playlist | nome
+ * </pre>
+ *
+ * Os comandos são lidos e validados em blocos e cada bloco é aplicado como uma transação: se um comando falhar,
+ * os já aplicados no bloco são desfeitos pela ordem inversa e nenhum do bloco fica no model. Cada bloco é um
+ * lote de escrita do model, gravado no diário com uma única sincronização. Os erros são reportados com o número
+ * da linha e o texto de saída é escrito num destino com buffer, despejado no fim de cada transação.
+ */
+public class ExecutorScript {
+
+    /** Número de comandos de cada transação, por omissão */
+    public static final int TAMANHO_TRANSACAO = 100;
+
+    /** Número de campos (incluindo o nome) de cada comando */
+    private static final Map<String, Integer> CAMPOS = Map.of(
+        "utilizador", 6,
+        "musica", 10,
+        "album", 3,
+        "remover-utilizador", 2,
+        "remover-musica", 2,
+        "remover-album", 2,
+        "remover-playlist", 2
+    );
+
+    /**
+     * Comando lido do script.
+     *
+     * @param linha Número da linha
+     * @param campos Campos do comando (o primeiro é o nome)
+     */
+    private record Comando(int linha, String[] campos) {
+
+        /**
+         * Método que devolve o nome do comando.
+         *
+         * @return Nome do comando
+         */
+        private String nome() {
+            return this.campos[0];
+        }
+    }
+
+    /**
+     * Operação que desfaz um comando aplicado.
+     */
+    @FunctionalInterface
+    private interface Desfazer {
+
+        /**
+         * Método que desfaz o comando.
+         *
+         * @throws Exception Se não for possível desfazer
+         */
+        void desfazer() throws Exception;
+    }
+
+    /**
+     * Resumo da execução de um script.
+     *
+     * @param comandos Número de comandos aplicados (em transações confirmadas)
+     * @param erros Número de comandos com erro
+     * @param confirmadas Número de transações confirmadas
+     * @param anuladas Número de transações anuladas
+     * @param nanos Duração da execução, em nanossegundos
+     */
+    public record Resumo(long comandos, long erros, long confirmadas, long anuladas, long nanos) {
+
+        /**
+         * Método que devolve o número de comandos aplicados por segundo.
+         *
+         * @return Comandos por segundo
+         */
+        public double comandosPorSegundo() {
+            return this.nanos == 0 ? 0 : this.comandos * 1e9 / this.nanos;
+        }
+    }
+
+    /** Model onde os comandos são aplicados */
+    private final SpotifyumModel model;
+
+    /** Número de comandos de cada transação */
+    private final int tamanhoTransacao;
+
+    /** Destino das mensagens */
+    private final PrintWriter saida;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param model Model onde os comandos são aplicados
+     * @param tamanhoTransacao Número de comandos de cada transação (1 para aplicar cada comando isoladamente)
+     * @param saida Destino das mensagens (com buffer)
+     */
+    public ExecutorScript(SpotifyumModel model, int tamanhoTransacao, PrintWriter saida) {
+        if (tamanhoTransacao <= 0) {
+            throw new IllegalArgumentException("Tamanho de transação inválido: " + tamanhoTransacao);
+        }
+        this.model = model;
+        this.tamanhoTransacao = tamanhoTransacao;
+        this.saida = saida;
+    }
+
+    /**
+     * Método que executa um script até ao fim.
+     *
+     * @param entrada Texto do script
+     * @return Resumo da execução
+     * @throws IOException Se não for possível ler o script
+     */
+    public Resumo executar(Reader entrada) throws IOException {
+        long inicio = System.nanoTime();
+        long comandos = 0;
+        long erros = 0;
+        long confirmadas = 0;
+        long anuladas = 0;
+        BufferedReader leitor = entrada instanceof BufferedReader b ? b : new BufferedReader(entrada);
+        int[] numLinha = {0};
+        List<Comando> bloco;
+        while (!(bloco = lerBloco(leitor, numLinha)).isEmpty()) {
+            int falhas = validar(bloco);
+            if (falhas == 0) {
+                falhas = aplicar(bloco);
+            }
+            erros += falhas;
+            if (falhas == 0) {
+                comandos += bloco.size();
+                confirmadas++;
+            } else {
+                anuladas++;
+                this.saida.printf("Transação anulada (linhas %d a %d).%n", bloco.get(0).linha(), bloco.get(bloco.size() - 1).linha());
+            }
+            this.saida.flush();
+        }
+        Resumo resumo = new Resumo(comandos, erros, confirmadas, anuladas, System.nanoTime() - inicio);
+        this.saida.printf("%d comandos aplicados, %d com erro, %d transações confirmadas, %d anuladas (%.0f comandos/s).%n",
+                          resumo.comandos(), resumo.erros(), resumo.confirmadas(), resumo.anuladas(), resumo.comandosPorSegundo());
+        this.saida.flush();
+        return resumo;
+    }
+
+    /**
+     * Método que lê o próximo bloco de comandos.
+     *
+     * @param leitor Leitor do script
+     * @param numLinha Número da última linha lida (atualizado)
+     * @return Comandos do bloco (vazio no fim do script)
+     * @throws IOException Se não for possível ler o script
+     */
+    private List<Comando> lerBloco(BufferedReader leitor, int[] numLinha) throws IOException {
+        List<Comando> bloco = new ArrayList<>(Math.min(this.tamanhoTransacao, 1024));
+        String linha;
+        while (bloco.size() < this.tamanhoTransacao && (linha = leitor.readLine()) != null) {
+            numLinha[0]++;
+            String texto = linha.strip();
+            if (texto.isEmpty() || texto.startsWith("#")) {
+                continue;
+            }
+            String[] campos = texto.split("\\|", -1);
+            for (int i = 0; i < campos.length; i++) {
+                campos[i] = campos[i].strip();
+            }
+            bloco.add(new Comando(numLinha[0], campos));
+        }
+        return bloco;
+    }
+
+    /**
+     * Método que valida a sintaxe dos comandos de um bloco, reportando todos os erros.
+     *
+     * @param bloco Comandos do bloco
+     * @return Número de comandos inválidos
+     */
+    private int validar(List<Comando> bloco) {
+        int falhas = 0;
+        for (Comando c : bloco) {
+            Integer campos = CAMPOS.get(c.nome());
+            if (campos == null) {
+                erro(c, "comando desconhecido.");
+                falhas++;
+            } else if (c.campos().length != campos) {
+                erro(c, "são esperados " + (campos - 1) + " argumentos, mas há " + (c.campos().length - 1) + ".");
+                falhas++;
+            }
+        }
+        return falhas;
+    }
+
+    /**
+     * Método que aplica um bloco como uma transação: ao primeiro erro, desfaz os comandos já aplicados.
+     *
+     * @param bloco Comandos do bloco (já validados)
+     * @return Número de comandos com erro (0 ou 1)
+     */
+    private int aplicar(List<Comando> bloco) {
+        List<Desfazer> aplicados = new ArrayList<>(bloco.size());
+        int[] falhas = {0};
+        this.model.executarEmLote(() -> {
+            for (Comando c : bloco) {
+                try {
+                    aplicados.add(aplicar(c));
+                } catch (Exception e) {
+                    erro(c, e.getMessage());
+                    falhas[0]++;
+                    desfazer(aplicados);
+                    return;
+                }
+            }
+        });
+        return falhas[0];
+    }
+
+    /**
+     * Método que aplica um comando.
+     *
+     * @param c Comando
+     * @return Operação que desfaz o comando
+     * @throws Exception Se o comando falhar
+     */
+    private Desfazer aplicar(Comando c) throws Exception {
+        String[] a = c.campos();
+        switch (c.nome()) {
+            case "utilizador" -> {
+                this.model.adicionarUtilizador(this.model.criaUtilizador(a[1], a[2], a[3], a[4], a[5]));
+                return () -> this.model.removerUtilizador(a[1]);
+            }
+            case "musica" -> {
+                this.model.adicionarMusica(this.model.criaMusica(a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9]));
+                return () -> this.model.removerMusica(a[1]);
+            }
+            case "album" -> {
+                this.model.adicionarAlbum(this.model.criaAlbum(a[1], a[2]));
+                return () -> this.model.removerAlbum(a[1]);
+            }
+            // As remoções são desfeitas com a própria instância removida (e não com uma cópia), para que as
+            // referências de álbuns, playlists e bibliotecas e o estado interno voltem a ser os originais
+            case "remover-utilizador" -> {
+                Utilizador u = this.model.removerUtilizador(a[1]);
+                return () -> repor(this.model.adicionarUtilizadores(List.of(u), i -> {}), "Utilizador já existe.");
+            }
+            case "remover-musica" -> {
+                Musica m = this.model.removerMusica(a[1]);
+                return () -> repor(this.model.adicionarMusicas(List.of(m), i -> {}), "Música já existe.");
+            }
+            case "remover-album" -> {
+                Album al = this.model.removerAlbum(a[1]);
+                return () -> repor(this.model.adicionarAlbuns(List.of(al), i -> {}), "Album já existe.");
+            }
+            case "remover-playlist" -> {
+                Playlist p = this.model.removerPlaylist(a[1]);
+                return () -> repor(this.model.adicionarPlaylists(List.of(p), i -> {}), "Playlist já existe.");
+            }
+            default -> throw new IllegalStateException("Comando não validado: " + c.nome());
+        }
+    }
+
+    /**
+     * Método que verifica se uma entidade removida foi reposta.
+     *
+     * @param repostas Número de entidades repostas
+     * @param mensagem Mensagem do erro, se a entidade não foi reposta
+     * @throws EntidadeExisteException Se outra entidade com a mesma chave foi adicionada entretanto
+     */
+    private static void repor(int repostas, String mensagem) throws EntidadeExisteException {
+        if (repostas == 0) {
+            throw new EntidadeExisteException(mensagem);
+        }
+    }
+
+    /**
+     * Método que desfaz os comandos aplicados de uma transação, do último para o primeiro.
+     *
+     * @param aplicados Operações que desfazem os comandos aplicados
+     */
+    private void desfazer(List<Desfazer> aplicados) {
+        for (int i = aplicados.size() - 1; i >= 0; i--) {
+            try {
+                aplicados.get(i).desfazer();
+            } catch (Exception e) {
+                this.saida.println("Erro ao desfazer um comando: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Método que reporta o erro de um comando.
+     *
+     * @param c Comando
+     * @param mensagem Mensagem do erro
+     */
+    private void erro(Comando c, String mensagem) {
+        this.saida.printf("Linha %d (%s): %s%n", c.linha(), c.nome(), mensagem);
+    }
+}
@@ -0,0 +1,302 @@
+package spotifyum.musica;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import spotifyum.util.CacheLRU;
+
+/**
+ * Classe que guarda as letras e partituras das músicas num ficheiro mapeado em memória.
+ *
+ * Cada música mapeada guarda apenas a posição do seu registo no ficheiro, e a letra e a partitura
+ * só são descodificadas quando são pedidas. As últimas descodificadas ficam numa cache LRU,
+ * pelo que reproduzir ou mostrar várias vezes a mesma música não volta a ler o ficheiro.
+ *
+ * Formato de cada registo (inteiros em big-endian):
+ * <pre>
+ *   [int bytes da letra][letra em UTF-8][int número de notas] ([int bytes da nota][nota em UTF-8])*
+ * </pre>
+ * Um registo nunca atravessa o limite de uma região, pelo que cada registo é lido de um único
+ * {@link MappedByteBuffer}, mesmo que o ficheiro tenha mais de 2GB.
+ */
+public class ArquivoConteudos {
+
+    /** Tamanho máximo de cada região mapeada */
+    static final int TAMANHO_REGIAO = 1 << 30;
+
+    /** Número de conteúdos descodificados mantidos em cache por omissão */
+    public static final int CAPACIDADE_CACHE = 1024;
+
+    /** Tamanho do buffer de escrita */
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    /** Regiões mapeadas do ficheiro, só de leitura */
+    private final MappedByteBuffer[] regioes;
+
+    /** Cache LRU dos conteúdos descodificados (posição -> conteúdo) */
+    private final CacheLRU<Long, Conteudo> cache;
+
+    /**
+     * Letra e partitura descodificadas de uma música.
+     *
+     * @param letra Letra da música
+     * @param partitura Partitura da música (só de leitura)
+     */
+    private record Conteudo(String letra, List<String> partitura) {}
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param regioes Regiões mapeadas do ficheiro
+     * @param capacidadeCache Número de conteúdos descodificados mantidos em cache
+     */
+    private ArquivoConteudos(MappedByteBuffer[] regioes, int capacidadeCache) {
+        this.regioes = regioes;
+        this.cache = new CacheLRU<>(capacidadeCache);
+    }
+
+    /**
+     * Método que escreve as letras e partituras das músicas num ficheiro e passa as músicas a lê-las desse ficheiro.
+     *
+     * @param ficheiro Ficheiro de dados a criar (substituído se existir)
+     * @param musicas Músicas a mapear
+     * @return O arquivo criado
+     * @throws IOException Se não for possível escrever ou mapear o ficheiro
+     */
+    public static ArquivoConteudos mapear(Path ficheiro, Collection<? extends Musica> musicas) throws IOException {
+        return mapear(ficheiro, musicas, CAPACIDADE_CACHE);
+    }
+
+    /**
+     * Método que escreve as letras e partituras das músicas num ficheiro e passa as músicas a lê-las desse ficheiro.
+     *
+     * O ficheiro é escrito num ficheiro temporário e depois movido para o destino, pelo que
+     * músicas ainda mapeadas num ficheiro anterior com o mesmo nome continuam válidas.
+     *
+     * @param ficheiro Ficheiro de dados a criar (substituído se existir)
+     * @param musicas Músicas a mapear
+     * @param capacidadeCache Número de conteúdos descodificados mantidos em cache
+     * @return O arquivo criado
+     * @throws IOException Se não for possível escrever ou mapear o ficheiro
+     */
+    public static ArquivoConteudos mapear(Path ficheiro, Collection<? extends Musica> musicas, int capacidadeCache) throws IOException {
+        List<Musica> lista = new ArrayList<>(musicas);
+        long[] posicoes = new long[lista.size()];
+
+        Path pasta = ficheiro.toAbsolutePath().getParent();
+        Path temporario = Files.createTempFile(pasta, ficheiro.getFileName().toString(), ".tmp");
+        long tamanho;
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+                long posicao = 0;
+                for (int i = 0; i < lista.size(); i++) {
+                    byte[] registo = codificar(lista.get(i));
+                    long resto = TAMANHO_REGIAO - (posicao % TAMANHO_REGIAO);
+                    if (registo.length > resto) {
+                        posicao += escreverZeros(canal, buffer, resto);
+                    }
+                    posicoes[i] = posicao;
+                    posicao += escrever(canal, buffer, ByteBuffer.wrap(registo));
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                tamanho = posicao;
+            }
+            Files.move(temporario, ficheiro, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+
+        MappedByteBuffer[] regioes = new MappedByteBuffer[(int) ((tamanho + TAMANHO_REGIAO - 1) / TAMANHO_REGIAO)];
+        try (FileChannel canal = FileChannel.open(ficheiro, StandardOpenOption.READ)) {
+            for (int r = 0; r < regioes.length; r++) {
+                long inicio = (long) r * TAMANHO_REGIAO;
+                regioes[r] = canal.map(FileChannel.MapMode.READ_ONLY, inicio, Math.min(TAMANHO_REGIAO, tamanho - inicio));
+            }
+        }
+
+        ArquivoConteudos arquivo = new ArquivoConteudos(regioes, capacidadeCache);
+        for (int i = 0; i < lista.size(); i++) {
+            lista.get(i).mapear(arquivo, posicoes[i]);
+        }
+        return arquivo;
+    }
+
+    /**
+     * Método que devolve a letra guardada numa posição.
+     *
+     * @param posicao Posição do registo no ficheiro
+     * @return Letra da música
+     */
+    String getLetra(long posicao) {
+        return conteudo(posicao).letra();
+    }
+
+    /**
+     * Método que devolve a partitura guardada numa posição.
+     *
+     * @param posicao Posição do registo no ficheiro
+     * @return Partitura da música (só de leitura)
+     */
+    List<String> getPartitura(long posicao) {
+        return conteudo(posicao).partitura();
+    }
+
+    /**
+     * Método que devolve o número de conteúdos descodificados a partir do ficheiro (falhas da cache).
+     *
+     * @return Número de descodificações
+     */
+    public long getDescodificacoes() {
+        return this.cache.getFalhas();
+    }
+
+    /**
+     * Método que devolve o conteúdo guardado numa posição, a partir da cache ou do ficheiro.
+     *
+     * A descodificação é feita fora do lock da cache; se duas threads descodificarem o mesmo
+     * registo ao mesmo tempo, ambas obtêm conteúdos iguais e fica em cache o último.
+     *
+     * @param posicao Posição do registo no ficheiro
+     * @return Conteúdo descodificado
+     */
+    private Conteudo conteudo(long posicao) {
+        Conteudo c = this.cache.get(posicao);
+        if (c == null) {
+            c = descodificar(posicao);
+            this.cache.put(posicao, c);
+        }
+        return c;
+    }
+
+    /**
+     * Método que descodifica o registo guardado numa posição.
+     *
+     * Usa apenas leituras absolutas, que não alteram a posição do buffer, pelo que várias
+     * threads podem ler a mesma região em simultâneo.
+     *
+     * @param posicao Posição do registo no ficheiro
+     * @return Conteúdo descodificado
+     */
+    private Conteudo descodificar(long posicao) {
+        MappedByteBuffer regiao = this.regioes[(int) (posicao / TAMANHO_REGIAO)];
+        int indice = (int) (posicao % TAMANHO_REGIAO);
+
+        int tamanhoLetra = regiao.getInt(indice);
+        String letra = lerTexto(regiao, indice + 4, tamanhoLetra);
+        indice += 4 + tamanhoLetra;
+
+        int numNotas = regiao.getInt(indice);
+        indice += 4;
+        List<String> partitura = new ArrayList<>(numNotas);
+        for (int i = 0; i < numNotas; i++) {
+            int tamanhoNota = regiao.getInt(indice);
+            partitura.add(lerTexto(regiao, indice + 4, tamanhoNota));
+            indice += 4 + tamanhoNota;
+        }
+        return new Conteudo(letra, Collections.unmodifiableList(partitura));
+    }
+
+    /**
+     * Método que lê um texto em UTF-8 de uma região.
+     *
+     * @param regiao Região mapeada
+     * @param indice Índice do primeiro byte
+     * @param tamanho Número de bytes
+     * @return Texto lido
+     */
+    private static String lerTexto(MappedByteBuffer regiao, int indice, int tamanho) {
+        byte[] bytes = new byte[tamanho];
+        regiao.get(indice, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Método que codifica a letra e a partitura de uma música num registo.
+     *
+     * @param m Música a codificar
+     * @return Bytes do registo
+     * @throws IOException Se o registo não couber numa região
+     */
+    private static byte[] codificar(Musica m) throws IOException {
+        byte[] letra = m.getLetra().getBytes(StandardCharsets.UTF_8);
+        List<String> partitura = m.getPartitura();
+        byte[][] notas = new byte[partitura.size()][];
+        long tamanho = 8L + letra.length;
+        for (int i = 0; i < notas.length; i++) {
+            notas[i] = partitura.get(i).getBytes(StandardCharsets.UTF_8);
+            tamanho += 4 + notas[i].length;
+        }
+        if (tamanho > TAMANHO_REGIAO) {
+            throw new IOException("Conteúdo demasiado grande: " + m.getId());
+        }
+
+        ByteBuffer registo = ByteBuffer.allocate((int) tamanho);
+        registo.putInt(letra.length).put(letra);
+        registo.putInt(notas.length);
+        for (byte[] nota : notas) {
+            registo.putInt(nota.length).put(nota);
+        }
+        return registo.array();
+    }
+
+    /**
+     * Método que escreve bytes no canal através do buffer.
+     *
+     * @param canal Canal de destino
+     * @param buffer Buffer de escrita
+     * @param bytes Bytes a escrever
+     * @return Número de bytes escritos
+     * @throws IOException Se não for possível escrever no canal
+     */
+    private static int escrever(FileChannel canal, ByteBuffer buffer, ByteBuffer bytes) throws IOException {
+        int n = bytes.remaining();
+        while (bytes.hasRemaining()) {
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                buffer.clear();
+            }
+            int parte = Math.min(buffer.remaining(), bytes.remaining());
+            buffer.put(buffer.position(), bytes, bytes.position(), parte);
+            buffer.position(buffer.position() + parte);
+            bytes.position(bytes.position() + parte);
+        }
+        return n;
+    }
+
+    /**
+     * Método que preenche com zeros o resto de uma região.
+     *
+     * @param canal Canal de destino
+     * @param buffer Buffer de escrita
+     * @param n Número de zeros
+     * @return Número de bytes escritos
+     * @throws IOException Se não for possível escrever no canal
+     */
+    private static long escreverZeros(FileChannel canal, ByteBuffer buffer, long n) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(TAMANHO_BUFFER);
+        long falta = n;
+        while (falta > 0) {
+            zeros.clear().limit((int) Math.min(TAMANHO_BUFFER, falta));
+            falta -= escrever(canal, buffer, zeros);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,182 @@
+package spotifyum.musica;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Classe que mantém índices invertidos das músicas do catálogo por género e por artista.
+ *
+ * Cada género (ou artista) aponta para as músicas que lhe pertencem, indexadas pelo ID,
+ * pelo que a seleção de candidatas para as listas geradas percorre apenas as músicas
+ * dos géneros e artistas pedidos, em vez de todo o catálogo. As músicas de cada género e artista
+ * estão ordenadas pelo ID, para as listagens por género ou artista poderem ser paginadas.
+ */
+public class IndiceMusicas {
+
+    /** Map que associa cada género às suas músicas (ID -> Música) */
+    private final Map<String, NavigableMap<String, Musica>> porGenero;
+
+    /** Map que associa cada artista às suas músicas (ID -> Música) */
+    private final Map<String, NavigableMap<String, Musica>> porArtista;
+
+    /**
+     * Construtor vazio
+     *
+     * Cria os índices sem músicas.
+     */
+    public IndiceMusicas() {
+        this.porGenero = new ConcurrentHashMap<>();
+        this.porArtista = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Método que indexa uma música.
+     *
+     * @param m Música a indexar
+     */
+    public void adicionar(Musica m) {
+        adicionar(this.porGenero, m.getGenero(), m);
+        adicionar(this.porArtista, m.getArtista(), m);
+    }
+
+    /**
+     * Método que retira uma música dos índices.
+     *
+     * @param m Música a retirar
+     */
+    public void remover(Musica m) {
+        remover(this.porGenero, m.getGenero(), m.getId());
+        remover(this.porArtista, m.getArtista(), m.getId());
+    }
+
+    /**
+     * Método que devolve as músicas de um género.
+     *
+     * @param genero Género
+     * @return Vista só de leitura das músicas do género
+     */
+    public Collection<Musica> getMusicasGenero(String genero) {
+        return vista(this.porGenero, genero);
+    }
+
+    /**
+     * Método que devolve as músicas de um artista.
+     *
+     * @param artista Artista
+     * @return Vista só de leitura das músicas do artista
+     */
+    public Collection<Musica> getMusicasArtista(String artista) {
+        return vista(this.porArtista, artista);
+    }
+
+    /**
+     * Método que devolve as músicas de um género, ordenadas pelo ID.
+     *
+     * @param genero Género
+     * @return Vista só de leitura das músicas do género (ID -> Música)
+     */
+    public NavigableMap<String, Musica> getMusicasGeneroOrdenadas(String genero) {
+        return vistaOrdenada(this.porGenero, genero);
+    }
+
+    /**
+     * Método que devolve as músicas de um artista, ordenadas pelo ID.
+     *
+     * @param artista Artista
+     * @return Vista só de leitura das músicas do artista (ID -> Música)
+     */
+    public NavigableMap<String, Musica> getMusicasArtistaOrdenadas(String artista) {
+        return vistaOrdenada(this.porArtista, artista);
+    }
+
+    /**
+     * Método que devolve as músicas de um género, ignorando maiúsculas e minúsculas.
+     *
+     * Percorre apenas os nomes dos géneros (poucos) e junta as músicas dos que coincidem.
+     *
+     * @param genero Género
+     * @return Lista com as músicas do género
+     */
+    public List<Musica> getMusicasGeneroIgnorarCaso(String genero) {
+        List<Musica> resultado = new ArrayList<>();
+        for (Map.Entry<String, NavigableMap<String, Musica>> entry : this.porGenero.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(genero)) {
+                resultado.addAll(entry.getValue().values());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Método que devolve as músicas que pertencem a algum dos géneros ou a algum dos artistas indicados.
+     *
+     * Cada música aparece uma única vez, mesmo que coincida com um género e um artista.
+     *
+     * @param generos Géneros pretendidos
+     * @param artistas Artistas pretendidos
+     * @return Lista com as músicas candidatas
+     */
+    public List<Musica> getCandidatas(Collection<String> generos, Collection<String> artistas) {
+        List<Musica> candidatas = new ArrayList<>();
+        paraCadaCandidata(generos, artistas, candidatas::add);
+        return candidatas;
+    }
+
+    /**
+     * Método que entrega a uma ação as músicas que pertencem a algum dos géneros ou a algum dos artistas indicados.
+     *
+     * Cada música é entregue uma única vez, sem criar nenhuma coleção intermédia: as músicas
+     * de um artista cujo género já foi percorrido são ignoradas, porque já foram entregues.
+     *
+     * @param generos Géneros pretendidos (distintos)
+     * @param artistas Artistas pretendidos (distintos)
+     * @param acao Ação a aplicar a cada música candidata
+     */
+    public void paraCadaCandidata(Collection<String> generos, Collection<String> artistas, Consumer<Musica> acao) {
+        for (String genero : generos) {
+            for (Musica m : this.porGenero.getOrDefault(genero, Collections.emptyNavigableMap()).values()) {
+                acao.accept(m);
+            }
+        }
+        for (String artista : artistas) {
+            for (Musica m : this.porArtista.getOrDefault(artista, Collections.emptyNavigableMap()).values()) {
+                if (!generos.contains(m.getGenero())) {
+                    acao.accept(m);
+                }
+            }
+        }
+    }
+
+    private static void adicionar(Map<String, NavigableMap<String, Musica>> indice, String chave, Musica m) {
+        // O compute é atómico, pelo que a música nunca é posta numa lista que outra thread acabou de remover
+        indice.compute(chave, (k, musicas) -> {
+            NavigableMap<String, Musica> resultado = musicas == null ? new ConcurrentSkipListMap<>() : musicas;
+            resultado.put(m.getId(), m);
+            return resultado;
+        });
+    }
+
+    private static void remover(Map<String, NavigableMap<String, Musica>> indice, String chave, String id) {
+        indice.computeIfPresent(chave, (k, musicas) -> {
+            musicas.remove(id);
+            return musicas.isEmpty() ? null : musicas;
+        });
+    }
+
+    private static Collection<Musica> vista(Map<String, NavigableMap<String, Musica>> indice, String chave) {
+        Map<String, Musica> musicas = indice.get(chave);
+        return musicas == null ? Collections.emptyList() : Collections.unmodifiableCollection(musicas.values());
+    }
+
+    private static NavigableMap<String, Musica> vistaOrdenada(Map<String, NavigableMap<String, Musica>> indice, String chave) {
+        NavigableMap<String, Musica> musicas = indice.get(chave);
+        return musicas == null ? Collections.emptyNavigableMap() : Collections.unmodifiableNavigableMap(musicas);
+    }
+}
@@ -3,6 +3,9 @@ package spotifyum.musica;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import spotifyum.util.Dicionario;
 
 /** Classe que representa uma música do SpotifyUM */
 public class Musica implements Serializable {
@@ -13,26 +16,62 @@ public class Musica implements Serializable {
     /** Nome da Música */
     private String nome;
 
-    /** Artista da Música */
+    /** Artista da Música (instância partilhada do dicionário de artistas) */
     private String artista;
 
-    /** Editora da Música */
+    /** Ordinal do artista no dicionário de artistas */
+    private transient int ordinalArtista;
+
+    /** Editora da Música (instância partilhada do dicionário de editoras) */
     private String editora;
 
-    /** Letra da Música */
-    private String letra;
+    /** Letra da Música (null enquanto estiver apenas no arquivo de conteúdos) */
+    private volatile String letra;
+
+    /** Partitura da Música (null enquanto estiver apenas no arquivo de conteúdos) */
+    private volatile List<String> partitura;//notas
 
-    /** Partitura da Música */
-    private List<String> partitura;//notas
+    /** Arquivo mapeado onde estão a letra e a partitura, ou null se estiverem em memória */
+    private transient volatile ArquivoConteudos arquivo;
 
-    /** Género da Música */
+    /** Posição da letra e da partitura no arquivo */
+    private transient long posicao;
+
+    /** Género da Música (instância partilhada do dicionário de géneros) */
     private String genero;
 
+    /** Ordinal do género no dicionário de géneros */
+    private transient int ordinalGenero;
+
     /** Duração da Música em segundos */
     private int duracao;
 
-    /** Número de reproduções da Música */
-    private int reproducoes;
+    /** Número de reproduções da Música (contador sem locks, atualizado por vários utilizadores em simultâneo) */
+    private LongAdder reproducoes;
+
+    /** Reprodutor usado por todas as músicas (consola por omissão) */
+    private static volatile Reprodutor reprodutor = new ReprodutorConsola();
+
+    /**
+     * Método que devolve o reprodutor usado por todas as músicas.
+     * 
+     * @return Reprodutor atual
+     */
+    public static Reprodutor getReprodutor(){
+        return reprodutor;
+    }
+
+    /**
+     * Método que define o reprodutor usado por todas as músicas.
+     * 
+     * Permite trocar a reprodução animada na consola por um reprodutor sem interface,
+     * por exemplo em servidores, importações e benchmarks.
+     * 
+     * @param novoReprodutor Novo reprodutor
+     */
+    public static void setReprodutor(Reprodutor novoReprodutor){
+        reprodutor = novoReprodutor;
+    }
 
     /** 
      * Construtor vazio 
@@ -45,13 +84,13 @@ public class Musica implements Serializable {
     public Musica(){
         this.id = "";
         this.nome = "";
-        this.artista = "";
-        this.editora = "";
+        setArtista("");
+        setEditora("");
         this.letra = "";
         this.partitura = new ArrayList<>();
-        this.genero = "";
+        setGenero("");
         this.duracao = 0;
-        this.reproducoes = 0;
+        this.reproducoes = new LongAdder();
     }
 
     /** 
@@ -81,13 +120,13 @@ public class Musica implements Serializable {
 
         this.id = id;
         this.nome = nome;
-        this.artista = artista;
-        this.editora = editora;
+        setArtista(artista);
+        setEditora(editora);
         this.letra = letra;
         this.partitura = new ArrayList<>(partitura);
-        this.genero = genero;
+        setGenero(genero);
         this.duracao = duracao;
-        this.reproducoes = 0;
+        this.reproducoes = new LongAdder();
     }
 
     /** 
@@ -102,12 +141,21 @@ public class Musica implements Serializable {
         this.id = umaMusica.getId();
         this.nome = umaMusica.getNome();
         this.artista = umaMusica.getArtista();
+        this.ordinalArtista = umaMusica.getOrdinalArtista();
         this.editora = umaMusica.getEditora();
-        this.letra = umaMusica.getLetra();
-        this.partitura = umaMusica.getPartitura();
+        // Uma cópia de uma música mapeada continua a ler do mesmo arquivo
+        String letra = umaMusica.letra;
+        List<String> partitura = umaMusica.partitura;
+        ArquivoConteudos arquivo = umaMusica.arquivo;
+        this.letra = letra;
+        this.partitura = partitura == null ? null : new ArrayList<>(partitura);
+        this.posicao = umaMusica.posicao;
+        this.arquivo = arquivo;
         this.genero = umaMusica.getGenero();
+        this.ordinalGenero = umaMusica.getOrdinalGenero();
         this.duracao = umaMusica.getDuracao();
-        this.reproducoes = umaMusica.getReproducoes();
+        this.reproducoes = new LongAdder();
+        this.reproducoes.add(umaMusica.getReproducoes());
     }
 
     /**
@@ -146,6 +194,24 @@ public class Musica implements Serializable {
         return this.editora;
     }
 
+    /**
+     * Método que devolve o ordinal do artista da Música no dicionário de artistas.
+     * 
+     * @return Ordinal do artista
+     */
+    public int getOrdinalArtista(){
+        return this.ordinalArtista;
+    }
+
+    /**
+     * Método que devolve o ordinal do gênero da Música no dicionário de géneros.
+     * 
+     * @return Ordinal do gênero
+     */
+    public int getOrdinalGenero(){
+        return this.ordinalGenero;
+    }
+
 
     /**
      * Método que devolve a letra da Música.
@@ -153,7 +219,8 @@ public class Musica implements Serializable {
      * @return Letra da Música
      */
     public String getLetra(){
-        return this.letra;
+        String l = this.letra;
+        return l != null ? l : this.arquivo.getLetra(this.posicao);
     }
 
     /**
@@ -162,7 +229,8 @@ public class Musica implements Serializable {
      * @return Partitura da Música
      */
     public List<String> getPartitura(){
-        return new ArrayList<>(this.partitura);
+        List<String> p = this.partitura;
+        return new ArrayList<>(p != null ? p : this.arquivo.getPartitura(this.posicao));
     }
 
 
@@ -190,7 +258,7 @@ public class Musica implements Serializable {
      * @return Número de reproduções da Música
      */
     public int getReproducoes(){
-        return this.reproducoes;
+        return (int) this.reproducoes.sum();
     }
 
     /**
@@ -217,7 +285,8 @@ public class Musica implements Serializable {
      * @param novoArtista Novo artista da Música
      */
     public void setArtista(String novoArtista){
-        this.artista = novoArtista;
+        this.ordinalArtista = novoArtista == null ? -1 : Dicionario.ARTISTAS.getOrdinal(novoArtista);
+        this.artista = Dicionario.ARTISTAS.canonico(novoArtista);
     }
 
     /**
@@ -226,7 +295,7 @@ public class Musica implements Serializable {
      * @param novaEditora Nova editora da Música
      */
     public void setEditora(String novaEditora){
-        this.editora = novaEditora;
+        this.editora = Dicionario.EDITORAS.canonico(novaEditora);
     }
 
     /**
@@ -253,7 +322,8 @@ public class Musica implements Serializable {
      * @param novoGenero Novo gênero da Música
      */
     public void setGenero(String novoGenero){
-        this.genero = novoGenero;
+        this.ordinalGenero = novoGenero == null ? -1 : Dicionario.GENEROS.getOrdinal(novoGenero);
+        this.genero = Dicionario.GENEROS.canonico(novoGenero);
     }
 
     /**
@@ -271,7 +341,8 @@ public class Musica implements Serializable {
      * @param novasReproducoes Novo número de reproduções da Música
      */
     public void setReproducoes(int novasReproducoes){
-        this.reproducoes = novasReproducoes;
+        this.reproducoes.reset();
+        this.reproducoes.add(novasReproducoes);
     }
 
     /**
@@ -302,15 +373,15 @@ public class Musica implements Serializable {
         sb.append("Editora: ");
         sb.append(this.editora).append("\n");
         sb.append("Letra: ");
-        sb.append(this.letra).append("\n");
+        sb.append(this.getLetra()).append("\n");
         sb.append("Partitura: ");
-        sb.append(this.partitura.toString()).append("\n");
+        sb.append(this.getPartitura().toString()).append("\n");
         sb.append("Genero: ");
         sb.append(this.genero).append("\n");
         sb.append("Duracao: ");
         sb.append(this.duracao).append("\n");
         sb.append("Reproducoes: ");
-        sb.append(this.reproducoes).append("\n");
+        sb.append(this.getReproducoes()).append("\n");
         return sb.toString();
     }
 
@@ -334,44 +405,53 @@ public class Musica implements Serializable {
                this.nome.equals(m.getNome()) &&
                this.artista.equals(m.getArtista()) &&
                this.editora.equals(m.getEditora()) &&
-               this.letra.equals(m.getLetra()) &&
-               this.partitura.equals(m.getPartitura()) &&
+               this.getLetra().equals(m.getLetra()) &&
+               this.getPartitura().equals(m.getPartitura()) &&
                this.genero.equals(m.getGenero()) &&
                this.duracao == m.getDuracao() &&
-               this.reproducoes == m.getReproducoes();
+               this.getReproducoes() == m.getReproducoes();
+    }
+
+    /**
+     * Método que passa a ler a letra e a partitura da Música de um arquivo mapeado, libertando as cópias em memória.
+     * 
+     * A letra e a partitura só são limpas depois de o arquivo estar visível, pelo que uma thread
+     * que leia a Música ao mesmo tempo encontra sempre uma das duas versões.
+     * 
+     * @param arquivo Arquivo onde estão a letra e a partitura
+     * @param posicao Posição da letra e da partitura no arquivo
+     */
+    void mapear(ArquivoConteudos arquivo, long posicao) {
+        this.posicao = posicao;
+        this.arquivo = arquivo;
+        this.letra = null;
+        this.partitura = null;
     }
 
     /**
-     * Método que reproduz a Música
+     * Método que devolve o cabeçalho mostrado antes da reprodução.
      * 
-     * Aumenta o número de reproduções, imprime a letra, o nome da música e o artista.
+     * @return Cabeçalho da Música, ou null se não tiver
+     */
+    public String getCabecalho() {
+        return null;
+    }
+
+    /**
+     * Método que reproduz a Música.
+     * 
+     * Incrementa o número de reproduções e entrega a Música ao reprodutor atual.
      */
     public void reproduzir() {
-        this.reproducoes++;
-        System.out.println();
-        System.out.println("═════════════════════════════════════════════════");
-        System.out.println("[▶] Música: " + this.nome + " - " + this.artista + "\n");
-    
-        System.out.println(this.letra);
-        System.out.println();
-    
-        System.out.print("[");
-        int totalSteps = 40;
-        for (int i = 0; i < totalSteps; i++) {
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                System.out.println("\nReprodução interrompida.");
-                return;
-            }
-            System.out.print("=");
-            System.out.flush();
-        }
-        System.out.println("] 100%");
-    
-        System.out.println("\n═════════════════════════════════════════════════");
-        System.out.println();
+        contarReproducao();
+        reprodutor.reproduzir(this);
+    }
+
+    /**
+     * Método que conta uma reprodução da Música sem a reproduzir (por exemplo, ao reaplicar o diário).
+     */
+    public void contarReproducao() {
+        this.reproducoes.increment();
     }
     
 }
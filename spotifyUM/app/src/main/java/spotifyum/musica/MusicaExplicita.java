@@ -108,17 +108,15 @@ public class MusicaExplicita extends Musica {
     }
 
     /**
-     * Método que reproduz a MúsicaMultimédia.
+     * Método que devolve o cabeçalho mostrado antes da reprodução.
      * 
-     * Imprime "[MÚSICA EXPLÍCITA]" antes de reproduzir a música, juntamente com um aviso de conteúdo explícito.
+     * Devolve "[MÚSICA EXPLÍCITA]" seguido do aviso de conteúdo explícito.
+     * 
+     * @return Cabeçalho da música
      */
     @Override
-    public void reproduzir(){
-        System.out.println();
-        System.out.print("[MÚSICA EXPLÍCITA]\n");
-        System.out.println();
-        System.out.println(AVISO);
-        super.reproduzir();
+    public String getCabecalho(){
+        return "[MÚSICA EXPLÍCITA]\n\n" + AVISO;
     }
 
 }
@@ -108,16 +108,14 @@ public class MusicaMultimedia extends Musica {
     }
 
     /**
-     * Método que reproduz a MúsicaMultimédia
+     * Método que devolve o cabeçalho mostrado antes da reprodução.
      * 
-     * Imprime "[MÚSICA MULTIMÉDIA]" antes de reproduzir a música, junto com o vídeo.
+     * Devolve "[MÚSICA MULTIMÉDIA]" seguido do vídeo.
+     * 
+     * @return Cabeçalho da música
      */
     @Override
-    public void reproduzir(){
-        System.out.println();
-        System.out.print("[MÚSICA MULTIMÉDIA]\n");
-        System.out.println();
-        System.out.println(VIDEO);
-        super.reproduzir();
+    public String getCabecalho(){
+        return "[MÚSICA MULTIMÉDIA]\n\n" + VIDEO;
     }
 }
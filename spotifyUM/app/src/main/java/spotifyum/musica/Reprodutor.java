@@ -0,0 +1,18 @@
+package spotifyum.musica;
+
+/**
+ * Interface Funcional com o método reproduzir.
+ *
+ * Define o destino de uma reprodução: a consola animada do CLI ou um destino sem interface
+ * para servidores, importações e benchmarks.
+ */
+public interface Reprodutor {
+     /**
+      * Método reproduzir
+      * Este método é invocado sempre que uma música é reproduzida, por {@link Musica#reproduzir()}, depois de
+      * contar a reprodução na música mas antes de a registar no utilizador (pontos, histórico, estatísticas e
+      * diário), e sem nenhum lock do model. O estado do utilizador ainda não inclui esta reprodução.
+      * @param m Música reproduzida
+      */
+     public void reproduzir(Musica m);
+}
@@ -0,0 +1,54 @@
+package spotifyum.musica;
+
+/**
+ * Classe que reproduz as músicas na consola, com a letra e uma barra de progresso animada.
+ *
+ * É o reprodutor usado por omissão pelo CLI interativo.
+ */
+public class ReprodutorConsola implements Reprodutor {
+
+    /** Número de passos da barra de progresso */
+    private static final int TOTAL_PASSOS = 40;
+
+    /** Duração de cada passo da barra de progresso, em milissegundos */
+    private static final long DURACAO_PASSO = 50;
+
+    /**
+     * Método que reproduz a música na consola.
+     *
+     * Imprime o cabeçalho da música (se tiver), o nome, o artista e a letra, seguidos da barra de progresso.
+     *
+     * @param m Música a reproduzir
+     */
+    @Override
+    public void reproduzir(Musica m) {
+        String cabecalho = m.getCabecalho();
+        if (cabecalho != null) {
+            System.out.println();
+            System.out.println(cabecalho);
+        }
+        System.out.println();
+        System.out.println("═════════════════════════════════════════════════");
+        System.out.println("[▶] Música: " + m.getNome() + " - " + m.getArtista() + "\n");
+
+        System.out.println(m.getLetra());
+        System.out.println();
+
+        System.out.print("[");
+        for (int i = 0; i < TOTAL_PASSOS; i++) {
+            try {
+                Thread.sleep(DURACAO_PASSO);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("\nReprodução interrompida.");
+                return;
+            }
+            System.out.print("=");
+            System.out.flush();
+        }
+        System.out.println("] 100%");
+
+        System.out.println("\n═════════════════════════════════════════════════");
+        System.out.println();
+    }
+}
@@ -0,0 +1,55 @@
+package spotifyum.musica;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe que reproduz as músicas sem interface, contando apenas as reproduções e os segundos reproduzidos.
+ *
+ * Não imprime nem espera, pelo que registar uma reprodução é só uma atualização de estado.
+ * Destina-se a servidores, importações e benchmarks.
+ */
+public class ReprodutorMetricas implements Reprodutor {
+
+    /** Número de músicas reproduzidas */
+    private final LongAdder reproducoes = new LongAdder();
+
+    /** Soma das durações das músicas reproduzidas, em segundos */
+    private final LongAdder segundos = new LongAdder();
+
+    /**
+     * Método que regista a reprodução da música nas métricas.
+     *
+     * @param m Música reproduzida
+     */
+    @Override
+    public void reproduzir(Musica m) {
+        this.reproducoes.increment();
+        this.segundos.add(m.getDuracao());
+    }
+
+    /**
+     * Método que devolve o número de músicas reproduzidas.
+     *
+     * @return Número de reproduções
+     */
+    public long getReproducoes() {
+        return this.reproducoes.sum();
+    }
+
+    /**
+     * Método que devolve a soma das durações das músicas reproduzidas.
+     *
+     * @return Segundos reproduzidos
+     */
+    public long getSegundos() {
+        return this.segundos.sum();
+    }
+
+    /**
+     * Método que repõe as métricas a zero.
+     */
+    public void reiniciar() {
+        this.reproducoes.reset();
+        this.segundos.reset();
+    }
+}
@@ -1,14 +1,28 @@
 package spotifyum.mvc;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalDate;
 
 import spotifyum.album.Album;
+import spotifyum.estatisticas.ResultadoQuery;
 import spotifyum.exceptions.*;
+import spotifyum.importacao.ImportadorCatalogo;
+import spotifyum.menu.ExecutorScript;
 import spotifyum.musica.Musica;
 import spotifyum.playlist.Playlist;
+import spotifyum.utilizador.Historico;
+import spotifyum.utilizador.ReproducoesArtista;
 import spotifyum.utilizador.Utilizador;
+import spotifyum.util.Pagina;
 
 /**
  * Controlador do SpotifyUM.
@@ -54,41 +68,47 @@ public class SpotifyumController {
     }
 
     /**
-     * Mostra as informações de um utilizador.
+     * Obtém as informações de um utilizador.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Cópia do utilizador, ou null se não existir
      */
-    public void informacoes(String utilizadorId){
+    public Utilizador informacoes(String utilizadorId){
         try{
-            model.informacoes(utilizadorId);
+            return model.getInformacoes(utilizadorId);
         }catch(EntidadeNaoExisteException e){
             System.out.println("Erro ao obter informações do utilizador: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Mostra o histórico (de músicas) de um utilizador.
+     * Obtém o histórico (de músicas) de um utilizador.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Lista com as reproduções do utilizador, ou null se não existir
      */
-    public void verHistorico(String utilizadorId){
+    public List<Historico> verHistorico(String utilizadorId){
         try{
-            model.verHistorico(utilizadorId);
+            return model.getHistorico(utilizadorId);
         }catch(EntidadeNaoExisteException e){
             System.out.println("Erro ao ver o histórico: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Mostra o histórico de artistas de um utilizador.
+     * Obtém o histórico de artistas de um utilizador.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Lista com as reproduções de cada artista, ou null se o utilizador não existir
      */
-    public void verHistoricoArtistas(String utilizadorId){
+    public List<ReproducoesArtista> verHistoricoArtistas(String utilizadorId){
         try{
-            model.verHistoricoArtistas(utilizadorId);
+            return model.getHistoricoArtistas(utilizadorId);
         }catch(EntidadeNaoExisteException e){
             System.out.println("Erro ao ver o histórico de artistas: " + e.getMessage());
+            return null;
         }
     }
 
@@ -145,7 +165,7 @@ public class SpotifyumController {
     public void criarPlaylistPersonalizada(String utilizadorId, String nome, String muicasIds, String publica){
         try{
             model.criarPlaylistPersonalizada(utilizadorId, nome, muicasIds, publica);
-        }catch(EntidadeNaoExisteException | PlanoException e){
+        }catch(EntidadeNaoExisteException | EntidadeExisteException | PlanoException e){
             System.out.println("Erro ao criar a playlist personalizada: " + e.getMessage());
         }
     }
@@ -159,7 +179,7 @@ public class SpotifyumController {
     public void adicionarAlbumBiblioteca(String utilizadorId, String titulo){
         try{
             model.adicionarAlbumBiblioteca(utilizadorId, titulo);
-        }catch(EntidadeNaoExisteException | PlanoException e){
+        }catch(EntidadeNaoExisteException | EntidadeExisteException | PlanoException e){
             System.out.println("Erro ao adicionar o álbum: " + e.getMessage());
         }
     }
@@ -173,7 +193,7 @@ public class SpotifyumController {
     public void adicionarPlaylistBiblioteca(String utilizadorId, String nome){
         try{
             model.adicionarPlaylistBiblioteca(utilizadorId, nome);
-        }catch(EntidadeNaoExisteException | PlanoException | PublicException e){
+        }catch(EntidadeNaoExisteException | EntidadeExisteException | PlanoException | PublicException e){
             System.out.println("Erro ao adicionar a playlist à biblioteca: " + e.getMessage());
         }
     }
@@ -223,28 +243,32 @@ public class SpotifyumController {
     }
 
     /**
-     * Método para mostrar as playlists da biblioteca de um utilizador.
+     * Método para obter as playlists da biblioteca de um utilizador.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Lista com as playlists do utilizador, ou null se não existir
      */
-    public void verMinhasPlaylists(String utilizadorId){
+    public List<Playlist> verMinhasPlaylists(String utilizadorId){
         try{
-            model.verMinhasPlaylists(utilizadorId);
+            return model.getMinhasPlaylists(utilizadorId);
         }catch(EntidadeNaoExisteException e){
             System.out.println("Erro ao ver as playlists: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Método para mostrar os álbuns da biblioteca de um utilizador.
+     * Método para obter os álbuns da biblioteca de um utilizador.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Lista com os álbuns do utilizador, ou null se não existir
      */
-    public void verBibliotecaAlbuns(String utilizadorId){
+    public List<Album> verBibliotecaAlbuns(String utilizadorId){
         try{
-            model.verBibliotecaAlbuns(utilizadorId);
+            return model.getBibliotecaAlbuns(utilizadorId);
         }catch(EntidadeNaoExisteException e){
             System.out.println("Erro ao ver a biblioteca de álbuns: " + e.getMessage());
+            return null;
         }
     }
 
@@ -255,7 +279,11 @@ public class SpotifyumController {
      * @param nome Nome da lista de favoritos
      */
     public void criaListaFavoritos(String utilizadorId, String nome){
-        model.criaListaFavoritos(utilizadorId, nome);
+        try{
+            model.criaListaFavoritos(utilizadorId, nome);
+        }catch(EntidadeNaoExisteException | EntidadeExisteException | PlanoException e){
+            System.out.println("Erro ao criar a lista de favoritos: " + e.getMessage());
+        }
     }
 
     /**
@@ -266,7 +294,11 @@ public class SpotifyumController {
      * @param tempoMax Tempo máximo da lista de favoritos
      */
     public void criaListaFavoritosTempo(String utilizadorId, String nome, int tempoMax){
-        model.criaListaFavoritosTempo(utilizadorId, nome, tempoMax);
+        try{
+            model.criaListaFavoritosTempo(utilizadorId, nome, tempoMax);
+        }catch(EntidadeNaoExisteException | EntidadeExisteException | PlanoException e){
+            System.out.println("Erro ao criar a lista de favoritos: " + e.getMessage());
+        }
     }
 
     /**
@@ -276,7 +308,11 @@ public class SpotifyumController {
      * @param nome Nome da lista de favoritos
      */
     public void criaListaFavoritosExplicita(String utilizadorId, String nome){
-        model.criaListaFavoritosExplicita(utilizadorId, nome);
+        try{
+            model.criaListaFavoritosExplicita(utilizadorId, nome);
+        }catch(EntidadeNaoExisteException | EntidadeExisteException | PlanoException e){
+            System.out.println("Erro ao criar a lista de favoritos: " + e.getMessage());
+        }
     }
 
     /*
@@ -445,12 +481,14 @@ public class SpotifyumController {
      * Método para executar uma query conforme o número fornecido.
      * 
      * @param query Número da query a executar
+     * @return Resultado da query, ou null se a query não existir
      */
-    public void executaQuery(int query){
+    public ResultadoQuery executaQuery(int query){
         try{
-            model.executarQuery(query);
+            return model.executarQuery(query);
         }catch(OpcaoException e){
             System.out.println("Erro ao executar a query: " + e.getMessage());
+            return null;
         }
     }
 
@@ -459,37 +497,78 @@ public class SpotifyumController {
      * 
      * @param inicio Data de início
      * @param fim Data de fim
+     * @return Resultado da query
      */
-    public void executarQueryEspecial(LocalDate inicio, LocalDate fim){
-        model.executarQueryEspecial(inicio, fim);
+    public ResultadoQuery executarQueryEspecial(LocalDate inicio, LocalDate fim){
+        return model.executarQueryEspecial(inicio, fim);
     }
 
     /**
-     * Método para listar os utilizadores do SpotifyUM.
+     * Método para listar uma página dos utilizadores do SpotifyUM, por ordem do ID.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de utilizadores da página
+     * @return Página de utilizadores
+     */
+    public Pagina<Utilizador> listarUtilizadores(String cursor, int tamanho){
+        return model.listarUtilizadores(cursor, tamanho, u -> true);
+    }
+
+    /**
+     * Método para listar uma página das músicas do SpotifyUM, por ordem do ID.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de músicas da página
+     * @return Página de músicas
+     */
+    public Pagina<Musica> listarMusicas(String cursor, int tamanho){
+        return model.listarMusicas(cursor, tamanho, m -> true);
+    }
+
+    /**
+     * Método para listar uma página das músicas de um género, por ordem do ID.
+     * 
+     * @param genero Género
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de músicas da página
+     * @return Página de músicas
      */
-    public void listarUtilizadores(){
-        model.listarUtilizadores();
+    public Pagina<Musica> listarMusicasGenero(String genero, String cursor, int tamanho){
+        return model.listarMusicasGenero(genero, cursor, tamanho);
     }
 
     /**
-     * Método para listar as músicas do SpotifyUM.
+     * Método para listar uma página das músicas de um artista, por ordem do ID.
+     * 
+     * @param artista Artista
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de músicas da página
+     * @return Página de músicas
      */
-    public void listarMusicas(){
-        model.listarMusicas();
+    public Pagina<Musica> listarMusicasArtista(String artista, String cursor, int tamanho){
+        return model.listarMusicasArtista(artista, cursor, tamanho);
     }
 
     /**
-     * Método para listar os álbuns do SpotifyUM.
+     * Método para listar uma página dos álbuns do SpotifyUM, por ordem do título.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de álbuns da página
+     * @return Página de álbuns
      */
-    public void listarAlbuns(){
-        model.listarAlbuns();
+    public Pagina<Album> listarAlbuns(String cursor, int tamanho){
+        return model.listarAlbuns(cursor, tamanho, a -> true);
     }
 
     /**
-     * Método para listar as playlists do SpotifyUM.
+     * Método para listar uma página das playlists do SpotifyUM, por ordem do nome.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de playlists da página
+     * @return Página de playlists
      */
-    public void listarPlaylists(){
-        model.listarPlaylists();
+    public Pagina<Playlist> listarPlaylists(String cursor, int tamanho){
+        return model.listarPlaylists(cursor, tamanho, p -> true);
     }
     
     /*
@@ -531,6 +610,57 @@ public class SpotifyumController {
        
     }
 
+    /**
+     * Método para executar um script de comandos de administração.
+     * 
+     * As mensagens do script são escritas na consola com buffer, no fim de cada transação.
+     * 
+     * @param ficheiro Caminho do script, ou "-" para ler do stdin
+     * @param tamanhoTransacao Número de comandos de cada transação
+     * @return Resumo da execução, ou null se o script não puder ser lido
+     */
+    public ExecutorScript.Resumo executarScript(String ficheiro, int tamanhoTransacao){
+        PrintWriter saida = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset())));
+        ExecutorScript executor = new ExecutorScript(model, tamanhoTransacao, saida);
+        try{
+            if(ficheiro.equals("-")){
+                return executor.executar(new InputStreamReader(System.in));
+            }
+            try(Reader entrada = Files.newBufferedReader(Path.of(ficheiro))){
+                return executor.executar(entrada);
+            }
+        }catch(IOException | IllegalArgumentException e){
+            saida.flush();
+            System.out.println("Erro ao executar o script: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Método para importar em massa um ficheiro CSV ou TSV de músicas, álbuns ou utilizadores.
+     * 
+     * O separador é escolhido pela extensão do ficheiro (.tsv ou .tab para tabulações, vírgulas nos restantes)
+     * e as linhas são analisadas por tantas threads quantos os processadores.
+     * 
+     * @param ficheiro Caminho do ficheiro
+     * @param tipo Tipo das entidades (MUSICAS, ALBUNS ou UTILIZADORES)
+     * @param cabecalho Indica se a primeira linha é um cabeçalho
+     * @return Resumo da importação, ou null se o ficheiro não puder ser importado
+     */
+    public ImportadorCatalogo.Resumo importarCatalogo(String ficheiro, String tipo, boolean cabecalho){
+        PrintWriter saida = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset())));
+        try{
+            Path caminho = Path.of(ficheiro);
+            ImportadorCatalogo importador = new ImportadorCatalogo(model, ImportadorCatalogo.separador(caminho),
+                                                                   Runtime.getRuntime().availableProcessors(), saida);
+            return importador.importar(caminho, ImportadorCatalogo.Tipo.valueOf(tipo.trim().toUpperCase()), cabecalho);
+        }catch(IOException | IllegalArgumentException e){
+            saida.flush();
+            System.out.println("Erro ao importar o ficheiro: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Método para carregar o estado do spotifyUM a partir de um ficheiro.
      * 
@@ -2,18 +2,60 @@ package spotifyum.mvc;
 
 import java.io.*;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 import java.time.LocalDate;
 
 import spotifyum.album.Album;
+import spotifyum.estatisticas.ConsultaParalela;
+import spotifyum.estatisticas.Estatisticas;
+import spotifyum.estatisticas.ResultadoQuery;
 import spotifyum.exceptions.*;
 import spotifyum.musica.*;
+import spotifyum.persistencia.Diario;
+import spotifyum.persistencia.EntradaBinaria;
+import spotifyum.persistencia.Eventos;
+import spotifyum.persistencia.Snapshot;
 import spotifyum.planos.*;
 import spotifyum.playlist.*;
-import spotifyum.utilizador.Utilizador;
 import spotifyum.utilizador.Historico;
+import spotifyum.utilizador.HistoricoCompacto;
+import spotifyum.utilizador.OuvinteReproducao;
+import spotifyum.utilizador.PerfilGosto;
+import spotifyum.utilizador.ReproducoesArtista;
+import spotifyum.util.AnelEventos;
+import spotifyum.util.CacheLRU;
+import spotifyum.util.EscritaPaginada;
+import spotifyum.util.Mochila;
+import spotifyum.util.Pagina;
+import spotifyum.util.Reservatorio;
+import spotifyum.utilizador.Utilizador;
 
-/** Classe Principal onde são armazenadas as entidades e métodos que interagem com os mesmos */
+/**
+ * Classe Principal onde são armazenadas as entidades e métodos que interagem com os mesmos
+ * 
+ * O model pode ser usado por várias threads: os catálogos são ConcurrentHashMaps e as operações
+ * de cada utilizador são serializadas por um lock partilhado (lock striping), pelo que as reproduções
+ * de utilizadores diferentes são registadas em paralelo. As músicas são reproduzidas fora desse lock,
+ * que só é tomado para registar cada reprodução.
+ * 
+ * Com o diário ativo ({@link #abrirDiario(String)}), cada alteração ao estado é registada num diário de eventos
+ * antes de a operação terminar, e o estado é recuperado a partir do último snapshot e do diário.
+ */
 public class SpotifyumModel implements Serializable {
     private volatile transient SpotifyumController  controller;
 
@@ -29,13 +71,265 @@ public class SpotifyumModel implements Serializable {
     /** Map de albuns usando o titulo do album como chave */
     private Map<String, Album> albuns;
 
+    /** Estatísticas atualizadas a cada reprodução, reconstruídas ao carregar um estado */
+    private transient Estatisticas estatisticas;
+
+    /** Índices das músicas por género e por artista, reconstruídos ao carregar um estado */
+    private transient IndiceMusicas indice;
+
+    /** Chaves de cada catálogo, ordenadas, para as listagens paginadas; reconstruídas ao carregar um estado */
+    private transient NavigableSet<String> chavesUtilizadores;
+    private transient NavigableSet<String> chavesPlaylists;
+    private transient NavigableSet<String> chavesMusicas;
+    private transient NavigableSet<String> chavesAlbuns;
+
+
+    /** Locks partilhados pelos utilizadores: as operações de um utilizador usam sempre o mesmo lock */
+    private transient Object[] locksUtilizadores;
+
+    /** Número de locks de utilizadores (potência de 2) */
+    private static final int NUM_LOCKS = 64;
+
+    /** Locks das chaves dos catálogos de músicas, álbuns e playlists: quem acrescenta ou remove uma chave usa sempre o mesmo lock */
+    private transient Object[] locksCatalogo;
+
+    /** Ouvinte dos utilizadores do model: atualiza as estatísticas e regista as reproduções no diário */
+    private transient OuvinteReproducao ouvinte;
+
+    /** Acesso ao catálogo usado pelos eventos do diário */
+    private transient Eventos.Catalogo catalogo;
+
+    /** Diário de eventos, ou null se o diário não estiver ativo */
+    private transient volatile Diario diario;
+
+    /** Ficheiro de estado do diário (snapshot base) */
+    private transient Path ficheiroDiario;
+
+    /** Thread onde são feitos os checkpoints do diário */
+    private transient ExecutorService compactador;
+
+    /** Último checkpoint pedido (um checkpoint com sucesso inclui os segmentos dos que falharam antes) */
+    private transient volatile Future<?> ultimoCheckpoint;
+
+    /** Indica se já há um checkpoint automático pedido */
+    private transient AtomicBoolean checkpointPendente;
+
+    /** Número de lotes de escrita abertos por cada thread: enquanto houver um, o diário só é sincronizado no fim */
+    private transient ThreadLocal<int[]> lotesAbertos;
+
+    /** Tamanho do segmento do diário a partir do qual é feito um checkpoint automático */
+    private static final long LIMITE_SEGMENTO = 64L << 20;
+
+    /** Ficheiro mapeado com as letras e partituras do catálogo, ou null se estiverem em memória */
+    private transient Path ficheiroConteudos;
+
+    /** Número de géneros e de artistas preferidos considerados nas listas de favoritos */
+    private static final int NUM_PREFERIDOS = 3;
+
+    /** Número máximo de músicas das listas de favoritos sem limite de tempo */
+    private static final int NUM_FAVORITOS = 10;
+
+    /** Meia-vida, em dias, dos pesos dos perfis de gosto dos utilizadores (0 sem decaimento) */
+    private transient double meiaVidaPerfis;
+
+    /** Número máximo de listas de candidatas a favoritas mantidas em cache */
+    private static final int CAPACIDADE_CACHE_FAVORITAS = 4096;
+
+    /** Cache das candidatas a favoritas de cada utilizador, por variante */
+    private transient CacheLRU<ChaveFavoritas, Candidatas> cacheFavoritas;
+
+    /** Versão do catálogo, incrementada sempre que são adicionadas ou removidas músicas */
+    private transient AtomicLong versaoCatalogo;
+
+    /** Execução das queries que percorrem todos os utilizadores ou playlists */
+    private transient volatile ConsultaParalela consultas;
+
+    /** Pipeline de reproduções, ou null se as reproduções são registadas na thread de quem ouve */
+    private transient volatile AnelEventos<ReproducaoPendente> pipeline;
+
+    /** Locks de publicação no pipeline, para o desativar sem perder reproduções em curso */
+    private transient Object[] locksPublicacao;
+
+    /** Capacidade do pipeline de reproduções, por omissão */
+    public static final int CAPACIDADE_PIPELINE = 1 << 14;
+
+    /** Variantes das listas de candidatas a favoritas */
+    private enum VarianteFavoritas {
+        /** Todas as candidatas (listas de favoritos com e sem limite de tempo) */
+        TODAS,
+        /** Apenas as candidatas explícitas */
+        EXPLICITAS
+    }
+
+    /**
+     * Chave da cache de candidatas a favoritas.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param variante Variante da lista
+     */
+    private record ChaveFavoritas(String utilizadorId, VarianteFavoritas variante) {}
+
+    /**
+     * Candidatas a favoritas de um utilizador, com o estado a partir do qual foram calculadas.
+     * 
+     * @param versaoCatalogo Versão do catálogo
+     * @param perfil Perfil de gosto do utilizador
+     * @param reproducoes Número de reproduções do perfil
+     * @param musicas Músicas candidatas (só de leitura)
+     */
+    private record Candidatas(long versaoCatalogo, PerfilGosto perfil, long reproducoes, List<Musica> musicas) {}
+
+    /**
+     * Operações executadas como um lote de escrita (ver {@link SpotifyumModel#executarEmLote(OperacoesLote)}).
+     *
+     * @param <E> Tipo da exceção que as operações podem lançar
+     */
+    @FunctionalInterface
+    public interface OperacoesLote<E extends Exception> {
+
+        /**
+         * Método que executa as operações do lote.
+         *
+         * @throws E Se alguma operação falhar
+         */
+        void executar() throws E;
+    }
+
+    /**
+     * Reprodução publicada no pipeline, à espera de ser aplicada (objeto pré-alocado e reutilizado pelo anel).
+     */
+    private static final class ReproducaoPendente {
+        private String utilizadorId;
+        private Musica musica;
+        private LocalDate data;
+    }
+
+    /**
+     * Chave dos grupos de reproduções de um lote do pipeline.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param data Data das reproduções
+     */
+    private record ChaveLote(String utilizadorId, LocalDate data) {}
+
+    /**
+     * Consumidor de uma etapa do pipeline que junta as reproduções de cada lote por utilizador e data,
+     * pela ordem de chegada, e as aplica de uma vez no fim do lote.
+     */
+    private static final class AgrupadorReproducoes implements AnelEventos.Consumidor<ReproducaoPendente> {
+
+        /** Reproduções do lote atual, por utilizador e data */
+        private final Map<ChaveLote, List<Musica>> grupos = new LinkedHashMap<>();
+
+        /** Aplicação de cada grupo */
+        private final BiConsumer<ChaveLote, List<Musica>> aplicar;
+
+        private AgrupadorReproducoes(BiConsumer<ChaveLote, List<Musica>> aplicar) {
+            this.aplicar = aplicar;
+        }
+
+        @Override
+        public void consumir(ReproducaoPendente r, long sequencia, boolean fimLote) {
+            this.grupos.computeIfAbsent(new ChaveLote(r.utilizadorId, r.data), k -> new ArrayList<>()).add(r.musica);
+            if (!fimLote) {
+                return;
+            }
+            RuntimeException erro = null;
+            for (Map.Entry<ChaveLote, List<Musica>> e : this.grupos.entrySet()) {
+                try {
+                    this.aplicar.accept(e.getKey(), e.getValue());
+                } catch (RuntimeException ex) {
+                    // Os restantes grupos do lote são aplicados na mesma
+                    erro = erro == null ? ex : erro;
+                }
+            }
+            this.grupos.clear();
+            if (erro != null) {
+                throw erro;
+            }
+        }
+    }
+
 
     /** Construtor vazio */
     public SpotifyumModel() {
-        this.utilizadores = new HashMap<>();
-        this.playlists = new HashMap<>();
-        this.musicas = new HashMap<>();
-        this.albuns = new HashMap<>();
+        this.utilizadores = new ConcurrentHashMap<>();
+        this.playlists = new ConcurrentHashMap<>();
+        this.musicas = new ConcurrentHashMap<>();
+        this.albuns = new ConcurrentHashMap<>();
+        this.consultas = new ConsultaParalela();
+        this.estatisticas = new Estatisticas();
+        this.estatisticas.setConsultas(this.consultas);
+        this.indice = new IndiceMusicas();
+        reconstruirChaves();
+        this.locksUtilizadores = new Object[NUM_LOCKS];
+        this.locksPublicacao = new Object[NUM_LOCKS];
+        this.locksCatalogo = new Object[NUM_LOCKS];
+        for (int i = 0; i < NUM_LOCKS; i++) {
+            this.locksUtilizadores[i] = new Object();
+            this.locksPublicacao[i] = new Object();
+            this.locksCatalogo[i] = new Object();
+        }
+        this.ouvinte = new OuvinteReproducao() {
+            @Override
+            public void reproducaoRegistada(Utilizador u, Musica m, LocalDate data) {
+                SpotifyumModel.this.reproducaoRegistada(u, m, data);
+            }
+
+            @Override
+            public void reproducoesRegistadas(Utilizador u, List<Musica> musicas, LocalDate data) {
+                SpotifyumModel.this.reproducoesRegistadas(u, musicas, data);
+            }
+        };
+        this.catalogo = new Eventos.Catalogo() {
+            @Override
+            public Musica getMusica(String id) {
+                return musicas.get(id);
+            }
+
+            @Override
+            public Playlist getPlaylist(String nome) {
+                return playlists.get(nome);
+            }
+
+            @Override
+            public Album getAlbum(String titulo) {
+                return albuns.get(titulo);
+            }
+        };
+        this.checkpointPendente = new AtomicBoolean(false);
+        this.lotesAbertos = ThreadLocal.withInitial(() -> new int[1]);
+        this.cacheFavoritas = new CacheLRU<>(CAPACIDADE_CACHE_FAVORITAS);
+        this.versaoCatalogo = new AtomicLong();
+    }
+
+    /**
+     * Método que devolve o lock do utilizador com o id passado como parâmetro.
+     * 
+     * As operações que leem ou alteram o estado de um utilizador (reproduções, plano, biblioteca)
+     * são feitas com este lock, pelo que as de utilizadores diferentes correm em paralelo.
+     * 
+     * @param id ID do utilizador
+     * @return Lock do utilizador
+     */
+    private Object lockUtilizador(String id) {
+        int h = id.hashCode();
+        return this.locksUtilizadores[(h ^ (h >>> 16)) & (NUM_LOCKS - 1)];
+    }
+
+    /**
+     * Método que devolve o lock de uma chave dos catálogos de músicas, álbuns e playlists.
+     * 
+     * A chave é ocupada (ou libertada) e o evento é registado no diário com este lock, pelo que a ordem
+     * dos eventos de uma chave no diário é a ordem em que foram aplicados: duas adições concorrentes da
+     * mesma chave não chegam ambas ao diário.
+     * 
+     * @param chave Chave (id da música, título do álbum ou nome da playlist)
+     * @return Lock da chave
+     */
+    private Object lockCatalogo(String chave) {
+        int h = chave.hashCode();
+        return this.locksCatalogo[(h ^ (h >>> 16)) & (NUM_LOCKS - 1)];
     }
 
     /**
@@ -95,6 +389,17 @@ public class SpotifyumModel implements Serializable {
         return new ArrayList<>(this.utilizadores.values());
     }
 
+    /**
+     * Retorna uma vista só de leitura dos utilizadores, sem as copiar.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @return Vista só de leitura dos utilizadores
+     */
+    public Collection<Utilizador> getUtilizadoresVista(){
+        return Collections.unmodifiableCollection(this.utilizadores.values());
+    }
+
 
     /**
      * Adiciona um clone de um utilizador ao map de utilizadores
@@ -103,12 +408,65 @@ public class SpotifyumModel implements Serializable {
      */
     public void adicionarUtilizador(Utilizador u) throws EntidadeExisteException{
         String id = u.getId();
+        Utilizador copia = u.clone();
+        copia.setOuvinte(this.ouvinte);
+        copia.setLockReproducoes(lockUtilizador(id));
 
-        if(this.utilizadores.containsKey(id)){
-            throw new EntidadeExisteException("Utilizador já existe.");
+        synchronized (lockUtilizador(id)) {
+            if(this.utilizadores.containsKey(id)){
+                throw new EntidadeExisteException("Utilizador já existe.");
+            }
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.UTILIZADOR_ADICIONADO);
+                Eventos.escreverUtilizador(saida, copia, this.catalogo);
+            });
+            reconstruirPerfil(copia);
+            invalidarFavoritas(id);
+            this.utilizadores.put(id, copia);
+            this.chavesUtilizadores.add(id);
+            this.estatisticas.adicionarUtilizador(copia);
         }
+        confirmarDiario();
+    }
 
-        this.utilizadores.put(id, u.clone());
+    /**
+     * Adiciona vários utilizadores de uma vez ao map de utilizadores, sem os copiar: os utilizadores passam a
+     * pertencer ao model e não devem ser alterados por quem os criou.
+     * 
+     * Os utilizadores cujo id já existe não são adicionados e a sua posição é entregue a {@code repetido}.
+     * Os eventos de todos são gravados no diário com uma única sincronização.
+     * 
+     * @param novos Utilizadores a adicionar
+     * @param repetido Ação aplicada à posição de cada utilizador que já existia
+     * @return Número de utilizadores adicionados
+     */
+    public int adicionarUtilizadores(List<Utilizador> novos, IntConsumer repetido){
+        int[] adicionados = {0};
+        executarEmLote(() -> {
+            for (int i = 0; i < novos.size(); i++) {
+                Utilizador u = novos.get(i);
+                String id = u.getId();
+                synchronized (lockUtilizador(id)) {
+                    if(this.utilizadores.containsKey(id)){
+                        repetido.accept(i);
+                        continue;
+                    }
+                    u.setOuvinte(this.ouvinte);
+                    u.setLockReproducoes(lockUtilizador(id));
+                    registarEvento(saida -> {
+                        saida.escreverByte(Eventos.UTILIZADOR_ADICIONADO);
+                        Eventos.escreverUtilizador(saida, u, this.catalogo);
+                    });
+                    reconstruirPerfil(u);
+                    invalidarFavoritas(id);
+                    this.utilizadores.put(id, u);
+                    this.chavesUtilizadores.add(id);
+                    this.estatisticas.adicionarUtilizador(u);
+                }
+                adicionados[0]++;
+            }
+        });
+        return adicionados[0];
     }
 
     /**
@@ -117,20 +475,35 @@ public class SpotifyumModel implements Serializable {
      * @return Utilizador com o id passado como parâmetro
      */
     public Utilizador getUtilizador(String id){
-        return this.utilizadores.get(id).clone();
+        synchronized (lockUtilizador(id)) {
+            return this.utilizadores.get(id).clone();
+        }
     }
 
     /**
      * Remove o utilizador com o id passado como parâmetro
      * @param id ID do utilizador
+     * @return O utilizador removido (a própria instância, não uma cópia)
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
-    public void removerUtilizador(String id) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(id)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
+    public Utilizador removerUtilizador(String id) throws EntidadeNaoExisteException{
+        Utilizador u;
+        synchronized (lockUtilizador(id)) {
+            u = this.utilizadores.remove(id);
+            if(u == null){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            this.chavesUtilizadores.remove(id);
+            u.setOuvinte(null);
+            this.estatisticas.removerUtilizador(id);
+            invalidarFavoritas(id);
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.UTILIZADOR_REMOVIDO);
+                saida.escreverString(id);
+            });
         }
-
-        this.utilizadores.remove(id);
+        confirmarDiario();
+        return u;
     }
 
     /**
@@ -220,6 +593,17 @@ public class SpotifyumModel implements Serializable {
         return new ArrayList<>(this.playlists.values());
     }
 
+    /**
+     * Retorna uma vista só de leitura das playlists, sem as copiar.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @return Vista só de leitura das playlists
+     */
+    public Collection<Playlist> getPlaylistsVista(){
+        return Collections.unmodifiableCollection(this.playlists.values());
+    }
+
 
     /**
      * Adiciona um clone de uma playlist ao map de playlists
@@ -228,12 +612,56 @@ public class SpotifyumModel implements Serializable {
      */
     public void adicionarPlaylist(Playlist p) throws EntidadeExisteException {
         String nome = p.getNome();
+        Playlist copia = p.clone();
 
-        if (this.playlists.containsKey(nome)) {
-            throw new EntidadeExisteException("Playlist já existe.");
+        // O evento é registado antes de a playlist ficar visível, para ficar no diário antes de quem a use
+        synchronized (lockCatalogo(nome)) {
+            if (this.playlists.containsKey(nome)) {
+                throw new EntidadeExisteException("Playlist já existe.");
+            }
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.PLAYLIST_ADICIONADA);
+                Eventos.escreverPlaylist(saida, copia, this.catalogo);
+            });
+            this.playlists.put(nome, copia);
+            this.chavesPlaylists.add(nome);
         }
+        confirmarDiario();
+    }
 
-        this.playlists.put(nome, p.clone());
+    /**
+     * Adiciona várias playlists de uma vez ao map de playlists, sem as copiar: as playlists passam a
+     * pertencer ao model e não devem ser alteradas por quem as criou.
+     * 
+     * As playlists cujo nome já existe não são adicionadas e a sua posição é entregue a {@code repetida}.
+     * Os eventos de todas são gravados no diário com uma única sincronização.
+     * 
+     * @param novas Playlists a adicionar
+     * @param repetida Ação aplicada à posição de cada playlist que já existia
+     * @return Número de playlists adicionadas
+     */
+    public int adicionarPlaylists(List<Playlist> novas, IntConsumer repetida){
+        int[] adicionadas = {0};
+        executarEmLote(() -> {
+            for (int i = 0; i < novas.size(); i++) {
+                Playlist p = novas.get(i);
+                String nome = p.getNome();
+                synchronized (lockCatalogo(nome)) {
+                    if (this.playlists.containsKey(nome)) {
+                        repetida.accept(i);
+                        continue;
+                    }
+                    registarEvento(saida -> {
+                        saida.escreverByte(Eventos.PLAYLIST_ADICIONADA);
+                        Eventos.escreverPlaylist(saida, p, this.catalogo);
+                    });
+                    this.playlists.put(nome, p);
+                    this.chavesPlaylists.add(nome);
+                }
+                adicionadas[0]++;
+            }
+        });
+        return adicionadas[0];
     }
 
     /**
@@ -248,14 +676,24 @@ public class SpotifyumModel implements Serializable {
     /**
      * Remove a playlist com o nome passado como parâmetro
      * @param nome Nome da playlist
+     * @return A playlist removida (a própria instância, não uma cópia)
      * @throws EntidadeNaoExisteException Se a playlist não existir
      */
-    public void removerPlaylist(String nome ) throws EntidadeNaoExisteException {
-        if (!this.playlists.containsKey(nome)) {
-            throw new EntidadeNaoExisteException("Playlist não existe.");
+    public Playlist removerPlaylist(String nome ) throws EntidadeNaoExisteException {
+        Playlist p;
+        synchronized (lockCatalogo(nome)) {
+            p = this.playlists.remove(nome);
+            if (p == null) {
+                throw new EntidadeNaoExisteException("Playlist não existe.");
+            }
+            this.chavesPlaylists.remove(nome);
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.PLAYLIST_REMOVIDA);
+                saida.escreverString(nome);
+            });
         }
-
-        this.playlists.remove(nome);
+        confirmarDiario();
+        return p;
     }
 
     /**
@@ -304,16 +742,44 @@ public class SpotifyumModel implements Serializable {
         }
 
         List<String> partitura = new ArrayList<>(Arrays.asList(partituraString.split(";")));
+        return criaMusica(id, nome, artista, editora, letra, partitura, genero, Integer.parseInt(duracao), tipo);
+    }
 
+    /**
+     * Cria uma música com os dados passados como parâmetros, já separados e convertidos.
+     * 
+     * @param id ID da música
+     * @param nome Nome da música
+     * @param artista Artista da música
+     * @param editora Editora da música
+     * @param letra Letra da música
+     * @param partitura Partitura da música
+     * @param genero Género da música
+     * @param duracao Duração da música em segundos
+     * @param tipo Tipo da música
+     * 
+     * @return A Música criada
+     * 
+     * @throws OpcaoException Se o tipo de música não for válido
+     */
+    public Musica criaMusica(String id,
+                             String nome,
+                             String artista,
+                             String editora,
+                             String letra,
+                             List<String> partitura,
+                             String genero,
+                             int duracao,
+                             String tipo) throws OpcaoException{
         switch (tipo) {
             case "Normal" -> {
-                return new Musica(id, nome, artista, editora, letra, partitura, genero, Integer.parseInt(duracao));
+                return new Musica(id, nome, artista, editora, letra, partitura, genero, duracao);
             }
             case "Explicita" -> {
-                return new MusicaExplicita(id, nome, artista, editora, letra, partitura, genero, Integer.parseInt(duracao));
+                return new MusicaExplicita(id, nome, artista, editora, letra, partitura, genero, duracao);
             }
             case "Multimedia" -> {
-                return new MusicaMultimedia(id, nome, artista, editora, letra, partitura, genero, Integer.parseInt(duracao));
+                return new MusicaMultimedia(id, nome, artista, editora, letra, partitura, genero, duracao);
             }
             default -> throw new OpcaoException("Tipo de música inválido.");
         }
@@ -327,6 +793,17 @@ public class SpotifyumModel implements Serializable {
         return new ArrayList<>(this.musicas.values());
     }
 
+    /**
+     * Retorna uma vista só de leitura das musicas, sem as copiar.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @return Vista só de leitura das musicas
+     */
+    public Collection<Musica> getMusicasVista(){
+        return Collections.unmodifiableCollection(this.musicas.values());
+    }
+
     /**
      * Adiciona um clone de uma música ao map de musicas
      * @param m Música a adicionar
@@ -335,11 +812,63 @@ public class SpotifyumModel implements Serializable {
     public void adicionarMusica(Musica m) throws EntidadeExisteException{
         String id = m.getId();
 
-        if(this.musicas.containsKey(id)){
-            throw new EntidadeExisteException("Música já existe.");
+        Musica copia = m.clone();
+        synchronized (lockCatalogo(id)) {
+            if(this.musicas.containsKey(id)){
+                throw new EntidadeExisteException("Música já existe.");
+            }
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.MUSICA_ADICIONADA);
+                Eventos.escreverMusica(saida, copia);
+            });
+            this.musicas.put(id, copia);
+            this.chavesMusicas.add(id);
+            this.estatisticas.adicionarMusica(copia);
+            this.indice.adicionar(copia);
         }
+        catalogoAlterado();
+        confirmarDiario();
+    }
 
-        this.musicas.put(id,m.clone());
+    /**
+     * Adiciona várias músicas de uma vez ao map de musicas, sem as copiar: as músicas passam a pertencer
+     * ao model e não devem ser alteradas por quem as criou.
+     * 
+     * As músicas cujo id já existe não são adicionadas e a sua posição é entregue a {@code repetida}.
+     * Os eventos de todas são gravados no diário com uma única sincronização e as candidatas a favoritas
+     * só são invalidadas uma vez.
+     * 
+     * @param novas Músicas a adicionar
+     * @param repetida Ação aplicada à posição de cada música que já existia
+     * @return Número de músicas adicionadas
+     */
+    public int adicionarMusicas(List<Musica> novas, IntConsumer repetida){
+        int[] adicionadas = {0};
+        executarEmLote(() -> {
+            for (int i = 0; i < novas.size(); i++) {
+                Musica m = novas.get(i);
+                String id = m.getId();
+                synchronized (lockCatalogo(id)) {
+                    if(this.musicas.containsKey(id)){
+                        repetida.accept(i);
+                        continue;
+                    }
+                    registarEvento(saida -> {
+                        saida.escreverByte(Eventos.MUSICA_ADICIONADA);
+                        Eventos.escreverMusica(saida, m);
+                    });
+                    this.musicas.put(id, m);
+                    this.chavesMusicas.add(id);
+                    this.estatisticas.adicionarMusica(m);
+                    this.indice.adicionar(m);
+                }
+                adicionadas[0]++;
+            }
+            if (adicionadas[0] > 0) {
+                catalogoAlterado();
+            }
+        });
+        return adicionadas[0];
     }
 
     /**
@@ -354,14 +883,27 @@ public class SpotifyumModel implements Serializable {
     /**
      * Remove a música com o id passado como parâmetro
      * @param id ID da música
+     * @return A música removida (a própria instância, não uma cópia)
      * @throws EntidadeNaoExisteException Se a música não existir
      */
-    public void removerMusica (String id) throws EntidadeNaoExisteException{
-        if(!this.musicas.containsKey(id)){
-            throw new EntidadeNaoExisteException("Música não existe.");
+    public Musica removerMusica (String id) throws EntidadeNaoExisteException{
+        Musica m;
+        synchronized (lockCatalogo(id)) {
+            m = this.musicas.remove(id);
+            if(m == null){
+                throw new EntidadeNaoExisteException("Música não existe.");
+            }
+            this.chavesMusicas.remove(id);
+            this.estatisticas.removerMusica(m);
+            this.indice.remover(m);
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.MUSICA_REMOVIDA);
+                saida.escreverString(id);
+            });
         }
-
-        this.musicas.remove(id);
+        catalogoAlterado();
+        confirmarDiario();
+        return m;
     }
 
     /**
@@ -395,11 +937,25 @@ public class SpotifyumModel implements Serializable {
             throw new IllegalArgumentException("Os parâmetros não podem ser nulos.");
         }
         
-        List<String> listaMusicas = new ArrayList<>(Arrays.asList(musicasIds.split(";")));
-        List<Musica> musicasList = new ArrayList<>();
-        for(String id : listaMusicas){
-            if(existeMusica(id)){
-                musicasList.add(this.musicas.get(id));
+        return criaAlbum(titulo, Arrays.asList(musicasIds.split(";")));
+    }
+
+    /**
+     * Cria um álbum com o título e os IDs das músicas, já separados.
+     * 
+     * @param titulo Título do álbum
+     * @param musicasIds IDs das músicas do álbum
+     * 
+     * @return O Álbum criado
+     * 
+     * @throws EntidadeNaoExisteException Se a música não existir
+     */
+    public Album criaAlbum(String titulo, List<String> musicasIds) throws EntidadeNaoExisteException{
+        List<Musica> musicasList = new ArrayList<>(musicasIds.size());
+        for(String id : musicasIds){
+            Musica m = this.musicas.get(id);
+            if(m != null){
+                musicasList.add(m);
             }
             else{
                 throw new EntidadeNaoExisteException("Musica não existe.");
@@ -416,6 +972,17 @@ public class SpotifyumModel implements Serializable {
         return new ArrayList<>(this.albuns.values());
     }
 
+    /**
+     * Retorna uma vista só de leitura dos albuns, sem as copiar.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @return Vista só de leitura dos albuns
+     */
+    public Collection<Album> getAlbunsVista(){
+        return Collections.unmodifiableCollection(this.albuns.values());
+    }
+
     /**
      * Adiciona um clone de um álbum ao map de albuns
      * @param a Álbum a adicionar
@@ -423,12 +990,55 @@ public class SpotifyumModel implements Serializable {
      */
     public void adicionarAlbum(Album a) throws EntidadeExisteException{
         String titulo = a.getTitulo();
+        Album copia = a.clone();
 
-        if(this.albuns.containsKey(titulo)){
-            throw new EntidadeExisteException("Album já existe.");
+        synchronized (lockCatalogo(titulo)) {
+            if(this.albuns.containsKey(titulo)){
+                throw new EntidadeExisteException("Album já existe.");
+            }
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.ALBUM_ADICIONADO);
+                Eventos.escreverAlbum(saida, copia, this.catalogo);
+            });
+            this.albuns.put(titulo, copia);
+            this.chavesAlbuns.add(titulo);
         }
+        confirmarDiario();
+    }
 
-        this.albuns.put(titulo, a.clone());
+    /**
+     * Adiciona vários álbuns de uma vez ao map de albuns, sem os copiar: os álbuns passam a pertencer
+     * ao model e não devem ser alterados por quem os criou.
+     * 
+     * Os álbuns cujo título já existe não são adicionados e a sua posição é entregue a {@code repetido}.
+     * Os eventos de todos são gravados no diário com uma única sincronização.
+     * 
+     * @param novos Álbuns a adicionar
+     * @param repetido Ação aplicada à posição de cada álbum que já existia
+     * @return Número de álbuns adicionados
+     */
+    public int adicionarAlbuns(List<Album> novos, IntConsumer repetido){
+        int[] adicionados = {0};
+        executarEmLote(() -> {
+            for (int i = 0; i < novos.size(); i++) {
+                Album a = novos.get(i);
+                String titulo = a.getTitulo();
+                synchronized (lockCatalogo(titulo)) {
+                    if(this.albuns.containsKey(titulo)){
+                        repetido.accept(i);
+                        continue;
+                    }
+                    registarEvento(saida -> {
+                        saida.escreverByte(Eventos.ALBUM_ADICIONADO);
+                        Eventos.escreverAlbum(saida, a, this.catalogo);
+                    });
+                    this.albuns.put(titulo, a);
+                    this.chavesAlbuns.add(titulo);
+                }
+                adicionados[0]++;
+            }
+        });
+        return adicionados[0];
     }
 
     /**
@@ -443,14 +1053,24 @@ public class SpotifyumModel implements Serializable {
     /**
      * Remove o álbum com o título passado como parâmetro
      * @param titulo Título do álbum
+     * @return O álbum removido (a própria instância, não uma cópia)
      * @throws EntidadeNaoExisteException Se o álbum não existir
      */
-    public void removerAlbum(String titulo) throws EntidadeNaoExisteException{
-        if(!this.albuns.containsKey(titulo)){
-            throw new EntidadeNaoExisteException("Album não existe.");
+    public Album removerAlbum(String titulo) throws EntidadeNaoExisteException{
+        Album a;
+        synchronized (lockCatalogo(titulo)) {
+            a = this.albuns.remove(titulo);
+            if(a == null){
+                throw new EntidadeNaoExisteException("Album não existe.");
+            }
+            this.chavesAlbuns.remove(titulo);
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.ALBUM_REMOVIDO);
+                saida.escreverString(titulo);
+            });
         }
-
-        this.albuns.remove(titulo);
+        confirmarDiario();
+        return a;
     }
 
     /**
@@ -469,59 +1089,152 @@ public class SpotifyumModel implements Serializable {
     */
 
     /**
-     * Método que imprime as informações do utilizador com o id passado como parâmetro.
+     * Método que devolve as informações do utilizador com o id passado como parâmetro.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Cópia do utilizador
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
-    public void informacoes(String utilizadorId) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
+    public Utilizador getInformacoes(String utilizadorId) throws EntidadeNaoExisteException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            return this.utilizadores.get(utilizadorId).clone();
         }
-        System.out.println(getUtilizador(utilizadorId).toString());
     }
 
     /**
-     * Método que imprime o histórico do utilizador com o id passado como parâmetro.
+     * Método que devolve o histórico do utilizador com o id passado como parâmetro.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Lista com as reproduções do utilizador, por ordem
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
-    public void verHistorico(String utilizadorId) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
+    public List<Historico> getHistorico(String utilizadorId) throws EntidadeNaoExisteException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            return this.utilizadores.get(utilizadorId).getHistorico();
         }
-        System.out.println(this.utilizadores.get(utilizadorId).toStringHistorico());
     }
 
     /**
-     * Método que imprime o histórico de artistas do utilizador com o id passado como parâmetro.
+     * Método que devolve o histórico de artistas do utilizador com o id passado como parâmetro.
      * 
      * @param utilizadorId ID do utilizador
+     * @return Lista com as reproduções de cada artista, pela ordem em que foram ouvidos pela primeira vez
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
-    public void verHistoricoArtistas(String utilizadorId) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
+    public List<ReproducoesArtista> getHistoricoArtistas(String utilizadorId) throws EntidadeNaoExisteException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            Utilizador u = this.utilizadores.get(utilizadorId);
+            List<ReproducoesArtista> resultado = new ArrayList<>(u.getNumArtistas());
+            for (int i = 0; i < u.getNumArtistas(); i++) {
+                resultado.add(new ReproducoesArtista(u.getArtista(i), u.getReproducoesArtista(i)));
+            }
+            return resultado;
         }
-        System.out.println(this.utilizadores.get(utilizadorId).toStringHistoricoArtistas());
     }
 
     /**
      * Método para ouvir uma música.
      * 
+     * A música é reproduzida fora do lock do utilizador, que só é tomado para registar a reprodução
+     * (ver {@link Utilizador#ouvirMusica(Musica)}), pelo que um reprodutor lento não bloqueia as
+     * restantes operações sobre os utilizadores que partilham o lock.
+     * 
      * @param utilizadorId ID do utilizador
      * @param id ID da música
      * @throws EntidadeNaoExisteException Se o utilizador ou a música não existir
      */
     public void ouvirMusica(String utilizadorId, String id) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
+        if (this.pipeline != null) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            Musica m = this.musicas.get(id);
+            if(m == null){
+                throw new EntidadeNaoExisteException("Música não existe.");
+            }
+            ouvirPipeline(utilizadorId, List.of(m));
+            return;
+        }
+        Utilizador u = this.utilizadores.get(utilizadorId);
+        if(u == null){
             throw new EntidadeNaoExisteException("Utilizador não existe.");
         }
-        if(!this.musicas.containsKey(id)){
+        Musica m = this.musicas.get(id);
+        if(m == null){
             throw new EntidadeNaoExisteException("Música não existe.");
         }
-        this.utilizadores.get(utilizadorId).ouvirMusica(this.musicas.get(id));
+        u.ouvirMusica(m);
+        confirmarDiario();
+    }
+
+    /**
+     * Método para ouvir várias músicas seguidas, como um lote.
+     * 
+     * As reproduções são registadas de uma só vez (pontos, históricos, estatísticas e um único evento
+     * no diário). Se alguma música não existir, nenhuma é ouvida.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param musicasIds IDs das músicas, pela ordem das reproduções
+     * @throws EntidadeNaoExisteException Se o utilizador ou alguma das músicas não existir
+     */
+    public void ouvirLote(String utilizadorId, List<String> musicasIds) throws EntidadeNaoExisteException{
+        List<Musica> lote = new ArrayList<>(musicasIds.size());
+        for (String id : musicasIds) {
+            Musica m = this.musicas.get(id);
+            if(m == null){
+                throw new EntidadeNaoExisteException("Música não existe.");
+            }
+            lote.add(m);
+        }
+        if (this.pipeline != null) {
+            ouvirPipeline(utilizadorId, lote);
+            return;
+        }
+        Utilizador u = this.utilizadores.get(utilizadorId);
+        if(u == null){
+            throw new EntidadeNaoExisteException("Utilizador não existe.");
+        }
+        u.ouvirLote(lote);
+        confirmarDiario();
+    }
+
+    /**
+     * Método que reproduz músicas na thread de quem ouve e publica as reproduções no pipeline.
+     * 
+     * Se o pipeline tiver sido desativado entretanto, as reproduções são registadas como sem pipeline.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param lote Músicas a ouvir, pela ordem das reproduções
+     * @throws EntidadeNaoExisteException Se o utilizador não existir
+     */
+    private void ouvirPipeline(String utilizadorId, List<Musica> lote) throws EntidadeNaoExisteException{
+        if(!this.utilizadores.containsKey(utilizadorId)){
+            throw new EntidadeNaoExisteException("Utilizador não existe.");
+        }
+        LocalDate data = LocalDate.now();
+        for (Musica m : lote) {
+            m.reproduzir();
+        }
+        if (publicarReproducoes(utilizadorId, lote, data)) {
+            return;
+        }
+        synchronized (lockUtilizador(utilizadorId)) {
+            Utilizador u = this.utilizadores.get(utilizadorId);
+            if(u == null){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            u.registarLote(lote, data);
+        }
+        confirmarDiario();
     }
 
     /**
@@ -532,30 +1245,39 @@ public class SpotifyumModel implements Serializable {
      * @throws EntidadeNaoExisteException Se o utilizador ou o álbum não existir
      */
     public void ouvirAlbum(String utilizadorId, String titulo) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
+        Utilizador u = this.utilizadores.get(utilizadorId);
+        if(u == null){
             throw new EntidadeNaoExisteException("Utilizador não existe.");
         }
-        if(!this.albuns.containsKey(titulo)){
+        Album a = this.albuns.get(titulo);
+        if(a == null){
             throw new EntidadeNaoExisteException("Album não existe.");
         }
-        this.utilizadores.get(utilizadorId).ouvirAlbum(this.albuns.get(titulo));
+        u.ouvirAlbum(a);
+        confirmarDiario();
     }
 
     /**
      * Método para ouvir uma playlist.
      * 
+     * A reprodução (incluindo as perguntas do plano ao utilizador) corre fora do lock do utilizador;
+     * só o registo de cada reprodução o toma.
+     * 
      * @param utilizadorId ID do utilizador
      * @param nome Nome da playlist
      * @throws EntidadeNaoExisteException Se o utilizador ou a playlist não existir
      */
     public void ouvirPlaylist(String utilizadorId, String nome) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
+        Utilizador u = this.utilizadores.get(utilizadorId);
+        if(u == null){
             throw new EntidadeNaoExisteException("Utilizador não existe.");
         }
-        if(!this.playlists.containsKey(nome)){
+        Playlist p = this.playlists.get(nome);
+        if(p == null){
             throw new EntidadeNaoExisteException("Playlist não existe.");
         }
-        this.utilizadores.get(utilizadorId).ouvirPlaylist(this.playlists.get(nome),this.controller);
+        u.ouvirPlaylist(p, this.controller);
+        confirmarDiario();
     }
 
     /**
@@ -566,57 +1288,88 @@ public class SpotifyumModel implements Serializable {
      * @param musicasIds IDs das músicas da playlist
      * @param publica Se a playlist é pública ou não
      * 
-     * @throws EntidadeNaoExisteException Se o utilizador não existir
+     * @throws IllegalArgumentException Se o nome, as músicas ou a visibilidade forem nulos
+     * @throws EntidadeNaoExisteException Se o utilizador ou alguma das músicas não existir
+     * @throws EntidadeExisteException Se já existir uma playlist com o mesmo nome
      * @throws PlanoException Se o plano do utilizador não permitir a criação de playlists personalizadas
      */
     public void criarPlaylistPersonalizada(String utilizadorId, String nome, String musicasIds, String publica) 
-        throws EntidadeNaoExisteException, PlanoException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
-        }
-
-        if(this.utilizadores.get(utilizadorId).getPlano() instanceof PlanoFree){
-            throw new PlanoException("O PlanoFree não permite esta ação.");
-        }
-
-        try{
-            Playlist p = criaPlaylist(nome, musicasIds, publica, utilizadorId, "-", "-", "-", "Personalizada");
-            adicionarPlaylist(p);
-            Playlist p2 = this.playlists.get(nome);
-            ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).adicionarPlaylistBiblioteca(p2);
-
-        }catch(EntidadeNaoExisteException | EntidadeExisteException | OpcaoException e){
-            System.out.println("Erro ao criar a playlist: " + e.getMessage());
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException{
+        if (nome == null || musicasIds == null || publica == null) {
+            throw new IllegalArgumentException("Os parâmetros não podem ser nulos.");
         }
+        criarPlaylistPersonalizada(utilizadorId, nome, Arrays.asList(musicasIds.split(";")), publica.equals("sim"));
     }
 
     /**
-     * Método para adicionar um álbum à biblioteca do utilizador.
+     * Método para criar uma playlist personalizada e adicioná-la à biblioteca do utilizador.
+     * 
+     * As verificações e a criação são feitas sob o lock do utilizador e o nome é reservado de forma atómica
+     * por {@link #adicionarPlaylist(Playlist)}, pelo que cada falha chega a quem invoca como exceção.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param nome Nome da playlist
+     * @param musicasIds IDs das músicas da playlist
+     * @param publica Se a playlist é pública ou não
+     * 
+     * @throws EntidadeNaoExisteException Se o utilizador ou alguma das músicas não existir
+     * @throws EntidadeExisteException Se já existir uma playlist com o mesmo nome
+     * @throws PlanoException Se o plano do utilizador não permitir a criação de playlists personalizadas
+     */
+    public void criarPlaylistPersonalizada(String utilizadorId, String nome, List<String> musicasIds, boolean publica)
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            Utilizador u = this.utilizadores.get(utilizadorId);
+            if(u == null){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            if(u.getPlano() instanceof PlanoFree){
+                throw new PlanoException("O PlanoFree não permite esta ação.");
+            }
+
+            List<Musica> musicasList = new ArrayList<>(musicasIds.size());
+            for (String id : musicasIds) {
+                Musica m = this.musicas.get(id);
+                if(m == null){
+                    throw new EntidadeNaoExisteException("Musica não existe.");
+                }
+                musicasList.add(m);
+            }
+            adicionarPlaylist(new PlaylistPersonalizada(nome, musicasList, publica, utilizadorId));
+            Playlist p2 = this.playlists.get(nome);
+            ((PlanoPremiumBase)u.getPlano()).adicionarPlaylistBiblioteca(p2);
+            registarBiblioteca(Eventos.PLAYLIST_BIBLIOTECA, utilizadorId, nome);
+        }
+        confirmarDiario();
+    }
+
+    /**
+     * Método para adicionar um álbum à biblioteca do utilizador.
      * 
      * @param utilizadorId ID do utilizador
      * @param titulo Título do álbum
      * 
      * @throws EntidadeNaoExisteException Se o utilizador ou o álbum não existir
+     * @throws EntidadeExisteException Se o álbum já estiver na biblioteca do utilizador
      * @throws PlanoException Se o plano do utilizador não permitir a adição de álbuns à biblioteca
      */
     public void adicionarAlbumBiblioteca(String utilizadorId, String titulo)
-        throws EntidadeNaoExisteException,PlanoException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
-        }
-        if(!this.albuns.containsKey(titulo)){
-            throw new EntidadeNaoExisteException("Album não existe.");
-        }
-        if(this.utilizadores.get(utilizadorId).getPlano() instanceof PlanoFree){
-            throw new PlanoException("O PlanoFree não permite esta ação.");
-        }
-        Album a = this.albuns.get(titulo);
-        try{
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            if(!this.albuns.containsKey(titulo)){
+                throw new EntidadeNaoExisteException("Album não existe.");
+            }
+            if(this.utilizadores.get(utilizadorId).getPlano() instanceof PlanoFree){
+                throw new PlanoException("O PlanoFree não permite esta ação.");
+            }
+            Album a = this.albuns.get(titulo);
             ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).adicionarAlbumBiblioteca(a);
-        }catch(EntidadeExisteException e){
-            System.out.println("Erro ao adicionar o album à biblioteca: " + e.getMessage());
+            registarBiblioteca(Eventos.ALBUM_BIBLIOTECA, utilizadorId, titulo);
         }
-
+        confirmarDiario();
     }
 
     /**
@@ -626,29 +1379,30 @@ public class SpotifyumModel implements Serializable {
      * @param nome Nome da playlist
      * 
      * @throws EntidadeNaoExisteException Se o utilizador ou a playlist não existir
+     * @throws EntidadeExisteException Se a playlist já estiver na biblioteca do utilizador
      * @throws PlanoException Se o plano do utilizador não permitir a adição de playlists à biblioteca
      * @throws PublicException Se a playlist não for pública
      */
     public void adicionarPlaylistBiblioteca(String utilizadorId, String nome)
-        throws EntidadeNaoExisteException, PlanoException, PublicException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
-        }
-        if(!this.playlists.containsKey(nome)){
-            throw new EntidadeNaoExisteException("Playlist não existe.");
-        }
-        if(this.utilizadores.get(utilizadorId).getPlano() instanceof PlanoFree){
-            throw new PlanoException("O PlanoFree não permite esta ação.");
-        }
-        if(this.playlists.get(nome).getPublica() == false){
-            throw new PublicException("A playlist não é pública.");
-        }
-        Playlist p = this.playlists.get(nome);
-        try{
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException, PublicException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            if(!this.playlists.containsKey(nome)){
+                throw new EntidadeNaoExisteException("Playlist não existe.");
+            }
+            if(this.utilizadores.get(utilizadorId).getPlano() instanceof PlanoFree){
+                throw new PlanoException("O PlanoFree não permite esta ação.");
+            }
+            if(this.playlists.get(nome).getPublica() == false){
+                throw new PublicException("A playlist não é pública.");
+            }
+            Playlist p = this.playlists.get(nome);
             ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).adicionarPlaylistBiblioteca(p);
-        }catch(EntidadeExisteException e){
-            System.out.println("Erro ao adicionar a playlist à biblioteca: " + e.getMessage());
+            registarBiblioteca(Eventos.PLAYLIST_BIBLIOTECA, utilizadorId, nome);
         }
+        confirmarDiario();
     }
 
     /**
@@ -661,17 +1415,26 @@ public class SpotifyumModel implements Serializable {
      * @throws PlanoException Se o plano não for válido
      */
     public void alterarPlano(String utilizadorId, String plano) throws EntidadeNaoExisteException, PlanoException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
-        }
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
 
-        Utilizador u = this.utilizadores.get(utilizadorId);
-        switch (plano) {
-            case "PlanoFree" -> u.setPlano(new PlanoFree());
-            case "PlanoPremiumBase" -> u.setPlano(new PlanoPremiumBase());
-            case "PlanoPremiumTop" -> u.setPlano(new PlanoPremiumTop());
-            default -> throw new PlanoException("Plano inválido.");
+            Utilizador u = this.utilizadores.get(utilizadorId);
+            switch (plano) {
+                case "PlanoFree" -> u.setPlano(new PlanoFree());
+                case "PlanoPremiumBase" -> u.setPlano(new PlanoPremiumBase());
+                case "PlanoPremiumTop" -> u.setPlano(new PlanoPremiumTop());
+                default -> throw new PlanoException("Plano inválido.");
+            }
+            this.estatisticas.atualizarUtilizador(u);
+            registarEvento(saida -> {
+                saida.escreverByte(Eventos.PLANO_ALTERADO);
+                saida.escreverString(utilizadorId);
+                saida.escreverString(plano);
+            });
         }
+        confirmarDiario();
     }
 
 
@@ -706,27 +1469,33 @@ public class SpotifyumModel implements Serializable {
     }
 
     /**
-     * Método para imprimir as playlists da biblioteca do utilizador com o id passado como parâmetro.
+     * Método que devolve as playlists da biblioteca do utilizador com o id passado como parâmetro.
      * @param utilizadorId ID do utilizador
+     * @return Lista com as playlists do utilizador
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
-    public void verMinhasPlaylists(String utilizadorId) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
+    public List<Playlist> getMinhasPlaylists(String utilizadorId) throws EntidadeNaoExisteException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            return ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).getMinhasPlaylist();
         }
-        System.out.println(((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).toStringMinhasPlaylists());
     }
 
     /**
-     * Método para imprimir os albuns da biblioteca do utilizador com o id passado como parâmetro.
+     * Método que devolve os albuns da biblioteca do utilizador com o id passado como parâmetro.
      * @param utilizadorId ID do utilizador
+     * @return Lista com os álbuns do utilizador
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
-    public void verBibliotecaAlbuns(String utilizadorId) throws EntidadeNaoExisteException{
-        if(!this.utilizadores.containsKey(utilizadorId)){
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
+    public List<Album> getBibliotecaAlbuns(String utilizadorId) throws EntidadeNaoExisteException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            if(!this.utilizadores.containsKey(utilizadorId)){
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+            return ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).getBibliotecaAlbuns();
         }
-        System.out.println(((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).toStringAlbuns());
     }
 
     //------------------------------------------------------------------------------------------------------------------
@@ -741,69 +1510,177 @@ public class SpotifyumModel implements Serializable {
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
     public List<String> geraListaFavoritos(String utilizadorId) throws EntidadeNaoExisteException {
-        if (!this.utilizadores.containsKey(utilizadorId)) {
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
+        return amostraFavoritas(utilizadorId, VarianteFavoritas.TODAS);
+    }
+
+    /**
+     * Método que escolhe ao acaso até 10 das músicas candidatas a favoritas de um utilizador.
+     * 
+     * As candidatas vêm da cache, pelo que pedidos repetidos sem novas reproduções só sorteiam
+     * 10 posições da lista em cache, sem voltar a percorrer os índices do catálogo.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param variante Variante da lista de candidatas
+     * @return Lista de IDs das músicas escolhidas, por ordem aleatória
+     * 
+     * @throws EntidadeNaoExisteException Se o utilizador não existir
+     */
+    private List<String> amostraFavoritas(String utilizadorId, VarianteFavoritas variante) throws EntidadeNaoExisteException {
+        synchronized (lockUtilizador(utilizadorId)) {
+            Utilizador u = this.utilizadores.get(utilizadorId);
+            if (u == null) {
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
+            }
+
+            List<Musica> candidatas = candidatasFavoritas(u, variante);
+            List<String> resultado = new ArrayList<>(NUM_FAVORITOS);
+            for (Musica m : Reservatorio.amostra(candidatas, NUM_FAVORITOS, ThreadLocalRandom.current())) {
+                resultado.add(m.getId());
+            }
+            return resultado;
         }
+    }
+
+    /**
+     * Método que devolve as músicas candidatas a favoritas de um utilizador, a partir da cache se possível.
+     * 
+     * Uma entrada da cache só é usada se o catálogo e o perfil de gosto do utilizador não mudaram
+     * desde que foi calculada; caso contrário as candidatas são recalculadas e guardadas.
+     * 
+     * @param u Utilizador
+     * @param variante Variante da lista de candidatas
+     * @return Lista com as músicas candidatas (só de leitura)
+     */
+    private List<Musica> candidatasFavoritas(Utilizador u, VarianteFavoritas variante) {
+        ChaveFavoritas chave = new ChaveFavoritas(u.getId(), variante);
+        // A versão é lida antes de percorrer os índices: se o catálogo mudar entretanto, a entrada já nasce desatualizada
+        long versao = this.versaoCatalogo.get();
+        PerfilGosto perfil = u.getPerfil();
+        Candidatas c = this.cacheFavoritas.get(chave, e -> e.versaoCatalogo() == versao
+                                                           && e.perfil() == perfil
+                                                           && e.reproducoes() == perfil.getReproducoes());
+        if (c != null) {
+            return c.musicas();
+        }
+
+        long reproducoes = perfil.getReproducoes();
+        List<Musica> musicas = new ArrayList<>();
+        paraCadaFavorita(u, m -> {
+            if (variante == VarianteFavoritas.TODAS || m instanceof MusicaExplicita) {
+                musicas.add(m);
+            }
+        });
+        List<Musica> lista = Collections.unmodifiableList(musicas);
+        this.cacheFavoritas.put(chave, new Candidatas(versao, perfil, reproducoes, lista));
+        return lista;
+    }
+
+    /**
+     * Método que retira da cache as candidatas a favoritas de um utilizador.
+     * 
+     * @param utilizadorId ID do utilizador
+     */
+    private void invalidarFavoritas(String utilizadorId) {
+        for (VarianteFavoritas variante : VarianteFavoritas.values()) {
+            this.cacheFavoritas.invalidar(new ChaveFavoritas(utilizadorId, variante));
+        }
+    }
+
+    /**
+     * Método que marca o catálogo como alterado, invalidando as candidatas a favoritas de todos os utilizadores.
+     * 
+     * Deve ser chamado depois de atualizar os índices, para que nenhuma entrada calculada com o catálogo antigo
+     * fique com a versão nova.
+     */
+    private void catalogoAlterado() {
+        this.versaoCatalogo.incrementAndGet();
+        this.cacheFavoritas.limpar();
+    }
+
+    /**
+     * Método que devolve a cache das candidatas a favoritas, para consultar as suas métricas.
+     * 
+     * @return Cache das candidatas a favoritas
+     */
+    public CacheLRU<?, ?> getCacheFavoritas() {
+        return this.cacheFavoritas;
+    }
+
+    /**
+     * Método que entrega a uma ação as músicas candidatas a favoritas de um utilizador:
+     * as dos 3 géneros e dos 3 artistas com mais peso no seu perfil de gosto.
+     * 
+     * Os preferidos saem do perfil, atualizado a cada reprodução, com um heap de tamanho 3,
+     * pelo que o custo não depende do tamanho do histórico; as candidatas são percorridas
+     * diretamente nos índices do catálogo.
+     * 
+     * @param utilizador Utilizador
+     * @param acao Ação a aplicar a cada música candidata
+     */
+    private void paraCadaFavorita(Utilizador utilizador, Consumer<Musica> acao) {
+        PerfilGosto perfil = utilizador.getPerfil();
+        List<String> topGeneros = perfil.getGenerosPreferidos(NUM_PREFERIDOS);
+        List<String> topArtistas = perfil.getArtistasPreferidos(NUM_PREFERIDOS);
+        this.indice.paraCadaCandidata(topGeneros, topArtistas, acao);
+    }
     
-        Utilizador utilizador = this.utilizadores.get(utilizadorId);
-        List<Historico> historicoMusicas = utilizador.getHistorico();
-        Map<String, Integer> historicoArtistas = utilizador.getHistoricoArtistas();
-    
-        // Contador de géneros
-        Map<String, Integer> contagemGeneros = new HashMap<>();
-        for (Historico h : historicoMusicas) {
-            Musica m = this.musicas.get(h.getIdMusica());
+    /**
+     * Método que define a meia-vida dos perfis de gosto e os reconstrói a partir dos históricos.
+     * 
+     * Com meia-vida, as reproduções recentes pesam mais na escolha dos géneros e artistas preferidos.
+     * 
+     * @param dias Meia-vida em dias (0 para contar todas as reproduções por igual)
+     * @throws IllegalArgumentException Se a meia-vida for negativa
+     */
+    public void setMeiaVidaPerfis(double dias) {
+        if (dias < 0 || Double.isNaN(dias)) {
+            throw new IllegalArgumentException("Meia-vida inválida: " + dias);
+        }
+        this.meiaVidaPerfis = dias;
+        for (Utilizador u : this.utilizadores.values()) {
+            synchronized (lockUtilizador(u.getId())) {
+                reconstruirPerfil(u);
+                invalidarFavoritas(u.getId());
+            }
+        }
+    }
+
+    /**
+     * Método que reconstrói o perfil de gosto de um utilizador a partir do seu histórico.
+     * 
+     * As reproduções de músicas que já não estão no catálogo são ignoradas.
+     * 
+     * @param u Utilizador
+     */
+    private void reconstruirPerfil(Utilizador u) {
+        PerfilGosto perfil = new PerfilGosto(this.meiaVidaPerfis);
+        HistoricoCompacto historico = u.getHistoricoCompacto();
+        for (int i = 0; i < historico.tamanho(); i++) {
+            Musica m = this.musicas.get(historico.getIdMusica(i));
             if (m != null) {
-                String genero = m.getGenero();
-                contagemGeneros.put(genero, contagemGeneros.getOrDefault(genero, 0) + 1);
+                perfil.registar(m.getGenero(), m.getArtista(), historico.getDia(i));
             }
         }
-    
-        // Top 3 géneros mais ouvidos
-        List<String> topGeneros = contagemGeneros.entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-    
-        // Top 3 artistas mais ouvidos
-        List<String> topArtistas = historicoArtistas.entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-    
-        // Selecionar músicas que coincidam com os géneros ou artistas mais ouvidos
-        List<String> candidatos = this.musicas.values().stream()
-            .filter(m -> topGeneros.contains(m.getGenero()) || topArtistas.contains(m.getArtista()))
-            .map(Musica::getId)
-            .distinct()
-            .collect(Collectors.toList());
-    
-        Collections.shuffle(candidatos);
-        return candidatos.stream().limit(10).collect(Collectors.toList());
+        u.setPerfil(perfil);
     }
-    
+
     /**
      * Método para criar uma lista de favoritos com base no histórico 
      * (de músicas) e do histórico de artistas do utilizador.
      * 
      * @param utilizadorId ID do utilizador
      * @param nome Nome da lista de favoritos
+     * 
+     * @throws EntidadeNaoExisteException Se o utilizador não existir ou não tiver músicas favoritas
+     * @throws EntidadeExisteException Se já existir uma playlist com o mesmo nome
+     * @throws PlanoException Se o plano do utilizador não permitir listas de favoritos
      */
-    public void criaListaFavoritos(String utilizadorId, String nome){
-        try{
-            List<String> idsSelecionados = geraListaFavoritos(utilizadorId);
-            String resultado = String.join(";", idsSelecionados);
-            Playlist p = criaPlaylist(nome, resultado, "", "", utilizadorId, "", "", "ListaFavoritos");
-            adicionarPlaylist(p);
-            Playlist p2 = this.playlists.get(nome);
-            ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).adicionarPlaylistBiblioteca(p2);
-
-
-        }catch(EntidadeNaoExisteException | EntidadeExisteException | OpcaoException e){
-            System.out.println("Erro ao criar a lista de favoritos: " + e.getMessage());
+    public void criaListaFavoritos(String utilizadorId, String nome)
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            guardarListaFavoritos(utilizadorId, nome, geraListaFavoritos(utilizadorId));
         }
+        confirmarDiario();
     }
 
     //------------------------------------------------------------------------------------------------------------------
@@ -819,58 +1696,16 @@ public class SpotifyumModel implements Serializable {
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
     public List<String> geraListaFavoritosTempo(String utilizadorId, int tempoMax) throws EntidadeNaoExisteException {
-        if (!this.utilizadores.containsKey(utilizadorId)) {
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
-        }
-    
-        Utilizador utilizador = this.utilizadores.get(utilizadorId);
-        List<Historico> historicoMusicas = utilizador.getHistorico();
-        Map<String, Integer> historicoArtistas = utilizador.getHistoricoArtistas();
-    
-        // Contar ocorrências de géneros
-        Map<String, Integer> contagemGeneros = new HashMap<>();
-        for (Historico h : historicoMusicas) {
-            Musica m = this.musicas.get(h.getIdMusica());
-            if (m != null) {
-                String genero = m.getGenero();
-                contagemGeneros.put(genero, contagemGeneros.getOrDefault(genero, 0) + 1);
+        synchronized (lockUtilizador(utilizadorId)) {
+            if (!this.utilizadores.containsKey(utilizadorId)) {
+                throw new EntidadeNaoExisteException("Utilizador não existe.");
             }
-        }
-    
-        // Obter os 3 géneros mais ouvidos
-        List<String> topGeneros = contagemGeneros.entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-    
-        // Obter os 3 artistas mais ouvidos
-        List<String> topArtistas = historicoArtistas.entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-    
-        // Selecionar músicas que correspondam aos géneros ou artistas preferidos
-        List<Musica> candidatos = this.musicas.values().stream()
-            .filter(m -> topGeneros.contains(m.getGenero()) || topArtistas.contains(m.getArtista()))
-            .distinct()
-            .collect(Collectors.toList());
     
-        // Baralhar a lista para dar aleatoriedade
-        Collections.shuffle(candidatos);
-    
-        List<String> resultado = new ArrayList<>();
-        int tempoAtual = 0;
-    
-        for (Musica m : candidatos) {
-            if (tempoAtual + m.getDuracao() <= tempoMax) {
-                resultado.add(m.getId());
-                tempoAtual += m.getDuracao();
-            }
+            List<Musica> candidatos = candidatasFavoritas(this.utilizadores.get(utilizadorId), VarianteFavoritas.TODAS);
+            List<String> resultado = new ArrayList<>();
+            preencherTempo(candidatos, tempoMax, resultado);
+            return resultado;
         }
-    
-        return resultado;
     }
 
     /**
@@ -880,20 +1715,17 @@ public class SpotifyumModel implements Serializable {
      * @param utilizadorId ID do utilizador
      * @param nome Nome da lista de favoritos
      * @param tempoMax Tempo máximo da lista
+     * 
+     * @throws EntidadeNaoExisteException Se o utilizador não existir ou não tiver músicas favoritas
+     * @throws EntidadeExisteException Se já existir uma playlist com o mesmo nome
+     * @throws PlanoException Se o plano do utilizador não permitir listas de favoritos
      */
-    public void criaListaFavoritosTempo(String utilizadorId, String nome, int tempoMax){
-        try{
-            List<String> idsSelecionados = geraListaFavoritosTempo(utilizadorId, tempoMax);
-            String resultado = String.join(";", idsSelecionados);
-            Playlist p = criaPlaylist(nome, resultado, "", "", utilizadorId, "", "", "ListaFavoritos");
-            adicionarPlaylist(p);
-            Playlist p2 = this.playlists.get(nome);
-            ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).adicionarPlaylistBiblioteca(p2);
-
-
-        }catch(EntidadeNaoExisteException | EntidadeExisteException | OpcaoException e){
-            System.out.println("Erro ao criar a lista de favoritos: " + e.getMessage());
+    public void criaListaFavoritosTempo(String utilizadorId, String nome, int tempoMax)
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            guardarListaFavoritos(utilizadorId, nome, geraListaFavoritosTempo(utilizadorId, tempoMax));
         }
+        confirmarDiario();
     }
     
 
@@ -908,52 +1740,7 @@ public class SpotifyumModel implements Serializable {
      * @throws EntidadeNaoExisteException Se o utilizador não existir
      */
     public List<String> geraListaFavoritosExplicita(String utilizadorId) throws EntidadeNaoExisteException {
-        if (!this.utilizadores.containsKey(utilizadorId)) {
-            throw new EntidadeNaoExisteException("Utilizador não existe.");
-        }
-    
-        Utilizador utilizador = this.utilizadores.get(utilizadorId);
-        List<Historico> historicoMusicas = utilizador.getHistorico();
-        Map<String, Integer> historicoArtistas = utilizador.getHistoricoArtistas();
-    
-        // Contar ocorrências de géneros
-        Map<String, Integer> contagemGeneros = new HashMap<>();
-        for (Historico h : historicoMusicas) {
-            Musica m = this.musicas.get(h.getIdMusica());
-            if (m != null) {
-                String genero = m.getGenero();
-                contagemGeneros.put(genero, contagemGeneros.getOrDefault(genero, 0) + 1);
-            }
-        }
-    
-        // Top 3 géneros mais ouvidos
-        List<String> topGeneros = contagemGeneros.entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-    
-        // Top 3 artistas mais ouvidos
-        List<String> topArtistas = historicoArtistas.entrySet().stream()
-            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-    
-        // Candidatas: músicas explícitas que correspondam aos géneros ou artistas
-        List<Musica> candidatas = this.musicas.values().stream()
-            .filter(m -> m instanceof MusicaExplicita &&
-                         (topGeneros.contains(m.getGenero()) || topArtistas.contains(m.getArtista())))
-            .collect(Collectors.toList());
-    
-        // Baralhar para dar aleatoriedade
-        Collections.shuffle(candidatas);
-    
-        // Recolher até 10 IDs
-        return candidatas.stream()
-            .limit(10)
-            .map(Musica::getId)
-            .collect(Collectors.toList());
+        return amostraFavoritas(utilizadorId, VarianteFavoritas.EXPLICITAS);
     }
     
     /**
@@ -962,24 +1749,59 @@ public class SpotifyumModel implements Serializable {
      * 
      * @param utilizadorId ID do utilizador
      * @param nome Nome da lista de favoritos
+     * 
+     * @throws EntidadeNaoExisteException Se o utilizador não existir ou não tiver músicas favoritas
+     * @throws EntidadeExisteException Se já existir uma playlist com o mesmo nome
+     * @throws PlanoException Se o plano do utilizador não permitir listas de favoritos
      */
-    public void criaListaFavoritosExplicita(String utilizadorId, String nome){
-        try{
-            List<String> idsSelecionados = geraListaFavoritosExplicita(utilizadorId);
-            String resultado = String.join(";", idsSelecionados);
-            Playlist p = criaPlaylist(nome, resultado, "", "", utilizadorId, "", "", "ListaFavoritos");
-            adicionarPlaylist(p);
-            Playlist p2 = this.playlists.get(nome);
-            ((PlanoPremiumBase)this.utilizadores.get(utilizadorId).getPlano()).adicionarPlaylistBiblioteca(p2);
-
-
-        }catch(EntidadeNaoExisteException | EntidadeExisteException | OpcaoException e){
-            System.out.println("Erro ao criar a lista de favoritos: " + e.getMessage());
+    public void criaListaFavoritosExplicita(String utilizadorId, String nome)
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException{
+        synchronized (lockUtilizador(utilizadorId)) {
+            guardarListaFavoritos(utilizadorId, nome, geraListaFavoritosExplicita(utilizadorId));
         }
+        confirmarDiario();
     }
     
     
 
+    /**
+     * Método que guarda uma lista de favoritos no catálogo e na biblioteca do utilizador.
+     * 
+     * Deve ser invocado com o lock do utilizador.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param nome Nome da lista de favoritos
+     * @param idsSelecionados IDs das músicas escolhidas
+     * 
+     * @throws EntidadeNaoExisteException Se o utilizador não existir ou não houver músicas escolhidas
+     * @throws EntidadeExisteException Se já existir uma playlist com o mesmo nome
+     * @throws PlanoException Se o plano do utilizador não permitir listas de favoritos
+     */
+    private void guardarListaFavoritos(String utilizadorId, String nome, List<String> idsSelecionados)
+        throws EntidadeNaoExisteException, EntidadeExisteException, PlanoException{
+        Utilizador u = this.utilizadores.get(utilizadorId);
+        if(u == null){
+            throw new EntidadeNaoExisteException("Utilizador não existe.");
+        }
+        if(!(u.getPlano() instanceof PlanoPremiumBase plano)){
+            throw new PlanoException("O PlanoFree não permite esta ação.");
+        }
+        if(idsSelecionados.isEmpty()){
+            throw new EntidadeNaoExisteException("O utilizador não tem músicas favoritas.");
+        }
+        List<Musica> musicasList = new ArrayList<>(idsSelecionados.size());
+        for (String id : idsSelecionados) {
+            Musica m = this.musicas.get(id);
+            if(m == null){
+                throw new EntidadeNaoExisteException("Musica não existe.");
+            }
+            musicasList.add(m);
+        }
+        adicionarPlaylist(new ListaFavoritos(nome, musicasList, utilizadorId));
+        plano.adicionarPlaylistBiblioteca(this.playlists.get(nome));
+        registarBiblioteca(Eventos.PLAYLIST_BIBLIOTECA, utilizadorId, nome);
+    }
+
     /*
     ---------------------------------------------------------------------------------------------
     -----------------------------Opções do Menu dos Administradores------------------------------
@@ -1009,51 +1831,33 @@ public class SpotifyumModel implements Serializable {
      * @return Tempo total das músicas selecionadas
      */
     public int geraMusicasTempoGenero(List<String> idsSelecionados, int tempoMax, String genero) {
-        List<Musica> candidatas = this.musicas.values().stream()
-            .filter(m -> genero.equalsIgnoreCase(m.getGenero()))
-            .collect(Collectors.toList());
-
-        Collections.shuffle(candidatas);
-
-        int tempoTotal = 0;
-
-        for (Musica m : candidatas) {
-            int duracao = m.getDuracao();
-            if (tempoTotal + duracao <= tempoMax) {
-                idsSelecionados.add(m.getId());
-                tempoTotal += duracao;
-            }
-        }
-
-        return tempoTotal;
-    }
-
-    /**
-     * Método para imprimir todos os utilizadores.
-     */
-    public void listarUtilizadores(){
-        System.out.print(this.toStringUser());
-    }
-
-    /**
-     * Método para imprimir todas as playlists.
-     */
-    public void listarPlaylists(){
-        System.out.print(this.toStringPlaylist());
+        return preencherTempo(this.indice.getMusicasGeneroIgnorarCaso(genero), tempoMax, idsSelecionados);
     }
 
     /**
-     * Método para imprimir todas as músicas.
+     * Método que escolhe, de entre as candidatas, as músicas cuja duração total mais se aproxima do tempo máximo.
+     * 
+     * Em vez de preencher gulosamente uma lista baralhada, resolve o problema da mochila sobre as durações
+     * (ver {@link Mochila}), pelo que a lista fica tão perto do tempo máximo quanto as durações permitem.
+     * Entre as escolhas igualmente boas, a escolhida é aleatória, e as músicas ficam por ordem aleatória.
+     * 
+     * @param candidatas Músicas candidatas
+     * @param tempoMax Tempo máximo da lista
+     * @param idsSelecionados Lista onde são acrescentados os IDs das músicas escolhidas
+     * @return Tempo total das músicas escolhidas
      */
-    public void listarMusicas(){
-        System.out.print(this.toStringMusica());
-    }
+    private int preencherTempo(List<Musica> candidatas, int tempoMax, List<String> idsSelecionados) {
+        int[] duracoes = new int[candidatas.size()];
+        for (int i = 0; i < duracoes.length; i++) {
+            duracoes[i] = Math.max(0, candidatas.get(i).getDuracao());
+        }
 
-    /**
-     * Método para imprimir todos os álbuns.
-     */
-    public void listarAlbuns(){
-        System.out.print(this.toStringAlbum());
+        int tempoTotal = 0;
+        for (int i : Mochila.preencher(duracoes, tempoMax, ThreadLocalRandom.current())) {
+            idsSelecionados.add(candidatas.get(i).getId());
+            tempoTotal += duracoes[i];
+        }
+        return tempoTotal;
     }
 
     /*
@@ -1066,33 +1870,20 @@ public class SpotifyumModel implements Serializable {
      * Método que executa uma query com o id da mesma passado como parâmetro.
      * 
      * @param id ID da query
+     * @return Resultado da query
+     * @throws OpcaoException Se a query não existir
      */
-    public void executarQuery(int id) throws OpcaoException {
-        switch (id) {
-            case 1:
-                musicaMaisReproduzida();
-                break;
-            case 2:
-                artistaMaisEscutado();
-                break;
-            case 3:
-                utilizadorMaisMusicasOuvidas();
-                break;
-            case 4:
-                utilizadorMaisPontos();
-                break;
-            case 5:
-                tipoMusicaMaisReproduzido();
-                break;
-            case 6:
-                numeroPlaylistsPublicas();
-                break;
-            case 7:
-                utilizadorMaisPlaylists();
-                break;
-            default:
-                throw new OpcaoException("Query não existe.");
-        }
+    public ResultadoQuery executarQuery(int id) throws OpcaoException {
+        return switch (id) {
+            case 1 -> musicaMaisReproduzida();
+            case 2 -> artistaMaisEscutado();
+            case 3 -> utilizadorMaisMusicasOuvidas();
+            case 4 -> utilizadorMaisPontos();
+            case 5 -> tipoMusicaMaisReproduzido();
+            case 6 -> numeroPlaylistsPublicas();
+            case 7 -> utilizadorMaisPlaylists();
+            default -> throw new OpcaoException("Query não existe.");
+        };
     }
 
     /**
@@ -1100,172 +1891,113 @@ public class SpotifyumModel implements Serializable {
      * 
      * @param inicio Data de início
      * @param fim Data de fim
+     * @return Resultado da query
+     */
+    public ResultadoQuery.UtilizadorMaisMusicas executarQueryEspecial(LocalDate inicio, LocalDate fim){
+        return utilizadorMaisMusicasOuvidasIntervalo(inicio, fim);
+    }
+
+    /**
+     * Método que define como são executadas as queries que percorrem todos os utilizadores ou playlists.
+     * 
+     * Por omissão, as coleções com mais de {@link ConsultaParalela#LIMIAR_OMISSAO} elementos
+     * são percorridas em paralelo no pool comum; {@link ConsultaParalela#sequencial()} desliga o paralelismo.
+     * 
+     * @param consultas Execução das queries
      */
-    public void executarQueryEspecial(LocalDate inicio, LocalDate fim){
-        utilizadorMaisMusicasOuvidasIntervalo(inicio, fim);
+    public void setConsultas(ConsultaParalela consultas) {
+        this.consultas = consultas;
+        this.estatisticas.setConsultas(consultas);
     }
 
 
     /**
      * Método que determina a música mais reproduzida.
+     * 
+     * @return Música mais reproduzida (id null se nenhuma foi reproduzida)
      */
-    public void musicaMaisReproduzida(){
-        Musica maisReproduzida = null;
-        int max = 0;
-
-        for (Musica m : this.musicas.values()) {
-            if (m.getReproducoes() > max) {
-                max = m.getReproducoes();
-                maisReproduzida = m;
-            }
-        }
+    public ResultadoQuery.MusicaMaisReproduzida musicaMaisReproduzida(){
+        String id = this.estatisticas.getMusicaMaisReproduzida();
+        long max = id == null ? 0 : this.estatisticas.getReproducoesMusica(id);
+        Musica maisReproduzida = max > 0 ? this.musicas.get(id) : null;
 
-        if (maisReproduzida != null) {
-            System.out.println("Música mais reproduzida: " + maisReproduzida.getNome() +
-                               " (ID: " + maisReproduzida.getId() + ", " +
-                               max + " reproduções)");
-        } else {
-            System.out.println("Nenhuma música encontrada.");
+        if (maisReproduzida == null) {
+            return new ResultadoQuery.MusicaMaisReproduzida(null, null, 0);
         }
+        return new ResultadoQuery.MusicaMaisReproduzida(id, maisReproduzida.getNome(), max);
     }
 
     /**
      * Método que determina o artista mais escutado.
+     * 
+     * @return Artista mais escutado (null se nenhum foi escutado)
      */
-    public void artistaMaisEscutado(){
-        Map<String, Integer> numReproducoes = new HashMap<>();
-
-        for (Musica m : this.musicas.values()) {
-            String artista = m.getArtista();
-            int reproducoes = m.getReproducoes();
-
-            numReproducoes.put(artista, numReproducoes.getOrDefault(artista, 0) + reproducoes);
-        }
-
-        String resultado = numReproducoes.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(entry -> "Artista mais escutado: " + entry.getKey() +
-                          " (" + entry.getValue() + " reproduções)")
-            .orElse("Nenhum artista encontrado.");
-
-        System.out.println(resultado);
+    public ResultadoQuery.ArtistaMaisEscutado artistaMaisEscutado(){
+        String artista = this.estatisticas.getArtistaMaisEscutado();
+        long reproducoes = artista == null ? 0 : this.estatisticas.getReproducoesArtista(artista);
+        return new ResultadoQuery.ArtistaMaisEscutado(artista, reproducoes);
     }
 
     /**
      * Método que determina o utilizador com mais músicas ouvidas.
+     * 
+     * @return Utilizador com mais músicas ouvidas (id null se nenhum ouviu músicas)
      */
-    public void utilizadorMaisMusicasOuvidas(){
-        int max = 0;
-        Utilizador utilizadorMax = null;
-
-        for (Utilizador u : this.utilizadores.values()) {
-            if (u.getNumMusicas() > max) {
-                max = u.getNumMusicas();
-                utilizadorMax = u;
-            }
-        }
-
-        if (utilizadorMax != null) {
-            System.out.println("Utilizador com mais músicas ouvidas: " +
-                               utilizadorMax.getId() + " (" + max + " músicas)");
-        } else {
-            System.out.println("Nenhum utilizador encontrado.");
-        }
+    public ResultadoQuery.UtilizadorMaisMusicas utilizadorMaisMusicasOuvidas(){
+        String id = this.estatisticas.getUtilizadorMaisMusicasOuvidas();
+        int max = id == null ? 0 : this.estatisticas.getNumMusicas(id);
+        return new ResultadoQuery.UtilizadorMaisMusicas(max > 0 ? id : null, max, null, null);
     }
 
     /**
      * Método que determina o utilizador com mais pontos.
+     * 
+     * @return Utilizador com mais pontos (id null se nenhum tem pontos)
      */
-    public void utilizadorMaisPontos(){
-        String id = null;
-        double max = 0;
-
-        for (Utilizador u : this.utilizadores.values()) {
-            if (u.getPontos() > max) {
-                max = u.getPontos();
-                id = u.getId();
-            }
-        }
-
-        if (id != null) {
-            System.out.println("O utilizador com mais pontos é: " + id + " (" + max + " pontos)");
-        } else {
-            System.out.println("Nenhum utilizador encontrado.");
-        }
+    public ResultadoQuery.UtilizadorMaisPontos utilizadorMaisPontos(){
+        String id = this.estatisticas.getUtilizadorMaisPontos();
+        double max = id == null ? 0 : this.estatisticas.getPontos(id);
+        return new ResultadoQuery.UtilizadorMaisPontos(max > 0 ? id : null, max);
     }
 
     /**
      * Método que determina o tipo de música mais reproduzido.
+     * 
+     * @return Género mais reproduzido (null se não há reproduções)
      */
-    public void tipoMusicaMaisReproduzido(){
-        Map<String, Integer> reproducoesPorGenero = new HashMap<>();
-
-        for (Musica m : this.musicas.values()) {
-            String genero = m.getGenero();
-            int reproducoes = m.getReproducoes();
-
-            reproducoesPorGenero.put(genero,
-                reproducoesPorGenero.getOrDefault(genero, 0) + reproducoes);
-        }
-
-        String generoMaisReproduzido = null;
-        int max = 0;
-
-        for (Map.Entry<String, Integer> entry : reproducoesPorGenero.entrySet()) {
-            if (entry.getValue() > max) {
-                max = entry.getValue();
-                generoMaisReproduzido = entry.getKey();
-            }
-        }
-
-        if (generoMaisReproduzido != null) {
-            System.out.println("O tipo de música mais reproduzido é: " +
-                               generoMaisReproduzido + " (" + max + " reproduções)");
-        } else {
-            System.out.println("Não há dados de reprodução disponíveis.");
-        }
+    public ResultadoQuery.GeneroMaisReproduzido tipoMusicaMaisReproduzido(){
+        String generoMaisReproduzido = this.estatisticas.getGeneroMaisReproduzido();
+        long max = generoMaisReproduzido == null ? 0 : this.estatisticas.getReproducoesGenero(generoMaisReproduzido);
+        return new ResultadoQuery.GeneroMaisReproduzido(max > 0 ? generoMaisReproduzido : null, max);
     }
 
     /**
      * Método que determina o número de playlists públicas.
+     * 
+     * @return Número de playlists públicas
      */
-    public void numeroPlaylistsPublicas(){
-        int contador = 0;
-
-          for (Playlist p : this.playlists.values()) {
-               if (p.getPublica()) {
-                    contador++;
-               }
-          }
-
-          System.out.println("Número de playlists públicas: " + contador);
+    public ResultadoQuery.PlaylistsPublicas numeroPlaylistsPublicas(){
+        long contador = this.consultas.executar(this.playlists.values(), ConsultaParalela.contar(Playlist::getPublica))[0];
+        return new ResultadoQuery.PlaylistsPublicas(contador);
     }
 
     /**
      * Método que determina o utilizador com mais playlists.
+     * 
+     * O plano e as playlists de cada utilizador são lidos sob o lock do utilizador, sob o qual são alterados.
+     * 
+     * @return Utilizador premium com mais playlists (id null se nenhum tem playlists)
      */
-    public void utilizadorMaisPlaylists(){
-        int max = 0;
-        Utilizador utilizadorMax = null;
-
-        for (Utilizador u : this.utilizadores.values()) {
-            if (!(u.getPlano() instanceof PlanoFree)) {
-                PlanoPremiumBase plano = (PlanoPremiumBase) u.getPlano();
-                int numPlaylists = plano.getMinhasPlaylist().size();
-
-                if (numPlaylists > max) {
-                    max = numPlaylists;
-                    utilizadorMax = u;
+    public ResultadoQuery.UtilizadorMaisPlaylists utilizadorMaisPlaylists(){
+        ConsultaParalela.Maximo<Utilizador> max = this.consultas.executar(this.utilizadores.values(),
+            ConsultaParalela.<Utilizador>maximo(u -> {
+                synchronized (lockUtilizador(u.getId())) {
+                    return u.getPlano() instanceof PlanoPremiumBase plano ? plano.getNumMinhasPlaylist() : 0;
                 }
-            }
-        }
-
-        if (utilizadorMax != null) {
-            System.out.println("Utilizador com mais playlists: " +
-                utilizadorMax.getId() + " (" + max + " playlists)");
-        } else {
-            System.out.println("Nenhum utilizador premium com playlists encontrado.");
-        }
+            }));
+        Utilizador utilizadorMax = max.getElemento();
+        return new ResultadoQuery.UtilizadorMaisPlaylists(utilizadorMax == null ? null : utilizadorMax.getId(),
+                                                          (int) max.getValor());
     }
 
     /**
@@ -1273,34 +2005,12 @@ public class SpotifyumModel implements Serializable {
      * 
      * @param inicio Data de início
      * @param fim Data de fim
+     * @return Utilizador com mais músicas ouvidas no intervalo (id null se nenhum ouviu músicas)
      */
-    public void utilizadorMaisMusicasOuvidasIntervalo(LocalDate inicio, LocalDate fim) {
-        int max = 0;
-        Utilizador utilizadorMax = null;
-    
-        for (Utilizador u : this.utilizadores.values()) {
-            int contador = 0;
-    
-            for (Historico h : u.getHistorico()) {
-                LocalDate data = h.getDataReproducao();
-                if ((data.isEqual(inicio) || data.isAfter(inicio)) &&
-                    (data.isEqual(fim) || data.isBefore(fim))) {
-                    contador++;
-                }
-            }
-    
-            if (contador > max) {
-                max = contador;
-                utilizadorMax = u;
-            }
-        }
-    
-        if (utilizadorMax != null) {
-            System.out.println("Utilizador com mais músicas ouvidas no intervalo [" + 
-                inicio + " a " + fim + "]: " + utilizadorMax.getId() + " (" + max + " músicas)");
-        } else {
-            System.out.println("Nenhum utilizador com músicas ouvidas no intervalo indicado.");
-        }
+    public ResultadoQuery.UtilizadorMaisMusicas utilizadorMaisMusicasOuvidasIntervalo(LocalDate inicio, LocalDate fim) {
+        String utilizadorMax = this.estatisticas.getUtilizadorMaisMusicasOuvidas(inicio, fim);
+        int musicas = utilizadorMax == null ? 0 : this.estatisticas.getNumMusicas(utilizadorMax, inicio, fim);
+        return new ResultadoQuery.UtilizadorMaisMusicas(utilizadorMax, musicas, inicio, fim);
     }
     
     /*
@@ -1309,6 +2019,111 @@ public class SpotifyumModel implements Serializable {
     ---------------------------------------------------------------------------------------------
     */  
 
+    /**
+     * Método que devolve uma página dos utilizadores, por ordem do ID.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de utilizadores da página
+     * @param filtro Condição que os utilizadores têm de cumprir
+     * @return Página de utilizadores
+     */
+    public Pagina<Utilizador> listarUtilizadores(String cursor, int tamanho, Predicate<? super Utilizador> filtro){
+        return Pagina.ler(this.chavesUtilizadores, this.utilizadores::get, cursor, tamanho, filtro);
+    }
+
+    /**
+     * Método que devolve uma página das playlists, por ordem do nome.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de playlists da página
+     * @param filtro Condição que as playlists têm de cumprir
+     * @return Página de playlists
+     */
+    public Pagina<Playlist> listarPlaylists(String cursor, int tamanho, Predicate<? super Playlist> filtro){
+        return Pagina.ler(this.chavesPlaylists, this.playlists::get, cursor, tamanho, filtro);
+    }
+
+    /**
+     * Método que devolve uma página das músicas, por ordem do ID.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de músicas da página
+     * @param filtro Condição que as músicas têm de cumprir
+     * @return Página de músicas
+     */
+    public Pagina<Musica> listarMusicas(String cursor, int tamanho, Predicate<? super Musica> filtro){
+        return Pagina.ler(this.chavesMusicas, this.musicas::get, cursor, tamanho, filtro);
+    }
+
+    /**
+     * Método que devolve uma página das músicas de um género, por ordem do ID.
+     * 
+     * Percorre apenas as músicas do género, através do índice.
+     * 
+     * @param genero Género
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de músicas da página
+     * @return Página de músicas
+     */
+    public Pagina<Musica> listarMusicasGenero(String genero, String cursor, int tamanho){
+        NavigableMap<String, Musica> doGenero = this.indice.getMusicasGeneroOrdenadas(genero);
+        return Pagina.ler(doGenero.navigableKeySet(), doGenero::get, cursor, tamanho, m -> true);
+    }
+
+    /**
+     * Método que devolve uma página das músicas de um artista, por ordem do ID.
+     * 
+     * Percorre apenas as músicas do artista, através do índice.
+     * 
+     * @param artista Artista
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de músicas da página
+     * @return Página de músicas
+     */
+    public Pagina<Musica> listarMusicasArtista(String artista, String cursor, int tamanho){
+        NavigableMap<String, Musica> doArtista = this.indice.getMusicasArtistaOrdenadas(artista);
+        return Pagina.ler(doArtista.navigableKeySet(), doArtista::get, cursor, tamanho, m -> true);
+    }
+
+    /**
+     * Método que devolve uma página dos álbuns, por ordem do título.
+     * 
+     * As entidades devolvidas são as guardadas no model e não devem ser alteradas.
+     * 
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de álbuns da página
+     * @param filtro Condição que os álbuns têm de cumprir
+     * @return Página de álbuns
+     */
+    public Pagina<Album> listarAlbuns(String cursor, int tamanho, Predicate<? super Album> filtro){
+        return Pagina.ler(this.chavesAlbuns, this.albuns::get, cursor, tamanho, filtro);
+    }
+
+    /**
+     * Método que escreve uma listagem paginada num texto.
+     * 
+     * @param titulo Título da listagem
+     * @param paginas Fonte das páginas
+     * @param <T> Tipo dos elementos
+     * @return Texto da listagem
+     */
+    private static <T> String listagem(String titulo, EscritaPaginada.Paginas<T> paginas){
+        StringBuilder sb = new StringBuilder();
+        try {
+            EscritaPaginada.escrever(sb, titulo, paginas);
+        } catch (IOException e) {
+            // Um StringBuilder nunca falha a escrita
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
     /**
      * Método que devolve uma representação textual das informações do SpotifyUM.
      * 
@@ -1327,63 +2142,39 @@ public class SpotifyumModel implements Serializable {
     }
 
     /**
-     * Método que devolve uma representação textual dos utilizadores do SpotifyUM.
+     * Método que devolve uma representação textual dos utilizadores do SpotifyUM, por ordem do ID.
      * 
      * @return String com os dados dos utilizadores
      */
     public String toStringUser(){
-        StringBuilder sb = new StringBuilder();
-        sb.append("[UTILIZADORES]\n");
-        sb.append("\n");
-        for (Utilizador u : this.utilizadores.values()) {
-            sb.append(u.toString()).append("\n");
-        }
-        return sb.toString();
+        return listagem("[UTILIZADORES]", (cursor, tamanho) -> listarUtilizadores(cursor, tamanho, u -> true));
     }
 
     /**
-     * Método que devolve uma representação textual das playlists do SpotifyUM.
+     * Método que devolve uma representação textual das playlists do SpotifyUM, por ordem do nome.
      * 
      * @return String com os dados das playlists
      */
     public String toStringPlaylist(){
-        StringBuilder sb = new StringBuilder();
-        sb.append("[PLAYLISTS]\n");
-        sb.append("\n");
-        for (Playlist p : this.playlists.values()) {
-            sb.append(p.toString()).append("\n");
-        }
-        return sb.toString();
+        return listagem("[PLAYLISTS]", (cursor, tamanho) -> listarPlaylists(cursor, tamanho, p -> true));
     }
 
     /**
-     * Método que devolve uma representação textual das músicas do SpotifyUM.
+     * Método que devolve uma representação textual das músicas do SpotifyUM, por ordem do ID.
      * 
      * @return String com os dados das músicas
      */
     public String toStringMusica(){
-        StringBuilder sb = new StringBuilder();
-        sb.append("[MUSICAS]\n");
-        sb.append("\n");
-        for (Musica m : this.musicas.values()) {
-            sb.append(m.toString()).append("\n");
-        }
-        return sb.toString();
+        return listagem("[MUSICAS]", (cursor, tamanho) -> listarMusicas(cursor, tamanho, m -> true));
     }
 
     /**
-     * Método que devolve uma representação textual dos álbuns do SpotifyUM.
+     * Método que devolve uma representação textual dos álbuns do SpotifyUM, por ordem do título.
      * 
      * @return String com os dados dos álbuns
      */
     public String toStringAlbum(){
-        StringBuilder sb = new StringBuilder();
-        sb.append("[ALBUNS]\n");
-        sb.append("\n");
-        for (Album a : this.albuns.values()) {
-            sb.append(a.toString()).append("\n");
-        }
-        return sb.toString();
+        return listagem("[ALBUNS]", (cursor, tamanho) -> listarAlbuns(cursor, tamanho, a -> true));
     }
 
     /*
@@ -1395,30 +2186,730 @@ public class SpotifyumModel implements Serializable {
     /**
      * Método que salva o SpotifyUM num ficheiro.
      * 
+     * Se o ficheiro for o do diário ativo, é feito um checkpoint, para que o snapshot fique coerente com os segmentos.
+     * 
      * @param filePath Caminho do ficheiro
      */
     public void saveSpotifyUM(String filePath){
-        try (ObjectOutputStream o = new ObjectOutputStream(new FileOutputStream(filePath))) {
-            o.writeObject(this);
-        } catch (IOException e) {
+        try {
+            Path ficheiro = Path.of(filePath);
+            if (this.diario != null && ficheiro.toAbsolutePath().equals(this.ficheiroDiario)) {
+                checkpoint().get();
+            } else {
+                Snapshot.escrever(ficheiro, this.utilizadores.values(), this.musicas.values(),
+                                  this.playlists.values(), this.albuns.values());
+            }
+        } catch (IOException | ExecutionException e) {
             System.out.println("Erro ao salvar o SpotifyUM: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Método que passa as letras e partituras do catálogo para um ficheiro mapeado em memória.
+     * 
+     * As músicas passam a guardar apenas a posição do seu conteúdo no ficheiro, que só é lido
+     * quando a música é reproduzida ou mostrada. Os estados carregados a seguir são mapeados no
+     * mesmo ficheiro; as músicas adicionadas entretanto ficam em memória até ao próximo mapeamento.
+     * 
+     * @param filePath Caminho do ficheiro de conteúdos
+     * @throws IOException Se não for possível escrever ou mapear o ficheiro
+     */
+    public void mapearConteudos(String filePath) throws IOException {
+        Path ficheiro = Path.of(filePath).toAbsolutePath();
+        ArquivoConteudos.mapear(ficheiro, this.musicas.values());
+        this.ficheiroConteudos = ficheiro;
+    }
+
+    /**
+     * Método que reconstrói as estatísticas e os índices a partir das músicas e utilizadores atuais.
+     */
+    private void reconstruirEstatisticas(){
+        this.estatisticas = new Estatisticas();
+        this.estatisticas.setConsultas(this.consultas);
+        this.indice = new IndiceMusicas();
+        for (Musica m : this.musicas.values()) {
+            this.estatisticas.adicionarMusica(m);
+            this.indice.adicionar(m);
         }
+        for (Utilizador u : this.utilizadores.values()) {
+            u.setOuvinte(this.ouvinte);
+            u.setLockReproducoes(lockUtilizador(u.getId()));
+            reconstruirPerfil(u);
+            this.estatisticas.adicionarUtilizador(u);
+        }
+        reconstruirChaves();
+        catalogoAlterado();
+    }
+
+    /**
+     * Método que deixa o model sem entidades.
+     */
+    private void limparEstado(){
+        this.utilizadores = new ConcurrentHashMap<>();
+        this.musicas = new ConcurrentHashMap<>();
+        this.playlists = new ConcurrentHashMap<>();
+        this.albuns = new ConcurrentHashMap<>();
+        reconstruirEstatisticas();
+    }
+
+    /**
+     * Método que reconstrói as chaves ordenadas dos catálogos a partir dos maps atuais.
+     */
+    private void reconstruirChaves(){
+        this.chavesUtilizadores = new ConcurrentSkipListSet<>(this.utilizadores.keySet());
+        this.chavesPlaylists = new ConcurrentSkipListSet<>(this.playlists.keySet());
+        this.chavesMusicas = new ConcurrentSkipListSet<>(this.musicas.keySet());
+        this.chavesAlbuns = new ConcurrentSkipListSet<>(this.albuns.keySet());
     }
 
     /**
      * Método que carrega o SpotifyUM de um ficheiro.
      * 
+     * Com o diário ativo, o estado carregado passa a ser a nova base do diário.
+     * 
      * @param filePath Caminho do ficheiro
      */
     public void loadSpotifyUM(String filePath){
-        try (ObjectInputStream o = new ObjectInputStream(new FileInputStream(filePath))) {
-            SpotifyumModel spotify = (SpotifyumModel) o.readObject();
-            this.utilizadores = spotify.utilizadores;
-            this.playlists = spotify.playlists;
-            this.musicas = spotify.musicas;
-            this.albuns = spotify.albuns;
-        } catch (IOException | ClassNotFoundException e) {
+        try {
+            carregarEstado(Path.of(filePath));
+            if (this.diario != null) {
+                this.compactador.submit(() -> {
+                    reiniciarDiario();
+                    return null;
+                }).get();
+            }
+        } catch (IOException | ExecutionException e) {
             System.out.println("Erro ao carregar o SpotifyUM: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Método que substitui o estado do model pelo de um snapshot.
+     * 
+     * Os estados guardados com serialização Java (formato anterior aos snapshots) não são aceites: as classes
+     * mudaram desde então e já não os conseguem ler. Um ficheiro que não seja um snapshot é recusado sem
+     * alterar o estado atual.
+     * 
+     * @param ficheiro Caminho do ficheiro
+     * @return Último segmento do diário incluído no ficheiro
+     * @throws IOException Se o ficheiro não for um snapshot ou não for possível lê-lo
+     */
+    private int carregarEstado(Path ficheiro) throws IOException {
+        if (!Snapshot.eSnapshot(ficheiro)) {
+            throw new IOException("O ficheiro " + ficheiro + " não é um snapshot do SpotifyUM "
+                                  + "(os estados guardados com serialização Java já não são suportados).");
+        }
+        Snapshot.Conteudo conteudo = Snapshot.ler(ficheiro);
+        carregarSnapshot(conteudo);
+        reconstruirEstatisticas();
+        if (this.ficheiroConteudos != null) {
+            ArquivoConteudos.mapear(this.ficheiroConteudos, this.musicas.values());
+        }
+        return conteudo.getSegmentoDiario();
+    }
+
+    /**
+     * Método que substitui o estado do model pelas entidades lidas de um snapshot.
+     * 
+     * @param conteudo Entidades lidas
+     */
+    private void carregarSnapshot(Snapshot.Conteudo conteudo){
+        Map<String, Utilizador> novosUtilizadores = new ConcurrentHashMap<>();
+        for (Utilizador u : conteudo.getUtilizadores()) {
+            novosUtilizadores.put(u.getId(), u);
+        }
+        Map<String, Musica> novasMusicas = new ConcurrentHashMap<>();
+        for (Musica m : conteudo.getMusicas()) {
+            novasMusicas.put(m.getId(), m);
+        }
+        Map<String, Playlist> novasPlaylists = new ConcurrentHashMap<>();
+        for (Playlist p : conteudo.getPlaylists()) {
+            novasPlaylists.put(p.getNome(), p);
+        }
+        Map<String, Album> novosAlbuns = new ConcurrentHashMap<>();
+        for (Album a : conteudo.getAlbuns()) {
+            novosAlbuns.put(a.getTitulo(), a);
+        }
+        this.utilizadores = novosUtilizadores;
+        this.musicas = novasMusicas;
+        this.playlists = novasPlaylists;
+        this.albuns = novosAlbuns;
+    }
+
+    /*
+    ---------------------------------------------------------------------------------------------
+    ------------------------------------Pipeline de reproduções----------------------------------
+    ---------------------------------------------------------------------------------------------
+    */
+
+    /**
+     * Método que ativa o pipeline de reproduções com a capacidade e a espera por omissão.
+     */
+    public void ativarPipeline() {
+        ativarPipeline(CAPACIDADE_PIPELINE, AnelEventos.Espera.BLOQUEAR);
+    }
+
+    /**
+     * Método que ativa o pipeline de reproduções.
+     * 
+     * Com o pipeline ativo, {@link #ouvirMusica(String, String)} e {@link #ouvirLote(String, List)} só validam,
+     * reproduzem e publicam as reproduções num anel limitado; o resto é feito em lotes por três etapas, cada uma
+     * na sua thread:
+     * <ul>
+     *   <li>utilizadores: aplica as reproduções de cada utilizador e data de uma vez (pontos, contadores, históricos
+     *       e perfil) e acrescenta-as ao diário, com o lock do utilizador, como um único evento;</li>
+     *   <li>diário: espera que os eventos de cada lote estejam gravados (um fsync por lote);</li>
+     *   <li>estatísticas: atualiza as estatísticas com os mesmos grupos.</li>
+     * </ul>
+     * As duas últimas correm em paralelo depois da primeira. Quem ouve só espera se o anel estiver cheio, pelo que
+     * o estado dos utilizadores e as estatísticas ficam atrasados em relação às reproduções até
+     * {@link #sincronizarReproducoes()}.
+     * 
+     * @param capacidade Número de reproduções que podem estar à espera (potência de 2)
+     * @param espera Estratégia de espera das etapas e de quem ouve com o anel cheio
+     */
+    public synchronized void ativarPipeline(int capacidade, AnelEventos.Espera espera) {
+        if (this.pipeline != null) {
+            throw new IllegalStateException("O pipeline de reproduções já está ativo.");
+        }
+        AnelEventos<ReproducaoPendente> anel = new AnelEventos<>(capacidade, ReproducaoPendente::new, espera);
+        AnelEventos<ReproducaoPendente>.Etapa etapaUtilizadores =
+            anel.adicionarEtapa("spotifyum-reproducoes-utilizadores", new AgrupadorReproducoes(this::aplicarLotePipeline));
+        anel.adicionarEtapa("spotifyum-reproducoes-diario", (r, sequencia, fimLote) -> {
+            if (fimLote) {
+                confirmarDiario();
+            }
+        }, List.of(etapaUtilizadores));
+        anel.adicionarEtapa("spotifyum-reproducoes-estatisticas",
+                            new AgrupadorReproducoes(this::atualizarEstatisticasPipeline), List.of(etapaUtilizadores));
+        anel.iniciar();
+        this.pipeline = anel;
+    }
+
+    /**
+     * Método que desativa o pipeline de reproduções, esperando que as reproduções publicadas sejam aplicadas.
+     * 
+     * A partir daqui as reproduções voltam a ser registadas na thread de quem ouve.
+     */
+    public synchronized void desativarPipeline() {
+        AnelEventos<ReproducaoPendente> anel = this.pipeline;
+        if (anel == null) {
+            return;
+        }
+        this.pipeline = null;
+        // Espera pelas publicações que já tinham visto o pipeline ativo
+        for (Object lock : this.locksPublicacao) {
+            synchronized (lock) {
+                // Nada: basta adquirir o lock
+            }
+        }
+        anel.parar();
+    }
+
+    /**
+     * Método que espera que as reproduções publicadas até agora no pipeline estejam aplicadas.
+     * 
+     * Sem o pipeline ativo, não faz nada.
+     */
+    public void sincronizarReproducoes() {
+        AnelEventos<ReproducaoPendente> anel = this.pipeline;
+        if (anel != null) {
+            anel.esperarConsumo();
+        }
+    }
+
+    /**
+     * Método que devolve as métricas do pipeline de reproduções (eventos e tamanho médio dos lotes de cada etapa).
+     * 
+     * @return String com as métricas, ou null se o pipeline não estiver ativo
+     */
+    public String getMetricasPipeline() {
+        AnelEventos<ReproducaoPendente> anel = this.pipeline;
+        return anel == null ? null : anel.toString();
+    }
+
+    /**
+     * Método que publica reproduções no pipeline, esperando por espaço se o anel estiver cheio.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param lote Músicas ouvidas, pela ordem das reproduções
+     * @param data Data das reproduções
+     * @return true se foram publicadas, false se o pipeline não estiver ativo
+     */
+    private boolean publicarReproducoes(String utilizadorId, List<Musica> lote, LocalDate data) {
+        int h = utilizadorId.hashCode();
+        synchronized (this.locksPublicacao[(h ^ (h >>> 16)) & (NUM_LOCKS - 1)]) {
+            AnelEventos<ReproducaoPendente> anel = this.pipeline;
+            if (anel == null) {
+                return false;
+            }
+            int i = 0;
+            while (i < lote.size()) {
+                int n = Math.min(lote.size() - i, anel.getCapacidade());
+                long ultima = anel.reservar(n);
+                long primeira = ultima - n + 1;
+                for (long s = primeira; s <= ultima; s++) {
+                    ReproducaoPendente r = anel.get(s);
+                    r.utilizadorId = utilizadorId;
+                    r.musica = lote.get(i++);
+                    r.data = data;
+                }
+                anel.publicar(primeira, ultima);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Etapa de utilizadores do pipeline: aplica um grupo de reproduções ao utilizador e regista-o no diário.
+     * 
+     * @param chave Utilizador e data das reproduções
+     * @param lote Músicas ouvidas
+     */
+    private void aplicarLotePipeline(ChaveLote chave, List<Musica> lote) {
+        synchronized (lockUtilizador(chave.utilizadorId())) {
+            Utilizador u = this.utilizadores.get(chave.utilizadorId());
+            if (u == null) {
+                // Utilizador removido depois de ouvir
+                return;
+            }
+            u.aplicarLote(lote, chave.data());
+            invalidarFavoritas(u.getId());
+            registarLoteDiario(u.getId(), lote, chave.data());
+        }
+    }
+
+    /**
+     * Etapa de estatísticas do pipeline: atualiza as estatísticas com um grupo de reproduções.
+     * 
+     * @param chave Utilizador e data das reproduções
+     * @param lote Músicas ouvidas
+     */
+    private void atualizarEstatisticasPipeline(ChaveLote chave, List<Musica> lote) {
+        synchronized (lockUtilizador(chave.utilizadorId())) {
+            Utilizador u = this.utilizadores.get(chave.utilizadorId());
+            if (u != null) {
+                this.estatisticas.reproducoesRegistadas(u, lote, chave.data());
+            }
+        }
+    }
+
+    /*
+    ---------------------------------------------------------------------------------------------
+    ---------------------------------------Diário de eventos-------------------------------------
+    ---------------------------------------------------------------------------------------------
+    */
+
+    /**
+     * Método que ativa o diário de eventos sobre um ficheiro de estado.
+     * 
+     * O estado é recuperado do ficheiro (o último snapshot) e dos segmentos do diário escritos depois dele;
+     * um registo incompleto no fim do último segmento é descartado. Se o ficheiro ainda não existir, o estado
+     * atual é guardado como snapshot inicial. A partir daqui, cada operação que altera o estado só termina
+     * depois de o seu evento estar gravado no diário.
+     * 
+     * Se a recuperação falhar a meio (por exemplo, um segmento corrompido), o model volta a ficar vazio e o
+     * diário fica fechado: um estado reaplicado só em parte nunca fica em uso, nem pode ser gravado por cima
+     * dos segmentos que ficaram por aplicar.
+     * 
+     * @param filePath Caminho do ficheiro de estado
+     * @throws IOException Se não for possível recuperar o estado ou abrir o diário
+     */
+    public void abrirDiario(String filePath) throws IOException {
+        if (this.diario != null) {
+            throw new IllegalStateException("O diário já está aberto.");
+        }
+        Path base = Path.of(filePath).toAbsolutePath();
+        int segmentoBase = 0;
+        int ultimo;
+        try {
+            if (Files.exists(base)) {
+                segmentoBase = carregarEstado(base);
+            } else {
+                Snapshot.escrever(base, this.utilizadores.values(), this.musicas.values(),
+                                  this.playlists.values(), this.albuns.values());
+            }
+            ultimo = reaplicarDiario(base, segmentoBase, Integer.MAX_VALUE);
+        } catch (IOException | RuntimeException e) {
+            limparEstado();
+            throw e;
+        }
+
+        // Segmentos já incluídos no snapshot (um checkpoint interrompido antes de os apagar)
+        Diario.apagarAte(base, segmentoBase);
+
+        this.ficheiroDiario = base;
+        this.compactador = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "spotifyum-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        this.diario = Diario.abrir(base, ultimo + 1);
+    }
+
+    /**
+     * Método que faz um checkpoint do diário em segundo plano.
+     * 
+     * O segmento atual é fechado e as operações continuam no seguinte. Numa thread à parte, o último snapshot
+     * é carregado num model novo, os segmentos fechados são reaplicados sobre ele, e o resultado substitui o
+     * snapshot; só depois os segmentos são apagados. O estado em uso nunca é lido, pelo que não há pausas.
+     * 
+     * Uma falha não perde eventos (os segmentos só são apagados depois de o snapshot ser escrito) e é
+     * devolvida pelo Future; a do último checkpoint, mesmo automático, é também lançada por {@link #fecharDiario()}.
+     * 
+     * @return Future que termina quando o checkpoint estiver concluído
+     */
+    public Future<?> checkpoint() {
+        Diario d = this.diario;
+        if (d == null) {
+            throw new IllegalStateException("O diário não está aberto.");
+        }
+        Path base = this.ficheiroDiario;
+        Future<?> pedido = this.compactador.submit(() -> {
+            try {
+                compactar(base, d.rodar());
+            } finally {
+                this.checkpointPendente.set(false);
+            }
+            return null;
+        });
+        this.ultimoCheckpoint = pedido;
+        return pedido;
+    }
+
+    /**
+     * Método que executa várias operações do model como um lote de escrita.
+     * 
+     * As operações feitas pela thread atual dentro do lote não esperam cada uma pelo seu fsync: os eventos
+     * são acrescentados ao diário e gravados com uma única sincronização no fim do lote, mesmo que alguma
+     * operação falhe. Os lotes podem ser encaixados; só o exterior sincroniza.
+     * 
+     * @param operacoes Operações a executar
+     * @param <E> Tipo da exceção que as operações podem lançar
+     * @throws E Se alguma operação falhar
+     */
+    public <E extends Exception> void executarEmLote(OperacoesLote<E> operacoes) throws E {
+        int[] abertos = this.lotesAbertos.get();
+        abertos[0]++;
+        try {
+            operacoes.executar();
+        } finally {
+            if (--abertos[0] == 0) {
+                confirmarDiario();
+            }
+        }
+    }
+
+    /**
+     * Método que desativa o diário, esperando pelo checkpoint em curso e pelos eventos por gravar.
+     * 
+     * @throws IOException Se alguma escrita no diário tiver falhado, ou se o último checkpoint tiver falhado
+     */
+    public void fecharDiario() throws IOException {
+        sincronizarReproducoes();
+        Diario d = this.diario;
+        if (d == null) {
+            return;
+        }
+        this.diario = null;
+        this.compactador.shutdown();
+        try {
+            this.compactador.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.compactador = null;
+        Future<?> ultimo = this.ultimoCheckpoint;
+        this.ultimoCheckpoint = null;
+        d.close();
+        if (ultimo != null && ultimo.isDone() && !ultimo.isCancelled()) {
+            try {
+                ultimo.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Erro no checkpoint do diário: " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Método que escreve um snapshot com o estado do diário até um segmento e apaga os segmentos incluídos.
+     * 
+     * @param base Ficheiro de estado do diário
+     * @param ultimo Último segmento a incluir (já fechado)
+     * @throws IOException Se ocorrer um erro de leitura ou escrita
+     */
+    private static void compactar(Path base, int ultimo) throws IOException {
+        SpotifyumModel copia = new SpotifyumModel();
+        int segmentoBase = copia.carregarEstado(base);
+        copia.reaplicarDiario(base, segmentoBase, ultimo);
+        Snapshot.escrever(base, copia.utilizadores.values(), copia.musicas.values(),
+                          copia.playlists.values(), copia.albuns.values(), ultimo);
+        Diario.apagarAte(base, ultimo);
+    }
+
+    /**
+     * Método que torna o estado atual a nova base do diário, depois de ter sido substituído por outro.
+     * 
+     * Os eventos anteriores deixam de se aplicar; não deve haver outras operações em curso.
+     * 
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    private void reiniciarDiario() throws IOException {
+        int fechado = this.diario.rodar();
+        Snapshot.escrever(this.ficheiroDiario, this.utilizadores.values(), this.musicas.values(),
+                          this.playlists.values(), this.albuns.values(), fechado);
+        Diario.apagarAte(this.ficheiroDiario, fechado);
+    }
+
+    /**
+     * Método que reaplica os eventos dos segmentos do diário entre dois números.
+     * 
+     * @param base Ficheiro de estado do diário
+     * @param depois Os segmentos até este número (inclusive) são ignorados
+     * @param ate Último segmento a reaplicar
+     * @return Número do último segmento reaplicado (ou depois, se nenhum)
+     * @throws IOException Se um segmento estiver corrompido ou um evento for inválido
+     */
+    private int reaplicarDiario(Path base, int depois, int ate) throws IOException {
+        List<Integer> segmentos = Diario.segmentos(base);
+        int ultimo = depois;
+        for (int i = 0; i < segmentos.size(); i++) {
+            int numero = segmentos.get(i);
+            if (numero <= depois || numero > ate) {
+                continue;
+            }
+            Path segmento = Diario.segmento(base, numero);
+            long validos = Diario.ler(segmento, this::aplicarEvento);
+            if (validos < Files.size(segmento)) {
+                if (i < segmentos.size() - 1) {
+                    throw new IOException("Segmento do diário corrompido: " + segmento);
+                }
+                // Registo incompleto no fim do último segmento: a operação não chegou a terminar
+                Diario.truncar(segmento, validos);
+            }
+            ultimo = numero;
+        }
+        return ultimo;
+    }
+
+    /**
+     * Método que reaplica um evento lido do diário.
+     * 
+     * Os eventos que já não se aplicam são ignorados, tal como a operação original falhou.
+     * 
+     * @param registo Registo do evento
+     * @throws IOException Se o evento for inválido
+     */
+    private void aplicarEvento(EntradaBinaria registo) throws IOException {
+        int tipo = registo.lerByte();
+        try {
+            switch (tipo) {
+                case Eventos.UTILIZADOR_ADICIONADO -> adicionarUtilizador(Eventos.lerUtilizador(registo, this.catalogo));
+                case Eventos.UTILIZADOR_REMOVIDO -> removerUtilizador(registo.lerString());
+                case Eventos.MUSICA_ADICIONADA -> adicionarMusica(Eventos.lerMusica(registo));
+                case Eventos.MUSICA_REMOVIDA -> removerMusica(registo.lerString());
+                case Eventos.PLAYLIST_ADICIONADA -> adicionarPlaylist(Eventos.lerPlaylist(registo, this.catalogo));
+                case Eventos.PLAYLIST_REMOVIDA -> removerPlaylist(registo.lerString());
+                case Eventos.ALBUM_ADICIONADO -> adicionarAlbum(Eventos.lerAlbum(registo, this.catalogo));
+                case Eventos.ALBUM_REMOVIDO -> removerAlbum(registo.lerString());
+                case Eventos.REPRODUCAO -> {
+                    String utilizadorId = registo.lerString();
+                    String musicaId = registo.lerString();
+                    String artista = Eventos.lerTexto(registo);
+                    aplicarReproducao(utilizadorId, musicaId, artista, LocalDate.ofEpochDay(registo.lerVarIntSinal()));
+                }
+                case Eventos.REPRODUCAO_LOTE -> {
+                    String utilizadorId = registo.lerString();
+                    LocalDate data = LocalDate.ofEpochDay(registo.lerVarIntSinal());
+                    int n = registo.lerVarInt();
+                    String[] musicasIds = new String[n];
+                    String[] artistas = new String[n];
+                    for (int i = 0; i < n; i++) {
+                        musicasIds[i] = registo.lerString();
+                        artistas[i] = Eventos.lerTexto(registo);
+                    }
+                    aplicarReproducoes(utilizadorId, musicasIds, artistas, data);
+                }
+                case Eventos.PLANO_ALTERADO -> alterarPlano(registo.lerString(), registo.lerString());
+                case Eventos.PLAYLIST_BIBLIOTECA -> {
+                    Utilizador u = this.utilizadores.get(registo.lerString());
+                    Playlist p = this.playlists.get(registo.lerString());
+                    if (u != null && p != null && u.getPlano() instanceof PlanoPremiumBase) {
+                        ((PlanoPremiumBase) u.getPlano()).adicionarPlaylistBiblioteca(p);
+                    }
+                }
+                case Eventos.ALBUM_BIBLIOTECA -> {
+                    Utilizador u = this.utilizadores.get(registo.lerString());
+                    Album a = this.albuns.get(registo.lerString());
+                    if (u != null && a != null && u.getPlano() instanceof PlanoPremiumBase) {
+                        ((PlanoPremiumBase) u.getPlano()).adicionarAlbumBiblioteca(a);
+                    }
+                }
+                default -> throw new IOException("Evento do diário desconhecido: " + tipo);
+            }
+        } catch (EntidadeExisteException | EntidadeNaoExisteException | PlanoException e) {
+            // O evento já não se aplica
+        }
+    }
+
+    /**
+     * Método que reaplica uma reprodução, sem reproduzir a música.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param musicaId ID da música
+     * @param artista Artista da música
+     * @param data Data da reprodução
+     */
+    private void aplicarReproducao(String utilizadorId, String musicaId, String artista, LocalDate data) {
+        Utilizador u = this.utilizadores.get(utilizadorId);
+        if (u == null) {
+            return;
+        }
+        Musica m = this.musicas.get(musicaId);
+        if (m != null) {
+            m.contarReproducao();
+        } else {
+            // Música que já não está no catálogo: só conta para o utilizador
+            m = new Musica(musicaId, "", artista, "", "", new ArrayList<>(), "", 0);
+        }
+        u.registarReproducao(m, data);
+    }
+
+    /**
+     * Método que reaplica um lote de reproduções, sem reproduzir as músicas.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param musicasIds IDs das músicas
+     * @param artistas Artista de cada música
+     * @param data Data das reproduções
+     */
+    private void aplicarReproducoes(String utilizadorId, String[] musicasIds, String[] artistas, LocalDate data) {
+        Utilizador u = this.utilizadores.get(utilizadorId);
+        if (u == null) {
+            return;
+        }
+        List<Musica> lote = new ArrayList<>(musicasIds.length);
+        for (int i = 0; i < musicasIds.length; i++) {
+            Musica m = this.musicas.get(musicasIds[i]);
+            if (m != null) {
+                m.contarReproducao();
+            } else {
+                // Música que já não está no catálogo: só conta para o utilizador
+                m = new Musica(musicasIds[i], "", artistas[i], "", "", new ArrayList<>(), "", 0);
+            }
+            lote.add(m);
+        }
+        u.registarLote(lote, data);
+    }
+
+    /**
+     * Método invocado sempre que um utilizador do model ouve uma música: atualiza as estatísticas
+     * e regista a reprodução no diário.
+     * 
+     * @param u Utilizador que ouviu a música
+     * @param m Música ouvida
+     * @param data Data da reprodução
+     */
+    private void reproducaoRegistada(Utilizador u, Musica m, LocalDate data) {
+        this.estatisticas.reproducaoRegistada(u, m, data);
+        invalidarFavoritas(u.getId());
+        registarEvento(saida -> {
+            saida.escreverByte(Eventos.REPRODUCAO);
+            saida.escreverString(u.getId());
+            saida.escreverString(m.getId());
+            Eventos.escreverTexto(saida, m.getArtista());
+            saida.escreverVarIntSinal((int) data.toEpochDay());
+        });
+    }
+
+    /**
+     * Método invocado sempre que um utilizador do model ouve um lote de músicas: atualiza as estatísticas
+     * e regista o lote no diário como um único evento.
+     * 
+     * @param u Utilizador que ouviu as músicas
+     * @param musicas Músicas ouvidas
+     * @param data Data das reproduções
+     */
+    private void reproducoesRegistadas(Utilizador u, List<Musica> musicas, LocalDate data) {
+        this.estatisticas.reproducoesRegistadas(u, musicas, data);
+        invalidarFavoritas(u.getId());
+        registarLoteDiario(u.getId(), musicas, data);
+    }
+
+    /**
+     * Método que regista no diário um lote de reproduções como um único evento.
+     * 
+     * @param utilizadorId ID do utilizador
+     * @param musicas Músicas ouvidas
+     * @param data Data das reproduções
+     */
+    private void registarLoteDiario(String utilizadorId, List<Musica> musicas, LocalDate data) {
+        registarEvento(saida -> {
+            saida.escreverByte(Eventos.REPRODUCAO_LOTE);
+            saida.escreverString(utilizadorId);
+            saida.escreverVarIntSinal((int) data.toEpochDay());
+            saida.escreverVarInt(musicas.size());
+            for (Musica m : musicas) {
+                saida.escreverString(m.getId());
+                Eventos.escreverTexto(saida, m.getArtista());
+            }
+        });
+    }
+
+    /**
+     * Método que regista no diário a adição de uma playlist ou álbum à biblioteca de um utilizador.
+     * 
+     * @param tipo Eventos.PLAYLIST_BIBLIOTECA ou Eventos.ALBUM_BIBLIOTECA
+     * @param utilizadorId ID do utilizador
+     * @param nome Nome da playlist ou título do álbum
+     */
+    private void registarBiblioteca(int tipo, String utilizadorId, String nome) {
+        registarEvento(saida -> {
+            saida.escreverByte(tipo);
+            saida.escreverString(utilizadorId);
+            saida.escreverString(nome);
+        });
+    }
+
+    /**
+     * Método que acrescenta um evento ao diário, se estiver ativo, sem esperar que seja gravado.
+     * 
+     * @param registo Conteúdo do evento
+     */
+    private void registarEvento(Diario.Registo registo) {
+        Diario d = this.diario;
+        if (d == null) {
+            return;
+        }
+        try {
+            d.registar(registo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao escrever no diário: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Método que espera que os eventos registados estejam gravados (um fsync partilhado por todas as
+     * operações que esperam ao mesmo tempo) e pede um checkpoint quando o segmento atual fica grande.
+     */
+    private void confirmarDiario() {
+        Diario d = this.diario;
+        if (d == null || this.lotesAbertos.get()[0] > 0) {
+            return;
+        }
+        try {
+            d.sincronizar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao escrever no diário: " + e.getMessage(), e);
+        }
+        if (d.getTamanhoSegmento() >= LIMITE_SEGMENTO && this.checkpointPendente.compareAndSet(false, true)) {
+            checkpoint();
         }
     }
 }
@@ -1,11 +1,20 @@
 package spotifyum.mvc;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 
+import spotifyum.album.Album;
+import spotifyum.estatisticas.ResultadoQuery;
 import spotifyum.menu.*;
 import spotifyum.musica.Musica;
+import spotifyum.playlist.Playlist;
+import spotifyum.utilizador.Historico;
+import spotifyum.utilizador.ReproducoesArtista;
+import spotifyum.utilizador.Utilizador;
+import spotifyum.util.EscritaPaginada;
 
 /**
  * Classe responsável pela interação com o utilizador.
@@ -65,7 +74,67 @@ public class SpotifyumView {
      * @param utilizadorId ID do utilizador
      */
     public void informacoes(String utilizadorId){
-        controller.informacoes(utilizadorId);
+        Utilizador u = controller.informacoes(utilizadorId);
+        if (u != null) {
+            System.out.println(u);
+        }
+    }
+
+    /**
+     * Método para mostrar o histórico (de músicas) do utilizador.
+     * 
+     * @param utilizadorId ID do utilizador
+     */
+    public void verHistorico(String utilizadorId){
+        List<Historico> historico = controller.verHistorico(utilizadorId);
+        if (historico != null) {
+            StringBuilder sb = new StringBuilder();
+            for (Historico h : historico) {
+                sb.append(h);
+            }
+            System.out.println(sb);
+        }
+    }
+
+    /**
+     * Método para mostrar o histórico de artistas do utilizador.
+     * 
+     * @param utilizadorId ID do utilizador
+     */
+    public void verHistoricoArtistas(String utilizadorId){
+        List<ReproducoesArtista> artistas = controller.verHistoricoArtistas(utilizadorId);
+        if (artistas != null) {
+            StringBuilder sb = new StringBuilder();
+            for (ReproducoesArtista a : artistas) {
+                sb.append("Artista: \"").append(a.artista())
+                  .append("\" -> NumReproducoes: \"").append(a.reproducoes()).append("\"\n");
+            }
+            System.out.println(sb);
+        }
+    }
+
+    /**
+     * Método para mostrar as playlists da biblioteca do utilizador.
+     * 
+     * @param utilizadorId ID do utilizador
+     */
+    public void verMinhasPlaylists(String utilizadorId){
+        List<Playlist> playlists = controller.verMinhasPlaylists(utilizadorId);
+        if (playlists != null) {
+            System.out.println(formatarLista("[MINHAS PLAYLISTS]:", playlists));
+        }
+    }
+
+    /**
+     * Método para mostrar os álbuns da biblioteca do utilizador.
+     * 
+     * @param utilizadorId ID do utilizador
+     */
+    public void verBibliotecaAlbuns(String utilizadorId){
+        List<Album> albuns = controller.verBibliotecaAlbuns(utilizadorId);
+        if (albuns != null) {
+            System.out.println(formatarLista("[BIBLIOTECA DE ALBUNS]:", albuns));
+        }
     }
 
     /**
@@ -324,6 +393,34 @@ public class SpotifyumView {
         controller.removerPlaylist(nome);
     }
 
+    /**
+     * Método para executar um script de comandos de administração.
+     */
+    public void executarScript(){
+        System.out.print("Caminho do script > ");
+        String ficheiro = scanner.nextLine();
+        System.out.print("Comandos por transação (Enter para " + ExecutorScript.TAMANHO_TRANSACAO + ") > ");
+        String tamanho = scanner.nextLine().trim();
+        try{
+            controller.executarScript(ficheiro, tamanho.isEmpty() ? ExecutorScript.TAMANHO_TRANSACAO : Integer.parseInt(tamanho));
+        }catch(NumberFormatException e){
+            System.out.println("Número inválido.");
+        }
+    }
+
+    /**
+     * Método para importar um ficheiro CSV ou TSV de músicas, álbuns ou utilizadores.
+     */
+    public void importarCatalogo(){
+        System.out.print("Caminho do ficheiro (.csv ou .tsv) > ");
+        String ficheiro = scanner.nextLine();
+        System.out.print("Tipo (MUSICAS, ALBUNS ou UTILIZADORES) > ");
+        String tipo = scanner.nextLine();
+        System.out.print("A primeira linha é um cabeçalho? (s/n) > ");
+        boolean cabecalho = scanner.nextLine().trim().equalsIgnoreCase("s");
+        controller.importarCatalogo(ficheiro, tipo, cabecalho);
+    }
+
     /**
      * Método que cria um menu com as opções de estatísticas.
      */
@@ -351,12 +448,125 @@ public class SpotifyumView {
         try{
             LocalDate inicio = LocalDate.parse(dataInicio);
             LocalDate fim = LocalDate.parse(dataFim);
-            controller.executarQueryEspecial(inicio, fim);
+            mostrarResultado(controller.executarQueryEspecial(inicio, fim));
         } catch (DateTimeParseException e) {
             System.out.println("Formato de data inválido. Por favor, use o formato AAAA-MM-DD.");
         }
     }
 
+    /**
+     * Método para executar uma query e mostrar o resultado.
+     * 
+     * @param query Número da query
+     */
+    public void executaQuery(int query){
+        mostrarResultado(controller.executaQuery(query));
+    }
+
+    /*
+    ----------------------------------------------------------------------------
+    ---------------------------Apresentação de Resultados-----------------------
+    ----------------------------------------------------------------------------
+    */
+
+    /**
+     * Método para mostrar o resultado de uma query.
+     * 
+     * @param resultado Resultado da query (null se a query falhou, caso em que não mostra nada)
+     */
+    public void mostrarResultado(ResultadoQuery resultado){
+        if (resultado != null) {
+            System.out.println(formatarResultado(resultado));
+        }
+    }
+
+    /**
+     * Método que devolve a representação textual do resultado de uma query.
+     * 
+     * @param resultado Resultado da query
+     * @return Texto a mostrar
+     */
+    public String formatarResultado(ResultadoQuery resultado){
+        return switch (resultado) {
+            case ResultadoQuery.MusicaMaisReproduzida r -> r.id() == null
+                ? "Nenhuma música encontrada."
+                : "Música mais reproduzida: " + r.nome() + " (ID: " + r.id() + ", " + r.reproducoes() + " reproduções)";
+            case ResultadoQuery.ArtistaMaisEscutado r -> r.artista() == null
+                ? "Nenhum artista encontrado."
+                : "Artista mais escutado: " + r.artista() + " (" + r.reproducoes() + " reproduções)";
+            case ResultadoQuery.UtilizadorMaisMusicas r when r.inicio() == null -> r.id() == null
+                ? "Nenhum utilizador encontrado."
+                : "Utilizador com mais músicas ouvidas: " + r.id() + " (" + r.musicas() + " músicas)";
+            case ResultadoQuery.UtilizadorMaisMusicas r -> r.id() == null
+                ? "Nenhum utilizador com músicas ouvidas no intervalo indicado."
+                : "Utilizador com mais músicas ouvidas no intervalo [" + r.inicio() + " a " + r.fim() + "]: "
+                  + r.id() + " (" + r.musicas() + " músicas)";
+            case ResultadoQuery.UtilizadorMaisPontos r -> r.id() == null
+                ? "Nenhum utilizador encontrado."
+                : "O utilizador com mais pontos é: " + r.id() + " (" + r.pontos() + " pontos)";
+            case ResultadoQuery.GeneroMaisReproduzido r -> r.genero() == null
+                ? "Não há dados de reprodução disponíveis."
+                : "O tipo de música mais reproduzido é: " + r.genero() + " (" + r.reproducoes() + " reproduções)";
+            case ResultadoQuery.PlaylistsPublicas r -> "Número de playlists públicas: " + r.numero();
+            case ResultadoQuery.UtilizadorMaisPlaylists r -> r.id() == null
+                ? "Nenhum utilizador premium com playlists encontrado."
+                : "Utilizador com mais playlists: " + r.id() + " (" + r.playlists() + " playlists)";
+        };
+    }
+
+    /**
+     * Método que mostra uma listagem do SpotifyUM, página a página.
+     * 
+     * As entidades são escritas à medida que cada página é lida, sem juntar a listagem toda em memória.
+     * 
+     * @param titulo Título da listagem
+     * @param paginas Fonte das páginas
+     * @param <T> Tipo dos elementos
+     */
+    public <T> void listar(String titulo, EscritaPaginada.Paginas<T> paginas){
+        try {
+            EscritaPaginada.escrever(System.out, titulo, paginas);
+        } catch (IOException e) {
+            // O System.out não lança exceções ao escrever
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Método para listar as músicas de um género.
+     */
+    public void listarMusicasGenero(){
+        System.out.print("Introduza o género > ");
+        String genero = scanner.nextLine();
+        listar("[MUSICAS DO GENERO " + genero + "]", (cursor, tamanho) -> controller.listarMusicasGenero(genero, cursor, tamanho));
+    }
+
+    /**
+     * Método para listar as músicas de um artista.
+     */
+    public void listarMusicasArtista(){
+        System.out.print("Introduza o artista > ");
+        String artista = scanner.nextLine();
+        listar("[MUSICAS DO ARTISTA " + artista + "]", (cursor, tamanho) -> controller.listarMusicasArtista(artista, cursor, tamanho));
+    }
+
+    /**
+     * Método que devolve a representação textual de uma lista de entidades, com um título.
+     * 
+     * @param titulo Título da lista
+     * @param elementos Entidades a mostrar
+     * @return Texto a mostrar
+     */
+    public String formatarLista(String titulo, Collection<?> elementos){
+        StringBuilder sb = new StringBuilder();
+        sb.append(titulo).append("\n");
+        sb.append("\n");
+        for (Object e : elementos) {
+            sb.append(e).append("\n");
+        }
+        return sb.toString();
+    }
+
     /*
     ----------------------------------------------------------------------------
     ------------------------------Criação de Menus------------------------------
@@ -370,7 +580,7 @@ public class SpotifyumView {
      */
     public Menu criaMenuOpcaoQuery(){
         List<MenuOpcao> menuOpcaoQuery = new ArrayList<>();
-        menuOpcaoQuery.add(new MenuOpcao("Desde sempre", () -> controller.executaQuery(3)));
+        menuOpcaoQuery.add(new MenuOpcao("Desde sempre", () -> executaQuery(3)));
         menuOpcaoQuery.add(new MenuOpcao("Num determinado período", () -> lerPeriodo()));
         return new Menu(menuOpcaoQuery);
     }
@@ -396,13 +606,13 @@ public class SpotifyumView {
      */
     public Menu criaMenuEstatisticas(){
         List<MenuOpcao> menuEstatisticas = new ArrayList<>();
-        menuEstatisticas.add(new MenuOpcao("Música mais reproduzida", () -> controller.executaQuery(1)));
-        menuEstatisticas.add(new MenuOpcao("Artista mais escutado", () -> controller.executaQuery(2)));
+        menuEstatisticas.add(new MenuOpcao("Música mais reproduzida", () -> executaQuery(1)));
+        menuEstatisticas.add(new MenuOpcao("Artista mais escutado", () -> executaQuery(2)));
         menuEstatisticas.add(new MenuOpcao("Utilizador que mais músicas ouviu", () -> escolheOpcaoQuery()));
-        menuEstatisticas.add(new MenuOpcao("Utilizador com mais pontos", () -> controller.executaQuery(4)));
-        menuEstatisticas.add(new MenuOpcao("Tipo de música mais reproduuzido", () -> controller.executaQuery(5)));
-        menuEstatisticas.add(new MenuOpcao("Número de playlists públicas", () -> controller.executaQuery(6)));
-        menuEstatisticas.add(new MenuOpcao("Utilizador com mais playlists", () -> controller.executaQuery(7)));
+        menuEstatisticas.add(new MenuOpcao("Utilizador com mais pontos", () -> executaQuery(4)));
+        menuEstatisticas.add(new MenuOpcao("Tipo de música mais reproduuzido", () -> executaQuery(5)));
+        menuEstatisticas.add(new MenuOpcao("Número de playlists públicas", () -> executaQuery(6)));
+        menuEstatisticas.add(new MenuOpcao("Utilizador com mais playlists", () -> executaQuery(7)));
         return new Menu(menuEstatisticas);
     }
 
@@ -433,10 +643,14 @@ public class SpotifyumView {
         menuAdministrador.add(new MenuOpcao("Remover Música", () -> removerMusica()));
         menuAdministrador.add(new MenuOpcao("Remover Álbum", () -> removerAlbum()));
         menuAdministrador.add(new MenuOpcao("Remover Playlist", () -> removerPlaylist()));
-        menuAdministrador.add(new MenuOpcao("Listar Utilizadores", () -> controller.listarUtilizadores()));
-        menuAdministrador.add(new MenuOpcao("Listar Músicas", () -> controller.listarMusicas()));
-        menuAdministrador.add(new MenuOpcao("Listar Álbuns", () -> controller.listarAlbuns()));
-        menuAdministrador.add(new MenuOpcao("Listar Playlists", () -> controller.listarPlaylists()));
+        menuAdministrador.add(new MenuOpcao("Executar Script", () -> executarScript()));
+        menuAdministrador.add(new MenuOpcao("Importar Catálogo", () -> importarCatalogo()));
+        menuAdministrador.add(new MenuOpcao("Listar Utilizadores", () -> listar("[UTILIZADORES]", controller::listarUtilizadores)));
+        menuAdministrador.add(new MenuOpcao("Listar Músicas", () -> listar("[MUSICAS]", controller::listarMusicas)));
+        menuAdministrador.add(new MenuOpcao("Listar Músicas por Género", () -> listarMusicasGenero()));
+        menuAdministrador.add(new MenuOpcao("Listar Músicas por Artista", () -> listarMusicasArtista()));
+        menuAdministrador.add(new MenuOpcao("Listar Álbuns", () -> listar("[ALBUNS]", controller::listarAlbuns)));
+        menuAdministrador.add(new MenuOpcao("Listar Playlists", () -> listar("[PLAYLISTS]", controller::listarPlaylists)));
         menuAdministrador.add(new MenuOpcao("Ver Estatísticas", () -> verEstatisticas()));
         return new Menu(menuAdministrador);
     }
@@ -450,8 +664,8 @@ public class SpotifyumView {
     public Menu criaMenuUtilizador(String utilizadorId){
         List<MenuOpcao> menuUtilizador = new ArrayList<>();
         menuUtilizador.add(new MenuOpcao("Informações do Utilizador", () -> informacoes(utilizadorId)));
-        menuUtilizador.add(new MenuOpcao("Ver histórico", () -> controller.verHistorico(utilizadorId)));
-        menuUtilizador.add(new MenuOpcao("Ver histórico de Artistas", () -> controller.verHistoricoArtistas(utilizadorId)));
+        menuUtilizador.add(new MenuOpcao("Ver histórico", () -> verHistorico(utilizadorId)));
+        menuUtilizador.add(new MenuOpcao("Ver histórico de Artistas", () -> verHistoricoArtistas(utilizadorId)));
         menuUtilizador.add(new MenuOpcao("Ouvir Música", () -> ouviMusica(utilizadorId)));
         menuUtilizador.add(new MenuOpcao("Ouvir Álbum", () -> ouvirAlbum(utilizadorId)));
         menuUtilizador.add(new MenuOpcao("Ouvir Playlist", () -> ouvirPlaylist(utilizadorId)));
@@ -459,8 +673,8 @@ public class SpotifyumView {
         menuUtilizador.add(new MenuOpcao("Gerar Lista de Favoritos", () -> controller.temPlanoPremiumTop(utilizadorId),() -> gerarListaFavoritos(utilizadorId)));
         menuUtilizador.add(new MenuOpcao("Adicionar Álbum à Biblioteca", () -> controller.temPlanoPremiumBase(utilizadorId),() -> adicionarAlbumBiblioteca(utilizadorId)));
         menuUtilizador.add(new MenuOpcao("Adicionar Playlist à Biblioteca", () -> controller.temPlanoPremiumBase(utilizadorId),() -> adicionarPlaylistBiblioteca(utilizadorId)));
-        menuUtilizador.add(new MenuOpcao("Ver as minhhas playlists", () -> controller.temPlanoPremiumBase(utilizadorId), () -> controller.verMinhasPlaylists(utilizadorId)));
-        menuUtilizador.add(new MenuOpcao("Ver biblioteca de albuns", () -> controller.temPlanoPremiumBase(utilizadorId), () -> controller.verBibliotecaAlbuns(utilizadorId)));
+        menuUtilizador.add(new MenuOpcao("Ver as minhhas playlists", () -> controller.temPlanoPremiumBase(utilizadorId), () -> verMinhasPlaylists(utilizadorId)));
+        menuUtilizador.add(new MenuOpcao("Ver biblioteca de albuns", () -> controller.temPlanoPremiumBase(utilizadorId), () -> verBibliotecaAlbuns(utilizadorId)));
         menuUtilizador.add(new MenuOpcao("Alterar o plano de subscrição", () -> alterarPlano(utilizadorId)));
         return new Menu(menuUtilizador);
     }
@@ -0,0 +1,567 @@
+package spotifyum.persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Classe que implementa um diário de eventos (write-ahead log) só de acréscimo, dividido em segmentos.
+ *
+ * Cada registo é escrito como [tamanho][CRC32][bytes]. Os registos são acumulados em memória e uma thread
+ * própria escreve-os em lote, com um único fsync por lote (group commit): quem espera pela durabilidade de
+ * um registo espera, no máximo, pelo fsync do lote em que ele entrou, e os registos de várias threads
+ * partilham o mesmo fsync. Se o disco não acompanhar, os registos esperam que o lote anterior seja escrito,
+ * pelo que a memória usada é limitada.
+ *
+ * Os segmentos de um ficheiro f chamam-se f.diario.1, f.diario.2, ... O método {@link #rodar()} fecha o
+ * segmento atual e abre o seguinte, para que os segmentos fechados possam ser compactados num snapshot
+ * sem parar as escritas.
+ */
+public class Diario implements Closeable {
+
+    /** Escreve o conteúdo de um registo */
+    @FunctionalInterface
+    public interface Registo {
+        /**
+         * Método que escreve o conteúdo do registo.
+         *
+         * @param saida Saída do registo
+         * @throws IOException Se ocorrer um erro de escrita
+         */
+        void escrever(SaidaBinaria saida) throws IOException;
+    }
+
+    /** Processa os registos lidos de um segmento */
+    @FunctionalInterface
+    public interface Consumidor {
+        /**
+         * Método que processa um registo.
+         *
+         * @param registo Conteúdo do registo
+         * @throws IOException Se o registo for inválido
+         */
+        void consumir(EntradaBinaria registo) throws IOException;
+    }
+
+    /** Sufixo dos ficheiros dos segmentos, seguido do número do segmento */
+    private static final String SUFIXO = ".diario.";
+
+    /** Bytes do cabeçalho de cada registo (tamanho e CRC32) */
+    private static final int CABECALHO = 8;
+
+    /** Número de bytes por escrever a partir do qual quem regista espera que o lote seja escrito */
+    private static final int LIMITE_PENDENTES = 8 << 20;
+
+    /** Ficheiro base do diário */
+    private final Path base;
+
+    /** Lock dos registos pendentes e dos contadores */
+    private final ReentrantLock lock;
+
+    /** Sinalizada quando há registos pendentes ou o diário é fechado */
+    private final Condition temPendentes;
+
+    /** Sinalizada sempre que um lote fica gravado */
+    private final Condition gravados;
+
+    /** Lock do canal: quem o tem é o único a escrever no segmento atual */
+    private final ReentrantLock escrita;
+
+    /** Canal do segmento atual */
+    private FileChannel canal;
+
+    /** Número do segmento atual */
+    private int segmento;
+
+    /** Bytes escritos (ou pendentes) no segmento atual */
+    private long tamanhoSegmento;
+
+    /** Registos já enquadrados e ainda por escrever */
+    private ByteBuffer pendentes;
+
+    /** Lote que está a ser escrito pela thread do diário */
+    private ByteBuffer emEscrita;
+
+    /** Bytes do registo que está a ser enquadrado */
+    private final Acumulador acumulador;
+
+    /** CRC do registo que está a ser enquadrado */
+    private final CRC32 crc;
+
+    /** Número de registos aceites */
+    private long ultimoRegistado;
+
+    /** Número de registos gravados em disco */
+    private long ultimoGravado;
+
+    /** Primeiro erro de escrita: depois dele o diário deixa de aceitar registos */
+    private IOException erro;
+
+    /** Indica se o diário foi fechado */
+    private boolean fechado;
+
+    /** Thread que escreve os lotes */
+    private final Thread escritor;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param base Ficheiro base do diário
+     * @param segmento Número do segmento onde escrever
+     * @param canal Canal do segmento
+     */
+    private Diario(Path base, int segmento, FileChannel canal) throws IOException {
+        this.base = base;
+        this.lock = new ReentrantLock();
+        this.temPendentes = this.lock.newCondition();
+        this.gravados = this.lock.newCondition();
+        this.escrita = new ReentrantLock();
+        this.canal = canal;
+        this.segmento = segmento;
+        this.tamanhoSegmento = canal.size();
+        this.pendentes = ByteBuffer.allocate(1 << 16);
+        this.emEscrita = ByteBuffer.allocate(1 << 16);
+        this.acumulador = new Acumulador();
+        this.crc = new CRC32();
+        this.escritor = new Thread(this::escreverLotes, "spotifyum-diario");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Método que abre o diário para escrita num segmento, acrescentando ao que o segmento já tiver.
+     *
+     * @param base Ficheiro base do diário
+     * @param segmento Número do segmento onde escrever (maior do que zero)
+     * @return Diário aberto
+     * @throws IOException Se não for possível abrir o segmento
+     */
+    public static Diario abrir(Path base, int segmento) throws IOException {
+        FileChannel canal = FileChannel.open(segmento(base, segmento), StandardOpenOption.CREATE,
+                                             StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new Diario(base, segmento, canal);
+    }
+
+    /**
+     * Método que acrescenta um registo ao diário, sem esperar que seja gravado.
+     *
+     * @param registo Conteúdo do registo
+     * @return Número de sequência do registo, a usar em {@link #esperar(long)}
+     * @throws IOException Se o diário estiver fechado, uma escrita anterior tiver falhado ou o registo for inválido
+     */
+    public long registar(Registo registo) throws IOException {
+        this.lock.lock();
+        try {
+            verificarEstado();
+            // Backpressure: com muitos registos por escrever, espera que a thread do diário leve o lote atual
+            while (this.pendentes.position() >= LIMITE_PENDENTES) {
+                this.gravados.await();
+                verificarEstado();
+            }
+
+            this.acumulador.limpar();
+            SaidaBinaria saida = new SaidaBinaria(this.acumulador, 256);
+            registo.escrever(saida);
+            saida.flush();
+
+            int tamanho = this.acumulador.tamanho;
+            this.crc.reset();
+            this.crc.update(this.acumulador.dados, 0, tamanho);
+
+            if (this.pendentes.remaining() < CABECALHO + tamanho) {
+                int capacidade = Math.max(this.pendentes.capacity() * 2, this.pendentes.position() + CABECALHO + tamanho);
+                ByteBuffer maior = ByteBuffer.allocate(capacidade);
+                this.pendentes.flip();
+                maior.put(this.pendentes);
+                this.pendentes = maior;
+            }
+            this.pendentes.putInt(tamanho);
+            this.pendentes.putInt((int) this.crc.getValue());
+            this.pendentes.put(this.acumulador.dados, 0, tamanho);
+            this.tamanhoSegmento += CABECALHO + tamanho;
+            this.ultimoRegistado++;
+            this.temPendentes.signal();
+            return this.ultimoRegistado;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido à espera do diário.");
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Método que espera até que um registo esteja gravado em disco.
+     *
+     * @param registo Número de sequência devolvido por {@link #registar(Registo)}
+     * @throws IOException Se a escrita falhar ou o diário for fechado antes de o registo ser gravado
+     */
+    public void esperar(long registo) throws IOException {
+        this.lock.lock();
+        try {
+            while (this.ultimoGravado < registo && this.erro == null && !this.fechado) {
+                this.gravados.await();
+            }
+            if (this.ultimoGravado < registo) {
+                throw this.erro != null ? new IOException("Erro ao escrever no diário.", this.erro)
+                                        : new IOException("O diário foi fechado.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido à espera do diário.");
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Método que espera até que todos os registos aceites até agora estejam gravados em disco.
+     *
+     * @throws IOException Se a escrita falhar ou o diário for fechado entretanto
+     */
+    public void sincronizar() throws IOException {
+        long alvo;
+        this.lock.lock();
+        try {
+            alvo = this.ultimoRegistado;
+        } finally {
+            this.lock.unlock();
+        }
+        esperar(alvo);
+    }
+
+    /**
+     * Método que fecha o segmento atual e passa a escrever no seguinte.
+     *
+     * Os registos pendentes são gravados no segmento que fecha, pelo que todos os registos aceites antes
+     * da rotação ficam nos segmentos até ao número devolvido.
+     *
+     * @return Número do segmento fechado
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public int rodar() throws IOException {
+        this.lock.lock();
+        try {
+            verificarEstado();
+            this.escrita.lock();
+            try {
+                this.pendentes.flip();
+                while (this.pendentes.hasRemaining()) {
+                    this.canal.write(this.pendentes);
+                }
+                this.pendentes.clear();
+                this.canal.force(false);
+                this.canal.close();
+
+                int fechadoAgora = this.segmento;
+                this.canal = FileChannel.open(segmento(this.base, fechadoAgora + 1), StandardOpenOption.CREATE,
+                                              StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                this.segmento = fechadoAgora + 1;
+                this.tamanhoSegmento = 0;
+                this.ultimoGravado = this.ultimoRegistado;
+                this.gravados.signalAll();
+                return fechadoAgora;
+            } catch (IOException e) {
+                this.erro = e;
+                this.gravados.signalAll();
+                throw e;
+            } finally {
+                this.escrita.unlock();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Método que devolve o número do segmento atual.
+     *
+     * @return Número do segmento
+     */
+    public int getSegmento() {
+        this.lock.lock();
+        try {
+            return this.segmento;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Método que devolve o número de bytes do segmento atual, incluindo os registos ainda por gravar.
+     *
+     * @return Tamanho do segmento
+     */
+    public long getTamanhoSegmento() {
+        this.lock.lock();
+        try {
+            return this.tamanhoSegmento;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Método que grava os registos pendentes e fecha o diário.
+     *
+     * @throws IOException Se alguma escrita tiver falhado
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.lock();
+        try {
+            if (this.fechado) {
+                return;
+            }
+            this.fechado = true;
+            this.temPendentes.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        try {
+            this.escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido a fechar o diário.");
+        }
+        this.canal.close();
+        this.lock.lock();
+        try {
+            this.gravados.signalAll();
+            if (this.erro != null) {
+                throw new IOException("Erro ao escrever no diário.", this.erro);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Método executado pela thread do diário: escreve os registos pendentes em lotes, com um fsync por lote.
+     */
+    private void escreverLotes() {
+        while (true) {
+            long alvo;
+            this.lock.lock();
+            try {
+                while (this.pendentes.position() == 0 && !this.fechado) {
+                    this.temPendentes.awaitUninterruptibly();
+                }
+                if (this.pendentes.position() == 0 || this.erro != null) {
+                    return;
+                }
+                ByteBuffer lote = this.pendentes;
+                this.pendentes = this.emEscrita;
+                this.emEscrita = lote;
+                alvo = this.ultimoRegistado;
+                // O canal é bloqueado antes de largar o lock, para que uma rotação não passe à frente deste lote
+                this.escrita.lock();
+            } finally {
+                this.lock.unlock();
+            }
+
+            IOException falha = null;
+            try {
+                this.emEscrita.flip();
+                while (this.emEscrita.hasRemaining()) {
+                    this.canal.write(this.emEscrita);
+                }
+                this.canal.force(false);
+            } catch (IOException e) {
+                falha = e;
+            } finally {
+                this.emEscrita.clear();
+                this.escrita.unlock();
+            }
+
+            this.lock.lock();
+            try {
+                if (falha != null) {
+                    this.erro = falha;
+                } else {
+                    this.ultimoGravado = Math.max(this.ultimoGravado, alvo);
+                }
+                this.gravados.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+            if (falha != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Método que verifica se o diário ainda aceita registos. Deve ser chamado com o lock.
+     *
+     * @throws IOException Se o diário estiver fechado ou uma escrita anterior tiver falhado
+     */
+    private void verificarEstado() throws IOException {
+        if (this.erro != null) {
+            throw new IOException("Erro ao escrever no diário.", this.erro);
+        }
+        if (this.fechado) {
+            throw new IOException("O diário foi fechado.");
+        }
+    }
+
+    // --------------------------------------- Recuperação ---------------------------------------
+
+    /**
+     * Método que devolve o caminho de um segmento do diário.
+     *
+     * @param base Ficheiro base do diário
+     * @param segmento Número do segmento
+     * @return Caminho do segmento
+     */
+    public static Path segmento(Path base, int segmento) {
+        return base.resolveSibling(base.getFileName() + SUFIXO + segmento);
+    }
+
+    /**
+     * Método que devolve os números dos segmentos existentes de um diário, por ordem crescente.
+     *
+     * @param base Ficheiro base do diário
+     * @return Lista com os números dos segmentos
+     * @throws IOException Se não for possível listar a pasta
+     */
+    public static List<Integer> segmentos(Path base) throws IOException {
+        Path pasta = base.toAbsolutePath().getParent();
+        String prefixo = base.getFileName() + SUFIXO;
+        List<Integer> numeros = new ArrayList<>();
+        if (pasta == null || !Files.isDirectory(pasta)) {
+            return numeros;
+        }
+        try (DirectoryStream<Path> ficheiros = Files.newDirectoryStream(pasta, prefixo + "*")) {
+            for (Path ficheiro : ficheiros) {
+                String sufixo = ficheiro.getFileName().toString().substring(prefixo.length());
+                if (!sufixo.isEmpty() && sufixo.chars().allMatch(Character::isDigit) && sufixo.length() < 10) {
+                    numeros.add(Integer.parseInt(sufixo));
+                }
+            }
+        }
+        Collections.sort(numeros);
+        return numeros;
+    }
+
+    /**
+     * Método que lê os registos de um segmento, pela ordem em que foram escritos.
+     *
+     * A leitura para no primeiro registo incompleto ou com CRC errado, que só pode ser o resultado
+     * de uma escrita interrompida no fim do segmento.
+     *
+     * @param segmento Caminho do segmento
+     * @param consumidor Consumidor dos registos
+     * @return Número de bytes válidos do segmento
+     * @throws IOException Se ocorrer um erro de leitura ou o consumidor rejeitar um registo
+     */
+    public static long ler(Path segmento, Consumidor consumidor) throws IOException {
+        long validos = 0;
+        byte[] dados = new byte[256];
+        CRC32 crc = new CRC32();
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmento), 1 << 16))) {
+            long restantes = Files.size(segmento);
+            while (restantes >= CABECALHO) {
+                int tamanho = entrada.readInt();
+                int esperado = entrada.readInt();
+                if (tamanho < 0 || tamanho > restantes - CABECALHO) {
+                    break;
+                }
+                if (tamanho > dados.length) {
+                    dados = Arrays.copyOf(dados, Math.max(tamanho, dados.length * 2));
+                }
+                entrada.readFully(dados, 0, tamanho);
+                crc.reset();
+                crc.update(dados, 0, tamanho);
+                if ((int) crc.getValue() != esperado) {
+                    break;
+                }
+                consumidor.consumir(new EntradaBinaria(dados, 0, tamanho));
+                validos += CABECALHO + tamanho;
+                restantes -= CABECALHO + tamanho;
+            }
+        } catch (EOFException e) {
+            // Registo incompleto no fim do segmento
+        }
+        return validos;
+    }
+
+    /**
+     * Método que corta um segmento, descartando um registo incompleto no fim.
+     *
+     * @param segmento Caminho do segmento
+     * @param tamanho Número de bytes a manter
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public static void truncar(Path segmento, long tamanho) throws IOException {
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.truncate(tamanho);
+            canal.force(true);
+        }
+    }
+
+    /**
+     * Método que apaga os segmentos de um diário até um número (inclusive).
+     *
+     * @param base Ficheiro base do diário
+     * @param ultimo Último segmento a apagar
+     * @throws IOException Se não for possível apagar um segmento
+     */
+    public static void apagarAte(Path base, int ultimo) throws IOException {
+        for (int numero : segmentos(base)) {
+            if (numero <= ultimo) {
+                Files.deleteIfExists(segmento(base, numero));
+            }
+        }
+    }
+
+    /**
+     * Canal em memória onde é escrito o conteúdo de um registo antes de ser enquadrado.
+     */
+    private static class Acumulador implements WritableByteChannel {
+
+        private byte[] dados = new byte[256];
+        private int tamanho;
+
+        void limpar() {
+            this.tamanho = 0;
+        }
+
+        @Override
+        public int write(ByteBuffer origem) {
+            int n = origem.remaining();
+            if (this.tamanho + n > this.dados.length) {
+                this.dados = Arrays.copyOf(this.dados, Math.max(this.tamanho + n, this.dados.length * 2));
+            }
+            origem.get(this.dados, this.tamanho, n);
+            this.tamanho += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package spotifyum.persistencia;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Classe que lê de um canal NIO (ou de um array já em memória) os valores escritos por uma {@link SaidaBinaria}.
+ */
+public class EntradaBinaria {
+
+    /** Tamanho do buffer de leitura */
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    /** Canal de origem (null quando os dados já estão todos em memória) */
+    private final ReadableByteChannel canal;
+
+    /** Buffer com os bytes lidos do canal e ainda não consumidos */
+    private final ByteBuffer buffer;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param canal Canal de origem
+     */
+    public EntradaBinaria(ReadableByteChannel canal) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Construtor parametrizado
+     *
+     * Lê diretamente de um array, sem canal nem cópia (por exemplo, um registo do diário).
+     *
+     * @param dados Array com os dados
+     * @param inicio Posição do primeiro byte
+     * @param tamanho Número de bytes a ler
+     */
+    public EntradaBinaria(byte[] dados, int inicio, int tamanho) {
+        this.canal = null;
+        this.buffer = ByteBuffer.wrap(dados, inicio, tamanho);
+    }
+
+    /**
+     * Método que lê um byte.
+     *
+     * @return Byte lido, entre 0 e 255
+     * @throws IOException Se ocorrer um erro de leitura ou o canal terminar
+     */
+    public int lerByte() throws IOException {
+        garantir(1);
+        return this.buffer.get() & 0xFF;
+    }
+
+    /**
+     * Método que lê um booleano.
+     *
+     * @return Booleano lido
+     * @throws IOException Se ocorrer um erro de leitura ou o canal terminar
+     */
+    public boolean lerBoolean() throws IOException {
+        return lerByte() != 0;
+    }
+
+    /**
+     * Método que lê um inteiro de 4 bytes.
+     *
+     * @return Inteiro lido
+     * @throws IOException Se ocorrer um erro de leitura ou o canal terminar
+     */
+    public int lerInt() throws IOException {
+        garantir(4);
+        return this.buffer.getInt();
+    }
+
+    /**
+     * Método que lê um double de 8 bytes.
+     *
+     * @return Double lido
+     * @throws IOException Se ocorrer um erro de leitura ou o canal terminar
+     */
+    public double lerDouble() throws IOException {
+        garantir(8);
+        return this.buffer.getDouble();
+    }
+
+    /**
+     * Método que lê um inteiro não negativo escrito como varint.
+     *
+     * @return Inteiro lido
+     * @throws IOException Se ocorrer um erro de leitura, o canal terminar ou o varint for inválido
+     */
+    public int lerVarInt() throws IOException {
+        int resultado = 0;
+        for (int deslocamento = 0; deslocamento < 35; deslocamento += 7) {
+            if (!this.buffer.hasRemaining()) {
+                garantir(1);
+            }
+            byte b = this.buffer.get();
+            resultado |= (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return resultado;
+            }
+        }
+        throw new IOException("Varint inválido.");
+    }
+
+    /**
+     * Método que lê um inteiro com sinal escrito como varint (codificação zigzag).
+     *
+     * @return Inteiro lido
+     * @throws IOException Se ocorrer um erro de leitura ou o canal terminar
+     */
+    public int lerVarIntSinal() throws IOException {
+        int valor = lerVarInt();
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    /**
+     * Método que lê uma string em UTF-8, precedida do número de bytes.
+     *
+     * @return String lida
+     * @throws IOException Se ocorrer um erro de leitura ou o canal terminar
+     */
+    public String lerString() throws IOException {
+        int tamanho = lerVarInt();
+        if (tamanho <= this.buffer.capacity() || this.canal == null) {
+            garantir(tamanho);
+            String valor = new String(this.buffer.array(), this.buffer.position(), tamanho, StandardCharsets.UTF_8);
+            this.buffer.position(this.buffer.position() + tamanho);
+            return valor;
+        }
+
+        // String maior do que o buffer: consome o que já foi lido e o resto diretamente do canal
+        byte[] bytes = new byte[tamanho];
+        int lidos = this.buffer.remaining();
+        this.buffer.get(bytes, 0, lidos);
+        ByteBuffer resto = ByteBuffer.wrap(bytes, lidos, tamanho - lidos);
+        while (resto.hasRemaining()) {
+            if (this.canal.read(resto) < 0) {
+                throw new EOFException("Fim inesperado do snapshot.");
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Método que garante que o buffer tem pelo menos n bytes por consumir.
+     *
+     * @param n Número de bytes (no máximo o tamanho do buffer)
+     * @throws IOException Se ocorrer um erro de leitura ou o canal terminar
+     */
+    private void garantir(int n) throws IOException {
+        if (this.buffer.remaining() >= n) {
+            return;
+        }
+        if (this.canal == null) {
+            throw new EOFException("Fim inesperado dos dados.");
+        }
+        this.buffer.compact();
+        while (this.buffer.position() < n) {
+            if (this.canal.read(this.buffer) < 0) {
+                this.buffer.flip();
+                throw new EOFException("Fim inesperado do snapshot.");
+            }
+        }
+        this.buffer.flip();
+    }
+}
@@ -0,0 +1,457 @@
+package spotifyum.persistencia;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import spotifyum.album.Album;
+import spotifyum.musica.Musica;
+import spotifyum.musica.MusicaExplicita;
+import spotifyum.musica.MusicaMultimedia;
+import spotifyum.planos.PlanoFree;
+import spotifyum.planos.PlanoPremiumBase;
+import spotifyum.planos.PlanoPremiumTop;
+import spotifyum.planos.PlanoSubscricao;
+import spotifyum.playlist.ListaFavoritos;
+import spotifyum.playlist.Playlist;
+import spotifyum.playlist.PlaylistAleatoria;
+import spotifyum.playlist.PlaylistPersonalizada;
+import spotifyum.playlist.PlaylistTempoGenero;
+import spotifyum.utilizador.HistoricoCompacto;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe com os tipos dos eventos do diário e a codificação das entidades que eles transportam.
+ *
+ * Cada registo do diário começa pelo tipo do evento, seguido dos seus campos. As músicas, playlists e álbuns
+ * referidos por um evento são escritos pelo ID (ou nome/título) quando são os do catálogo, e por extenso
+ * caso contrário, para que a reaplicação volte a partilhar as mesmas instâncias do catálogo.
+ */
+public final class Eventos {
+
+    /** Utilizador adicionado: utilizador completo */
+    public static final int UTILIZADOR_ADICIONADO = 1;
+    /** Utilizador removido: ID */
+    public static final int UTILIZADOR_REMOVIDO = 2;
+    /** Música adicionada ao catálogo: música completa */
+    public static final int MUSICA_ADICIONADA = 3;
+    /** Música removida do catálogo: ID */
+    public static final int MUSICA_REMOVIDA = 4;
+    /** Playlist adicionada ao catálogo: playlist completa */
+    public static final int PLAYLIST_ADICIONADA = 5;
+    /** Playlist removida do catálogo: nome */
+    public static final int PLAYLIST_REMOVIDA = 6;
+    /** Álbum adicionado ao catálogo: álbum completo */
+    public static final int ALBUM_ADICIONADO = 7;
+    /** Álbum removido do catálogo: título */
+    public static final int ALBUM_REMOVIDO = 8;
+    /** Reprodução: ID do utilizador, ID e artista da música, dia */
+    public static final int REPRODUCAO = 9;
+    /** Plano alterado: ID do utilizador, nome do plano */
+    public static final int PLANO_ALTERADO = 10;
+    /** Playlist adicionada à biblioteca: ID do utilizador, nome da playlist */
+    public static final int PLAYLIST_BIBLIOTECA = 11;
+    /** Álbum adicionado à biblioteca: ID do utilizador, título do álbum */
+    public static final int ALBUM_BIBLIOTECA = 12;
+    /** Lote de reproduções do mesmo dia: ID do utilizador, dia, número de músicas e o ID e artista de cada música */
+    public static final int REPRODUCAO_LOTE = 13;
+
+    private static final int MUSICA = 0;
+    private static final int MUSICA_EXPLICITA = 1;
+    private static final int MUSICA_MULTIMEDIA = 2;
+
+    private static final int PLAYLIST_ALEATORIA = 0;
+    private static final int PLAYLIST_PERSONALIZADA = 1;
+    private static final int LISTA_FAVORITOS = 2;
+    private static final int PLAYLIST_TEMPO_GENERO = 3;
+
+    private static final int SEM_PLANO = 0;
+    private static final int PLANO_FREE = 1;
+    private static final int PLANO_PREMIUM_BASE = 2;
+    private static final int PLANO_PREMIUM_TOP = 3;
+
+    private static final int POR_REFERENCIA = 0;
+    private static final int POR_EXTENSO = 1;
+
+    /** Acesso às entidades do catálogo, para resolver as referências dos eventos */
+    public interface Catalogo {
+        /**
+         * @param id ID da música
+         * @return Música do catálogo, ou null se não existir
+         */
+        Musica getMusica(String id);
+
+        /**
+         * @param nome Nome da playlist
+         * @return Playlist do catálogo, ou null se não existir
+         */
+        Playlist getPlaylist(String nome);
+
+        /**
+         * @param titulo Título do álbum
+         * @return Álbum do catálogo, ou null se não existir
+         */
+        Album getAlbum(String titulo);
+    }
+
+    private Eventos() {}
+
+    // ------------------------------------------ Músicas ------------------------------------------
+
+    /**
+     * Método que escreve uma música por extenso.
+     *
+     * @param saida Saída do registo
+     * @param m Música a escrever
+     * @throws IOException Se ocorrer um erro de escrita ou o tipo de música for desconhecido
+     */
+    public static void escreverMusica(SaidaBinaria saida, Musica m) throws IOException {
+        if (m.getClass() == Musica.class) {
+            saida.escreverByte(MUSICA);
+        } else if (m.getClass() == MusicaExplicita.class) {
+            saida.escreverByte(MUSICA_EXPLICITA);
+        } else if (m.getClass() == MusicaMultimedia.class) {
+            saida.escreverByte(MUSICA_MULTIMEDIA);
+        } else {
+            throw new IOException("Tipo de música desconhecido: " + m.getClass().getName());
+        }
+        escreverTexto(saida, m.getId());
+        escreverTexto(saida, m.getNome());
+        escreverTexto(saida, m.getArtista());
+        escreverTexto(saida, m.getEditora());
+        escreverTexto(saida, m.getLetra());
+        escreverTexto(saida, m.getGenero());
+        List<String> partitura = m.getPartitura();
+        saida.escreverVarInt(partitura.size());
+        for (String nota : partitura) {
+            escreverTexto(saida, nota);
+        }
+        saida.escreverVarIntSinal(m.getDuracao());
+        saida.escreverVarInt(m.getReproducoes());
+    }
+
+    /**
+     * Método que lê uma música escrita por extenso.
+     *
+     * @param entrada Entrada do registo
+     * @return Música lida
+     * @throws IOException Se o registo for inválido
+     */
+    public static Musica lerMusica(EntradaBinaria entrada) throws IOException {
+        int tipo = entrada.lerByte();
+        String id = lerTexto(entrada);
+        String nome = lerTexto(entrada);
+        String artista = lerTexto(entrada);
+        String editora = lerTexto(entrada);
+        String letra = lerTexto(entrada);
+        String genero = lerTexto(entrada);
+        int numNotas = entrada.lerVarInt();
+        List<String> partitura = new ArrayList<>(numNotas);
+        for (int i = 0; i < numNotas; i++) {
+            partitura.add(lerTexto(entrada));
+        }
+        int duracao = entrada.lerVarIntSinal();
+
+        Musica m;
+        switch (tipo) {
+            case MUSICA -> m = new Musica(id, nome, artista, editora, letra, partitura, genero, duracao);
+            case MUSICA_EXPLICITA -> m = new MusicaExplicita(id, nome, artista, editora, letra, partitura, genero, duracao);
+            case MUSICA_MULTIMEDIA -> m = new MusicaMultimedia(id, nome, artista, editora, letra, partitura, genero, duracao);
+            default -> throw new IOException("Tipo de música inválido: " + tipo);
+        }
+        m.setReproducoes(entrada.lerVarInt());
+        return m;
+    }
+
+    private static void escreverMusicas(SaidaBinaria saida, List<Musica> musicas, Catalogo catalogo) throws IOException {
+        saida.escreverVarInt(musicas.size());
+        for (Musica m : musicas) {
+            if (catalogo.getMusica(m.getId()) == m) {
+                saida.escreverByte(POR_REFERENCIA);
+                saida.escreverString(m.getId());
+            } else {
+                saida.escreverByte(POR_EXTENSO);
+                escreverMusica(saida, m);
+            }
+        }
+    }
+
+    /** Lê uma lista de músicas; as referências a músicas que já não estão no catálogo são ignoradas */
+    private static List<Musica> lerMusicas(EntradaBinaria entrada, Catalogo catalogo) throws IOException {
+        int n = entrada.lerVarInt();
+        List<Musica> musicas = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Musica m = entrada.lerByte() == POR_REFERENCIA ? catalogo.getMusica(entrada.lerString()) : lerMusica(entrada);
+            if (m != null) {
+                musicas.add(m);
+            }
+        }
+        return musicas;
+    }
+
+    // ----------------------------------------- Álbuns ------------------------------------------
+
+    /**
+     * Método que escreve um álbum por extenso.
+     *
+     * @param saida Saída do registo
+     * @param a Álbum a escrever
+     * @param catalogo Catálogo onde procurar as músicas do álbum
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public static void escreverAlbum(SaidaBinaria saida, Album a, Catalogo catalogo) throws IOException {
+        escreverTexto(saida, a.getTitulo());
+        escreverMusicas(saida, a.getMusicasVista(), catalogo);
+    }
+
+    /**
+     * Método que lê um álbum escrito por extenso.
+     *
+     * @param entrada Entrada do registo
+     * @param catalogo Catálogo onde procurar as músicas do álbum
+     * @return Álbum lido
+     * @throws IOException Se o registo for inválido
+     */
+    public static Album lerAlbum(EntradaBinaria entrada, Catalogo catalogo) throws IOException {
+        String titulo = lerTexto(entrada);
+        return new Album(titulo, lerMusicas(entrada, catalogo));
+    }
+
+    // ---------------------------------------- Playlists ----------------------------------------
+
+    /**
+     * Método que escreve uma playlist por extenso.
+     *
+     * @param saida Saída do registo
+     * @param p Playlist a escrever
+     * @param catalogo Catálogo onde procurar as músicas da playlist
+     * @throws IOException Se ocorrer um erro de escrita ou o tipo de playlist for desconhecido
+     */
+    public static void escreverPlaylist(SaidaBinaria saida, Playlist p, Catalogo catalogo) throws IOException {
+        if (p.getClass() == PlaylistAleatoria.class) {
+            saida.escreverByte(PLAYLIST_ALEATORIA);
+        } else if (p.getClass() == PlaylistPersonalizada.class) {
+            saida.escreverByte(PLAYLIST_PERSONALIZADA);
+        } else if (p.getClass() == ListaFavoritos.class) {
+            saida.escreverByte(LISTA_FAVORITOS);
+            escreverTexto(saida, ((ListaFavoritos) p).getUtilizador());
+        } else if (p.getClass() == PlaylistTempoGenero.class) {
+            saida.escreverByte(PLAYLIST_TEMPO_GENERO);
+            saida.escreverVarIntSinal(((PlaylistTempoGenero) p).getTempo());
+            escreverTexto(saida, ((PlaylistTempoGenero) p).getGenero());
+        } else {
+            throw new IOException("Tipo de playlist desconhecido: " + p.getClass().getName());
+        }
+        escreverTexto(saida, p.getNome());
+        escreverTexto(saida, p.getAutor());
+        saida.escreverBoolean(p.getPublica());
+        escreverMusicas(saida, p.getMusicasVista(), catalogo);
+    }
+
+    /**
+     * Método que lê uma playlist escrita por extenso.
+     *
+     * @param entrada Entrada do registo
+     * @param catalogo Catálogo onde procurar as músicas da playlist
+     * @return Playlist lida
+     * @throws IOException Se o registo for inválido
+     */
+    public static Playlist lerPlaylist(EntradaBinaria entrada, Catalogo catalogo) throws IOException {
+        int tipo = entrada.lerByte();
+        String utilizador = null;
+        int tempo = 0;
+        String genero = null;
+        if (tipo == LISTA_FAVORITOS) {
+            utilizador = lerTexto(entrada);
+        } else if (tipo == PLAYLIST_TEMPO_GENERO) {
+            tempo = entrada.lerVarIntSinal();
+            genero = lerTexto(entrada);
+        }
+        String nome = lerTexto(entrada);
+        String autor = lerTexto(entrada);
+        boolean publica = entrada.lerBoolean();
+        List<Musica> musicas = lerMusicas(entrada, catalogo);
+
+        Playlist p;
+        switch (tipo) {
+            case PLAYLIST_ALEATORIA -> p = new PlaylistAleatoria(nome, musicas);
+            case PLAYLIST_PERSONALIZADA -> p = new PlaylistPersonalizada(nome, musicas, publica, autor);
+            case LISTA_FAVORITOS -> p = new ListaFavoritos(nome, musicas, utilizador);
+            case PLAYLIST_TEMPO_GENERO -> p = new PlaylistTempoGenero(nome, musicas, tempo, genero);
+            default -> throw new IOException("Tipo de playlist inválido: " + tipo);
+        }
+        p.setPublica(publica);
+        p.setAutor(autor);
+        return p;
+    }
+
+    // --------------------------------------- Utilizadores ---------------------------------------
+
+    /**
+     * Método que escreve um utilizador por extenso, com o plano, a biblioteca e os históricos.
+     *
+     * @param saida Saída do registo
+     * @param u Utilizador a escrever
+     * @param catalogo Catálogo onde procurar as playlists e álbuns da biblioteca
+     * @throws IOException Se ocorrer um erro de escrita ou o tipo de plano for desconhecido
+     */
+    public static void escreverUtilizador(SaidaBinaria saida, Utilizador u, Catalogo catalogo) throws IOException {
+        escreverTexto(saida, u.getId());
+        escreverTexto(saida, u.getNome());
+        escreverTexto(saida, u.getEmail());
+        escreverTexto(saida, u.getMorada());
+        saida.escreverDouble(u.getPontos());
+        saida.escreverBoolean(u.getRecebeuBonusTop());
+        saida.escreverVarInt(u.getNumMusicas());
+
+        PlanoSubscricao plano = u.getPlano();
+        if (plano == null) {
+            saida.escreverByte(SEM_PLANO);
+        } else if (plano.getClass() == PlanoFree.class) {
+            saida.escreverByte(PLANO_FREE);
+        } else if (plano.getClass() == PlanoPremiumBase.class || plano.getClass() == PlanoPremiumTop.class) {
+            PlanoPremiumBase premium = (PlanoPremiumBase) plano;
+            saida.escreverByte(plano instanceof PlanoPremiumTop ? PLANO_PREMIUM_TOP : PLANO_PREMIUM_BASE);
+            List<Playlist> minhasPlaylists = premium.getMinhasPlaylist();
+            saida.escreverVarInt(minhasPlaylists.size());
+            for (Playlist p : minhasPlaylists) {
+                if (catalogo.getPlaylist(p.getNome()) == p) {
+                    saida.escreverByte(POR_REFERENCIA);
+                    saida.escreverString(p.getNome());
+                } else {
+                    saida.escreverByte(POR_EXTENSO);
+                    escreverPlaylist(saida, p, catalogo);
+                }
+            }
+            List<Album> bibliotecaAlbuns = premium.getBibliotecaAlbuns();
+            saida.escreverVarInt(bibliotecaAlbuns.size());
+            for (Album a : bibliotecaAlbuns) {
+                if (catalogo.getAlbum(a.getTitulo()) == a) {
+                    saida.escreverByte(POR_REFERENCIA);
+                    saida.escreverString(a.getTitulo());
+                } else {
+                    saida.escreverByte(POR_EXTENSO);
+                    escreverAlbum(saida, a, catalogo);
+                }
+            }
+        } else {
+            throw new IOException("Tipo de plano desconhecido: " + plano.getClass().getName());
+        }
+
+        saida.escreverVarInt(u.getNumArtistas());
+        for (int i = 0; i < u.getNumArtistas(); i++) {
+            escreverTexto(saida, u.getArtista(i));
+            saida.escreverVarInt(u.getReproducoesArtista(i));
+        }
+
+        HistoricoCompacto historico = u.getHistoricoCompacto();
+        saida.escreverVarInt(historico.tamanho());
+        int diaAnterior = 0;
+        for (int i = 0; i < historico.tamanho(); i++) {
+            int dia = historico.getDia(i);
+            saida.escreverString(historico.getIdMusica(i));
+            saida.escreverVarIntSinal(dia - diaAnterior);
+            diaAnterior = dia;
+        }
+    }
+
+    /**
+     * Método que lê um utilizador escrito por extenso.
+     *
+     * @param entrada Entrada do registo
+     * @param catalogo Catálogo onde procurar as playlists e álbuns da biblioteca
+     * @return Utilizador lido
+     * @throws IOException Se o registo for inválido
+     */
+    public static Utilizador lerUtilizador(EntradaBinaria entrada, Catalogo catalogo) throws IOException {
+        String id = lerTexto(entrada);
+        String nome = lerTexto(entrada);
+        String email = lerTexto(entrada);
+        String morada = lerTexto(entrada);
+        double pontos = entrada.lerDouble();
+        boolean recebeuBonusTop = entrada.lerBoolean();
+        int numMusicas = entrada.lerVarInt();
+
+        PlanoSubscricao plano;
+        int tipoPlano = entrada.lerByte();
+        switch (tipoPlano) {
+            case SEM_PLANO -> plano = null;
+            case PLANO_FREE -> plano = new PlanoFree();
+            case PLANO_PREMIUM_BASE, PLANO_PREMIUM_TOP -> {
+                List<Playlist> minhasPlaylists = new ArrayList<>();
+                for (int n = entrada.lerVarInt(); n > 0; n--) {
+                    Playlist p = entrada.lerByte() == POR_REFERENCIA ? catalogo.getPlaylist(entrada.lerString())
+                                                                     : lerPlaylist(entrada, catalogo);
+                    if (p != null) {
+                        minhasPlaylists.add(p);
+                    }
+                }
+                List<Album> bibliotecaAlbuns = new ArrayList<>();
+                for (int n = entrada.lerVarInt(); n > 0; n--) {
+                    Album a = entrada.lerByte() == POR_REFERENCIA ? catalogo.getAlbum(entrada.lerString())
+                                                                  : lerAlbum(entrada, catalogo);
+                    if (a != null) {
+                        bibliotecaAlbuns.add(a);
+                    }
+                }
+                plano = tipoPlano == PLANO_PREMIUM_TOP
+                    ? new PlanoPremiumTop(minhasPlaylists, bibliotecaAlbuns)
+                    : new PlanoPremiumBase(minhasPlaylists, bibliotecaAlbuns);
+            }
+            default -> throw new IOException("Tipo de plano inválido: " + tipoPlano);
+        }
+
+        int numArtistas = entrada.lerVarInt();
+        Map<String, Integer> historicoArtistas = new HashMap<>(Math.max(16, numArtistas * 2));
+        for (int i = 0; i < numArtistas; i++) {
+            historicoArtistas.put(lerTexto(entrada), entrada.lerVarInt());
+        }
+
+        HistoricoCompacto historico = new HistoricoCompacto();
+        int dia = 0;
+        for (int n = entrada.lerVarInt(); n > 0; n--) {
+            String idMusica = entrada.lerString();
+            dia += entrada.lerVarIntSinal();
+            historico.adicionar(idMusica, LocalDate.ofEpochDay(dia));
+        }
+
+        // O construtor atribui o bónus do PlanoPremiumTop; os pontos e o bónus registados substituem-no
+        Utilizador u = new Utilizador(id, nome, email, morada, plano);
+        u.setPontos(pontos);
+        u.setRecebeuBonusTop(recebeuBonusTop);
+        u.setNumMusicas(numMusicas);
+        u.setHistoricoArtistas(historicoArtistas);
+        u.setHistoricoCompacto(historico);
+        return u;
+    }
+
+    // ------------------------------------------ Texto ------------------------------------------
+
+    /**
+     * Método que escreve uma string que pode ser null.
+     *
+     * @param saida Saída do registo
+     * @param valor String a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public static void escreverTexto(SaidaBinaria saida, String valor) throws IOException {
+        saida.escreverBoolean(valor != null);
+        if (valor != null) {
+            saida.escreverString(valor);
+        }
+    }
+
+    /**
+     * Método que lê uma string escrita por {@link #escreverTexto(SaidaBinaria, String)}.
+     *
+     * @param entrada Entrada do registo
+     * @return String lida, ou null
+     * @throws IOException Se o registo for inválido
+     */
+    public static String lerTexto(EntradaBinaria entrada) throws IOException {
+        return entrada.lerBoolean() ? entrada.lerString() : null;
+    }
+}
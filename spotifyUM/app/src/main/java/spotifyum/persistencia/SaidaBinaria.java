@@ -0,0 +1,174 @@
+package spotifyum.persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Classe que escreve valores primitivos num canal NIO através de um buffer.
+ *
+ * Os inteiros não negativos são escritos como varints (7 bits por byte), pelo que
+ * contagens e índices pequenos ocupam apenas um ou dois bytes.
+ */
+public class SaidaBinaria implements AutoCloseable {
+
+    /** Tamanho do buffer de escrita */
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    /** Canal de destino */
+    private final WritableByteChannel canal;
+
+    /** Buffer com os bytes ainda não escritos no canal */
+    private final ByteBuffer buffer;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param canal Canal de destino
+     */
+    public SaidaBinaria(WritableByteChannel canal) {
+        this(canal, TAMANHO_BUFFER);
+    }
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param canal Canal de destino
+     * @param tamanhoBuffer Tamanho do buffer de escrita (pelo menos 8 bytes)
+     */
+    public SaidaBinaria(WritableByteChannel canal, int tamanhoBuffer) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocate(tamanhoBuffer);
+    }
+
+    /**
+     * Método que escreve um byte.
+     *
+     * @param valor Byte a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void escreverByte(int valor) throws IOException {
+        garantir(1);
+        this.buffer.put((byte) valor);
+    }
+
+    /**
+     * Método que escreve um booleano como um byte.
+     *
+     * @param valor Booleano a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void escreverBoolean(boolean valor) throws IOException {
+        escreverByte(valor ? 1 : 0);
+    }
+
+    /**
+     * Método que escreve um inteiro de 4 bytes.
+     *
+     * @param valor Inteiro a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void escreverInt(int valor) throws IOException {
+        garantir(4);
+        this.buffer.putInt(valor);
+    }
+
+    /**
+     * Método que escreve um double de 8 bytes.
+     *
+     * @param valor Double a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void escreverDouble(double valor) throws IOException {
+        garantir(8);
+        this.buffer.putDouble(valor);
+    }
+
+    /**
+     * Método que escreve um inteiro não negativo como varint.
+     *
+     * @param valor Inteiro a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void escreverVarInt(int valor) throws IOException {
+        garantir(5);
+        while ((valor & ~0x7F) != 0) {
+            this.buffer.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        this.buffer.put((byte) valor);
+    }
+
+    /**
+     * Método que escreve um inteiro com sinal como varint (codificação zigzag).
+     *
+     * @param valor Inteiro a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void escreverVarIntSinal(int valor) throws IOException {
+        escreverVarInt((valor << 1) ^ (valor >> 31));
+    }
+
+    /**
+     * Método que escreve uma string em UTF-8, precedida do número de bytes.
+     *
+     * @param valor String a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void escreverString(String valor) throws IOException {
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        escreverVarInt(bytes.length);
+        if (bytes.length <= this.buffer.remaining()) {
+            this.buffer.put(bytes);
+        } else {
+            flush();
+            escreverTudo(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    /**
+     * Método que escreve no canal os bytes que estão no buffer.
+     *
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        escreverTudo(this.buffer);
+        this.buffer.clear();
+    }
+
+    /**
+     * Método que escreve os bytes pendentes. O canal não é fechado.
+     *
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Método que garante que o buffer tem espaço para n bytes.
+     *
+     * @param n Número de bytes
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    private void garantir(int n) throws IOException {
+        if (this.buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    /**
+     * Método que escreve todos os bytes restantes de um buffer no canal.
+     *
+     * @param bytes Buffer a escrever
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    private void escreverTudo(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            this.canal.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,774 @@
+package spotifyum.persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import spotifyum.album.Album;
+import spotifyum.musica.Musica;
+import spotifyum.musica.MusicaExplicita;
+import spotifyum.musica.MusicaMultimedia;
+import spotifyum.planos.PlanoFree;
+import spotifyum.planos.PlanoPremiumBase;
+import spotifyum.planos.PlanoPremiumTop;
+import spotifyum.planos.PlanoSubscricao;
+import spotifyum.playlist.ListaFavoritos;
+import spotifyum.playlist.Playlist;
+import spotifyum.playlist.PlaylistAleatoria;
+import spotifyum.playlist.PlaylistPersonalizada;
+import spotifyum.playlist.PlaylistTempoGenero;
+import spotifyum.util.Dicionario;
+import spotifyum.utilizador.HistoricoCompacto;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe que escreve e lê o estado do SpotifyUM num formato binário próprio e versionado.
+ *
+ * O ficheiro tem as seguintes secções, por esta ordem:
+ * <ol>
+ *   <li>cabeçalho: número mágico "SPUM", versão do formato e último segmento do diário já incluído;</li>
+ *   <li>tabela de strings: cada string distinta é escrita uma vez e referida pelo seu índice;</li>
+ *   <li>músicas, álbuns e playlists: cada objeto é escrito uma vez e referido pelo seu índice,
+ *       pelo que as músicas partilhadas entre o catálogo, álbuns e playlists continuam partilhadas;</li>
+ *   <li>utilizadores, com o histórico em colunas: os IDs das músicas seguidos das sequências de dias;</li>
+ *   <li>catálogos: índices das músicas, playlists e álbuns do model;</li>
+ *   <li>número mágico final, que deteta ficheiros truncados.</li>
+ * </ol>
+ * Contagens, índices e durações são varints. A escrita e a leitura passam por um buffer sobre um FileChannel,
+ * e a escrita é feita num ficheiro temporário que só substitui o anterior quando está completo.
+ */
+public final class Snapshot {
+
+    /** Número mágico no início e no fim do ficheiro ("SPUM") */
+    public static final int MAGIA = 0x5350554D;
+
+    /** Versão atual do formato (a versão 1 não tinha o segmento do diário) */
+    public static final int VERSAO = 2;
+
+    private static final int MUSICA = 0;
+    private static final int MUSICA_EXPLICITA = 1;
+    private static final int MUSICA_MULTIMEDIA = 2;
+
+    private static final int PLAYLIST_ALEATORIA = 0;
+    private static final int PLAYLIST_PERSONALIZADA = 1;
+    private static final int LISTA_FAVORITOS = 2;
+    private static final int PLAYLIST_TEMPO_GENERO = 3;
+
+    private static final int SEM_PLANO = 0;
+    private static final int PLANO_FREE = 1;
+    private static final int PLANO_PREMIUM_BASE = 2;
+    private static final int PLANO_PREMIUM_TOP = 3;
+
+    /** Classe com as entidades lidas de um snapshot */
+    public static class Conteudo {
+
+        private final List<Utilizador> utilizadores;
+        private final List<Musica> musicas;
+        private final List<Playlist> playlists;
+        private final List<Album> albuns;
+        private final int segmentoDiario;
+
+        /**
+         * Construtor parametrizado
+         *
+         * @param utilizadores Utilizadores do model
+         * @param musicas Músicas do catálogo
+         * @param playlists Playlists do catálogo
+         * @param albuns Álbuns do catálogo
+         * @param segmentoDiario Último segmento do diário incluído no snapshot (0 se nenhum)
+         */
+        public Conteudo(List<Utilizador> utilizadores, List<Musica> musicas, List<Playlist> playlists, List<Album> albuns,
+                        int segmentoDiario) {
+            this.utilizadores = utilizadores;
+            this.musicas = musicas;
+            this.playlists = playlists;
+            this.albuns = albuns;
+            this.segmentoDiario = segmentoDiario;
+        }
+
+        /**
+         * Método que devolve os utilizadores.
+         *
+         * @return Lista com os utilizadores
+         */
+        public List<Utilizador> getUtilizadores() {
+            return this.utilizadores;
+        }
+
+        /**
+         * Método que devolve as músicas do catálogo.
+         *
+         * @return Lista com as músicas do catálogo
+         */
+        public List<Musica> getMusicas() {
+            return this.musicas;
+        }
+
+        /**
+         * Método que devolve as playlists do catálogo.
+         *
+         * @return Lista com as playlists do catálogo
+         */
+        public List<Playlist> getPlaylists() {
+            return this.playlists;
+        }
+
+        /**
+         * Método que devolve os álbuns do catálogo.
+         *
+         * @return Lista com os álbuns do catálogo
+         */
+        public List<Album> getAlbuns() {
+            return this.albuns;
+        }
+
+        /**
+         * Método que devolve o último segmento do diário cujos eventos já estão no snapshot.
+         *
+         * @return Número do segmento, ou 0 se o snapshot não foi escrito a partir de um diário
+         */
+        public int getSegmentoDiario() {
+            return this.segmentoDiario;
+        }
+    }
+
+    private Snapshot() {}
+
+    /**
+     * Método que verifica se um ficheiro começa pelo número mágico dos snapshots.
+     *
+     * @param ficheiro Caminho do ficheiro
+     * @return true se o ficheiro for um snapshot, false caso contrário (por exemplo, serialização Java)
+     * @throws IOException Se ocorrer um erro de leitura
+     */
+    public static boolean eSnapshot(Path ficheiro) throws IOException {
+        try (FileChannel canal = FileChannel.open(ficheiro, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(4);
+            while (cabecalho.hasRemaining()) {
+                if (canal.read(cabecalho) < 0) {
+                    return false;
+                }
+            }
+            return cabecalho.getInt(0) == MAGIA;
+        }
+    }
+
+    /**
+     * Método que escreve um snapshot.
+     *
+     * O estado não deve ser alterado durante a escrita.
+     *
+     * @param ficheiro Caminho do ficheiro
+     * @param utilizadores Utilizadores do model
+     * @param musicas Músicas do catálogo
+     * @param playlists Playlists do catálogo
+     * @param albuns Álbuns do catálogo
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public static void escrever(Path ficheiro,
+                                Collection<Utilizador> utilizadores,
+                                Collection<Musica> musicas,
+                                Collection<Playlist> playlists,
+                                Collection<Album> albuns) throws IOException {
+        escrever(ficheiro, utilizadores, musicas, playlists, albuns, 0);
+    }
+
+    /**
+     * Método que escreve um snapshot que já inclui os eventos do diário até um segmento.
+     *
+     * O estado não deve ser alterado durante a escrita.
+     *
+     * @param ficheiro Caminho do ficheiro
+     * @param utilizadores Utilizadores do model
+     * @param musicas Músicas do catálogo
+     * @param playlists Playlists do catálogo
+     * @param albuns Álbuns do catálogo
+     * @param segmentoDiario Último segmento do diário incluído no estado (0 se nenhum)
+     * @throws IOException Se ocorrer um erro de escrita
+     */
+    public static void escrever(Path ficheiro,
+                                Collection<Utilizador> utilizadores,
+                                Collection<Musica> musicas,
+                                Collection<Playlist> playlists,
+                                Collection<Album> albuns,
+                                int segmentoDiario) throws IOException {
+        Path temporario = ficheiro.resolveSibling(ficheiro.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING)) {
+            Escritor escritor = new Escritor(new SaidaBinaria(canal));
+            escritor.escrever(utilizadores, musicas, playlists, albuns, segmentoDiario);
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+        try {
+            Files.move(temporario, ficheiro, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporario, ficheiro, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Método que lê um snapshot.
+     *
+     * @param ficheiro Caminho do ficheiro
+     * @return Entidades lidas
+     * @throws IOException Se ocorrer um erro de leitura, o ficheiro não for um snapshot ou a versão não for suportada
+     */
+    public static Conteudo ler(Path ficheiro) throws IOException {
+        try (FileChannel canal = FileChannel.open(ficheiro, StandardOpenOption.READ)) {
+            return new Leitor(new EntradaBinaria(canal)).ler();
+        }
+    }
+
+    /**
+     * Classe que escreve um snapshot: primeiro regista as strings e os objetos, depois escreve as secções.
+     */
+    private static class Escritor {
+
+        private final SaidaBinaria saida;
+
+        private final Map<String, Integer> indicesStrings = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        private final Map<Musica, Integer> indicesMusicas = new IdentityHashMap<>();
+        private final List<Musica> musicas = new ArrayList<>();
+
+        private final Map<Album, Integer> indicesAlbuns = new IdentityHashMap<>();
+        private final List<Album> albuns = new ArrayList<>();
+
+        private final Map<Playlist, Integer> indicesPlaylists = new IdentityHashMap<>();
+        private final List<Playlist> playlists = new ArrayList<>();
+
+        /** Índice na tabela de strings de cada ordinal do dicionário de músicas (-1 se ainda não registado) */
+        private int[] stringsOrdinais = new int[0];
+
+        Escritor(SaidaBinaria saida) {
+            this.saida = saida;
+        }
+
+        void escrever(Collection<Utilizador> utilizadores,
+                      Collection<Musica> catalogoMusicas,
+                      Collection<Playlist> catalogoPlaylists,
+                      Collection<Album> catalogoAlbuns,
+                      int segmentoDiario) throws IOException {
+            for (Musica m : catalogoMusicas) {
+                registar(m);
+            }
+            for (Album a : catalogoAlbuns) {
+                registar(a);
+            }
+            for (Playlist p : catalogoPlaylists) {
+                registar(p);
+            }
+            for (Utilizador u : utilizadores) {
+                registar(u);
+            }
+
+            this.saida.escreverInt(MAGIA);
+            this.saida.escreverVarInt(VERSAO);
+            this.saida.escreverVarInt(segmentoDiario);
+
+            this.saida.escreverVarInt(this.strings.size());
+            for (String s : this.strings) {
+                this.saida.escreverString(s);
+            }
+            this.saida.escreverVarInt(this.musicas.size());
+            for (Musica m : this.musicas) {
+                escreverMusica(m);
+            }
+            this.saida.escreverVarInt(this.albuns.size());
+            for (Album a : this.albuns) {
+                escreverAlbum(a);
+            }
+            this.saida.escreverVarInt(this.playlists.size());
+            for (Playlist p : this.playlists) {
+                escreverPlaylist(p);
+            }
+            this.saida.escreverVarInt(utilizadores.size());
+            for (Utilizador u : utilizadores) {
+                escreverUtilizador(u);
+            }
+
+            this.saida.escreverVarInt(catalogoMusicas.size());
+            for (Musica m : catalogoMusicas) {
+                this.saida.escreverVarInt(this.indicesMusicas.get(m));
+            }
+            this.saida.escreverVarInt(catalogoPlaylists.size());
+            for (Playlist p : catalogoPlaylists) {
+                this.saida.escreverVarInt(this.indicesPlaylists.get(p));
+            }
+            this.saida.escreverVarInt(catalogoAlbuns.size());
+            for (Album a : catalogoAlbuns) {
+                this.saida.escreverVarInt(this.indicesAlbuns.get(a));
+            }
+
+            this.saida.escreverInt(MAGIA);
+            this.saida.close();
+        }
+
+        // ----------------------------------------- Registo -----------------------------------------
+
+        private void registar(String s) {
+            if (s != null && !this.indicesStrings.containsKey(s)) {
+                this.indicesStrings.put(s, this.strings.size());
+                this.strings.add(s);
+            }
+        }
+
+        private void registar(Musica m) {
+            if (this.indicesMusicas.containsKey(m)) {
+                return;
+            }
+            this.indicesMusicas.put(m, this.musicas.size());
+            this.musicas.add(m);
+            registar(m.getId());
+            registar(m.getNome());
+            registar(m.getArtista());
+            registar(m.getEditora());
+            registar(m.getLetra());
+            registar(m.getGenero());
+            for (String nota : m.getPartitura()) {
+                registar(nota);
+            }
+        }
+
+        private void registar(Album a) {
+            if (this.indicesAlbuns.containsKey(a)) {
+                return;
+            }
+            this.indicesAlbuns.put(a, this.albuns.size());
+            this.albuns.add(a);
+            registar(a.getTitulo());
+            for (Musica m : a.getMusicasVista()) {
+                registar(m);
+            }
+        }
+
+        private void registar(Playlist p) {
+            if (this.indicesPlaylists.containsKey(p)) {
+                return;
+            }
+            this.indicesPlaylists.put(p, this.playlists.size());
+            this.playlists.add(p);
+            registar(p.getNome());
+            registar(p.getAutor());
+            if (p instanceof ListaFavoritos) {
+                registar(((ListaFavoritos) p).getUtilizador());
+            } else if (p instanceof PlaylistTempoGenero) {
+                registar(((PlaylistTempoGenero) p).getGenero());
+            }
+            for (Musica m : p.getMusicasVista()) {
+                registar(m);
+            }
+        }
+
+        private void registar(Utilizador u) {
+            registar(u.getId());
+            registar(u.getNome());
+            registar(u.getEmail());
+            registar(u.getMorada());
+            if (u.getPlano() instanceof PlanoPremiumBase) {
+                PlanoPremiumBase plano = (PlanoPremiumBase) u.getPlano();
+                for (Playlist p : plano.getMinhasPlaylist()) {
+                    registar(p);
+                }
+                for (Album a : plano.getBibliotecaAlbuns()) {
+                    registar(a);
+                }
+            }
+            for (int i = 0; i < u.getNumArtistas(); i++) {
+                registar(u.getArtista(i));
+            }
+            HistoricoCompacto historico = u.getHistoricoCompacto();
+            for (int i = 0; i < historico.tamanho(); i++) {
+                stringOrdinal(historico.getOrdinal(i));
+            }
+        }
+
+        /**
+         * Método que devolve o índice na tabela de strings do ID de música com o ordinal indicado,
+         * registando-o na primeira vez.
+         */
+        private int stringOrdinal(int ordinal) {
+            if (ordinal >= this.stringsOrdinais.length) {
+                int antigo = this.stringsOrdinais.length;
+                this.stringsOrdinais = Arrays.copyOf(this.stringsOrdinais,
+                                                     Math.max(ordinal + 1, Dicionario.MUSICAS.tamanho()));
+                Arrays.fill(this.stringsOrdinais, antigo, this.stringsOrdinais.length, -1);
+            }
+            int indice = this.stringsOrdinais[ordinal];
+            if (indice < 0) {
+                String id = Dicionario.MUSICAS.getValor(ordinal);
+                registar(id);
+                indice = this.indicesStrings.get(id);
+                this.stringsOrdinais[ordinal] = indice;
+            }
+            return indice;
+        }
+
+        // ----------------------------------------- Escrita -----------------------------------------
+
+        /** Escreve a referência a uma string: 0 para null, índice + 1 caso contrário */
+        private void escreverRef(String s) throws IOException {
+            this.saida.escreverVarInt(s == null ? 0 : this.indicesStrings.get(s) + 1);
+        }
+
+        private void escreverMusica(Musica m) throws IOException {
+            int tipo;
+            if (m.getClass() == Musica.class) {
+                tipo = MUSICA;
+            } else if (m.getClass() == MusicaExplicita.class) {
+                tipo = MUSICA_EXPLICITA;
+            } else if (m.getClass() == MusicaMultimedia.class) {
+                tipo = MUSICA_MULTIMEDIA;
+            } else {
+                throw new IOException("Tipo de música desconhecido: " + m.getClass().getName());
+            }
+            this.saida.escreverByte(tipo);
+            escreverRef(m.getId());
+            escreverRef(m.getNome());
+            escreverRef(m.getArtista());
+            escreverRef(m.getEditora());
+            escreverRef(m.getLetra());
+            escreverRef(m.getGenero());
+            List<String> partitura = m.getPartitura();
+            this.saida.escreverVarInt(partitura.size());
+            for (String nota : partitura) {
+                escreverRef(nota);
+            }
+            this.saida.escreverVarIntSinal(m.getDuracao());
+            this.saida.escreverVarInt(m.getReproducoes());
+        }
+
+        private void escreverMusicas(List<Musica> lista) throws IOException {
+            this.saida.escreverVarInt(lista.size());
+            for (Musica m : lista) {
+                this.saida.escreverVarInt(this.indicesMusicas.get(m));
+            }
+        }
+
+        private void escreverAlbum(Album a) throws IOException {
+            escreverRef(a.getTitulo());
+            escreverMusicas(a.getMusicasVista());
+        }
+
+        private void escreverPlaylist(Playlist p) throws IOException {
+            if (p.getClass() == PlaylistAleatoria.class) {
+                this.saida.escreverByte(PLAYLIST_ALEATORIA);
+            } else if (p.getClass() == PlaylistPersonalizada.class) {
+                this.saida.escreverByte(PLAYLIST_PERSONALIZADA);
+            } else if (p.getClass() == ListaFavoritos.class) {
+                this.saida.escreverByte(LISTA_FAVORITOS);
+                escreverRef(((ListaFavoritos) p).getUtilizador());
+            } else if (p.getClass() == PlaylistTempoGenero.class) {
+                this.saida.escreverByte(PLAYLIST_TEMPO_GENERO);
+                this.saida.escreverVarIntSinal(((PlaylistTempoGenero) p).getTempo());
+                escreverRef(((PlaylistTempoGenero) p).getGenero());
+            } else {
+                throw new IOException("Tipo de playlist desconhecido: " + p.getClass().getName());
+            }
+            escreverRef(p.getNome());
+            escreverRef(p.getAutor());
+            this.saida.escreverBoolean(p.getPublica());
+            escreverMusicas(p.getMusicasVista());
+        }
+
+        private void escreverUtilizador(Utilizador u) throws IOException {
+            escreverRef(u.getId());
+            escreverRef(u.getNome());
+            escreverRef(u.getEmail());
+            escreverRef(u.getMorada());
+            this.saida.escreverDouble(u.getPontos());
+            this.saida.escreverBoolean(u.getRecebeuBonusTop());
+            this.saida.escreverVarInt(u.getNumMusicas());
+
+            PlanoSubscricao plano = u.getPlano();
+            if (plano == null) {
+                this.saida.escreverByte(SEM_PLANO);
+            } else if (plano.getClass() == PlanoFree.class) {
+                this.saida.escreverByte(PLANO_FREE);
+            } else if (plano.getClass() == PlanoPremiumBase.class || plano.getClass() == PlanoPremiumTop.class) {
+                PlanoPremiumBase premium = (PlanoPremiumBase) plano;
+                this.saida.escreverByte(plano instanceof PlanoPremiumTop ? PLANO_PREMIUM_TOP : PLANO_PREMIUM_BASE);
+                List<Playlist> minhasPlaylists = premium.getMinhasPlaylist();
+                this.saida.escreverVarInt(minhasPlaylists.size());
+                for (Playlist p : minhasPlaylists) {
+                    this.saida.escreverVarInt(this.indicesPlaylists.get(p));
+                }
+                List<Album> bibliotecaAlbuns = premium.getBibliotecaAlbuns();
+                this.saida.escreverVarInt(bibliotecaAlbuns.size());
+                for (Album a : bibliotecaAlbuns) {
+                    this.saida.escreverVarInt(this.indicesAlbuns.get(a));
+                }
+            } else {
+                throw new IOException("Tipo de plano desconhecido: " + plano.getClass().getName());
+            }
+
+            this.saida.escreverVarInt(u.getNumArtistas());
+            for (int i = 0; i < u.getNumArtistas(); i++) {
+                escreverRef(u.getArtista(i));
+                this.saida.escreverVarInt(u.getReproducoesArtista(i));
+            }
+
+            // Histórico em colunas: primeiro os IDs das músicas, depois as sequências de dias
+            HistoricoCompacto historico = u.getHistoricoCompacto();
+            this.saida.escreverVarInt(historico.tamanho());
+            for (int i = 0; i < historico.tamanho(); i++) {
+                this.saida.escreverVarInt(stringOrdinal(historico.getOrdinal(i)));
+            }
+            this.saida.escreverVarInt(historico.getNumSequencias());
+            int diaAnterior = 0;
+            int inicio = 0;
+            for (int s = 0; s < historico.getNumSequencias(); s++) {
+                int dia = historico.getDiaSequencia(s);
+                int fim = historico.getFimSequencia(s);
+                this.saida.escreverVarIntSinal(dia - diaAnterior);
+                this.saida.escreverVarInt(fim - inicio);
+                diaAnterior = dia;
+                inicio = fim;
+            }
+        }
+    }
+
+    /**
+     * Classe que lê as secções de um snapshot pela mesma ordem em que foram escritas.
+     */
+    private static class Leitor {
+
+        private final EntradaBinaria entrada;
+
+        private String[] strings;
+        private Musica[] musicas;
+        private Album[] albuns;
+        private Playlist[] playlists;
+
+        /** Ordinal no dicionário de músicas de cada string usada como ID no histórico (-1 se ainda não resolvido) */
+        private int[] ordinaisStrings;
+
+        Leitor(EntradaBinaria entrada) {
+            this.entrada = entrada;
+        }
+
+        Conteudo ler() throws IOException {
+            if (this.entrada.lerInt() != MAGIA) {
+                throw new IOException("O ficheiro não é um snapshot do SpotifyUM.");
+            }
+            int versao = this.entrada.lerVarInt();
+            if (versao < 1 || versao > VERSAO) {
+                throw new IOException("Versão do snapshot não suportada: " + versao);
+            }
+            int segmentoDiario = versao >= 2 ? this.entrada.lerVarInt() : 0;
+
+            this.strings = new String[this.entrada.lerVarInt()];
+            for (int i = 0; i < this.strings.length; i++) {
+                this.strings[i] = this.entrada.lerString();
+            }
+            this.ordinaisStrings = new int[this.strings.length];
+            Arrays.fill(this.ordinaisStrings, -1);
+
+            this.musicas = new Musica[this.entrada.lerVarInt()];
+            for (int i = 0; i < this.musicas.length; i++) {
+                this.musicas[i] = lerMusica();
+            }
+            this.albuns = new Album[this.entrada.lerVarInt()];
+            for (int i = 0; i < this.albuns.length; i++) {
+                this.albuns[i] = lerAlbum();
+            }
+            this.playlists = new Playlist[this.entrada.lerVarInt()];
+            for (int i = 0; i < this.playlists.length; i++) {
+                this.playlists[i] = lerPlaylist();
+            }
+            int numUtilizadores = this.entrada.lerVarInt();
+            List<Utilizador> utilizadores = new ArrayList<>(numUtilizadores);
+            for (int i = 0; i < numUtilizadores; i++) {
+                utilizadores.add(lerUtilizador());
+            }
+
+            List<Musica> catalogoMusicas = new ArrayList<>();
+            for (int n = this.entrada.lerVarInt(); n > 0; n--) {
+                catalogoMusicas.add(this.musicas[this.entrada.lerVarInt()]);
+            }
+            List<Playlist> catalogoPlaylists = new ArrayList<>();
+            for (int n = this.entrada.lerVarInt(); n > 0; n--) {
+                catalogoPlaylists.add(this.playlists[this.entrada.lerVarInt()]);
+            }
+            List<Album> catalogoAlbuns = new ArrayList<>();
+            for (int n = this.entrada.lerVarInt(); n > 0; n--) {
+                catalogoAlbuns.add(this.albuns[this.entrada.lerVarInt()]);
+            }
+
+            if (this.entrada.lerInt() != MAGIA) {
+                throw new IOException("Snapshot incompleto ou corrompido.");
+            }
+            return new Conteudo(utilizadores, catalogoMusicas, catalogoPlaylists, catalogoAlbuns, segmentoDiario);
+        }
+
+        private String lerRef() throws IOException {
+            int ref = this.entrada.lerVarInt();
+            return ref == 0 ? null : this.strings[ref - 1];
+        }
+
+        private Musica lerMusica() throws IOException {
+            int tipo = this.entrada.lerByte();
+            String id = lerRef();
+            String nome = lerRef();
+            String artista = lerRef();
+            String editora = lerRef();
+            String letra = lerRef();
+            String genero = lerRef();
+            int numNotas = this.entrada.lerVarInt();
+            List<String> partitura = new ArrayList<>(numNotas);
+            for (int i = 0; i < numNotas; i++) {
+                partitura.add(lerRef());
+            }
+            int duracao = this.entrada.lerVarIntSinal();
+
+            Musica m;
+            switch (tipo) {
+                case MUSICA -> m = new Musica(id, nome, artista, editora, letra, partitura, genero, duracao);
+                case MUSICA_EXPLICITA -> m = new MusicaExplicita(id, nome, artista, editora, letra, partitura, genero, duracao);
+                case MUSICA_MULTIMEDIA -> m = new MusicaMultimedia(id, nome, artista, editora, letra, partitura, genero, duracao);
+                default -> throw new IOException("Tipo de música inválido: " + tipo);
+            }
+            m.setReproducoes(this.entrada.lerVarInt());
+            return m;
+        }
+
+        private List<Musica> lerMusicas() throws IOException {
+            int n = this.entrada.lerVarInt();
+            List<Musica> lista = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                lista.add(this.musicas[this.entrada.lerVarInt()]);
+            }
+            return lista;
+        }
+
+        private Album lerAlbum() throws IOException {
+            String titulo = lerRef();
+            return new Album(titulo, lerMusicas());
+        }
+
+        private Playlist lerPlaylist() throws IOException {
+            int tipo = this.entrada.lerByte();
+            String utilizador = null;
+            int tempo = 0;
+            String genero = null;
+            if (tipo == LISTA_FAVORITOS) {
+                utilizador = lerRef();
+            } else if (tipo == PLAYLIST_TEMPO_GENERO) {
+                tempo = this.entrada.lerVarIntSinal();
+                genero = lerRef();
+            }
+            String nome = lerRef();
+            String autor = lerRef();
+            boolean publica = this.entrada.lerBoolean();
+            List<Musica> lista = lerMusicas();
+
+            Playlist p;
+            switch (tipo) {
+                case PLAYLIST_ALEATORIA -> p = new PlaylistAleatoria(nome, lista);
+                case PLAYLIST_PERSONALIZADA -> p = new PlaylistPersonalizada(nome, lista, publica, autor);
+                case LISTA_FAVORITOS -> p = new ListaFavoritos(nome, lista, utilizador);
+                case PLAYLIST_TEMPO_GENERO -> p = new PlaylistTempoGenero(nome, lista, tempo, genero);
+                default -> throw new IOException("Tipo de playlist inválido: " + tipo);
+            }
+            p.setPublica(publica);
+            p.setAutor(autor);
+            return p;
+        }
+
+        private Utilizador lerUtilizador() throws IOException {
+            String id = lerRef();
+            String nome = lerRef();
+            String email = lerRef();
+            String morada = lerRef();
+            double pontos = this.entrada.lerDouble();
+            boolean recebeuBonusTop = this.entrada.lerBoolean();
+            int numMusicas = this.entrada.lerVarInt();
+
+            PlanoSubscricao plano;
+            int tipoPlano = this.entrada.lerByte();
+            switch (tipoPlano) {
+                case SEM_PLANO -> plano = null;
+                case PLANO_FREE -> plano = new PlanoFree();
+                case PLANO_PREMIUM_BASE, PLANO_PREMIUM_TOP -> {
+                    List<Playlist> minhasPlaylists = new ArrayList<>();
+                    for (int n = this.entrada.lerVarInt(); n > 0; n--) {
+                        minhasPlaylists.add(this.playlists[this.entrada.lerVarInt()]);
+                    }
+                    List<Album> bibliotecaAlbuns = new ArrayList<>();
+                    for (int n = this.entrada.lerVarInt(); n > 0; n--) {
+                        bibliotecaAlbuns.add(this.albuns[this.entrada.lerVarInt()]);
+                    }
+                    plano = tipoPlano == PLANO_PREMIUM_TOP
+                        ? new PlanoPremiumTop(minhasPlaylists, bibliotecaAlbuns)
+                        : new PlanoPremiumBase(minhasPlaylists, bibliotecaAlbuns);
+                }
+                default -> throw new IOException("Tipo de plano inválido: " + tipoPlano);
+            }
+
+            int numArtistas = this.entrada.lerVarInt();
+            Map<String, Integer> historicoArtistas = new HashMap<>(Math.max(16, numArtistas * 2));
+            for (int i = 0; i < numArtistas; i++) {
+                historicoArtistas.put(lerRef(), this.entrada.lerVarInt());
+            }
+
+            int tamanho = this.entrada.lerVarInt();
+            int[] ordinais = new int[tamanho];
+            for (int i = 0; i < tamanho; i++) {
+                ordinais[i] = ordinalString(this.entrada.lerVarInt());
+            }
+            HistoricoCompacto historico = new HistoricoCompacto();
+            int numSequencias = this.entrada.lerVarInt();
+            int dia = 0;
+            int inicio = 0;
+            for (int s = 0; s < numSequencias; s++) {
+                dia += this.entrada.lerVarIntSinal();
+                int fim = inicio + this.entrada.lerVarInt();
+                if (fim > tamanho) {
+                    throw new IOException("Histórico inválido.");
+                }
+                for (int i = inicio; i < fim; i++) {
+                    historico.adicionar(ordinais[i], dia);
+                }
+                inicio = fim;
+            }
+            if (inicio != tamanho) {
+                throw new IOException("Histórico inválido.");
+            }
+
+            // O construtor atribui o bónus do PlanoPremiumTop; os pontos e o bónus guardados substituem-no
+            Utilizador u = new Utilizador(id, nome, email, morada, plano);
+            u.setPontos(pontos);
+            u.setRecebeuBonusTop(recebeuBonusTop);
+            u.setNumMusicas(numMusicas);
+            u.setHistoricoArtistas(historicoArtistas);
+            u.setHistoricoCompacto(historico);
+            return u;
+        }
+
+        /** Devolve o ordinal no dicionário de músicas da string com o índice indicado */
+        private int ordinalString(int indice) {
+            int ordinal = this.ordinaisStrings[indice];
+            if (ordinal < 0) {
+                ordinal = Dicionario.MUSICAS.getOrdinal(this.strings[indice]);
+                this.ordinaisStrings[indice] = ordinal;
+            }
+            return ordinal;
+        }
+    }
+}
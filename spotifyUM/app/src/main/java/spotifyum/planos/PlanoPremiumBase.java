@@ -58,6 +58,15 @@ public class PlanoPremiumBase extends PlanoSubscricao{
         return new ArrayList<>(this.minhasPlaylist);
     }
 
+    /**
+     * Método que devolve o número de playlists do utilizador, sem copiar a lista.
+     * 
+     * @return Número de playlists do utilizador
+     */
+    public int getNumMinhasPlaylist(){
+        return this.minhasPlaylist.size();
+    }
+
     /**
      * Método que devolve a lista de álbuns do utilizador.
      * 
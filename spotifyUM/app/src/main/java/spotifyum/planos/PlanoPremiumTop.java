@@ -16,6 +16,9 @@ import spotifyum.utilizador.Utilizador;
  */
 public class PlanoPremiumTop extends PlanoPremiumBase {
 
+    /** Fração dos pontos acumulados ganha por cada música ouvida */
+    private static final double TAXA_PONTOS = 0.025;
+
     /**
      * Construtor vazio para o plano Premium Top.
      */
@@ -61,7 +64,22 @@ public class PlanoPremiumTop extends PlanoPremiumBase {
      */ 
     @Override
     public double calcularPontos(Utilizador u) {
-        return  u.getPontos() * 0.025;
+        return  u.getPontos() * TAXA_PONTOS;
+    }
+
+    /**
+     * Método que devolve o número de pontos que um user do Plano Premium Top recebe por n músicas ouvidas seguidas.
+     * 
+     * Cada música multiplica os pontos por (1 + 2,5%), pelo que n músicas dão p * (1,025^n - 1) pontos.
+     * 
+     * @param u User
+     * @param n Número de músicas
+     * 
+     * @return Pontos pelas n músicas do plano Premium Top
+     */
+    @Override
+    public double calcularPontos(Utilizador u, int n) {
+        return u.getPontos() * (Math.pow(1 + TAXA_PONTOS, n) - 1);
     }
     
     /**
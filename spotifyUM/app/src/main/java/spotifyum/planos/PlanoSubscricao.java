@@ -22,6 +22,21 @@ public abstract class PlanoSubscricao implements Serializable {
      */
     public abstract double calcularPontos(Utilizador u);
 
+    /**
+     * Método que calcula os pontos que um utilizador ganha ao ouvir n músicas seguidas.
+     * 
+     * Por omissão, todas as músicas dão os pontos de {@link #calcularPontos(Utilizador)}; os planos em que
+     * os pontos por música dependem dos pontos acumulados redefinem este método com a fórmula fechada.
+     * 
+     * @param u Utilizador cujos pontos a adicionar vão ser calculados
+     * @param n Número de músicas ouvidas
+     * 
+     * @return Pontos a adicionar ao utilizador pelas n músicas
+     */
+    public double calcularPontos(Utilizador u, int n) {
+        return n * calcularPontos(u);
+    }
+
     /**
      * Método abstrato que reproduz uma playlist.
      * 
@@ -21,6 +21,9 @@ public abstract class Playlist implements Serializable {
     /** Autor da playlist */
     private String autor;
 
+    /** Vista só de leitura da lista de músicas, criada na primeira utilização */
+    private transient List<Musica> vistaMusicas;
+
     /**
      * Construtor vazio
      * 
@@ -91,6 +94,20 @@ public abstract class Playlist implements Serializable {
         return new ArrayList<>(this.musicas);
     }
 
+    /**
+     * Método que devolve uma vista só de leitura da lista de músicas da playlist.
+     * 
+     * Ao contrário de getMusicas, não copia a lista, pelo que reflete as alterações à playlist.
+     * 
+     * @return Vista só de leitura da lista de músicas
+     */
+    public List<Musica> getMusicasVista() {
+        if (this.vistaMusicas == null) {
+            this.vistaMusicas = Collections.unmodifiableList(this.musicas);
+        }
+        return this.vistaMusicas;
+    }
+
     /**
      * Método que devolve a visibilidade da playlist.
      * 
@@ -125,6 +142,7 @@ public abstract class Playlist implements Serializable {
      */
     public void setMusicas(List<Musica> novasMusicas) {
         this.musicas = new ArrayList<>(novasMusicas);
+        this.vistaMusicas = null;
     }
 
     /**
@@ -194,7 +212,7 @@ public abstract class Playlist implements Serializable {
         }
         Playlist p = (Playlist) o;
         return this.nome.equals(p.getNome()) &&
-               this.musicas.equals(p.getMusicas()) &&
+               this.musicas.equals(p.getMusicasVista()) &&
                this.publica == p.getPublica() &&
                this.autor.equals(p.getAutor());
     }
@@ -207,9 +225,7 @@ public abstract class Playlist implements Serializable {
      * @param u Utilizador que está a reproduzir a playlist
      * @param controller Controlador do SpotifyUM
      */
-    public void reproduzir(Utilizador u, SpotifyumController controller){;
-        for (Musica m : this.getMusicas()){
-            u.ouvirMusica(m);
-        } 
+    public void reproduzir(Utilizador u, SpotifyumController controller){
+        u.ouvirLote(this.getMusicasVista());
     }
 }
@@ -79,7 +79,7 @@ public class PlaylistAleatoria extends Playlist {
         sb.append("Nome: ");
         sb.append(this.getNome()).append("\n");
         sb.append("Musicas: [");
-        List<Musica> musicas = this.getMusicas();
+        List<Musica> musicas = this.getMusicasVista();
         for (int i = 0; i < musicas.size(); i++) {
             sb.append(musicas.get(i).getId());
             if (i < musicas.size() - 1) sb.append(";");
@@ -102,9 +102,8 @@ public class PlaylistAleatoria extends Playlist {
      */
     @Override
     public void reproduzir(Utilizador u, SpotifyumController controller){
-        Collections.shuffle(this.getMusicas());
-        for (Musica m : this.getMusicas()){
-            u.ouvirMusica(m);
-        } 
+        List<Musica> ordem = this.getMusicas();
+        Collections.shuffle(ordem);
+        u.ouvirLote(ordem);
     }
 }
\ No newline at end of file
@@ -78,7 +78,7 @@ public class PlaylistPersonalizada extends Playlist {
         sb.append("Nome: ");
         sb.append(this.getNome()).append("\n");
         sb.append("Musicas: [");
-        List<Musica> musicas = this.getMusicas();
+        List<Musica> musicas = this.getMusicasVista();
         for (int i = 0; i < musicas.size(); i++) {
             sb.append(musicas.get(i).getId());
             if (i < musicas.size() - 1) sb.append(";");
@@ -101,14 +101,13 @@ public class PlaylistPersonalizada extends Playlist {
      */
     @Override
     public void reproduzir(Utilizador u, SpotifyumController controller){
-        List<Musica> musicas = this.getMusicas();
+        List<Musica> musicas = this.getMusicasVista();
         int random = controller.pedirAleatorio();
 
         if(random == 1){
-            Collections.shuffle(musicas);
-            for(Musica m : musicas){
-                u.ouvirMusica(m);
-            }
+            List<Musica> ordem = this.getMusicas();
+            Collections.shuffle(ordem);
+            u.ouvirLote(ordem);
         }else{
             int posicao = 0;
             while(posicao >= 0 && posicao < musicas.size()){
@@ -126,7 +126,7 @@ public class PlaylistTempoGenero extends Playlist {
         sb.append("Nome: ");
         sb.append(this.getNome()).append("\n");
         sb.append("Musicas: [");
-        List<Musica> musicas = this.getMusicas();
+        List<Musica> musicas = this.getMusicasVista();
         for (int i = 0; i < musicas.size(); i++) {
             sb.append(musicas.get(i).getId());
             if (i < musicas.size() - 1) sb.append(";");
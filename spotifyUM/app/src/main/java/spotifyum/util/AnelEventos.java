@@ -0,0 +1,646 @@
+package spotifyum.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Classe que implementa um anel de eventos limitado e sem locks, com várias threads a publicar
+ * e etapas de consumo em threads próprias (ao estilo do LMAX Disruptor).
+ *
+ * Os eventos são objetos pré-alocados e reutilizados: quem publica reserva uma sequência, preenche o evento
+ * dessa posição e publica-a. A reserva é um único getAndAdd sobre o cursor; a publicação é uma escrita com
+ * semântica release no array de publicados, que guarda a volta do anel em que cada posição foi publicada.
+ *
+ * Cada etapa consome os eventos por ordem, em lotes: lê tudo o que está disponível, entrega os eventos ao
+ * consumidor (assinalando o último do lote) e só então avança a sua sequência. Uma etapa pode depender de
+ * outras, e nesse caso só vê os eventos que todas elas já consumiram, o que permite encadear etapas
+ * (A, depois B) ou executá-las em paralelo sobre os mesmos eventos.
+ *
+ * Quando o anel está cheio, quem publica espera que as últimas etapas libertem espaço (backpressure),
+ * pelo que a memória usada nunca passa da capacidade. A forma de esperar, tanto das etapas sem eventos
+ * como de quem publica sem espaço, é configurável ({@link Espera}).
+ *
+ * @param <E> Tipo dos eventos
+ */
+public class AnelEventos<E> {
+
+    /** Nanossegundos que uma thread dorme em cada espera da estratégia DORMIR */
+    private static final long TEMPO_DORMIR = 100_000;
+
+    /** Tempo máximo de cada espera da estratégia BLOQUEAR, para nunca depender de um único aviso */
+    private static final long TEMPO_BLOQUEAR = 1_000_000;
+
+    /** Número de tentativas em espera ativa antes de ceder o processador */
+    private static final int TENTATIVAS_ATIVAS = 100;
+
+    private static final int NOVO = 0;
+    private static final int ATIVO = 1;
+    private static final int A_PARAR = 2;
+    private static final int PARADO = 3;
+
+    private static final VarHandle PUBLICADOS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * Estratégias de espera das etapas sem eventos e de quem publica com o anel cheio.
+     */
+    public enum Espera {
+        /** Espera ativa: menor latência, ocupa um processador por thread à espera */
+        OCUPADA,
+        /** Espera ativa e depois cede o processador (Thread.yield) */
+        CEDER,
+        /** Espera ativa, cede, e depois dorme intervalos curtos: pouco CPU, latência de ~0,1 ms */
+        DORMIR,
+        /** Bloqueia numa condição, acordada por quem publica ou consome: CPU mínimo em repouso */
+        BLOQUEAR
+    }
+
+    /**
+     * Consumidor dos eventos de uma etapa.
+     *
+     * @param <E> Tipo dos eventos
+     */
+    @FunctionalInterface
+    public interface Consumidor<E> {
+
+        /**
+         * Método que consome um evento.
+         *
+         * O evento só pode ser lido durante a chamada (ou até ao fim do lote), porque a posição
+         * é reutilizada assim que todas as etapas a tiverem consumido.
+         *
+         * @param evento Evento
+         * @param sequencia Sequência do evento
+         * @param fimLote true se é o último evento disponível neste lote
+         * @throws Exception Se o evento não puder ser consumido (a etapa continua com os seguintes)
+         */
+        void consumir(E evento, long sequencia, boolean fimLote) throws Exception;
+    }
+
+    /** Preenchimento à esquerda do valor de uma sequência, para não partilhar a linha de cache */
+    private static class PreenchimentoEsquerda {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    /** Valor de uma sequência */
+    private static class ValorSequencia extends PreenchimentoEsquerda {
+        volatile long valor;
+    }
+
+    /** Sequência com preenchimento dos dois lados (a herança garante a ordem dos campos) */
+    private static final class Sequencia extends ValorSequencia {
+        long q1, q2, q3, q4, q5, q6, q7;
+
+        private static final VarHandle VALOR;
+
+        static {
+            try {
+                VALOR = MethodHandles.lookup().findVarHandle(ValorSequencia.class, "valor", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        Sequencia(long inicial) {
+            this.valor = inicial;
+        }
+
+        long somar(long delta) {
+            return (long) VALOR.getAndAdd(this, delta) + delta;
+        }
+    }
+
+    /**
+     * Etapa de consumo do anel, com a sua thread e a sua sequência.
+     */
+    public final class Etapa {
+
+        /** Nome da etapa (e da sua thread) */
+        private final String nome;
+
+        /** Consumidor dos eventos */
+        private final Consumidor<? super E> consumidor;
+
+        /** Etapas que têm de consumir cada evento antes desta */
+        private final List<Etapa> dependencias;
+
+        /** Última sequência consumida */
+        private final Sequencia sequencia;
+
+        /** Número de lotes consumidos */
+        private final LongAdder lotes;
+
+        /** Número de eventos consumidos */
+        private final LongAdder eventos;
+
+        /** Thread da etapa */
+        private Thread thread;
+
+        private Etapa(String nome, Consumidor<? super E> consumidor, List<Etapa> dependencias) {
+            this.nome = nome;
+            this.consumidor = consumidor;
+            this.dependencias = dependencias;
+            this.sequencia = new Sequencia(-1);
+            this.lotes = new LongAdder();
+            this.eventos = new LongAdder();
+        }
+
+        /**
+         * Método que devolve o nome da etapa.
+         *
+         * @return Nome da etapa
+         */
+        public String getNome() {
+            return this.nome;
+        }
+
+        /**
+         * Método que devolve a última sequência consumida pela etapa.
+         *
+         * @return Última sequência consumida (-1 se nenhuma)
+         */
+        public long getSequencia() {
+            return this.sequencia.valor;
+        }
+
+        /**
+         * Método que devolve o número de lotes consumidos.
+         *
+         * @return Número de lotes
+         */
+        public long getLotes() {
+            return this.lotes.sum();
+        }
+
+        /**
+         * Método que devolve o número de eventos consumidos.
+         *
+         * @return Número de eventos
+         */
+        public long getEventos() {
+            return this.eventos.sum();
+        }
+
+        /**
+         * Método que devolve a última sequência que a etapa pode consumir.
+         *
+         * @param proxima Próxima sequência a consumir
+         * @return Última sequência disponível (proxima - 1 se nenhuma)
+         */
+        private long disponivel(long proxima) {
+            if (this.dependencias.isEmpty()) {
+                return ultimaPublicada(proxima, cursor.valor);
+            }
+            long minimo = Long.MAX_VALUE;
+            for (Etapa e : this.dependencias) {
+                minimo = Math.min(minimo, e.sequencia.valor);
+            }
+            return minimo;
+        }
+
+        /**
+         * Ciclo da thread da etapa: consome lotes até o anel parar e não haver mais eventos.
+         */
+        private void executar() {
+            long proxima = this.sequencia.valor + 1;
+            int tentativas = 0;
+            while (true) {
+                long ultima = disponivel(proxima);
+                if (ultima < proxima) {
+                    if (estado == PARADO) {
+                        return;
+                    }
+                    esperar(tentativas++);
+                    continue;
+                }
+                tentativas = 0;
+                for (long s = proxima; s <= ultima; s++) {
+                    try {
+                        this.consumidor.consumir(get(s), s, s == ultima);
+                    } catch (Exception e) {
+                        registarErro(e);
+                    }
+                }
+                this.lotes.increment();
+                this.eventos.add(ultima - proxima + 1);
+                this.sequencia.valor = ultima;
+                proxima = ultima + 1;
+                sinalizar();
+            }
+        }
+    }
+
+    /** Eventos pré-alocados */
+    private final Object[] eventos;
+
+    /** Volta do anel em que cada posição foi publicada pela última vez (-1 se nunca) */
+    private final int[] publicados;
+
+    /** Capacidade - 1 (a capacidade é uma potência de 2) */
+    private final int mascara;
+
+    /** log2 da capacidade */
+    private final int bits;
+
+    /** Última sequência reservada */
+    private final Sequencia cursor;
+
+    /** Mínimo das sequências das últimas etapas, visto pela última vez (pode estar atrasado) */
+    private final Sequencia minimoVisto;
+
+    /** Estratégia de espera */
+    private final Espera espera;
+
+    /** Etapas, pela ordem em que foram adicionadas */
+    private final List<Etapa> etapas;
+
+    /** Etapas de que nenhuma outra depende (as que libertam espaço no anel) */
+    private List<Etapa> finais;
+
+    /** Lock e condição da estratégia BLOQUEAR */
+    private final ReentrantLock lock;
+    private final Condition condicao;
+
+    /** Número de threads bloqueadas na condição */
+    private volatile int aEsperar;
+
+    /** Estado do anel (NOVO, ATIVO, A_PARAR, PARADO) */
+    private volatile int estado;
+
+    /** Número de exceções lançadas pelos consumidores */
+    private final LongAdder erros;
+
+    /** Última exceção lançada por um consumidor */
+    private volatile Exception ultimoErro;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param capacidade Número de posições do anel (potência de 2)
+     * @param fabrica Fábrica dos eventos pré-alocados
+     * @param espera Estratégia de espera
+     */
+    public AnelEventos(int capacidade, Supplier<? extends E> fabrica, Espera espera) {
+        if (capacidade < 1 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("A capacidade tem de ser uma potência de 2: " + capacidade);
+        }
+        this.eventos = new Object[capacidade];
+        for (int i = 0; i < capacidade; i++) {
+            this.eventos[i] = fabrica.get();
+        }
+        this.publicados = new int[capacidade];
+        Arrays.fill(this.publicados, -1);
+        this.mascara = capacidade - 1;
+        this.bits = Integer.numberOfTrailingZeros(capacidade);
+        this.cursor = new Sequencia(-1);
+        this.minimoVisto = new Sequencia(-1);
+        this.espera = espera;
+        this.etapas = new ArrayList<>();
+        this.lock = new ReentrantLock();
+        this.condicao = this.lock.newCondition();
+        this.estado = NOVO;
+        this.erros = new LongAdder();
+    }
+
+    /**
+     * Método que adiciona uma etapa de consumo sem dependências, antes de o anel ser iniciado.
+     *
+     * @param nome Nome da etapa (e da sua thread)
+     * @param consumidor Consumidor dos eventos
+     * @return Etapa criada
+     */
+    public Etapa adicionarEtapa(String nome, Consumidor<? super E> consumidor) {
+        return adicionarEtapa(nome, consumidor, List.of());
+    }
+
+    /**
+     * Método que adiciona uma etapa de consumo, antes de o anel ser iniciado.
+     *
+     * @param nome Nome da etapa (e da sua thread)
+     * @param consumidor Consumidor dos eventos
+     * @param dependencias Etapas que têm de consumir cada evento antes desta
+     * @return Etapa criada
+     */
+    public Etapa adicionarEtapa(String nome, Consumidor<? super E> consumidor, List<Etapa> dependencias) {
+        if (this.estado != NOVO) {
+            throw new IllegalStateException("O anel já foi iniciado.");
+        }
+        for (Etapa e : dependencias) {
+            if (!this.etapas.contains(e)) {
+                throw new IllegalArgumentException("Etapa de outro anel: " + e.getNome());
+            }
+        }
+        Etapa etapa = new Etapa(nome, consumidor, List.copyOf(dependencias));
+        this.etapas.add(etapa);
+        return etapa;
+    }
+
+    /**
+     * Método que inicia as threads das etapas.
+     */
+    public void iniciar() {
+        if (this.estado != NOVO) {
+            throw new IllegalStateException("O anel já foi iniciado.");
+        }
+        if (this.etapas.isEmpty()) {
+            throw new IllegalStateException("O anel não tem etapas.");
+        }
+        Set<Etapa> comDependentes = new HashSet<>();
+        for (Etapa e : this.etapas) {
+            comDependentes.addAll(e.dependencias);
+        }
+        this.finais = this.etapas.stream().filter(e -> !comDependentes.contains(e)).toList();
+        this.estado = ATIVO;
+        for (Etapa e : this.etapas) {
+            e.thread = new Thread(e::executar, e.nome);
+            e.thread.setDaemon(true);
+            e.thread.start();
+        }
+    }
+
+    /**
+     * Método que reserva a próxima sequência, esperando por espaço se o anel estiver cheio.
+     *
+     * @return Sequência reservada, a preencher com {@link #get(long)} e publicar com {@link #publicar(long)}
+     */
+    public long reservar() {
+        return reservar(1);
+    }
+
+    /**
+     * Método que reserva n sequências seguidas, esperando por espaço se o anel estiver cheio.
+     *
+     * @param n Número de sequências (no máximo a capacidade)
+     * @return Última sequência reservada (as reservadas vão de ultima - n + 1 a ultima)
+     */
+    public long reservar(int n) {
+        if (n < 1 || n > this.eventos.length) {
+            throw new IllegalArgumentException("Número de sequências inválido: " + n);
+        }
+        if (this.estado != ATIVO) {
+            throw new IllegalStateException("O anel não está ativo.");
+        }
+        long ultima = this.cursor.somar(n);
+        long necessario = ultima - this.eventos.length;
+        if (necessario > this.minimoVisto.valor) {
+            int tentativas = 0;
+            long minimo;
+            while (necessario > (minimo = minimoFinais())) {
+                esperar(tentativas++);
+            }
+            this.minimoVisto.valor = minimo;
+        }
+        return ultima;
+    }
+
+    /**
+     * Método que reserva a próxima sequência só se houver espaço, sem esperar.
+     *
+     * @return Sequência reservada, ou -1 se o anel estiver cheio
+     */
+    public long tentarReservar() {
+        if (this.estado != ATIVO) {
+            throw new IllegalStateException("O anel não está ativo.");
+        }
+        while (true) {
+            long atual = this.cursor.valor;
+            long proxima = atual + 1;
+            if (proxima - this.eventos.length > minimoFinais()) {
+                return -1;
+            }
+            if (Sequencia.VALOR.compareAndSet(this.cursor, atual, proxima)) {
+                return proxima;
+            }
+        }
+    }
+
+    /**
+     * Método que devolve o evento de uma sequência.
+     *
+     * @param sequencia Sequência
+     * @return Evento pré-alocado da posição da sequência
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequencia) {
+        return (E) this.eventos[(int) sequencia & this.mascara];
+    }
+
+    /**
+     * Método que publica uma sequência reservada, tornando o seu evento visível às etapas.
+     *
+     * @param sequencia Sequência a publicar
+     */
+    public void publicar(long sequencia) {
+        PUBLICADOS.setRelease(this.publicados, (int) sequencia & this.mascara, (int) (sequencia >>> this.bits));
+        sinalizar();
+    }
+
+    /**
+     * Método que publica várias sequências reservadas de uma vez.
+     *
+     * @param inicio Primeira sequência (inclusive)
+     * @param fim Última sequência (inclusive)
+     */
+    public void publicar(long inicio, long fim) {
+        for (long s = inicio; s <= fim; s++) {
+            PUBLICADOS.setRelease(this.publicados, (int) s & this.mascara, (int) (s >>> this.bits));
+        }
+        sinalizar();
+    }
+
+    /**
+     * Método que espera que todas as etapas consumam os eventos reservados até agora.
+     */
+    public void esperarConsumo() {
+        long alvo = this.cursor.valor;
+        int tentativas = 0;
+        while (minimoFinais() < alvo) {
+            esperar(tentativas++);
+        }
+    }
+
+    /**
+     * Método que para o anel: deixa de aceitar reservas, espera que as etapas consumam os eventos
+     * já reservados e termina as suas threads.
+     */
+    public void parar() {
+        if (this.estado != ATIVO) {
+            return;
+        }
+        this.estado = A_PARAR;
+        esperarConsumo();
+        this.estado = PARADO;
+        sinalizar();
+        for (Etapa e : this.etapas) {
+            try {
+                e.thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Método que devolve a capacidade do anel.
+     *
+     * @return Número de posições
+     */
+    public int getCapacidade() {
+        return this.eventos.length;
+    }
+
+    /**
+     * Método que devolve o número de sequências reservadas desde o início.
+     *
+     * @return Número de sequências reservadas
+     */
+    public long getReservados() {
+        return this.cursor.valor + 1;
+    }
+
+    /**
+     * Método que devolve as etapas do anel.
+     *
+     * @return Lista com as etapas, pela ordem em que foram adicionadas
+     */
+    public List<Etapa> getEtapas() {
+        return List.copyOf(this.etapas);
+    }
+
+    /**
+     * Método que devolve o número de exceções lançadas pelos consumidores.
+     *
+     * @return Número de erros
+     */
+    public long getErros() {
+        return this.erros.sum();
+    }
+
+    /**
+     * Método que devolve a última exceção lançada por um consumidor.
+     *
+     * @return Última exceção, ou null se não houve erros
+     */
+    public Exception getUltimoErro() {
+        return this.ultimoErro;
+    }
+
+    /**
+     * Método que devolve uma representação textual das métricas do anel.
+     *
+     * @return String com as métricas
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Capacidade: %d | Reservados: %d | Erros: %d", getCapacidade(), getReservados(), getErros()));
+        for (Etapa e : this.etapas) {
+            long lotes = e.getLotes();
+            sb.append(String.format("%n  %s: %d eventos em %d lotes (%.1f por lote)", e.nome, e.getEventos(), lotes,
+                                    lotes == 0 ? 0.0 : (double) e.getEventos() / lotes));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Método que devolve a última sequência publicada sem falhas a partir de uma sequência.
+     *
+     * @param proxima Primeira sequência a verificar
+     * @param reservada Última sequência reservada
+     * @return Última sequência publicada de forma contígua (proxima - 1 se proxima ainda não foi publicada)
+     */
+    private long ultimaPublicada(long proxima, long reservada) {
+        for (long s = proxima; s <= reservada; s++) {
+            if ((int) PUBLICADOS.getAcquire(this.publicados, (int) s & this.mascara) != (int) (s >>> this.bits)) {
+                return s - 1;
+            }
+        }
+        return reservada;
+    }
+
+    /**
+     * Método que devolve o mínimo das sequências das últimas etapas.
+     *
+     * @return Última sequência consumida por todas as etapas
+     */
+    private long minimoFinais() {
+        long minimo = Long.MAX_VALUE;
+        for (Etapa e : this.finais) {
+            minimo = Math.min(minimo, e.sequencia.valor);
+        }
+        return minimo;
+    }
+
+    /**
+     * Método que espera um pouco, segundo a estratégia, antes de voltar a verificar uma condição.
+     *
+     * @param tentativas Número de vezes que a condição já foi verificada sem sucesso
+     */
+    private void esperar(int tentativas) {
+        switch (this.espera) {
+            case OCUPADA -> Thread.onSpinWait();
+            case CEDER -> {
+                if (tentativas < TENTATIVAS_ATIVAS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            case DORMIR -> {
+                if (tentativas < TENTATIVAS_ATIVAS) {
+                    Thread.onSpinWait();
+                } else if (tentativas < 2 * TENTATIVAS_ATIVAS) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(TEMPO_DORMIR);
+                }
+            }
+            case BLOQUEAR -> {
+                this.lock.lock();
+                try {
+                    this.aEsperar++;
+                    this.condicao.awaitNanos(TEMPO_BLOQUEAR);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    this.aEsperar--;
+                    this.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Método que acorda as threads bloqueadas (estratégia BLOQUEAR) depois de uma publicação ou de um lote consumido.
+     */
+    private void sinalizar() {
+        if (this.espera == Espera.BLOQUEAR && this.aEsperar > 0) {
+            this.lock.lock();
+            try {
+                this.condicao.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Método que regista uma exceção de um consumidor.
+     *
+     * @param e Exceção
+     */
+    private void registarErro(Exception e) {
+        this.erros.increment();
+        this.ultimoErro = e;
+    }
+}
@@ -0,0 +1,213 @@
+package spotifyum.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Classe que guarda em cache os últimos valores usados, até um número máximo de entradas (LRU).
+ *
+ * Quando a cache está cheia, é descartada a entrada usada há mais tempo. Conta os acertos,
+ * as falhas, os descartes e as invalidações, para se poder avaliar se a cache compensa.
+ *
+ * Os acessos são sincronizados no map interno, pelo que a cache pode ser partilhada entre threads;
+ * o cálculo dos valores em falta é feito por quem chama, fora do lock.
+ *
+ * @param <K> Tipo das chaves
+ * @param <V> Tipo dos valores
+ */
+public class CacheLRU<K, V> {
+
+    /** Entradas por ordem de acesso (a primeira é a usada há mais tempo) */
+    private final Map<K, V> entradas;
+
+    /** Número máximo de entradas */
+    private final int capacidade;
+
+    /** Número de pedidos encontrados na cache */
+    private final LongAdder acertos;
+
+    /** Número de pedidos que não estavam na cache (ou estavam desatualizados) */
+    private final LongAdder falhas;
+
+    /** Número de entradas descartadas por falta de espaço */
+    private final LongAdder descartes;
+
+    /** Número de entradas invalidadas */
+    private final LongAdder invalidacoes;
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param capacidade Número máximo de entradas
+     */
+    public CacheLRU(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+        }
+        this.capacidade = capacidade;
+        this.acertos = new LongAdder();
+        this.falhas = new LongAdder();
+        this.descartes = new LongAdder();
+        this.invalidacoes = new LongAdder();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> maisAntiga) {
+                if (size() > CacheLRU.this.capacidade) {
+                    CacheLRU.this.descartes.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Método que devolve o valor de uma chave, contando um acerto ou uma falha.
+     *
+     * @param chave Chave a procurar
+     * @return Valor em cache, ou null se não existir
+     */
+    public V get(K chave) {
+        return get(chave, v -> true);
+    }
+
+    /**
+     * Método que devolve o valor de uma chave se ainda for válido, contando um acerto ou uma falha.
+     *
+     * Um valor desatualizado é retirado da cache e conta como falha.
+     *
+     * @param chave Chave a procurar
+     * @param valido Condição para o valor em cache ainda poder ser usado
+     * @return Valor em cache, ou null se não existir ou não for válido
+     */
+    public V get(K chave, Predicate<? super V> valido) {
+        synchronized (this.entradas) {
+            V valor = this.entradas.get(chave);
+            if (valor != null && valido.test(valor)) {
+                this.acertos.increment();
+                return valor;
+            }
+            if (valor != null) {
+                this.entradas.remove(chave);
+            }
+        }
+        this.falhas.increment();
+        return null;
+    }
+
+    /**
+     * Método que guarda o valor de uma chave, descartando a entrada usada há mais tempo se a cache estiver cheia.
+     *
+     * @param chave Chave
+     * @param valor Valor a guardar
+     */
+    public void put(K chave, V valor) {
+        synchronized (this.entradas) {
+            this.entradas.put(chave, valor);
+        }
+    }
+
+    /**
+     * Método que retira uma chave da cache.
+     *
+     * @param chave Chave a invalidar
+     */
+    public void invalidar(K chave) {
+        synchronized (this.entradas) {
+            if (this.entradas.remove(chave) != null) {
+                this.invalidacoes.increment();
+            }
+        }
+    }
+
+    /**
+     * Método que retira todas as entradas da cache.
+     */
+    public void limpar() {
+        synchronized (this.entradas) {
+            this.invalidacoes.add(this.entradas.size());
+            this.entradas.clear();
+        }
+    }
+
+    /**
+     * Método que devolve o número de entradas em cache.
+     *
+     * @return Número de entradas
+     */
+    public int tamanho() {
+        synchronized (this.entradas) {
+            return this.entradas.size();
+        }
+    }
+
+    /**
+     * Método que devolve o número máximo de entradas.
+     *
+     * @return Capacidade da cache
+     */
+    public int getCapacidade() {
+        return this.capacidade;
+    }
+
+    /**
+     * Método que devolve o número de pedidos encontrados na cache.
+     *
+     * @return Número de acertos
+     */
+    public long getAcertos() {
+        return this.acertos.sum();
+    }
+
+    /**
+     * Método que devolve o número de pedidos que não estavam na cache.
+     *
+     * @return Número de falhas
+     */
+    public long getFalhas() {
+        return this.falhas.sum();
+    }
+
+    /**
+     * Método que devolve o número de entradas descartadas por falta de espaço.
+     *
+     * @return Número de descartes
+     */
+    public long getDescartes() {
+        return this.descartes.sum();
+    }
+
+    /**
+     * Método que devolve o número de entradas invalidadas.
+     *
+     * @return Número de invalidações
+     */
+    public long getInvalidacoes() {
+        return this.invalidacoes.sum();
+    }
+
+    /**
+     * Método que devolve a fração dos pedidos encontrados na cache.
+     *
+     * @return Taxa de acertos, entre 0 e 1 (0 se ainda não houve pedidos)
+     */
+    public double getTaxaAcertos() {
+        long a = getAcertos();
+        long total = a + getFalhas();
+        return total == 0 ? 0 : (double) a / total;
+    }
+
+    /**
+     * Método que devolve uma representação textual das métricas da cache.
+     *
+     * @return String com as métricas
+     */
+    @Override
+    public String toString() {
+        return String.format("Entradas: %d/%d | Acertos: %d | Falhas: %d | Taxa de acertos: %.1f%% | Descartes: %d | Invalidações: %d",
+                             tamanho(), this.capacidade, getAcertos(), getFalhas(), getTaxaAcertos() * 100,
+                             getDescartes(), getInvalidacoes());
+    }
+}
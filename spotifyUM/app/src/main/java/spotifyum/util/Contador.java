@@ -0,0 +1,247 @@
+package spotifyum.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe que conta ocorrências de chaves com contadores primitivos.
+ *
+ * As chaves e os contadores são guardados em arrays densos, pela ordem em que as chaves
+ * apareceram, e uma tabela de endereçamento aberto (sondagem linear) associa cada chave à
+ * sua posição. Incrementar uma chave já conhecida não aloca memória, ao contrário de
+ * {@code Map.merge(chave, 1, Integer::sum)}, que cria um Integer a cada chamada.
+ *
+ * Não é thread-safe; quem o partilha entre threads tem de sincronizar os acessos.
+ *
+ * @param <K> Tipo das chaves
+ */
+public class Contador<K> implements Serializable {
+
+    /** Constante multiplicativa do hashing de Fibonacci */
+    private static final int FIBONACCI = 0x9E3779B9;
+
+    /** Chaves, pela ordem em que foram adicionadas */
+    private Object[] chaves;
+
+    /** Contadores, na mesma ordem das chaves */
+    private int[] valores;
+
+    /** Número de chaves */
+    private int tamanho;
+
+    /** Tabela de endereçamento aberto com a posição + 1 de cada chave (0 indica uma posição livre) */
+    private int[] tabela;
+
+    /** Número de bits do tamanho da tabela */
+    private int bits;
+
+    /**
+     * Construtor vazio
+     *
+     * Cria um contador sem chaves.
+     */
+    public Contador() {
+        this.chaves = new Object[8];
+        this.valores = new int[8];
+        this.tamanho = 0;
+        this.bits = 4;
+        this.tabela = new int[1 << this.bits];
+    }
+
+    /**
+     * Construtor de cópia
+     *
+     * @param outro Contador a copiar
+     */
+    public Contador(Contador<K> outro) {
+        this.chaves = Arrays.copyOf(outro.chaves, outro.chaves.length);
+        this.valores = Arrays.copyOf(outro.valores, outro.valores.length);
+        this.tamanho = outro.tamanho;
+        this.bits = outro.bits;
+        this.tabela = Arrays.copyOf(outro.tabela, outro.tabela.length);
+    }
+
+    /**
+     * Método que devolve o número de chaves.
+     *
+     * @return Número de chaves
+     */
+    public int tamanho() {
+        return this.tamanho;
+    }
+
+    /**
+     * Método que devolve a chave numa posição.
+     *
+     * @param i Posição, entre 0 e tamanho() - 1, pela ordem em que as chaves foram adicionadas
+     * @return Chave na posição
+     */
+    @SuppressWarnings("unchecked")
+    public K getChave(int i) {
+        return (K) this.chaves[i];
+    }
+
+    /**
+     * Método que devolve o contador numa posição.
+     *
+     * @param i Posição, entre 0 e tamanho() - 1, pela ordem em que as chaves foram adicionadas
+     * @return Contador da chave na posição
+     */
+    public int getValor(int i) {
+        return this.valores[i];
+    }
+
+    /**
+     * Método que devolve o contador de uma chave.
+     *
+     * @param chave Chave a procurar
+     * @return Contador da chave, ou 0 se a chave não existir
+     */
+    public int get(K chave) {
+        int i = procurar(chave);
+        return i < 0 ? 0 : this.valores[i];
+    }
+
+    /**
+     * Método que soma um valor ao contador de uma chave, adicionando-a se ainda não existir.
+     *
+     * @param chave Chave a incrementar
+     * @param delta Valor a somar
+     * @return Novo valor do contador
+     */
+    public int incrementar(K chave, int delta) {
+        // A posição é calculada antes de indexar, porque pode fazer crescer o array de valores
+        int posicao = posicao(chave);
+        return this.valores[posicao] += delta;
+    }
+
+    /**
+     * Método que devolve a posição de uma chave, adicionando-a com contador 0 se ainda não existir.
+     *
+     * As posições são estáveis, pelo que podem indexar arrays paralelos com outros dados das chaves.
+     *
+     * @param chave Chave a procurar
+     * @return Posição da chave, entre 0 e tamanho() - 1
+     */
+    public int posicao(K chave) {
+        int slot = slot(chave);
+        int mascara = this.tabela.length - 1;
+        while (true) {
+            int posicao = this.tabela[slot] - 1;
+            if (posicao < 0) {
+                break;
+            }
+            Object c = this.chaves[posicao];
+            if (c == chave || c.equals(chave)) {
+                return posicao;
+            }
+            slot = (slot + 1) & mascara;
+        }
+
+        if (this.tamanho == this.chaves.length) {
+            this.chaves = Arrays.copyOf(this.chaves, this.tamanho * 2);
+            this.valores = Arrays.copyOf(this.valores, this.tamanho * 2);
+        }
+        int posicao = this.tamanho++;
+        this.chaves[posicao] = chave;
+        this.valores[posicao] = 0;
+        this.tabela[slot] = posicao + 1;
+        // Fator de carga máximo de 1/2, para que as sondagens sejam curtas
+        if (this.tamanho * 2 > this.tabela.length) {
+            redimensionar();
+        }
+        return posicao;
+    }
+
+    /**
+     * Método que define o contador de uma chave, adicionando-a se ainda não existir.
+     *
+     * @param chave Chave a definir
+     * @param valor Novo valor do contador
+     */
+    public void definir(K chave, int valor) {
+        incrementar(chave, valor - get(chave));
+    }
+
+    /**
+     * Método que devolve as chaves com maiores contadores, por ordem decrescente.
+     *
+     * Só entram chaves com contador positivo; em caso de empate fica primeiro a chave adicionada há mais tempo.
+     *
+     * @param n Número máximo de chaves a devolver
+     * @return Lista com as chaves mais frequentes
+     */
+    public List<K> maisFrequentes(int n) {
+        int[] posicoes = Selecao.maiores(this.valores, this.tamanho, n);
+        List<K> resultado = new ArrayList<>(posicoes.length);
+        for (int posicao : posicoes) {
+            resultado.add(getChave(posicao));
+        }
+        return resultado;
+    }
+
+    /**
+     * Método que devolve uma cópia dos contadores num Map.
+     *
+     * @return Map que associa cada chave ao seu contador
+     */
+    public Map<K, Integer> paraMap() {
+        Map<K, Integer> map = new HashMap<>(Math.max(16, this.tamanho * 2));
+        for (int i = 0; i < this.tamanho; i++) {
+            map.put(getChave(i), this.valores[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Método que procura a posição de uma chave.
+     *
+     * @param chave Chave a procurar
+     * @return Posição da chave, ou -1 se não existir
+     */
+    private int procurar(K chave) {
+        int slot = slot(chave);
+        int mascara = this.tabela.length - 1;
+        while (true) {
+            int posicao = this.tabela[slot] - 1;
+            if (posicao < 0) {
+                return -1;
+            }
+            Object c = this.chaves[posicao];
+            if (c == chave || c.equals(chave)) {
+                return posicao;
+            }
+            slot = (slot + 1) & mascara;
+        }
+    }
+
+    /**
+     * Método que devolve o slot inicial de uma chave na tabela.
+     *
+     * @param chave Chave
+     * @return Slot inicial
+     */
+    private int slot(Object chave) {
+        return (chave.hashCode() * FIBONACCI) >>> (32 - this.bits);
+    }
+
+    /**
+     * Método que duplica a tabela e volta a inserir todas as chaves.
+     */
+    private void redimensionar() {
+        this.bits++;
+        this.tabela = new int[1 << this.bits];
+        int mascara = this.tabela.length - 1;
+        for (int i = 0; i < this.tamanho; i++) {
+            int slot = slot(this.chaves[i]);
+            while (this.tabela[slot] != 0) {
+                slot = (slot + 1) & mascara;
+            }
+            this.tabela[slot] = i + 1;
+        }
+    }
+}
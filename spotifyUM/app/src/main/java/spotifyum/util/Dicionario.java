@@ -0,0 +1,117 @@
+package spotifyum.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe que associa strings a inteiros pequenos e consecutivos (ordinais).
+ *
+ * Cada valor distinto é guardado uma única vez, pelo que estruturas que guardam muitas
+ * referências ao mesmo valor podem guardar apenas o seu ordinal num array de inteiros.
+ */
+public class Dicionario {
+
+    /** Dicionário partilhado dos IDs das músicas */
+    public static final Dicionario MUSICAS = new Dicionario();
+
+    /** Dicionário partilhado dos artistas */
+    public static final Dicionario ARTISTAS = new Dicionario();
+
+    /** Dicionário partilhado dos géneros */
+    public static final Dicionario GENEROS = new Dicionario();
+
+    /** Dicionário partilhado das editoras */
+    public static final Dicionario EDITORAS = new Dicionario();
+
+    /** Map que associa cada valor ao seu ordinal */
+    private final Map<String, Integer> ordinais;
+
+    /** Valores indexados pelo seu ordinal */
+    private volatile String[] valores;
+
+    /** Número de valores registados (escrito antes de o ordinal ser publicado, para que as leituras não precisem de lock) */
+    private volatile int tamanho;
+
+    /**
+     * Construtor vazio
+     *
+     * Cria um dicionário sem valores.
+     */
+    public Dicionario() {
+        this.ordinais = new ConcurrentHashMap<>();
+        this.valores = new String[16];
+        this.tamanho = 0;
+    }
+
+    /**
+     * Método que devolve o ordinal de um valor, registando-o se ainda não existir.
+     *
+     * Só o registo de um valor novo é feito com lock; a procura de um valor já registado não bloqueia.
+     *
+     * @param valor Valor a procurar
+     * @return Ordinal do valor
+     */
+    public int getOrdinal(String valor) {
+        Integer ordinal = this.ordinais.get(valor);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        return registar(valor);
+    }
+
+    /**
+     * Método que regista um valor novo.
+     *
+     * @param valor Valor a registar
+     * @return Ordinal do valor
+     */
+    private synchronized int registar(String valor) {
+        Integer ordinal = this.ordinais.get(valor);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int t = this.tamanho;
+        if (t == this.valores.length) {
+            this.valores = Arrays.copyOf(this.valores, t * 2);
+        }
+        this.valores[t] = valor;
+        this.tamanho = t + 1;
+        this.ordinais.put(valor, t);
+        return t;
+    }
+
+    /**
+     * Método que devolve a instância partilhada de um valor, registando-o se ainda não existir.
+     *
+     * Valores iguais lidos ou criados em sítios diferentes passam a ser a mesma String.
+     *
+     * @param valor Valor a procurar (pode ser null)
+     * @return Instância registada do valor, ou null se o valor for null
+     */
+    public String canonico(String valor) {
+        return valor == null ? null : getValor(getOrdinal(valor));
+    }
+
+    /**
+     * Método que devolve o valor associado a um ordinal.
+     *
+     * @param ordinal Ordinal do valor
+     * @return Valor associado ao ordinal
+     */
+    public String getValor(int ordinal) {
+        if (ordinal < 0 || ordinal >= this.tamanho) {
+            throw new IndexOutOfBoundsException("Ordinal inválido: " + ordinal);
+        }
+        return this.valores[ordinal];
+    }
+
+    /**
+     * Método que devolve o número de valores registados.
+     *
+     * @return Número de valores
+     */
+    public int tamanho() {
+        return this.tamanho;
+    }
+}
@@ -0,0 +1,86 @@
+package spotifyum.util;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Classe que escreve uma listagem página a página num destino de texto (Writer, PrintStream, StringBuilder, ...).
+ *
+ * Só uma página está em memória de cada vez e o destino é despejado (flush) no fim de cada página,
+ * pelo que listar um catálogo grande usa memória limitada pelo tamanho da página e o texto começa
+ * a sair antes de a listagem terminar.
+ */
+public final class EscritaPaginada {
+
+    /** Número de elementos de cada página, por omissão */
+    public static final int TAMANHO_PAGINA = 256;
+
+    /**
+     * Fonte das páginas de uma listagem.
+     *
+     * @param <T> Tipo dos elementos
+     */
+    @FunctionalInterface
+    public interface Paginas<T> {
+
+        /**
+         * Método que lê uma página da listagem.
+         *
+         * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+         * @param tamanho Número máximo de elementos da página
+         * @return Página lida
+         */
+        Pagina<T> ler(String cursor, int tamanho);
+    }
+
+    /**
+     * Construtor privado, porque a classe só tem métodos estáticos.
+     */
+    private EscritaPaginada() {
+    }
+
+    /**
+     * Método que escreve uma listagem com um título, com páginas do tamanho por omissão.
+     *
+     * @param destino Destino do texto
+     * @param titulo Título da listagem
+     * @param paginas Fonte das páginas
+     * @param <T> Tipo dos elementos
+     * @return Número de elementos escritos
+     * @throws IOException Se não for possível escrever no destino
+     */
+    public static <T> long escrever(Appendable destino, String titulo, Paginas<T> paginas) throws IOException {
+        return escrever(destino, titulo, paginas, TAMANHO_PAGINA);
+    }
+
+    /**
+     * Método que escreve uma listagem com um título.
+     *
+     * O formato é o das listagens do SpotifyUM: o título, uma linha em branco e cada elemento seguido de uma mudança de linha.
+     *
+     * @param destino Destino do texto
+     * @param titulo Título da listagem
+     * @param paginas Fonte das páginas
+     * @param tamanhoPagina Número de elementos de cada página
+     * @param <T> Tipo dos elementos
+     * @return Número de elementos escritos
+     * @throws IOException Se não for possível escrever no destino
+     */
+    public static <T> long escrever(Appendable destino, String titulo, Paginas<T> paginas, int tamanhoPagina) throws IOException {
+        destino.append(titulo).append('\n').append('\n');
+        long escritos = 0;
+        String cursor = null;
+        do {
+            Pagina<T> pagina = paginas.ler(cursor, tamanhoPagina);
+            for (T elemento : pagina.elementos()) {
+                destino.append(String.valueOf(elemento)).append('\n');
+                escritos++;
+            }
+            if (destino instanceof Flushable f) {
+                f.flush();
+            }
+            cursor = pagina.cursorSeguinte();
+        } while (cursor != null);
+        return escritos;
+    }
+}
@@ -0,0 +1,282 @@
+package spotifyum.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Classe que escolhe elementos cuja soma das durações fica o mais perto possível de um limite, sem o ultrapassar
+ * (problema da mochila com peso igual ao valor, ou subset sum).
+ *
+ * Usa programação dinâmica sobre as durações em segundos: para cada soma possível guarda o primeiro grupo
+ * de elementos que a atingiu, o que ocupa O(limite) memória e permite reconstruir a escolha. Elementos com
+ * a mesma duração são indistinguíveis para a soma, pelo que são agrupados e cada grupo é partido em
+ * potências de 2 (1, 2, 4, ...), limitadas ao número que cabe no limite; o número de grupos depende assim
+ * do número de durações distintas e não do número de elementos.
+ *
+ * Para respeitar um orçamento de tempo, se grupos × limite for demasiado grande (listas de muitas horas),
+ * a programação dinâmica só preenche uma janela final do limite: o início é preenchido com elementos por
+ * ordem aleatória e a janela, com os restantes, é preenchida de forma ótima. Com muitos candidatos isto
+ * continua a chegar ao limite exato. Se mesmo assim a tabela for grande demais, as durações passam a ser
+ * contadas em unidades de 2, 4, 8, ... segundos (arredondadas para cima), o que nunca ultrapassa o limite.
+ *
+ * A escolha entre as várias combinações ótimas é aleatória: os elementos de cada grupo e a ordem dos grupos
+ * são baralhados antes da programação dinâmica.
+ */
+public final class Mochila {
+
+    /** Número máximo de células da programação dinâmica (grupos × limite) antes de aumentar a unidade */
+    static final long ORCAMENTO = 1L << 25;
+
+    /** Limite máximo, em unidades, da tabela da programação dinâmica */
+    static final int MAX_UNIDADES = 1 << 22;
+
+    /** Duração máxima, em unidades, para ordenar os candidatos por contagem em vez de por comparação */
+    private static final int MAX_CONTAGEM = 1 << 16;
+
+    /**
+     * Construtor privado, porque a classe só tem métodos estáticos.
+     */
+    private Mochila() {
+    }
+
+    /**
+     * Método que escolhe os elementos cuja soma das durações mais se aproxima do limite, sem o ultrapassar.
+     *
+     * Os elementos de duração 0 são sempre escolhidos e os de duração superior ao limite nunca o são.
+     *
+     * @param duracoes Duração de cada elemento, em segundos (não negativa)
+     * @param limite Soma máxima das durações
+     * @param random Gerador de números aleatórios
+     * @return Índices dos elementos escolhidos, por ordem aleatória
+     */
+    public static int[] preencher(int[] duracoes, int limite, Random random) {
+        if (limite < 0) {
+            return new int[0];
+        }
+
+        int[] escolhidos = new int[duracoes.length];
+        int numEscolhidos = 0;
+        int[] candidatos = new int[duracoes.length];
+        int numCandidatos = 0;
+        long total = 0;
+        for (int i = 0; i < duracoes.length; i++) {
+            if (duracoes[i] == 0) {
+                escolhidos[numEscolhidos++] = i;
+            } else if (duracoes[i] <= limite) {
+                candidatos[numCandidatos++] = i;
+                total += duracoes[i];
+            }
+        }
+
+        if (total <= limite) {
+            // Cabem todos, não é preciso escolher
+            System.arraycopy(candidatos, 0, escolhidos, numEscolhidos, numCandidatos);
+            numEscolhidos += numCandidatos;
+        } else {
+            long[] chaves = agrupar(duracoes, candidatos, numCandidatos, 1);
+            int janela = limite;
+            if (contarPecas(chaves, limite) * (limite + 1L) > ORCAMENTO) {
+                // A janela pode acabar maior do que o pedido (até ao dobro), daí a margem
+                while (janela > 1 && contarPecas(chaves, (int) Math.min(Integer.MAX_VALUE, 2L * janela)) * (2L * janela + 1) > ORCAMENTO) {
+                    janela /= 2;
+                }
+                baralhar(candidatos, 0, numCandidatos, random);
+            }
+
+            long tempo = 0;
+            int numResto = 0;
+            for (int j = 0; j < numCandidatos; j++) {
+                int i = candidatos[j];
+                if (tempo + duracoes[i] <= limite - janela) {
+                    escolhidos[numEscolhidos++] = i;
+                    tempo += duracoes[i];
+                } else {
+                    candidatos[numResto++] = i;
+                }
+            }
+            numEscolhidos = escolher(duracoes, candidatos, numResto, (int) (limite - tempo), random, escolhidos, numEscolhidos);
+        }
+
+        int[] resultado = Arrays.copyOf(escolhidos, numEscolhidos);
+        baralhar(resultado, 0, resultado.length, random);
+        return resultado;
+    }
+
+    /**
+     * Método que escolhe, por programação dinâmica, os candidatos cuja soma mais se aproxima do limite.
+     *
+     * @param duracoes Duração de cada elemento
+     * @param candidatos Índices dos candidatos (com duração positiva)
+     * @param numCandidatos Número de candidatos
+     * @param limite Soma máxima das durações
+     * @param random Gerador de números aleatórios
+     * @param escolhidos Array onde são acrescentados os índices escolhidos
+     * @param numEscolhidos Número de índices já em escolhidos
+     * @return Novo número de índices em escolhidos
+     */
+    private static int escolher(int[] duracoes, int[] candidatos, int numCandidatos, int limite, Random random,
+                                int[] escolhidos, int numEscolhidos) {
+        // Escolher a unidade: a menor potência de 2 que respeita o orçamento
+        int unidade = 1;
+        long[] chaves;
+        int capacidade;
+        while (true) {
+            chaves = agrupar(duracoes, candidatos, numCandidatos, unidade);
+            capacidade = limite / unidade;
+            long pecas = contarPecas(chaves, capacidade);
+            if (capacidade <= MAX_UNIDADES && pecas * (capacidade + 1L) <= ORCAMENTO) {
+                break;
+            }
+            unidade *= 2;
+        }
+
+        // Partir cada grupo de durações iguais em peças de 1, 2, 4, ... elementos
+        int[] ordem = new int[chaves.length];
+        for (int i = 0; i < chaves.length; i++) {
+            ordem[i] = (int) chaves[i];
+        }
+        int numPecas = (int) contarPecas(chaves, capacidade);
+        int[] inicioPeca = new int[numPecas];
+        int[] tamanhoPeca = new int[numPecas];
+        int[] pesoPeca = new int[numPecas];
+        int p = 0;
+        for (int a = 0; a < chaves.length; ) {
+            int peso = (int) (chaves[a] >>> 32);
+            int b = a;
+            while (b < chaves.length && (int) (chaves[b] >>> 32) == peso) {
+                b++;
+            }
+            int falta = Math.min(b - a, capacidade / peso);
+            // Só as primeiras falta posições do grupo podem ser usadas, basta sorteá-las
+            for (int i = a; i < a + falta; i++) {
+                int j = i + random.nextInt(b - i);
+                int t = ordem[i];
+                ordem[i] = ordem[j];
+                ordem[j] = t;
+            }
+            int posicao = a;
+            for (int k = 1; falta > 0; k *= 2) {
+                int t = Math.min(k, falta);
+                inicioPeca[p] = posicao;
+                tamanhoPeca[p] = t;
+                pesoPeca[p] = t * peso;
+                p++;
+                posicao += t;
+                falta -= t;
+            }
+            a = b;
+        }
+        int[] permutacao = new int[numPecas];
+        for (int i = 0; i < numPecas; i++) {
+            permutacao[i] = i;
+        }
+        baralhar(permutacao, 0, numPecas, random);
+
+        // primeira[t] = primeira peça (pela ordem da permutação) que atingiu a soma t, ou -1 se nenhuma atingiu
+        int[] primeira = new int[capacidade + 1];
+        Arrays.fill(primeira, -1);
+        primeira[0] = numPecas;
+        int melhor = 0;
+        for (int i = 0; i < numPecas && melhor < capacidade; i++) {
+            int peso = pesoPeca[permutacao[i]];
+            for (int t = capacidade; t >= peso; t--) {
+                // t - peso é percorrido depois de t, pelo que só pode ter sido atingido por peças anteriores
+                if (primeira[t] < 0 && primeira[t - peso] >= 0) {
+                    primeira[t] = i;
+                    if (t > melhor) {
+                        melhor = t;
+                    }
+                }
+            }
+        }
+
+        for (int t = melhor; t > 0; ) {
+            int peca = permutacao[primeira[t]];
+            for (int j = 0; j < tamanhoPeca[peca]; j++) {
+                escolhidos[numEscolhidos++] = ordem[inicioPeca[peca] + j];
+            }
+            t -= pesoPeca[peca];
+        }
+        return numEscolhidos;
+    }
+
+    /**
+     * Método que ordena os candidatos pela sua duração em unidades.
+     *
+     * @param duracoes Duração de cada elemento
+     * @param candidatos Índices dos candidatos (com duração positiva)
+     * @param numCandidatos Número de candidatos
+     * @param unidade Número de segundos de cada unidade
+     * @return Chaves ordenadas pela duração, com a duração em unidades (arredondada para cima) nos 32 bits altos e o índice nos baixos
+     */
+    private static long[] agrupar(int[] duracoes, int[] candidatos, int numCandidatos, int unidade) {
+        long[] chaves = new long[numCandidatos];
+        int max = 0;
+        for (int j = 0; j < numCandidatos; j++) {
+            int i = candidatos[j];
+            int peso = (int) ((duracoes[i] + (long) unidade - 1) / unidade);
+            chaves[j] = ((long) peso << 32) | i;
+            max = Math.max(max, peso);
+        }
+        if (max > MAX_CONTAGEM) {
+            Arrays.sort(chaves);
+            return chaves;
+        }
+
+        // As durações são poucas e pequenas: ordenação por contagem, em tempo linear
+        int[] inicio = new int[max + 2];
+        for (long chave : chaves) {
+            inicio[(int) (chave >>> 32) + 1]++;
+        }
+        for (int d = 1; d < inicio.length; d++) {
+            inicio[d] += inicio[d - 1];
+        }
+        long[] ordenadas = new long[numCandidatos];
+        for (long chave : chaves) {
+            ordenadas[inicio[(int) (chave >>> 32)]++] = chave;
+        }
+        return ordenadas;
+    }
+
+    /**
+     * Método que conta as peças em que os grupos de durações iguais são partidos.
+     *
+     * @param chaves Chaves ordenadas, como devolvidas por agrupar
+     * @param capacidade Limite em unidades
+     * @return Número de peças
+     */
+    private static long contarPecas(long[] chaves, int capacidade) {
+        long pecas = 0;
+        for (int a = 0; a < chaves.length; ) {
+            int peso = (int) (chaves[a] >>> 32);
+            int b = a;
+            while (b < chaves.length && (int) (chaves[b] >>> 32) == peso) {
+                b++;
+            }
+            int falta = Math.min(b - a, capacidade / peso);
+            for (int k = 1; falta > 0; k *= 2) {
+                falta -= Math.min(k, falta);
+                pecas++;
+            }
+            a = b;
+        }
+        return pecas;
+    }
+
+    /**
+     * Método que baralha uma parte de um array (Fisher-Yates).
+     *
+     * @param array Array
+     * @param inicio Primeira posição (inclusiva)
+     * @param fim Última posição (exclusiva)
+     * @param random Gerador de números aleatórios
+     */
+    private static void baralhar(int[] array, int inicio, int fim, Random random) {
+        for (int i = fim - 1; i > inicio; i--) {
+            int j = inicio + random.nextInt(i - inicio + 1);
+            int t = array[i];
+            array[i] = array[j];
+            array[j] = t;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package spotifyum.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Página de uma listagem ordenada por chave, com o cursor para pedir a página seguinte.
+ *
+ * O cursor é a última chave percorrida: a página seguinte começa na primeira chave maior do que ele,
+ * pelo que a paginação não salta nem repete entradas quando o catálogo é alterado entre páginas
+ * (as entradas acrescentadas depois do cursor aparecem nas páginas seguintes, as anteriores não).
+ *
+ * @param elementos Elementos da página, por ordem das chaves (só de leitura)
+ * @param cursorSeguinte Cursor da página seguinte, ou null se a listagem terminou
+ * @param <T> Tipo dos elementos
+ */
+public record Pagina<T>(List<T> elementos, String cursorSeguinte) {
+
+    /**
+     * Método que indica se há mais entradas depois desta página.
+     *
+     * Com um filtro, a página seguinte pode vir vazia se nenhuma das entradas restantes o cumprir.
+     *
+     * @return true se há uma página seguinte, false caso contrário
+     */
+    public boolean temSeguinte() {
+        return this.cursorSeguinte != null;
+    }
+
+    /**
+     * Método que lê uma página de um catálogo a partir das suas chaves ordenadas.
+     *
+     * São percorridas as chaves a seguir ao cursor até juntar {@code tamanho} elementos que cumpram
+     * o filtro; as chaves cujo elemento já não existe (removido entretanto) são ignoradas.
+     *
+     * @param chaves Chaves do catálogo, ordenadas
+     * @param obter Função que devolve o elemento de uma chave, ou null se não existir
+     * @param cursor Cursor devolvido pela página anterior, ou null para a primeira página
+     * @param tamanho Número máximo de elementos da página
+     * @param filtro Condição que os elementos têm de cumprir
+     * @param <T> Tipo dos elementos
+     * @return Página lida
+     */
+    public static <T> Pagina<T> ler(NavigableSet<String> chaves, Function<String, ? extends T> obter, String cursor,
+                                    int tamanho, Predicate<? super T> filtro) {
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException("Tamanho de página inválido: " + tamanho);
+        }
+        Iterator<String> it = (cursor == null ? chaves : chaves.tailSet(cursor, false)).iterator();
+        List<T> elementos = new ArrayList<>(Math.min(tamanho, 64));
+        String ultima = null;
+        while (elementos.size() < tamanho && it.hasNext()) {
+            ultima = it.next();
+            T elemento = obter.apply(ultima);
+            if (elemento != null && filtro.test(elemento)) {
+                elementos.add(elemento);
+            }
+        }
+        return new Pagina<>(Collections.unmodifiableList(elementos), it.hasNext() ? ultima : null);
+    }
+}
@@ -0,0 +1,55 @@
+package spotifyum.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Classe com a amostragem aleatória uniforme de tamanho fixo, usada pelas listas de favoritos.
+ *
+ * A amostra é equivalente a baralhar todos os elementos e ficar com os k primeiros,
+ * mas só sorteia k posições, em vez de copiar e baralhar a lista inteira.
+ */
+public final class Reservatorio {
+
+    /**
+     * Construtor privado, porque a classe só tem métodos estáticos.
+     */
+    private Reservatorio() {
+    }
+
+    /**
+     * Método que escolhe uma amostra aleatória uniforme de uma lista já em memória (algoritmo de Floyd).
+     *
+     * Não percorre a lista: sorteia apenas k posições distintas,
+     * pelo que o custo depende do tamanho da amostra e não do tamanho da lista.
+     *
+     * @param lista Lista de onde escolher (de acesso aleatório)
+     * @param k Tamanho máximo da amostra
+     * @param random Gerador de números aleatórios
+     * @param <T> Tipo dos elementos
+     * @return Lista com os elementos escolhidos, por ordem aleatória
+     */
+    public static <T> List<T> amostra(List<T> lista, int k, Random random) {
+        int n = lista.size();
+        if (k >= n) {
+            List<T> resultado = new ArrayList<>(lista);
+            Collections.shuffle(resultado, random);
+            return resultado;
+        }
+        List<T> resultado = new ArrayList<>(Math.max(0, k));
+        HashSet<Integer> escolhidas = new HashSet<>();
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int posicao = escolhidas.add(t) ? t : j;
+            if (posicao == j) {
+                escolhidas.add(j);
+            }
+            resultado.add(lista.get(posicao));
+        }
+        Collections.shuffle(resultado, random);
+        return resultado;
+    }
+}
@@ -0,0 +1,146 @@
+package spotifyum.util;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Classe com a seleção dos k maiores valores de um array, partilhada pelos rankings e pelas recomendações.
+ *
+ * Usa um heap mínimo com os k melhores índices vistos até ao momento, pelo que percorrer n valores
+ * custa O(n log k) e só ocupa O(k) memória, em vez de ordenar todos os valores para ficar com k.
+ */
+public final class Selecao {
+
+    /**
+     * Construtor privado, porque a classe só tem métodos estáticos.
+     */
+    private Selecao() {
+    }
+
+    /** Comparação entre dois índices */
+    @FunctionalInterface
+    private interface Comparacao {
+
+        /**
+         * Método que verifica se o elemento num índice fica à frente do elemento noutro índice.
+         *
+         * @param a Primeiro índice
+         * @param b Segundo índice
+         * @return true se o elemento em a ficar à frente do elemento em b
+         */
+        boolean melhor(int a, int b);
+    }
+
+    /**
+     * Método que devolve os índices dos k maiores valores positivos, por ordem decrescente de valor.
+     *
+     * Valores iguais ficam pela ordem dos índices, pelo que o resultado não depende da ordem do heap.
+     *
+     * @param valores Valores a considerar
+     * @param n Número de valores a considerar (os primeiros n do array)
+     * @param k Número máximo de índices a devolver
+     * @return Índices dos maiores valores (pode ter menos de k, se houver menos valores positivos)
+     */
+    public static int[] maiores(int[] valores, int n, int k) {
+        return maiores(n, k, i -> valores[i] > 0,
+                       (a, b) -> valores[a] > valores[b] || (valores[a] == valores[b] && a < b));
+    }
+
+    /**
+     * Método que devolve os índices dos k maiores valores positivos, por ordem decrescente de valor.
+     *
+     * Valores iguais ficam pela ordem dos índices, pelo que o resultado não depende da ordem do heap.
+     *
+     * @param valores Valores a considerar
+     * @param n Número de valores a considerar (os primeiros n do array)
+     * @param k Número máximo de índices a devolver
+     * @return Índices dos maiores valores (pode ter menos de k, se houver menos valores positivos)
+     */
+    public static int[] maiores(double[] valores, int n, int k) {
+        return maiores(n, k, i -> valores[i] > 0,
+                       (a, b) -> valores[a] > valores[b] || (valores[a] == valores[b] && a < b));
+    }
+
+    /**
+     * Método que devolve os k melhores índices válidos entre 0 e n - 1, do melhor para o pior.
+     *
+     * @param n Número de índices
+     * @param k Número máximo de índices a devolver
+     * @param valido Condição para um índice entrar na seleção
+     * @param comparacao Ordem entre os índices
+     * @return Índices selecionados
+     */
+    private static int[] maiores(int n, int k, IntPredicate valido, Comparacao comparacao) {
+        int[] heap = new int[Math.max(0, Math.min(k, n))];
+        int tamanho = 0;
+        for (int i = 0; i < n; i++) {
+            if (!valido.test(i)) {
+                continue;
+            }
+            if (tamanho < heap.length) {
+                heap[tamanho] = i;
+                subir(comparacao, heap, tamanho++);
+            } else if (heap.length > 0 && comparacao.melhor(i, heap[0])) {
+                heap[0] = i;
+                descer(comparacao, heap, tamanho);
+            }
+        }
+
+        // Esvaziar o heap do pior para o melhor
+        int[] resultado = new int[tamanho];
+        for (int i = tamanho - 1; i >= 0; i--) {
+            resultado[i] = heap[0];
+            heap[0] = heap[i];
+            descer(comparacao, heap, i);
+        }
+        return resultado;
+    }
+
+    /**
+     * Método que sobe um elemento do heap mínimo até à sua posição.
+     *
+     * @param comparacao Ordem entre os índices
+     * @param heap Heap de índices (o pior no topo)
+     * @param i Posição do elemento no heap
+     */
+    private static void subir(Comparacao comparacao, int[] heap, int i) {
+        while (i > 0) {
+            int pai = (i - 1) / 2;
+            if (!comparacao.melhor(heap[pai], heap[i])) {
+                break;
+            }
+            int t = heap[pai];
+            heap[pai] = heap[i];
+            heap[i] = t;
+            i = pai;
+        }
+    }
+
+    /**
+     * Método que desce o topo do heap mínimo até à sua posição.
+     *
+     * @param comparacao Ordem entre os índices
+     * @param heap Heap de índices (o pior no topo)
+     * @param n Número de elementos do heap
+     */
+    private static void descer(Comparacao comparacao, int[] heap, int n) {
+        int i = 0;
+        while (true) {
+            int pior = i;
+            int esq = 2 * i + 1;
+            int dir = esq + 1;
+            if (esq < n && comparacao.melhor(heap[pior], heap[esq])) {
+                pior = esq;
+            }
+            if (dir < n && comparacao.melhor(heap[pior], heap[dir])) {
+                pior = dir;
+            }
+            if (pior == i) {
+                return;
+            }
+            int t = heap[pior];
+            heap[pior] = heap[i];
+            heap[i] = t;
+            i = pior;
+        }
+    }
+}
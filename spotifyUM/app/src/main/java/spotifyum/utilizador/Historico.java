@@ -37,6 +37,18 @@ public class Historico implements Serializable{
         this.dataReproducao = LocalDate.now();
     }
     
+    /**
+     * Construtor parameterizado que inicializa o id da música e a data de reprodução
+     * com os valores passados como argumento.
+     * 
+     * @param idMusica ID da música reproduzida
+     * @param dataReproducao Data em que a música foi reproduzida
+     */
+    public Historico(String idMusica, LocalDate dataReproducao) {
+        this.idMusica = idMusica;
+        this.dataReproducao = dataReproducao;
+    }
+
     /**
      * Construtor de cópia que inicializa as variáveis de instância
      * com os valores do objeto passado como argumento.
@@ -0,0 +1,395 @@
+package spotifyum.utilizador;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import spotifyum.util.Dicionario;
+
+/**
+ * Classe que guarda o histórico de reprodução de um utilizador em colunas de inteiros.
+ *
+ * Em vez de um objeto Historico por reprodução, cada reprodução ocupa apenas o ordinal da música
+ * (ver {@link Dicionario#MUSICAS}) num bloco de inteiros. As datas são guardadas por sequências:
+ * reproduções consecutivas no mesmo dia partilham uma única entrada (dia, fim da sequência).
+ * Os blocos têm tamanho fixo, pelo que o histórico cresce sem copiar as reproduções já guardadas.
+ */
+public class HistoricoCompacto implements Serializable {
+
+    /** Número de bits do índice dentro de um bloco */
+    private static final int BITS_BLOCO = 12;
+
+    /** Número de reproduções por bloco */
+    private static final int TAMANHO_BLOCO = 1 << BITS_BLOCO;
+
+    /** Máscara do índice dentro de um bloco */
+    private static final int MASCARA_BLOCO = TAMANHO_BLOCO - 1;
+
+    /** Capacidade inicial do primeiro bloco, que cresce até TAMANHO_BLOCO */
+    private static final int CAPACIDADE_INICIAL = 8;
+
+    /** Blocos com os ordinais das músicas reproduzidas */
+    private transient int[][] blocos;
+
+    /** Número de reproduções guardadas */
+    private transient int tamanho;
+
+    /** Dia (em epoch days) de cada sequência de reproduções */
+    private transient int[] diasSequencia;
+
+    /** Índice (exclusivo) onde termina cada sequência de reproduções */
+    private transient int[] fimSequencia;
+
+    /** Número de sequências de reproduções */
+    private transient int numSequencias;
+
+    /** Vista só de leitura do histórico, criada na primeira utilização */
+    private transient List<Historico> vista;
+
+    /** Vista só de leitura dos IDs das músicas reproduzidas, criada na primeira utilização */
+    private transient List<String> vistaIdsMusicas;
+
+    /** Vista só de leitura do histórico como lista de Historico */
+    private class Vista extends AbstractList<Historico> implements RandomAccess {
+
+        @Override
+        public Historico get(int indice) {
+            return new Historico(getIdMusica(indice), getData(indice));
+        }
+
+        @Override
+        public int size() {
+            return tamanho;
+        }
+    }
+
+    /** Vista só de leitura dos IDs das músicas reproduzidas */
+    private class VistaIdsMusicas extends AbstractList<String> implements RandomAccess {
+
+        @Override
+        public String get(int indice) {
+            return getIdMusica(indice);
+        }
+
+        @Override
+        public int size() {
+            return tamanho;
+        }
+    }
+
+    /**
+     * Construtor vazio
+     *
+     * Cria um histórico sem reproduções.
+     */
+    public HistoricoCompacto() {
+        this.blocos = new int[1][];
+        this.tamanho = 0;
+        this.diasSequencia = new int[CAPACIDADE_INICIAL];
+        this.fimSequencia = new int[CAPACIDADE_INICIAL];
+        this.numSequencias = 0;
+    }
+
+    /**
+     * Construtor parametrizado
+     *
+     * Cria um histórico com as reproduções da lista passada como parâmetro.
+     *
+     * @param historico Lista de históricos de reprodução
+     */
+    public HistoricoCompacto(List<Historico> historico) {
+        this();
+        for (Historico h : historico) {
+            adicionar(h.getIdMusica(), h.getDataReproducao());
+        }
+    }
+
+    /**
+     * Construtor de cópia
+     *
+     * @param umHistorico Histórico a copiar
+     */
+    public HistoricoCompacto(HistoricoCompacto umHistorico) {
+        this.blocos = new int[umHistorico.blocos.length][];
+        for (int i = 0; i < umHistorico.blocos.length; i++) {
+            if (umHistorico.blocos[i] != null) {
+                this.blocos[i] = umHistorico.blocos[i].clone();
+            }
+        }
+        this.tamanho = umHistorico.tamanho;
+        this.diasSequencia = umHistorico.diasSequencia.clone();
+        this.fimSequencia = umHistorico.fimSequencia.clone();
+        this.numSequencias = umHistorico.numSequencias;
+    }
+
+    /**
+     * Método que devolve o número de reproduções guardadas.
+     *
+     * @return Número de reproduções
+     */
+    public int tamanho() {
+        return this.tamanho;
+    }
+
+    /**
+     * Método que adiciona uma reprodução ao histórico.
+     *
+     * @param idMusica ID da música reproduzida
+     * @param data Data da reprodução
+     */
+    public void adicionar(String idMusica, LocalDate data) {
+        adicionar(Dicionario.MUSICAS.getOrdinal(idMusica), (int) data.toEpochDay());
+    }
+
+    /**
+     * Método que adiciona uma reprodução ao histórico.
+     *
+     * @param ordinal Ordinal da música reproduzida
+     * @param dia Dia da reprodução, em epoch days
+     */
+    public void adicionar(int ordinal, int dia) {
+        garantirCapacidade(this.tamanho + 1);
+        this.blocos[this.tamanho >>> BITS_BLOCO][this.tamanho & MASCARA_BLOCO] = ordinal;
+        this.tamanho++;
+        registarDia(dia);
+    }
+
+    /**
+     * Método que adiciona várias reproduções do mesmo dia ao histórico.
+     *
+     * Os ordinais são copiados bloco a bloco, reservando o espaço de uma só vez para cada bloco.
+     *
+     * @param ordinais Ordinais das músicas reproduzidas, pela ordem das reproduções
+     * @param dia Dia das reproduções, em epoch days
+     */
+    public void adicionar(int[] ordinais, int dia) {
+        if (ordinais.length == 0) {
+            return;
+        }
+        int copiados = 0;
+        while (copiados < ordinais.length) {
+            int posicao = this.tamanho & MASCARA_BLOCO;
+            int n = Math.min(ordinais.length - copiados, TAMANHO_BLOCO - posicao);
+            garantirCapacidade(this.tamanho + n);
+            System.arraycopy(ordinais, copiados, this.blocos[this.tamanho >>> BITS_BLOCO], posicao, n);
+            this.tamanho += n;
+            copiados += n;
+        }
+        registarDia(dia);
+    }
+
+    /**
+     * Método que atualiza as sequências de dias depois de acrescentar reproduções de um dia ao fim do histórico.
+     *
+     * @param dia Dia das reproduções acrescentadas, em epoch days
+     */
+    private void registarDia(int dia) {
+        int ultima = this.numSequencias - 1;
+        if (ultima >= 0 && this.diasSequencia[ultima] == dia) {
+            this.fimSequencia[ultima] = this.tamanho;
+            return;
+        }
+        if (this.numSequencias == this.diasSequencia.length) {
+            this.diasSequencia = Arrays.copyOf(this.diasSequencia, this.numSequencias * 2);
+            this.fimSequencia = Arrays.copyOf(this.fimSequencia, this.numSequencias * 2);
+        }
+        this.diasSequencia[this.numSequencias] = dia;
+        this.fimSequencia[this.numSequencias] = this.tamanho;
+        this.numSequencias++;
+    }
+
+    /**
+     * Método que devolve o ordinal da música na posição indicada.
+     *
+     * @param indice Posição da reprodução
+     * @return Ordinal da música
+     */
+    public int getOrdinal(int indice) {
+        verificarIndice(indice);
+        return this.blocos[indice >>> BITS_BLOCO][indice & MASCARA_BLOCO];
+    }
+
+    /**
+     * Método que devolve o ID da música na posição indicada.
+     *
+     * @param indice Posição da reprodução
+     * @return ID da música
+     */
+    public String getIdMusica(int indice) {
+        return Dicionario.MUSICAS.getValor(getOrdinal(indice));
+    }
+
+    /**
+     * Método que devolve o dia da reprodução na posição indicada.
+     *
+     * @param indice Posição da reprodução
+     * @return Dia da reprodução, em epoch days
+     */
+    public int getDia(int indice) {
+        verificarIndice(indice);
+        int lo = 0;
+        int hi = this.numSequencias - 1;
+        while (lo < hi) {
+            int meio = (lo + hi) >>> 1;
+            if (this.fimSequencia[meio] > indice) {
+                hi = meio;
+            } else {
+                lo = meio + 1;
+            }
+        }
+        return this.diasSequencia[lo];
+    }
+
+    /**
+     * Método que devolve a data da reprodução na posição indicada.
+     *
+     * @param indice Posição da reprodução
+     * @return Data da reprodução
+     */
+    public LocalDate getData(int indice) {
+        return LocalDate.ofEpochDay(getDia(indice));
+    }
+
+    /**
+     * Método que devolve o número de sequências de reproduções (reproduções consecutivas no mesmo dia).
+     *
+     * @return Número de sequências
+     */
+    public int getNumSequencias() {
+        return this.numSequencias;
+    }
+
+    /**
+     * Método que devolve o dia de uma sequência de reproduções.
+     *
+     * @param sequencia Índice da sequência
+     * @return Dia da sequência, em epoch days
+     */
+    public int getDiaSequencia(int sequencia) {
+        return this.diasSequencia[sequencia];
+    }
+
+    /**
+     * Método que devolve a posição (exclusiva) onde termina uma sequência de reproduções.
+     *
+     * @param sequencia Índice da sequência
+     * @return Posição seguinte à última reprodução da sequência
+     */
+    public int getFimSequencia(int sequencia) {
+        return this.fimSequencia[sequencia];
+    }
+
+    /**
+     * Método que devolve o histórico como lista de objetos Historico.
+     *
+     * A lista é criada a cada invocação, por compatibilidade com o resto da aplicação.
+     *
+     * @return Lista de históricos de reprodução
+     */
+    public List<Historico> getHistorico() {
+        List<Historico> lista = new ArrayList<>(this.tamanho);
+        int inicio = 0;
+        for (int s = 0; s < this.numSequencias; s++) {
+            LocalDate data = LocalDate.ofEpochDay(this.diasSequencia[s]);
+            for (int i = inicio; i < this.fimSequencia[s]; i++) {
+                lista.add(new Historico(getIdMusica(i), data));
+            }
+            inicio = this.fimSequencia[s];
+        }
+        return lista;
+    }
+
+    /**
+     * Método que devolve uma vista só de leitura do histórico.
+     *
+     * A vista não copia as reproduções: cada elemento é criado quando é lido
+     * e as reproduções adicionadas depois passam a fazer parte da vista.
+     *
+     * @return Vista só de leitura do histórico
+     */
+    public List<Historico> vista() {
+        if (this.vista == null) {
+            this.vista = new Vista();
+        }
+        return this.vista;
+    }
+
+    /**
+     * Método que devolve uma vista só de leitura dos IDs das músicas reproduzidas, por ordem de reprodução.
+     *
+     * Os IDs vêm do dicionário de músicas, pelo que ler a vista não cria objetos.
+     *
+     * @return Vista só de leitura dos IDs das músicas
+     */
+    public List<String> vistaIdsMusicas() {
+        if (this.vistaIdsMusicas == null) {
+            this.vistaIdsMusicas = new VistaIdsMusicas();
+        }
+        return this.vistaIdsMusicas;
+    }
+
+    /**
+     * Método que devolve uma cópia do histórico.
+     *
+     * @return Cópia do histórico
+     */
+    @Override
+    public HistoricoCompacto clone() {
+        return new HistoricoCompacto(this);
+    }
+
+    /**
+     * Método que devolve uma representação textual do histórico,
+     * igual à concatenação das representações de cada Historico.
+     *
+     * @return String com o histórico de reprodução
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int inicio = 0;
+        for (int s = 0; s < this.numSequencias; s++) {
+            LocalDate data = LocalDate.ofEpochDay(this.diasSequencia[s]);
+            for (int i = inicio; i < this.fimSequencia[s]; i++) {
+                sb.append("Música: ").append(getIdMusica(i)).append(" -> ");
+                sb.append("Data: ").append(data).append("\n");
+            }
+            inicio = this.fimSequencia[s];
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Método que garante que existe espaço para a capacidade indicada.
+     *
+     * @param capacidade Número de reproduções a guardar
+     */
+    private void garantirCapacidade(int capacidade) {
+        int ultimo = capacidade - 1;
+        int bloco = ultimo >>> BITS_BLOCO;
+        if (bloco >= this.blocos.length) {
+            this.blocos = Arrays.copyOf(this.blocos, Math.max(bloco + 1, this.blocos.length * 2));
+        }
+        if (this.blocos[bloco] == null) {
+            this.blocos[bloco] = new int[bloco == 0 ? Math.max(CAPACIDADE_INICIAL, capacidade) : TAMANHO_BLOCO];
+        } else if (bloco == 0 && ultimo >= this.blocos[0].length) {
+            // Só o primeiro bloco cresce, para que utilizadores com poucas reproduções ocupem pouco
+            this.blocos[0] = Arrays.copyOf(this.blocos[0], Math.min(Math.max(this.blocos[0].length * 2, capacidade), TAMANHO_BLOCO));
+        }
+    }
+
+    /**
+     * Método que verifica se um índice é válido.
+     *
+     * @param indice Índice a verificar
+     */
+    private void verificarIndice(int indice) {
+        if (indice < 0 || indice >= this.tamanho) {
+            throw new IndexOutOfBoundsException("Índice inválido: " + indice);
+        }
+    }
+}
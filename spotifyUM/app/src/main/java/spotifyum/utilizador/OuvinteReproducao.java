@@ -0,0 +1,34 @@
+package spotifyum.utilizador;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import spotifyum.musica.Musica;
+
+/**
+ * Interface Funcional com o método reproducaoRegistada.
+ */
+public interface OuvinteReproducao {
+     /**
+      * Método reproducaoRegistada
+      * Este método é invocado sempre que um utilizador termina de ouvir uma música.
+      * @param u Utilizador que ouviu a música
+      * @param m Música ouvida
+      * @param data Data da reprodução
+      */
+     public void reproducaoRegistada(Utilizador u, Musica m, LocalDate data);
+
+     /**
+      * Método reproducoesRegistadas
+      * Este método é invocado quando um utilizador termina de ouvir um lote de músicas na mesma data.
+      * Por omissão, trata cada música como uma reprodução isolada.
+      * @param u Utilizador que ouviu as músicas
+      * @param musicas Músicas ouvidas, pela ordem das reproduções
+      * @param data Data das reproduções
+      */
+     public default void reproducoesRegistadas(Utilizador u, List<Musica> musicas, LocalDate data) {
+          for (Musica m : musicas) {
+               reproducaoRegistada(u, m, data);
+          }
+     }
+}
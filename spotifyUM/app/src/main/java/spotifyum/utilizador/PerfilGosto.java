@@ -0,0 +1,290 @@
+package spotifyum.utilizador;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import spotifyum.musica.Musica;
+import spotifyum.util.Contador;
+import spotifyum.util.Selecao;
+
+/**
+ * Classe que mantém o perfil de gosto de um utilizador: o peso de cada género e de cada artista que ouviu.
+ *
+ * O perfil é atualizado a cada reprodução, pelo que escolher os géneros e artistas preferidos
+ * não depende do tamanho do histórico, apenas do número de géneros e artistas distintos.
+ *
+ * Opcionalmente, os pesos decaem com o tempo (meia-vida em dias), para que as reproduções recentes
+ * contem mais do que as antigas. É usado decaimento "para a frente": em vez de reduzir todos os pesos
+ * a cada dia, cada reprodução soma 2^(dias desde a referência / meia-vida), o que dá a mesma ordem que
+ * os pesos decaídos em qualquer data. Sem decaimento, os pesos são o número de reproduções.
+ */
+public class PerfilGosto implements Serializable {
+
+    /** Peso a partir do qual todos os pesos são reescalados, para não sair da gama dos doubles */
+    private static final double LIMITE_PESO = 1e200;
+
+    /** Meia-vida dos pesos em dias (0 sem decaimento) */
+    private final double meiaVida;
+
+    /** Dia de referência do decaimento (dias desde a época) */
+    private long diaReferencia;
+
+    /** Número de reproduções registadas */
+    private long reproducoes;
+
+    /** Posições dos géneros nos arrays de pesos (e número de reproduções de cada um) */
+    private final Contador<String> generos;
+
+    /** Peso de cada género, pela posição no contador de géneros */
+    private double[] pesosGeneros;
+
+    /** Posições dos artistas nos arrays de pesos (e número de reproduções de cada um) */
+    private final Contador<String> artistas;
+
+    /** Peso de cada artista, pela posição no contador de artistas */
+    private double[] pesosArtistas;
+
+    /**
+     * Construtor vazio
+     *
+     * Cria um perfil sem reproduções e sem decaimento.
+     */
+    public PerfilGosto() {
+        this(0);
+    }
+
+    /**
+     * Construtor parametrizado
+     *
+     * @param meiaVida Meia-vida dos pesos em dias (0 sem decaimento)
+     */
+    public PerfilGosto(double meiaVida) {
+        if (meiaVida < 0 || Double.isNaN(meiaVida)) {
+            throw new IllegalArgumentException("Meia-vida inválida: " + meiaVida);
+        }
+        this.meiaVida = meiaVida;
+        this.diaReferencia = Long.MIN_VALUE;
+        this.reproducoes = 0;
+        this.generos = new Contador<>();
+        this.pesosGeneros = new double[8];
+        this.artistas = new Contador<>();
+        this.pesosArtistas = new double[8];
+    }
+
+    /**
+     * Construtor de cópia
+     *
+     * @param outro Perfil a copiar
+     */
+    public PerfilGosto(PerfilGosto outro) {
+        this.meiaVida = outro.meiaVida;
+        this.diaReferencia = outro.diaReferencia;
+        this.reproducoes = outro.reproducoes;
+        this.generos = new Contador<>(outro.generos);
+        this.pesosGeneros = outro.pesosGeneros.clone();
+        this.artistas = new Contador<>(outro.artistas);
+        this.pesosArtistas = outro.pesosArtistas.clone();
+    }
+
+    /**
+     * Método que devolve a meia-vida dos pesos.
+     *
+     * @return Meia-vida em dias (0 sem decaimento)
+     */
+    public double getMeiaVida() {
+        return this.meiaVida;
+    }
+
+    /**
+     * Método que devolve o número de reproduções registadas no perfil.
+     *
+     * Como só aumenta, serve para saber se o perfil mudou desde uma dada altura.
+     *
+     * @return Número de reproduções
+     */
+    public long getReproducoes() {
+        return this.reproducoes;
+    }
+
+    /**
+     * Método que regista uma reprodução no perfil.
+     *
+     * @param genero Género da música ouvida
+     * @param artista Artista da música ouvida
+     * @param data Data da reprodução
+     */
+    public void registar(String genero, String artista, LocalDate data) {
+        registar(genero, artista, data.toEpochDay());
+    }
+
+    /**
+     * Método que regista uma reprodução no perfil.
+     *
+     * @param genero Género da música ouvida
+     * @param artista Artista da música ouvida
+     * @param dia Dia da reprodução (dias desde a época)
+     */
+    public void registar(String genero, String artista, long dia) {
+        somarReproducao(genero, artista, peso(dia));
+    }
+
+    /**
+     * Método que regista várias reproduções do mesmo dia no perfil.
+     *
+     * O peso do dia é calculado uma única vez para todas as reproduções.
+     *
+     * @param musicas Músicas ouvidas
+     * @param dia Dia das reproduções (dias desde a época)
+     */
+    public void registar(Collection<Musica> musicas, long dia) {
+        if (musicas.isEmpty()) {
+            return;
+        }
+        double peso = peso(dia);
+        for (Musica m : musicas) {
+            somarReproducao(m.getGenero(), m.getArtista(), peso);
+        }
+    }
+
+    private void somarReproducao(String genero, String artista, double peso) {
+        this.reproducoes++;
+        int g = this.generos.posicao(genero);
+        this.generos.incrementar(genero, 1);
+        this.pesosGeneros = somar(this.pesosGeneros, g, peso);
+        int a = this.artistas.posicao(artista);
+        this.artistas.incrementar(artista, 1);
+        this.pesosArtistas = somar(this.pesosArtistas, a, peso);
+    }
+
+    /**
+     * Método que devolve os géneros com maior peso.
+     *
+     * @param n Número máximo de géneros
+     * @return Lista com os géneros preferidos, por ordem decrescente de peso
+     */
+    public List<String> getGenerosPreferidos(int n) {
+        return preferidos(this.generos, this.pesosGeneros, n);
+    }
+
+    /**
+     * Método que devolve os artistas com maior peso.
+     *
+     * @param n Número máximo de artistas
+     * @return Lista com os artistas preferidos, por ordem decrescente de peso
+     */
+    public List<String> getArtistasPreferidos(int n) {
+        return preferidos(this.artistas, this.pesosArtistas, n);
+    }
+
+    /**
+     * Método que devolve o peso de um género, relativo ao dia de referência.
+     *
+     * @param genero Género
+     * @return Peso do género (número de reproduções, sem decaimento)
+     */
+    public double getPesoGenero(String genero) {
+        return peso(this.generos, this.pesosGeneros, genero);
+    }
+
+    /**
+     * Método que devolve o peso de um artista, relativo ao dia de referência.
+     *
+     * @param artista Artista
+     * @return Peso do artista (número de reproduções, sem decaimento)
+     */
+    public double getPesoArtista(String artista) {
+        return peso(this.artistas, this.pesosArtistas, artista);
+    }
+
+    /**
+     * Método que calcula o peso de uma reprodução num dia.
+     *
+     * A primeira reprodução fixa o dia de referência. Se o peso ficar demasiado grande,
+     * todos os pesos são reescalados para um novo dia de referência.
+     *
+     * @param dia Dia da reprodução (dias desde a época)
+     * @return Peso da reprodução
+     */
+    private double peso(long dia) {
+        if (this.meiaVida == 0) {
+            return 1;
+        }
+        if (this.diaReferencia == Long.MIN_VALUE) {
+            this.diaReferencia = dia;
+        }
+        double peso = Math.pow(2, (dia - this.diaReferencia) / this.meiaVida);
+        if (peso > LIMITE_PESO) {
+            double fator = 1 / peso;
+            escalar(this.pesosGeneros, this.generos.tamanho(), fator);
+            escalar(this.pesosArtistas, this.artistas.tamanho(), fator);
+            this.diaReferencia = dia;
+            peso = 1;
+        }
+        return peso;
+    }
+
+    /**
+     * Método que multiplica os primeiros n pesos por um fator.
+     *
+     * @param pesos Pesos
+     * @param n Número de pesos
+     * @param fator Fator
+     */
+    private static void escalar(double[] pesos, int n, double fator) {
+        for (int i = 0; i < n; i++) {
+            pesos[i] *= fator;
+        }
+    }
+
+    /**
+     * Método que soma um peso numa posição, aumentando o array se necessário.
+     *
+     * @param pesos Pesos
+     * @param posicao Posição
+     * @param peso Peso a somar
+     * @return O array de pesos (um novo array, se teve de crescer)
+     */
+    private static double[] somar(double[] pesos, int posicao, double peso) {
+        if (posicao >= pesos.length) {
+            pesos = Arrays.copyOf(pesos, Math.max(posicao + 1, pesos.length * 2));
+        }
+        pesos[posicao] += peso;
+        return pesos;
+    }
+
+    /**
+     * Método que devolve as chaves com maior peso.
+     *
+     * @param chaves Contador com as posições das chaves
+     * @param pesos Pesos pela posição
+     * @param n Número máximo de chaves
+     * @return Lista com as chaves, por ordem decrescente de peso
+     */
+    private static List<String> preferidos(Contador<String> chaves, double[] pesos, int n) {
+        int[] posicoes = Selecao.maiores(pesos, chaves.tamanho(), n);
+        List<String> resultado = new ArrayList<>(posicoes.length);
+        for (int posicao : posicoes) {
+            resultado.add(chaves.getChave(posicao));
+        }
+        return resultado;
+    }
+
+    /**
+     * Método que devolve o peso de uma chave.
+     *
+     * @param chaves Contador com as posições das chaves
+     * @param pesos Pesos pela posição
+     * @param chave Chave
+     * @return Peso da chave, ou 0 se não existir
+     */
+    private static double peso(Contador<String> chaves, double[] pesos, String chave) {
+        if (chaves.get(chave) == 0) {
+            return 0;
+        }
+        return pesos[chaves.posicao(chave)];
+    }
+}
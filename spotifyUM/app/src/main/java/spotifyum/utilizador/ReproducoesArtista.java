@@ -0,0 +1,9 @@
+package spotifyum.utilizador;
+
+/**
+ * Número de reproduções de um artista por um utilizador.
+ *
+ * @param artista Nome do artista
+ * @param reproducoes Número de reproduções
+ */
+public record ReproducoesArtista(String artista, int reproducoes) {}
@@ -1,8 +1,7 @@
 package spotifyum.utilizador;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -14,6 +13,8 @@ import spotifyum.mvc.SpotifyumController;
 import spotifyum.planos.PlanoPremiumTop;
 import spotifyum.planos.PlanoSubscricao;
 import spotifyum.playlist.Playlist;
+import spotifyum.util.Contador;
+import spotifyum.util.Dicionario;
 
 /** Um utilizador do SpotifyUM */
 public class Utilizador implements Serializable {
@@ -42,11 +43,20 @@ public class Utilizador implements Serializable {
     /** Número de músicas ouvidas pelo utilizador */
     private int numMusicas;
 
-    /** Lista de históricos de reprodução do utilizador com Id da música e data*/
-    private List<Historico> historico;
+    /** Histórico de reprodução do utilizador com Id da música e data, guardado em colunas */
+    private HistoricoCompacto historico;
 
-    /** Mapa que associa artistas a números de reproduções ouvidos pelo utilizador */
-    private Map<String, Integer> historicoArtistas;
+    /** Contador que associa artistas a números de reproduções ouvidos pelo utilizador */
+    private Contador<String> historicoArtistas;
+
+    /** Perfil de gosto (pesos dos géneros e artistas), atualizado a cada reprodução e reconstruído pelo model ao carregar */
+    private transient PerfilGosto perfil;
+
+    /** Ouvinte notificado sempre que o utilizador ouve uma música */
+    private transient OuvinteReproducao ouvinte;
+
+    /** Lock sob o qual as reproduções são registadas (o do model, ou o próprio utilizador se não estiver definido) */
+    private transient Object lockReproducoes;
 
     /** 
      * Construtor vazio 
@@ -64,8 +74,9 @@ public class Utilizador implements Serializable {
         this.pontos = 0.0;
         this.plano = null;
         this.numMusicas = 0;
-        this.historico = new ArrayList<>();
-        this.historicoArtistas = new HashMap<>();
+        this.historico = new HistoricoCompacto();
+        this.historicoArtistas = new Contador<>();
+        this.perfil = new PerfilGosto();
     }
 
     /** 
@@ -88,8 +99,9 @@ public class Utilizador implements Serializable {
         this.pontos = 0.0;
         setPlano(plano);
         this.numMusicas = 0;
-        this.historico = new ArrayList<>();
-        this.historicoArtistas = new HashMap<>();
+        this.historico = new HistoricoCompacto();
+        this.historicoArtistas = new Contador<>();
+        this.perfil = new PerfilGosto();
     }
 
     /** 
@@ -108,8 +120,9 @@ public class Utilizador implements Serializable {
         this.pontos = umUtilizador.getPontos();
         this.plano = umUtilizador.getPlano();
         this.numMusicas = umUtilizador.getNumMusicas();
-        this.historico = umUtilizador.getHistorico();
-        this.historicoArtistas = umUtilizador.getHistoricoArtistas();
+        this.historico = umUtilizador.historico.clone();
+        this.historicoArtistas = new Contador<>(umUtilizador.historicoArtistas);
+        this.perfil = new PerfilGosto(umUtilizador.getPerfil());
     }
 
     /**
@@ -181,7 +194,47 @@ public class Utilizador implements Serializable {
      * @return Lista de históricos de reprodução do utilizador
      */
     public List<Historico> getHistorico(){
-        return new ArrayList<>(this.historico);
+        return this.historico.getHistorico();
+    }
+
+    /**
+     * Método que devolve o histórico compacto do utilizador, sem o copiar.
+     * 
+     * Destina-se à escrita de snapshots e à indexação das estatísticas; o histórico devolvido não deve ser alterado.
+     * 
+     * @return Histórico compacto do utilizador
+     */
+    public HistoricoCompacto getHistoricoCompacto(){
+        return this.historico;
+    }
+
+    /**
+     * Método que devolve se o utilizador já recebeu o bónus de adesão ao PlanoPremiumTop.
+     * 
+     * @return true se já recebeu o bónus, false caso contrário
+     */
+    public boolean getRecebeuBonusTop(){
+        return this.recebeuBonusTop;
+    }
+
+    /**
+     * Método que devolve uma vista só de leitura do histórico de reprodução do utilizador.
+     * 
+     * Ao contrário de getHistorico, não copia o histórico.
+     * 
+     * @return Vista só de leitura do histórico de reprodução
+     */
+    public List<Historico> getHistoricoVista(){
+        return this.historico.vista();
+    }
+
+    /**
+     * Método que devolve uma vista só de leitura dos IDs das músicas ouvidas pelo utilizador, por ordem.
+     * 
+     * @return Vista só de leitura dos IDs das músicas do histórico
+     */
+    public List<String> getIdsMusicasHistorico(){
+        return this.historico.vistaIdsMusicas();
     }
 
     /**
@@ -190,7 +243,67 @@ public class Utilizador implements Serializable {
      * @return Mapa que associa artistas a números de reproduções ouvidos pelo utilizador
      */
     public Map<String, Integer> getHistoricoArtistas(){
-        return new HashMap<>(this.historicoArtistas);
+        return this.historicoArtistas.paraMap();
+    }
+
+    /**
+     * Método que devolve o perfil de gosto do utilizador.
+     * 
+     * @return Perfil de gosto (não é copiado)
+     */
+    public PerfilGosto getPerfil(){
+        if(this.perfil == null){
+            this.perfil = new PerfilGosto();
+        }
+        return this.perfil;
+    }
+
+    /**
+     * Método que substitui o perfil de gosto do utilizador (por exemplo, depois de o reconstruir a partir do histórico).
+     * 
+     * @param novoPerfil Novo perfil de gosto
+     */
+    public void setPerfil(PerfilGosto novoPerfil){
+        this.perfil = novoPerfil;
+    }
+
+    /**
+     * Método que devolve o número de artistas distintos do histórico de artistas.
+     * 
+     * @return Número de artistas
+     */
+    public int getNumArtistas(){
+        return this.historicoArtistas.tamanho();
+    }
+
+    /**
+     * Método que devolve o artista numa posição do histórico de artistas.
+     * 
+     * @param i Posição, entre 0 e getNumArtistas() - 1, pela ordem em que os artistas foram ouvidos pela primeira vez
+     * @return Nome do artista
+     */
+    public String getArtista(int i){
+        return this.historicoArtistas.getChave(i);
+    }
+
+    /**
+     * Método que devolve o número de reproduções do artista numa posição do histórico de artistas.
+     * 
+     * @param i Posição, entre 0 e getNumArtistas() - 1
+     * @return Número de reproduções do artista
+     */
+    public int getReproducoesArtista(int i){
+        return this.historicoArtistas.getValor(i);
+    }
+
+    /**
+     * Método que devolve os artistas mais ouvidos pelo utilizador, sem copiar o histórico de artistas.
+     * 
+     * @param n Número máximo de artistas
+     * @return Lista com os artistas mais ouvidos, por ordem decrescente de reproduções
+     */
+    public List<String> getArtistasMaisOuvidos(int n){
+        return this.historicoArtistas.maisFrequentes(n);
     }
 
     /**
@@ -266,7 +379,27 @@ public class Utilizador implements Serializable {
      * @param novoHistorico Novo histórico de reprodução do utilizador
      */
     public void setHistorico(List<Historico> novoHistorico){
-        this.historico = new ArrayList<>(novoHistorico);
+        this.historico = new HistoricoCompacto(novoHistorico);
+    }
+
+    /**
+     * Método que define o histórico compacto do utilizador, sem o copiar.
+     * 
+     * Destina-se à leitura de snapshots; o utilizador passa a ser o dono do histórico.
+     * 
+     * @param novoHistorico Novo histórico compacto
+     */
+    public void setHistoricoCompacto(HistoricoCompacto novoHistorico){
+        this.historico = novoHistorico;
+    }
+
+    /**
+     * Método que define se o utilizador já recebeu o bónus de adesão ao PlanoPremiumTop.
+     * 
+     * @param recebeu true se já recebeu o bónus
+     */
+    public void setRecebeuBonusTop(boolean recebeu){
+        this.recebeuBonusTop = recebeu;
     }
 
     /**
@@ -275,7 +408,44 @@ public class Utilizador implements Serializable {
      * @param novoHistoricoArtistas Novo histórico de artistas do utilizador
      */
     public void setHistoricoArtistas(Map<String, Integer> novoHistoricoArtistas){
-        this.historicoArtistas = new HashMap<>(novoHistoricoArtistas);
+        Contador<String> novo = new Contador<>();
+        for (Map.Entry<String, Integer> entry : novoHistoricoArtistas.entrySet()) {
+            novo.definir(Dicionario.ARTISTAS.canonico(entry.getKey()), entry.getValue());
+        }
+        this.historicoArtistas = novo;
+    }
+
+    /**
+     * Método que define o ouvinte notificado sempre que o utilizador ouve uma música.
+     * 
+     * O ouvinte não é copiado pelo construtor de cópia nem guardado em ficheiro.
+     * 
+     * @param novoOuvinte Novo ouvinte, ou null para deixar de notificar
+     */
+    public void setOuvinte(OuvinteReproducao novoOuvinte){
+        this.ouvinte = novoOuvinte;
+    }
+
+    /**
+     * Método que define o lock sob o qual as reproduções ouvidas pelo utilizador são registadas.
+     * 
+     * O model usa o lock das restantes operações sobre o utilizador, para que o registo de uma reprodução
+     * não se cruze com elas. Tal como o ouvinte, o lock não é copiado nem guardado em ficheiro.
+     * 
+     * @param lock Lock a usar, ou null para usar o próprio utilizador
+     */
+    public void setLockReproducoes(Object lock){
+        this.lockReproducoes = lock;
+    }
+
+    /**
+     * Método que devolve o lock sob o qual as reproduções são registadas.
+     * 
+     * @return Lock definido pelo model, ou o próprio utilizador
+     */
+    private Object getLockReproducoes(){
+        Object lock = this.lockReproducoes;
+        return lock != null ? lock : this;
     }
 
     /**
@@ -319,11 +489,7 @@ public class Utilizador implements Serializable {
      * @return String com o histórico de reprodução do utilizador
      */
     public String toStringHistorico() {
-        StringBuilder sb = new StringBuilder();
-        for(Historico h : this.historico){
-            sb.append(h.toString());
-        }
-        return sb.toString();
+        return this.historico.toString();
     }
 
     /**
@@ -334,11 +500,11 @@ public class Utilizador implements Serializable {
     public String toStringHistoricoArtistas() {
         StringBuilder sb = new StringBuilder();
     
-        for (Map.Entry<String, Integer> entry : historicoArtistas.entrySet()) {
+        for (int i = 0; i < this.historicoArtistas.tamanho(); i++) {
             sb.append("Artista: \"")
-              .append(entry.getKey())
+              .append(this.historicoArtistas.getChave(i))
               .append("\" -> NumReproducoes: \"")
-              .append(entry.getValue())
+              .append(this.historicoArtistas.getValor(i))
               .append("\"\n");
         }
         return sb.toString();
@@ -390,17 +556,30 @@ public class Utilizador implements Serializable {
      * @param idMusica ID da música ouvida
      */
     public void atualizarHistorico(String idMusica) {
-        Historico h = new Historico(idMusica);
-        this.historico.add(h);
+        atualizarHistorico(idMusica, LocalDate.now());
+    }
+
+    /**
+     * Método que atualiza o histórico de reprodução do utilizador com uma reprodução numa data.
+     * 
+     * @param idMusica ID da música ouvida
+     * @param data Data da reprodução
+     */
+    public void atualizarHistorico(String idMusica, LocalDate data) {
+        this.historico.adicionar(idMusica, data);
     }
 
     /**
      * Método que atualiza o histórico de artistas do utilizador.
      * 
+     * As chaves são as instâncias partilhadas do dicionário de artistas, pelo que o nome
+     * de cada artista é guardado uma única vez para todos os utilizadores. Incrementar um
+     * artista já ouvido não aloca memória.
+     * 
      * @param artista Nome do artista ouvido
      */
     public void atualizarHistoricoArtistas(String artista) {
-        this.historicoArtistas.merge(artista, 1, Integer::sum);
+        this.historicoArtistas.incrementar(Dicionario.ARTISTAS.canonico(artista), 1);
     }
 
     /**
@@ -415,14 +594,107 @@ public class Utilizador implements Serializable {
     /**
      * Método que ouve uma música.
      * 
+     * A música é reproduzida (o que pode demorar) antes de tomar o lock das reproduções, que só é
+     * mantido enquanto a reprodução é registada.
+     * 
      * @param m Música a ouvir
      */
     public void ouvirMusica(Musica m){
+        LocalDate data = LocalDate.now();
         m.reproduzir();
+        synchronized (getLockReproducoes()) {
+            registarReproducao(m, data);
+        }
+    }
+
+    /**
+     * Método que regista uma reprodução de uma música numa data, sem a reproduzir.
+     * 
+     * Atualiza os pontos, o número de músicas e os históricos, e notifica o ouvinte. É usado por
+     * {@link #ouvirMusica(Musica)} e para reaplicar reproduções já feitas (por exemplo, a partir do diário).
+     * 
+     * @param m Música ouvida
+     * @param data Data da reprodução
+     */
+    public void registarReproducao(Musica m, LocalDate data){
         this.atualizarPontos();
         this.atualizarNumMusicas();
-        this.atualizarHistorico(m.getId());
+        this.atualizarHistorico(m.getId(), data);
         this.atualizarHistoricoArtistas(m.getArtista());
+        this.getPerfil().registar(m.getGenero(), m.getArtista(), data);
+        if(this.ouvinte != null){
+            this.ouvinte.reproducaoRegistada(this, m, data);
+        }
+    }
+
+    /**
+     * Método que ouve várias músicas seguidas, como um lote.
+     * 
+     * Cada música é reproduzida pela ordem dada, sem nenhum lock, e as reproduções são depois registadas
+     * de uma só vez com {@link #registarLote(List, LocalDate)}, sob o lock das reproduções.
+     * 
+     * @param musicas Músicas a ouvir
+     */
+    public void ouvirLote(List<Musica> musicas){
+        LocalDate data = LocalDate.now();
+        for (Musica m : musicas) {
+            m.reproduzir();
+        }
+        synchronized (getLockReproducoes()) {
+            registarLote(musicas, data);
+        }
+    }
+
+    /**
+     * Método que regista várias reproduções numa data, sem as reproduzir.
+     * 
+     * Tem o mesmo efeito que registar cada reprodução com {@link #registarReproducao(Musica, LocalDate)},
+     * mas numa só passagem: os pontos das n músicas são calculados de uma vez pelo plano, o histórico
+     * reserva o espaço de uma vez, cada artista é incrementado uma única vez com o seu total e o ouvinte
+     * é notificado uma única vez com o lote inteiro.
+     * 
+     * @param musicas Músicas ouvidas, pela ordem das reproduções
+     * @param data Data das reproduções
+     */
+    public void registarLote(List<Musica> musicas, LocalDate data){
+        if (musicas.isEmpty()) {
+            return;
+        }
+        aplicarLote(musicas, data);
+        if(this.ouvinte != null){
+            this.ouvinte.reproducoesRegistadas(this, musicas, data);
+        }
+    }
+
+    /**
+     * Método que aplica várias reproduções numa data ao estado do utilizador, sem notificar o ouvinte.
+     * 
+     * Atualiza os pontos, o número de músicas, os históricos e o perfil como {@link #registarLote(List, LocalDate)};
+     * quem o invoca fica responsável pelas estatísticas e pelo diário (por exemplo, as etapas do pipeline de reproduções).
+     * 
+     * @param musicas Músicas ouvidas, pela ordem das reproduções
+     * @param data Data das reproduções
+     */
+    public void aplicarLote(List<Musica> musicas, LocalDate data){
+        int n = musicas.size();
+        if (n == 0) {
+            return;
+        }
+        this.pontos += this.plano.calcularPontos(this, n);
+        this.numMusicas += n;
+
+        int[] ordinais = new int[n];
+        Contador<String> artistas = new Contador<>();
+        for (int i = 0; i < n; i++) {
+            Musica m = musicas.get(i);
+            ordinais[i] = Dicionario.MUSICAS.getOrdinal(m.getId());
+            artistas.incrementar(Dicionario.ARTISTAS.canonico(m.getArtista()), 1);
+        }
+        this.historico.adicionar(ordinais, (int) data.toEpochDay());
+        for (int i = 0; i < artistas.tamanho(); i++) {
+            this.historicoArtistas.incrementar(artistas.getChave(i), artistas.getValor(i));
+        }
+        this.getPerfil().registar(musicas, data.toEpochDay());
     }
 
     /**
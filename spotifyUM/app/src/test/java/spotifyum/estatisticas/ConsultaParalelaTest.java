@@ -0,0 +1,64 @@
+package spotifyum.estatisticas;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Classe para os testes das agregações paralelas.
+ */
+public class ConsultaParalelaTest {
+
+    /**
+     * Método que gera valores aleatórios, com muitos repetidos.
+     *
+     * @param n Número de valores
+     * @return Lista de valores
+     */
+    private static List<Integer> valores(int n) {
+        Random random = new Random(42);
+        List<Integer> valores = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            valores.add(random.nextInt(1000));
+        }
+        return valores;
+    }
+
+    /**
+     * Teste para a equivalência com a execução sequencial.
+     * Verifica se contagens e máximos dão o mesmo resultado com e sem divisão em partes.
+     */
+    @Test
+    public void testIgualSequencial() {
+        List<Integer> valores = valores(100_000);
+        ConsultaParalela sequencial = ConsultaParalela.sequencial();
+        ConsultaParalela paralela = new ConsultaParalela(ForkJoinPool.commonPool(), 100);
+
+        assertEquals(sequencial.executar(valores, ConsultaParalela.<Integer>contar(v -> v % 3 == 0))[0],
+                     paralela.executar(valores, ConsultaParalela.<Integer>contar(v -> v % 3 == 0))[0]);
+    }
+
+    /**
+     * Teste para o desempate do máximo.
+     * Verifica se, entre elementos com o mesmo valor, fica o primeiro pela ordem da coleção.
+     */
+    @Test
+    public void testMaximoPrimeiro() {
+        List<int[]> elementos = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            elementos.add(new int[] {i, i % 500});
+        }
+        ConsultaParalela paralela = new ConsultaParalela(ForkJoinPool.commonPool(), 64);
+        ConsultaParalela.Maximo<int[]> max = paralela.executar(elementos, ConsultaParalela.<int[]>maximo(e -> e[1]));
+        assertEquals(499, max.getElemento()[0]);
+        assertEquals(499, max.getValor(), 0);
+
+        ConsultaParalela.Maximo<int[]> nenhum = paralela.executar(new ArrayList<int[]>(), ConsultaParalela.<int[]>maximo(e -> e[1]));
+        assertNull(nenhum.getElemento());
+        assertThrows(IllegalArgumentException.class, () -> new ConsultaParalela(ForkJoinPool.commonPool(), 0));
+    }
+}
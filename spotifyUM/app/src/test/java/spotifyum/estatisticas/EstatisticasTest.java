@@ -0,0 +1,189 @@
+package spotifyum.estatisticas;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import spotifyum.musica.Musica;
+import spotifyum.planos.PlanoFree;
+import spotifyum.utilizador.Historico;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe para os testes das estatísticas incrementais.
+ */
+public class EstatisticasTest {
+
+    /**
+     * Teste para a ordenação do ranking.
+     * Verifica se o primeiro lugar e o top são atualizados a cada alteração.
+     */
+    @Test
+    public void testRanking(){
+        Ranking ranking = new Ranking();
+
+        ranking.definir("A", 3);
+        ranking.definir("B", 5);
+        ranking.incrementar("A", 4);
+        ranking.incrementar("C", 1);
+
+        assertEquals("A", ranking.getPrimeiro());
+        assertEquals(List.of("A", "B", "C"), ranking.getTop(5));
+
+        ranking.remover("A");
+        assertEquals("B", ranking.getPrimeiro());
+        assertEquals(2, ranking.tamanho());
+    }
+
+    /**
+     * Teste para a atualização das estatísticas a cada reprodução.
+     * Verifica a música, o artista e o género mais reproduzidos.
+     */
+    @Test
+    public void testReproducaoRegistada(){
+        List<String> partitura = new ArrayList<>();
+        partitura.add("Do");
+
+        Musica m1 = new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "Era só mais um verão...", partitura, "Classical", 130);
+        Musica m2 = new Musica("M2", "Sol Frio", "Adele", "RCA", "Caminhei sem direção...", partitura, "Jazz", 137);
+        Musica m3 = new Musica("M3", "Lua Cheia", "Adele", "RCA", "A noite caiu...", partitura, "Jazz", 120);
+        Utilizador user = new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree());
+
+        LocalDate hoje = LocalDate.now();
+
+        Estatisticas estatisticas = new Estatisticas();
+        estatisticas.adicionarMusica(m1);
+        estatisticas.adicionarMusica(m2);
+        estatisticas.adicionarMusica(m3);
+        estatisticas.atualizarUtilizador(user);
+
+        estatisticas.reproducaoRegistada(user, m1, hoje);
+        estatisticas.reproducaoRegistada(user, m1, hoje);
+        estatisticas.reproducaoRegistada(user, m2, hoje);
+        estatisticas.reproducaoRegistada(user, m3, hoje);
+        estatisticas.reproducaoRegistada(user, m3, hoje);
+
+        assertEquals("M1", estatisticas.getMusicaMaisReproduzida());
+        assertEquals(2, estatisticas.getReproducoesMusica("M1"));
+        assertEquals("Adele", estatisticas.getArtistaMaisEscutado());
+        assertEquals("Jazz", estatisticas.getGeneroMaisReproduzido());
+
+        estatisticas.removerMusica(m2);
+        estatisticas.removerMusica(m3);
+        assertEquals("Ed Sheeran", estatisticas.getArtistaMaisEscutado());
+        assertEquals("Classical", estatisticas.getGeneroMaisReproduzido());
+    }
+
+    /**
+     * Teste para a contagem de reproduções por dia.
+     * Verifica as contagens em intervalos de datas, incluindo reproduções registadas fora de ordem.
+     */
+    @Test
+    public void testContagemDiaria(){
+        LocalDate dia = LocalDate.of(2025, 5, 10);
+        ContagemDiaria contagem = new ContagemDiaria();
+
+        contagem.registar(dia);
+        contagem.registar(dia);
+        contagem.registar(dia.plusDays(3));
+        contagem.registar(dia.minusDays(2));
+
+        assertEquals(4, contagem.total());
+        assertEquals(2, contagem.contar(dia, dia));
+        assertEquals(3, contagem.contar(dia.minusDays(5), dia));
+        assertEquals(1, contagem.contar(dia.plusDays(1), dia.plusDays(10)));
+        assertEquals(0, contagem.contar(dia.plusDays(1), dia.plusDays(2)));
+        assertEquals(0, contagem.contar(dia, dia.minusDays(1)));
+    }
+
+    /**
+     * Teste para a query do utilizador com mais músicas ouvidas num intervalo de datas.
+     */
+    @Test
+    public void testUtilizadorMaisMusicasOuvidasIntervalo(){
+        List<String> partitura = new ArrayList<>();
+        partitura.add("Do");
+
+        Musica m1 = new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "Era só mais um verão...", partitura, "Classical", 130);
+        Utilizador u1 = new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree());
+        Utilizador u2 = new Utilizador("U2", "Maria Silva", "maria.silva@exemplo.pt", "Porto", new PlanoFree());
+        LocalDate dia = LocalDate.of(2025, 1, 1);
+
+        Estatisticas estatisticas = new Estatisticas();
+        estatisticas.adicionarMusica(m1);
+        estatisticas.adicionarUtilizador(u1);
+        estatisticas.adicionarUtilizador(u2);
+
+        estatisticas.reproducaoRegistada(u1, m1, dia);
+        estatisticas.reproducaoRegistada(u2, m1, dia.plusDays(10));
+        estatisticas.reproducaoRegistada(u2, m1, dia.plusDays(11));
+
+        assertEquals("U1", estatisticas.getUtilizadorMaisMusicasOuvidas(dia, dia.plusDays(9)));
+        assertEquals("U2", estatisticas.getUtilizadorMaisMusicasOuvidas(dia, dia.plusDays(11)));
+        assertEquals(2, estatisticas.getNumMusicas("U2", dia, dia.plusDays(11)));
+        assertNull(estatisticas.getUtilizadorMaisMusicasOuvidas(dia.plusDays(20), dia.plusDays(30)));
+    }
+
+    /**
+     * Teste para as reproduções registadas em paralelo com queries por intervalo.
+     * Verifica se nenhuma reprodução se perde e se as queries correm enquanto as reproduções chegam.
+     */
+    @Test
+    public void testReproducoesConcorrentes() throws Exception {
+        Musica m1 = new Musica("MC1", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130);
+        Musica m2 = new Musica("MC2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200);
+        Estatisticas estatisticas = new Estatisticas();
+        estatisticas.adicionarMusica(m1);
+        estatisticas.adicionarMusica(m2);
+        LocalDate dia = LocalDate.of(2025, 1, 1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Utilizador u = new Utilizador("UC" + t, "Utilizador " + t, "u" + t + "@exemplo.pt", "Braga", new PlanoFree());
+            estatisticas.adicionarUtilizador(u);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    estatisticas.reproducaoRegistada(u, i % 2 == 0 ? m1 : m2, dia.plusDays(i / 100));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            estatisticas.getUtilizadorMaisMusicasOuvidas(dia, dia.plusDays(5));
+            estatisticas.getTopMusicas(2);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(2000L, estatisticas.getReproducoesMusica("MC1"));
+        assertEquals(2000L, estatisticas.getReproducoesGenero("Soul"));
+        for (int t = 0; t < 4; t++) {
+            assertEquals(1000, estatisticas.getNumMusicas("UC" + t, dia, dia.plusDays(9)));
+            assertEquals(600, estatisticas.getNumMusicas("UC" + t, dia, dia.plusDays(5)));
+        }
+    }
+
+    /**
+     * Teste para o registo de um utilizador com histórico.
+     * Verifica se as reproduções do histórico são indexadas por dia, incluindo as que estão fora de ordem.
+     */
+    @Test
+    public void testAdicionarUtilizadorComHistorico(){
+        LocalDate dia = LocalDate.of(2025, 1, 1);
+        Utilizador u = new Utilizador("UH1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree());
+        u.setHistorico(List.of(new Historico("M1", dia), new Historico("M2", dia), new Historico("M1", dia.plusDays(3)),
+                               new Historico("M2", dia.plusDays(1)), new Historico("M1", dia)));
+
+        Estatisticas estatisticas = new Estatisticas();
+        estatisticas.adicionarUtilizador(u);
+
+        assertEquals(3, estatisticas.getNumMusicas("UH1", dia, dia));
+        assertEquals(4, estatisticas.getNumMusicas("UH1", dia, dia.plusDays(1)));
+        assertEquals(5, estatisticas.getNumMusicas("UH1", dia, dia.plusDays(3)));
+        assertEquals(1, estatisticas.getNumMusicas("UH1", dia.plusDays(2), dia.plusDays(3)));
+    }
+}
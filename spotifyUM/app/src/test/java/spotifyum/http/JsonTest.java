@@ -0,0 +1,58 @@
+package spotifyum.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import spotifyum.estatisticas.ResultadoQuery;
+
+/**
+ * Classe para os testes da escrita e leitura de JSON.
+ */
+public class JsonTest {
+
+    /**
+     * Teste para a escrita de valores.
+     * Verifica se textos são escapados, se os records são escritos campo a campo e se números não finitos são null.
+     */
+    @Test
+    public void testEscrever() {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        mapa.put("texto", "a \"b\"\n\\");
+        mapa.put("lista", List.of(1, 2.5, true));
+        mapa.put("nada", null);
+        mapa.put("infinito", Double.POSITIVE_INFINITY);
+        assertEquals("{\"texto\":\"a \\\"b\\\"\\n\\\\\",\"lista\":[1,2.5,true],\"nada\":null,\"infinito\":null}", Json.escrever(mapa));
+
+        ResultadoQuery r = new ResultadoQuery.UtilizadorMaisMusicas("U1", 3, LocalDate.of(2024, 1, 1), null);
+        assertEquals("{\"id\":\"U1\",\"musicas\":3,\"inicio\":\"2024-01-01\",\"fim\":null}", Json.escrever(r));
+    }
+
+    /**
+     * Teste para a leitura de objetos.
+     * Verifica os tipos dos valores lidos, os escapes e a recusa de texto inválido.
+     */
+    @Test
+    public void testLerObjeto() {
+        Map<String, Object> objeto = Json.lerObjeto(" {\"a\": \"x\\u00e9\\n\", \"b\": [1, -2.5e1, null], \"c\": {\"d\": false}} ");
+        assertEquals("xé\n", objeto.get("a"));
+        assertEquals(List.of(1L, -25.0), ((List<?>) objeto.get("b")).subList(0, 2));
+        assertNull(((List<?>) objeto.get("b")).get(2));
+        assertEquals(Map.of("d", false), objeto.get("c"));
+
+        Map<String, Object> ida = new LinkedHashMap<>();
+        ida.put("nome", "Minha \"lista\"");
+        ida.put("musicas", List.of("M1", "M2"));
+        assertEquals(ida, Json.lerObjeto(Json.escrever(ida)));
+
+        assertThrows(IllegalArgumentException.class, () -> Json.lerObjeto("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lerObjeto("{\"a\": 1"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lerObjeto("{\"a\": 1} x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lerObjeto("{\"a\": tru}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lerObjeto("{\"a\": \"sem fim}"));
+    }
+}
@@ -0,0 +1,133 @@
+package spotifyum.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import spotifyum.musica.Musica;
+import spotifyum.musica.Reprodutor;
+import spotifyum.musica.ReprodutorMetricas;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.planos.PlanoFree;
+import spotifyum.planos.PlanoPremiumBase;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe para os testes do servidor HTTP.
+ */
+public class ServidorHttpTest {
+
+    private static HttpResponse<String> pedir(HttpClient cliente, String base, String metodo, String caminho, String corpo)
+        throws Exception {
+        HttpRequest.Builder pedido = HttpRequest.newBuilder(URI.create(base + caminho));
+        pedido.method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(corpo));
+        return cliente.send(pedido.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Teste para os pedidos da API.
+     * Verifica as reproduções, a criação de playlists, as recomendações, as estatísticas e os estados de erro.
+     */
+    @Test
+    public void testPedidos() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        SpotifyumModel model = new SpotifyumModel();
+        model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+        model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+        model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+        model.adicionarUtilizador(new Utilizador("U2", "Ana Silva", "ana.silva@exemplo.pt", "Porto", new PlanoPremiumBase()));
+        HttpClient cliente = HttpClient.newHttpClient();
+        try (ServidorHttp servidor = new ServidorHttp(model, 0)) {
+            servidor.iniciar();
+            String base = "http://localhost:" + servidor.getPorta();
+
+            assertEquals(204, pedir(cliente, base, "POST", "/reproducoes", "{\"utilizador\": \"U1\", \"musica\": \"M1\"}").statusCode());
+            assertEquals(204, pedir(cliente, base, "POST", "/reproducoes", "{\"utilizador\": \"U1\", \"musicas\": [\"M1\", \"M2\"]}").statusCode());
+            assertEquals(3, model.getUtilizador("U1").getNumMusicas());
+            assertEquals(404, pedir(cliente, base, "POST", "/reproducoes", "{\"utilizador\": \"U9\", \"musica\": \"M1\"}").statusCode());
+            assertEquals(400, pedir(cliente, base, "POST", "/reproducoes", "{\"utilizador\": \"U1\"}").statusCode());
+            assertEquals(400, pedir(cliente, base, "POST", "/reproducoes", "não é json").statusCode());
+            assertEquals(405, pedir(cliente, base, "GET", "/reproducoes", null).statusCode());
+
+            String playlist = "{\"utilizador\": \"%s\", \"nome\": \"Minha\", \"musicas\": [\"M2\", \"M1\"], \"publica\": true}";
+            assertEquals(403, pedir(cliente, base, "POST", "/playlists", playlist.formatted("U1")).statusCode());
+            HttpResponse<String> criada = pedir(cliente, base, "POST", "/playlists", playlist.formatted("U2"));
+            assertEquals(201, criada.statusCode());
+            assertEquals("Minha", Json.lerObjeto(criada.body()).get("nome"));
+            assertTrue(model.existePlaylist("Minha"));
+            assertEquals(409, pedir(cliente, base, "POST", "/playlists", playlist.formatted("U2")).statusCode());
+            assertEquals(404, pedir(cliente, base, "POST", "/playlists", playlist.formatted("U9")).statusCode());
+            String semMusica = "{\"utilizador\": \"U2\", \"nome\": \"Outra\", \"musicas\": [\"M9\"]}";
+            assertEquals(404, pedir(cliente, base, "POST", "/playlists", semMusica).statusCode());
+            assertFalse(model.existePlaylist("Outra"));
+
+            HttpResponse<String> recomendacoes = pedir(cliente, base, "GET", "/recomendacoes?utilizador=U1", null);
+            assertEquals(200, recomendacoes.statusCode());
+            assertFalse(((List<?>) Json.lerObjeto(recomendacoes.body()).get("musicas")).isEmpty());
+            assertEquals(400, pedir(cliente, base, "GET", "/recomendacoes", null).statusCode());
+            assertEquals(400, pedir(cliente, base, "GET", "/recomendacoes?utilizador=U1&tempo=x", null).statusCode());
+            assertEquals(404, pedir(cliente, base, "GET", "/recomendacoes?utilizador=U9", null).statusCode());
+
+            HttpResponse<String> query = pedir(cliente, base, "GET", "/estatisticas/1", null);
+            assertEquals(200, query.statusCode());
+            assertEquals(Map.of("id", "M1", "nome", "Noite Dourado", "reproducoes", 2L), Json.lerObjeto(query.body()));
+            assertEquals(200, pedir(cliente, base, "GET", "/estatisticas/3?inicio=2000-01-01&fim=2100-01-01", null).statusCode());
+            assertEquals(400, pedir(cliente, base, "GET", "/estatisticas/3?inicio=2000-01-01", null).statusCode());
+            assertEquals(400, pedir(cliente, base, "GET", "/estatisticas/9", null).statusCode());
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+
+    /**
+     * Teste para pedidos concorrentes.
+     * Verifica se reproduções enviadas por muitos clientes em simultâneo são todas registadas.
+     */
+    @Test
+    public void testPedidosConcorrentes() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        SpotifyumModel model = new SpotifyumModel();
+        model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+        for (int i = 0; i < 10; i++) {
+            model.adicionarUtilizador(new Utilizador("U" + i, "Nome", "u" + i + "@exemplo.pt", "Braga", new PlanoFree()));
+        }
+        HttpClient cliente = HttpClient.newHttpClient();
+        try (ServidorHttp servidor = new ServidorHttp(model, 0)) {
+            servidor.iniciar();
+            String base = "http://localhost:" + servidor.getPorta();
+            List<Thread> clientes = new ArrayList<>();
+            List<Integer> estados = Collections.synchronizedList(new ArrayList<>());
+            for (int c = 0; c < 50; c++) {
+                String corpo = "{\"utilizador\": \"U" + (c % 10) + "\", \"musica\": \"M1\"}";
+                clientes.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        try {
+                            estados.add(pedir(cliente, base, "POST", "/reproducoes", corpo).statusCode());
+                        } catch (Exception e) {
+                            estados.add(-1);
+                        }
+                    }
+                }));
+            }
+            for (Thread t : clientes) {
+                t.join();
+            }
+            assertEquals(500, estados.size());
+            assertTrue(estados.stream().allMatch(e -> e == 204));
+            assertEquals(500, model.getMusica("M1").getReproducoes());
+            assertEquals(50, model.getUtilizador("U3").getNumMusicas());
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+}
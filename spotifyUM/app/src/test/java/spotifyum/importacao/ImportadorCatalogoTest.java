@@ -0,0 +1,120 @@
+package spotifyum.importacao;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import spotifyum.musica.Musica;
+import spotifyum.musica.MusicaExplicita;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.planos.PlanoPremiumTop;
+
+/**
+ * Classe para os testes do importador de catálogos.
+ */
+public class ImportadorCatalogoTest {
+
+    private static Path escrever(String sufixo, String texto) throws Exception {
+        Path ficheiro = Files.createTempFile("spotifyum-importacao", sufixo);
+        Files.writeString(ficheiro, texto);
+        ficheiro.toFile().deleteOnExit();
+        return ficheiro;
+    }
+
+    /**
+     * Teste para a importação de músicas de um CSV.
+     * Verifica os campos entre aspas, os cabeçalhos, os comentários, as linhas inválidas e as repetidas,
+     * com blocos pequenos analisados por várias threads.
+     */
+    @Test
+    public void testImportarMusicas() throws Exception {
+        StringBuilder csv = new StringBuilder("id,nome,artista,editora,letra,partitura,genero,duracao,tipo\n");
+        csv.append("# comentário\n");
+        csv.append("I1,Noite,Ed Sheeran,Def Jam,\"la, \"\"la\"\"\",do;re;mi,Pop,130,Normal\r\n");
+        csv.append("\n");
+        csv.append("I2,Dia,Adele,XL,,fa,Soul,200,Explicita\n");
+        csv.append("I3,Tarde,Adele,XL,,,Soul,dois,Normal\n");
+        csv.append("I4,Manhã,Adele,XL,,,Soul,100,Desconhecido\n");
+        csv.append("I5,Curta,Adele\n");
+        csv.append("I1,Repetida,Adele,XL,,,Soul,100,Normal\n");
+        for (int i = 6; i < 200; i++) {
+            csv.append("I").append(i).append(",Musica ").append(i).append(",Artista,Editora,,,Rock,").append(i).append(",Normal\n");
+        }
+        csv.append("I200,Última,Artista,Editora,,,Rock,200,Multimedia");
+        Path ficheiro = escrever(".csv", csv.toString());
+        SpotifyumModel model = new SpotifyumModel();
+        StringWriter texto = new StringWriter();
+        ImportadorCatalogo importador = new ImportadorCatalogo(model, ImportadorCatalogo.separador(ficheiro), 3, 64,
+                                                               new PrintWriter(texto));
+
+        ImportadorCatalogo.Resumo resumo = importador.importar(ficheiro, ImportadorCatalogo.Tipo.MUSICAS, true);
+
+        assertEquals(201L, resumo.linhas());
+        assertEquals(197L, resumo.importadas());
+        assertEquals(4L, resumo.erros());
+        assertEquals(Files.size(ficheiro), resumo.bytes());
+        Musica m = model.getMusica("I1");
+        assertEquals("Noite", m.getNome());
+        assertEquals("la, \"la\"", m.getLetra());
+        assertEquals(List.of("do", "re", "mi"), m.getPartitura());
+        assertTrue(model.getMusica("I2") instanceof MusicaExplicita);
+        assertEquals(199, model.getMusica("I199").getDuracao());
+        assertTrue(model.existeMusica("I200"));
+        assertFalse(model.existeMusica("I3"));
+        assertEquals(1, model.listarMusicasGenero("Soul", null, 10).elementos().size());
+        String erros = texto.toString();
+        assertTrue(erros.contains("Linha 6: duração inválida: dois"));
+        assertTrue(erros.contains("Linha 7: Tipo de música inválido."));
+        assertTrue(erros.contains("Linha 8: são esperados 9 campos, mas há 3."));
+        assertTrue(erros.contains("Linha 9: registo repetido."));
+    }
+
+    /**
+     * Teste para a importação de utilizadores e álbuns de ficheiros TSV.
+     * Verifica o separador pela extensão, as referências a músicas inexistentes e as linhas maiores do que um bloco.
+     */
+    @Test
+    public void testImportarTsv() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        model.adicionarMusica(new Musica("T1", "Noite", "Ed Sheeran", "Def Jam", "", List.of(), "Pop", 130));
+        model.adicionarMusica(new Musica("T2", "Dia", "Adele", "XL", "", List.of(), "Soul", 200));
+        StringWriter texto = new StringWriter();
+        PrintWriter saida = new PrintWriter(texto);
+
+        String morada = "Rua ".repeat(40);
+        Path utilizadores = escrever(".tsv", "TU1\tJoão\tjoao@exemplo.pt\t" + morada + "\tPlanoPremiumTop\n"
+                                             + "TU2\tAna\tana@exemplo.pt\tPorto\tPlanoDourado\n");
+        assertEquals('\t', ImportadorCatalogo.separador(utilizadores));
+        ImportadorCatalogo importador = new ImportadorCatalogo(model, '\t', 2, 32, saida);
+        ImportadorCatalogo.Resumo resumo = importador.importar(utilizadores, ImportadorCatalogo.Tipo.UTILIZADORES, false);
+        assertEquals(1L, resumo.importadas());
+        assertEquals(morada, model.getUtilizador("TU1").getMorada());
+        assertTrue(model.getUtilizador("TU1").getPlano() instanceof PlanoPremiumTop);
+        assertTrue(texto.toString().contains("Linha 2: Plano inválido."));
+
+        Path albuns = escrever(".tsv", "Discos\tT1;T2\nVazio\tT9\n");
+        resumo = importador.importar(albuns, ImportadorCatalogo.Tipo.ALBUNS, false);
+        assertEquals(1L, resumo.importadas());
+        assertEquals(1L, resumo.erros());
+        assertEquals(2, model.getAlbum("Discos").getMusicas().size());
+        assertFalse(model.existeAlbum("Vazio"));
+        assertThrows(IllegalArgumentException.class, () -> new ImportadorCatalogo(model, '"', 1, saida));
+    }
+
+    /**
+     * Teste para a separação das listas e a leitura das durações.
+     */
+    @Test
+    public void testCampos() {
+        assertEquals(List.of(), ImportadorCatalogo.separarLista(""));
+        assertEquals(List.of("a", "", "b"), ImportadorCatalogo.separarLista("a;;b"));
+        assertEquals(305, ImportadorCatalogo.lerDuracao("305"));
+        assertThrows(IllegalArgumentException.class, () -> ImportadorCatalogo.lerDuracao("-5"));
+        assertThrows(IllegalArgumentException.class, () -> ImportadorCatalogo.lerDuracao("9999999999"));
+    }
+}
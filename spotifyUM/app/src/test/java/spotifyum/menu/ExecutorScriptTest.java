@@ -0,0 +1,177 @@
+package spotifyum.menu;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.function.Function;
+
+import spotifyum.album.Album;
+import spotifyum.musica.Musica;
+import spotifyum.mvc.SpotifyumModel;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe para os testes do executor de scripts.
+ */
+public class ExecutorScriptTest {
+
+    private static final String SCRIPT = """
+        # catálogo inicial
+        musica | S1 | Noite | Ed Sheeran | Def Jam | letra | do;re;mi | Pop | 130 | Normal
+        musica | S2 | Dia | Adele | XL | letra | fa;sol | Soul | 200 | Explicita
+
+        utilizador | SU1 | João Jesus | joao.jesus@exemplo.pt | Braga | PlanoFree
+        album | Discos | S1;S2
+        """;
+
+    /**
+     * Teste para a execução de um script válido.
+     * Verifica que todos os comandos são aplicados e que o resumo conta as transações.
+     */
+    @Test
+    public void testExecutar() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        StringWriter texto = new StringWriter();
+        ExecutorScript executor = new ExecutorScript(model, 2, new PrintWriter(texto));
+
+        ExecutorScript.Resumo resumo = executor.executar(new StringReader(SCRIPT));
+
+        assertTrue(model.existeMusica("S1"));
+        assertTrue(model.existeMusica("S2"));
+        assertTrue(model.existeUtilizador("SU1"));
+        assertTrue(model.existeAlbum("Discos"));
+        assertEquals(4L, resumo.comandos());
+        assertEquals(0L, resumo.erros());
+        assertEquals(2L, resumo.confirmadas());
+        assertEquals(0L, resumo.anuladas());
+        assertTrue(texto.toString().contains("4 comandos aplicados"));
+    }
+
+    /**
+     * Teste para a anulação de uma transação.
+     * Verifica que um comando com erro desfaz os comandos anteriores do mesmo bloco, mas não os de outros blocos.
+     */
+    @Test
+    public void testTransacaoAnulada() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        StringWriter texto = new StringWriter();
+        String script = SCRIPT + """
+            remover-album | Discos
+            remover-musica | S2
+            remover-musica | S9
+            """;
+        ExecutorScript executor = new ExecutorScript(model, 4, new PrintWriter(texto));
+
+        ExecutorScript.Resumo resumo = executor.executar(new StringReader(script));
+
+        assertTrue(model.existeAlbum("Discos"));
+        assertTrue(model.existeMusica("S2"));
+        assertEquals(4L, resumo.comandos());
+        assertEquals(1L, resumo.erros());
+        assertEquals(1L, resumo.confirmadas());
+        assertEquals(1L, resumo.anuladas());
+        assertTrue(texto.toString().contains("Linha 9 (remover-musica)"));
+        assertTrue(texto.toString().contains("Transação anulada (linhas 7 a 9)."));
+    }
+
+    /**
+     * Teste para a anulação de remoções.
+     * Verifica que as entidades repostas são as próprias instâncias removidas, com o estado interno intacto.
+     */
+    @Test
+    public void testAnularRemocoes() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        StringWriter texto = new StringWriter();
+        new ExecutorScript(model, 10, new PrintWriter(texto)).executar(new StringReader(SCRIPT));
+        model.alterarPlano("SU1", "PlanoPremiumTop");
+        Utilizador u = encontrar(model.getUtilizadoresVista(), Utilizador::getId, "SU1");
+        Musica m = encontrar(model.getMusicasVista(), Musica::getId, "S1");
+        Album album = model.getAlbunsVista().iterator().next();
+        assertSame(m, album.getMusicasVista().get(0));
+        double pontos = u.getPontos();
+
+        String script = """
+            remover-musica | S1
+            remover-utilizador | SU1
+            remover-musica | S9
+            """;
+        ExecutorScript.Resumo resumo = new ExecutorScript(model, 10, new PrintWriter(texto)).executar(new StringReader(script));
+
+        assertEquals(1L, resumo.anuladas());
+        assertSame(m, encontrar(model.getMusicasVista(), Musica::getId, "S1"));
+        assertSame(album.getMusicasVista().get(0), encontrar(model.getMusicasVista(), Musica::getId, "S1"));
+        Utilizador reposto = encontrar(model.getUtilizadoresVista(), Utilizador::getId, "SU1");
+        assertSame(u, reposto);
+        assertTrue(reposto.getRecebeuBonusTop());
+        model.alterarPlano("SU1", "PlanoPremiumTop");
+        assertEquals(pontos, reposto.getPontos());
+    }
+
+    /**
+     * Método que procura a entidade com um id numa vista do model.
+     *
+     * @param vista Vista do model
+     * @param chave Função que devolve o id de uma entidade
+     * @param id ID da entidade
+     * @return A entidade guardada no model
+     */
+    private static <T> T encontrar(Collection<T> vista, Function<T, String> chave, String id) {
+        for (T e : vista) {
+            if (chave.apply(e).equals(id)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Teste para transações de um só comando.
+     * Verifica que cada comando é aplicado isoladamente e que um erro não afeta os restantes.
+     */
+    @Test
+    public void testTransacaoUnitaria() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        StringWriter texto = new StringWriter();
+        String script = SCRIPT + """
+            musica | S3 | Tarde | Adele | XL | letra | la | Soul | duzentos | Normal
+            remover-musica | S1
+            """;
+        ExecutorScript executor = new ExecutorScript(model, 1, new PrintWriter(texto));
+
+        ExecutorScript.Resumo resumo = executor.executar(new StringReader(script));
+
+        assertFalse(model.existeMusica("S3"));
+        assertFalse(model.existeMusica("S1"));
+        assertEquals(5L, resumo.comandos());
+        assertEquals(1L, resumo.anuladas());
+        assertTrue(texto.toString().contains("Linha 7 (musica)"));
+    }
+
+    /**
+     * Teste para a validação dos comandos.
+     * Verifica que todos os comandos inválidos de um bloco são reportados e que nenhum é aplicado.
+     */
+    @Test
+    public void testValidacao() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        StringWriter texto = new StringWriter();
+        String script = """
+            utilizador | SV1 | Ana | ana@exemplo.pt | Porto | PlanoFree
+            tocar | SV1
+            remover-musica
+            """;
+        ExecutorScript executor = new ExecutorScript(model, 10, new PrintWriter(texto));
+
+        ExecutorScript.Resumo resumo = executor.executar(new StringReader(script));
+
+        assertFalse(model.existeUtilizador("SV1"));
+        assertEquals(2L, resumo.erros());
+        assertTrue(texto.toString().contains("Linha 2 (tocar): comando desconhecido."));
+        assertTrue(texto.toString().contains("Linha 3 (remover-musica): são esperados 1 argumentos, mas há 0."));
+        assertThrows(IllegalArgumentException.class, () -> new ExecutorScript(model, 0, new PrintWriter(texto)));
+    }
+}
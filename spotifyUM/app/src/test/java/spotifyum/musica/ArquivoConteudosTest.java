@@ -0,0 +1,85 @@
+package spotifyum.musica;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe para os testes do arquivo de conteúdos mapeado.
+ */
+public class ArquivoConteudosTest {
+
+    /**
+     * Teste para o mapeamento das letras e partituras.
+     * Verifica se as músicas mapeadas continuam iguais às originais, incluindo cópias e subclasses.
+     */
+    @Test
+    public void testMapear() throws Exception {
+        List<Musica> musicas = new ArrayList<>();
+        musicas.add(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "Era só mais um verão...", List.of("Do", "Ré"), "Pop", 130));
+        musicas.add(new MusicaExplicita("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Rock", 200));
+        musicas.add(new MusicaMultimedia("M3", "Tarde", "Adele", "XL", "á".repeat(10_000), List.of("Mi", "", "Fá"), "Soul", 90));
+        List<Musica> originais = new ArrayList<>();
+        for (Musica m : musicas) {
+            originais.add(m.clone());
+        }
+
+        Path ficheiro = Files.createTempFile("spotifyum", ".conteudos");
+        try {
+            ArquivoConteudos.mapear(ficheiro, musicas);
+            for (int i = 0; i < musicas.size(); i++) {
+                Musica m = musicas.get(i);
+                assertEquals(originais.get(i), m);
+                assertEquals(originais.get(i).toString(), m.toString());
+                assertEquals(originais.get(i), m.clone());
+            }
+
+            // Alterar a letra de uma música mapeada não altera a partitura mapeada
+            Musica m1 = musicas.get(0);
+            m1.setLetra("Outra letra");
+            assertEquals("Outra letra", m1.getLetra());
+            assertEquals(List.of("Do", "Ré"), m1.getPartitura());
+        } finally {
+            Files.deleteIfExists(ficheiro);
+        }
+    }
+
+    /**
+     * Teste para a cache LRU dos conteúdos descodificados.
+     * Verifica se um conteúdo em cache não é descodificado de novo e se o menos usado é descartado.
+     */
+    @Test
+    public void testCache() throws Exception {
+        List<Musica> musicas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            musicas.add(new Musica("M" + i, "Nome", "Artista", "Editora", "Letra " + i, List.of("Do"), "Pop", 100));
+        }
+
+        Path ficheiro = Files.createTempFile("spotifyum", ".conteudos");
+        try {
+            ArquivoConteudos arquivo = ArquivoConteudos.mapear(ficheiro, musicas, 2);
+            assertEquals(0, arquivo.getDescodificacoes());
+
+            assertEquals("Letra 0", musicas.get(0).getLetra());
+            assertEquals(List.of("Do"), musicas.get(0).getPartitura());
+            assertEquals(1, arquivo.getDescodificacoes());
+
+            musicas.get(1).getLetra();
+            musicas.get(0).getLetra();
+            musicas.get(2).getLetra();
+            assertEquals(3, arquivo.getDescodificacoes());
+
+            // M1 era o menos usado e foi descartado; M0 continua em cache
+            musicas.get(0).getLetra();
+            assertEquals(3, arquivo.getDescodificacoes());
+            musicas.get(1).getLetra();
+            assertEquals(4, arquivo.getDescodificacoes());
+        } finally {
+            Files.deleteIfExists(ficheiro);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package spotifyum.musica;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe para os testes dos índices de músicas por género e artista.
+ */
+public class IndiceMusicasTest {
+
+    /**
+     * Teste para a adição e remoção de músicas nos índices.
+     * Verifica se as listas de cada género e artista acompanham o catálogo.
+     */
+    @Test
+    public void testAdicionarRemover(){
+        IndiceMusicas indice = new IndiceMusicas();
+        Musica m1 = new Musica("M1", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130);
+        Musica m2 = new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Pop", 200);
+        Musica m3 = new Musica("M3", "Tarde", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Rock", 180);
+
+        indice.adicionar(m1);
+        indice.adicionar(m2);
+        indice.adicionar(m3);
+
+        assertEquals(2, indice.getMusicasGenero("Pop").size());
+        assertEquals(2, indice.getMusicasArtista("Ed Sheeran").size());
+        assertEquals(2, indice.getMusicasGeneroIgnorarCaso("pop").size());
+
+        indice.remover(m3);
+        assertTrue(indice.getMusicasGenero("Rock").isEmpty());
+        assertEquals(1, indice.getMusicasArtista("Ed Sheeran").size());
+    }
+
+    /**
+     * Teste para a seleção de candidatas.
+     * Verifica se as músicas que coincidem com um género e um artista aparecem uma única vez.
+     */
+    @Test
+    public void testGetCandidatas(){
+        IndiceMusicas indice = new IndiceMusicas();
+        indice.adicionar(new Musica("M1", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+        indice.adicionar(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Pop", 200));
+        indice.adicionar(new Musica("M3", "Tarde", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Rock", 180));
+        indice.adicionar(new Musica("M4", "Manha", "Bach", "DG", "", new ArrayList<>(), "Classica", 300));
+
+        List<Musica> candidatas = indice.getCandidatas(List.of("Pop"), List.of("Ed Sheeran"));
+
+        assertEquals(3, candidatas.size());
+        assertTrue(candidatas.stream().noneMatch(m -> m.getId().equals("M4")));
+    }
+}
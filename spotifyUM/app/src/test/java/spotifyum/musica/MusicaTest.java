@@ -95,4 +95,30 @@ public class MusicaTest {
         
         assertEquals(musica.getReproducoes(), 1);;
     }
+
+    /**
+     * Teste para a reprodução com um reprodutor sem interface.
+     * Verifica se o reprodutor recebe as músicas e se o número de reproduções aumenta.
+     */
+    @Test
+    public void testReprodutorMetricas(){
+        Reprodutor anterior = Musica.getReprodutor();
+        ReprodutorMetricas metricas = new ReprodutorMetricas();
+        Musica.setReprodutor(metricas);
+        try {
+            Musica musica = new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Classical", 130);
+            Musica explicita = new MusicaExplicita("M2", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 70);
+
+            musica.reproduzir();
+            musica.reproduzir();
+            explicita.reproduzir();
+
+            assertEquals(2, musica.getReproducoes());
+            assertEquals(1, explicita.getReproducoes());
+            assertEquals(3, metricas.getReproducoes());
+            assertEquals(330, metricas.getSegundos());
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
 }
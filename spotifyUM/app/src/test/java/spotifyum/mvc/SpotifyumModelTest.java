@@ -2,17 +2,34 @@ package spotifyum.mvc;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import spotifyum.musica.Musica;
+import spotifyum.musica.Reprodutor;
+import spotifyum.musica.ReprodutorMetricas;
+import spotifyum.persistencia.Diario;
 import spotifyum.planos.PlanoFree;
 import spotifyum.utilizador.Utilizador;
 import spotifyum.playlist.Playlist;
 import spotifyum.playlist.PlaylistAleatoria;
 import spotifyum.album.Album;
+import spotifyum.estatisticas.ResultadoQuery;
+import spotifyum.exceptions.EntidadeExisteException;
+import spotifyum.exceptions.EntidadeNaoExisteException;
+import spotifyum.exceptions.OpcaoException;
+import spotifyum.exceptions.PlanoException;
+import spotifyum.utilizador.ReproducoesArtista;
+import spotifyum.util.AnelEventos;
+import spotifyum.util.Pagina;
 
 /**
  * Classe para os testes do model.
@@ -210,6 +227,481 @@ public class SpotifyumModelTest {
             fail("Exception should not be thrown");
         }
     }
-        
 
+    /**
+     * Teste para reproduções em paralelo.
+     * Verifica se as reproduções de vários utilizadores em várias threads não se perdem.
+     */
+    @Test
+    public void testOuvirMusicaConcorrente(){
+        SpotifyumModel model = new SpotifyumModel();
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+
+        int numUtilizadores = 8;
+        int reproducoesPorUtilizador = 2000;
+        try{
+            model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            model.adicionarMusica(new Musica("M2", "Dia", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            for (int i = 0; i < numUtilizadores; i++) {
+                model.adicionarUtilizador(new Utilizador("U" + i, "Utilizador", "u@exemplo.pt", "Braga", new PlanoFree()));
+            }
+
+            // Duas threads por utilizador, para que as reproduções do mesmo utilizador também concorram
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < numUtilizadores * 2; t++) {
+                String id = "U" + (t / 2);
+                String musica = t % 2 == 0 ? "M1" : "M2";
+                threads.add(new Thread(() -> {
+                    for (int k = 0; k < reproducoesPorUtilizador / 2; k++) {
+                        try {
+                            model.ouvirMusica(id, musica);
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }));
+            }
+            for (Thread t : threads) {
+                t.start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+
+            int total = numUtilizadores * reproducoesPorUtilizador;
+            assertEquals(total, model.getMusica("M1").getReproducoes() + model.getMusica("M2").getReproducoes());
+            for (int i = 0; i < numUtilizadores; i++) {
+                Utilizador u = model.getUtilizador("U" + i);
+                assertEquals(reproducoesPorUtilizador, u.getNumMusicas());
+                assertEquals(reproducoesPorUtilizador, u.getHistorico().size());
+                assertEquals(reproducoesPorUtilizador, (int) u.getHistoricoArtistas().get("Ed Sheeran"));
+            }
+        } catch (Exception e) {
+            fail("Exception should not be thrown");
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+
+    /**
+     * Teste para a recuperação do estado a partir do diário.
+     * Verifica se o estado recuperado (com e sem checkpoint) é igual ao que estava em memória.
+     */
+    @Test
+    public void testRecuperarDiario() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        Path base = Files.createTempDirectory("spotifyum-diario").resolve("estado");
+        try {
+            SpotifyumModel model = new SpotifyumModel();
+            model.abrirDiario(base.toString());
+            model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+            model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+            model.adicionarAlbum(model.criaAlbum("Álbum", "M1;M2"));
+            model.ouvirMusica("U1", "M1");
+            model.alterarPlano("U1", "PlanoPremiumTop");
+            model.ouvirAlbum("U1", "Álbum");
+            model.adicionarAlbumBiblioteca("U1", "Álbum");
+
+            // Checkpoint a meio: o snapshot passa a incluir o primeiro segmento
+            model.checkpoint().get();
+            assertEquals(List.of(2), Diario.segmentos(base));
+
+            model.criarPlaylistPersonalizada("U1", "Minha", "M2;M1", "sim");
+            model.removerMusica("M2");
+            model.ouvirMusica("U1", "M1");
+            model.fecharDiario();
+
+            SpotifyumModel recuperado = new SpotifyumModel();
+            recuperado.abrirDiario(base.toString());
+            try {
+                Utilizador u = model.getUtilizador("U1");
+                Utilizador r = recuperado.getUtilizador("U1");
+                assertEquals(u.toString(), r.toString());
+                assertEquals(u.getPontos(), r.getPontos());
+                assertEquals(u.getHistorico(), r.getHistorico());
+                assertEquals(u.getHistoricoArtistas(), r.getHistoricoArtistas());
+                assertEquals(model.getMusica("M1").getReproducoes(), recuperado.getMusica("M1").getReproducoes());
+                assertFalse(recuperado.existeMusica("M2"));
+                assertTrue(recuperado.existePlaylist("Minha"));
+                assertEquals(model.toStringPlaylist(), recuperado.toStringPlaylist());
+                assertEquals(model.toStringAlbum(), recuperado.toStringAlbum());
+            } finally {
+                recuperado.fecharDiario();
+            }
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+
+    /**
+     * Teste para a recuperação de um diário com um segmento corrompido a meio.
+     * Verifica se a recuperação falha e deixa o model vazio, sem diário ativo.
+     */
+    @Test
+    public void testRecuperarDiarioCorrompido() throws Exception {
+        Path base = Files.createTempDirectory("spotifyum-diario").resolve("estado");
+        SpotifyumModel model = new SpotifyumModel();
+        model.abrirDiario(base.toString());
+        model.adicionarMusica(new Musica("R1", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+        model.fecharDiario();
+        SpotifyumModel segundo = new SpotifyumModel();
+        segundo.abrirDiario(base.toString());
+        segundo.adicionarMusica(new Musica("R2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+        segundo.fecharDiario();
+        List<Integer> segmentos = Diario.segmentos(base);
+        assertEquals(2, segmentos.size());
+        Files.write(Diario.segmento(base, segmentos.get(0)), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        SpotifyumModel recuperado = new SpotifyumModel();
+        assertThrows(IOException.class, () -> recuperado.abrirDiario(base.toString()));
+        assertTrue(recuperado.getMusicas().isEmpty());
+        assertFalse(recuperado.existeMusica("R1"));
+        assertEquals(2, Diario.segmentos(base).size());
+    }
+
+    /**
+     * Teste para o carregamento de um ficheiro que não é um snapshot (por exemplo, serialização Java).
+     * Verifica se o ficheiro é recusado sem alterar o estado atual, e se o diário não é aberto sobre ele.
+     */
+    @Test
+    public void testCarregarFormatoDesconhecido() throws Exception {
+        Path ficheiro = Files.createTempFile("spotifyum-estado", ".ser");
+        try (ObjectOutputStream o = new ObjectOutputStream(Files.newOutputStream(ficheiro))) {
+            o.writeObject(new ArrayList<String>());
+        }
+        SpotifyumModel model = new SpotifyumModel();
+        model.adicionarMusica(new Musica("F1", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+
+        model.loadSpotifyUM(ficheiro.toString());
+        assertTrue(model.existeMusica("F1"));
+
+        SpotifyumModel diario = new SpotifyumModel();
+        assertThrows(IOException.class, () -> diario.abrirDiario(ficheiro.toString()));
+        assertTrue(diario.getMusicas().isEmpty());
+        Files.delete(ficheiro);
+    }
+
+    /**
+     * Teste para as adições concorrentes da mesma chave com o diário ativo.
+     * Verifica se o estado recuperado do diário tem as mesmas entidades que ganharam em memória.
+     */
+    @Test
+    public void testAdicoesConcorrentesDiario() throws Exception {
+        Path base = Files.createTempDirectory("spotifyum-diario").resolve("estado");
+        SpotifyumModel model = new SpotifyumModel();
+        model.abrirDiario(base.toString());
+        int rondas = 50;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            model.adicionarMusica(new Musica("X" + t, "Faixa " + t, "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+        }
+        for (int t = 0; t < 4; t++) {
+            String versao = "Versão " + t;
+            Musica faixa = model.getMusica("X" + t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < rondas; i++) {
+                    try {
+                        model.adicionarMusica(new Musica("C" + i, versao, "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+                    } catch (Exception e) {
+                        // Outra thread adicionou a música primeiro
+                    }
+                    try {
+                        model.adicionarAlbum(new Album("A" + i, List.of(faixa)));
+                    } catch (Exception e) {
+                        // Outra thread adicionou o álbum primeiro
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        model.fecharDiario();
+
+        SpotifyumModel recuperado = new SpotifyumModel();
+        recuperado.abrirDiario(base.toString());
+        try {
+            for (int i = 0; i < rondas; i++) {
+                assertEquals(model.getMusica("C" + i).getNome(), recuperado.getMusica("C" + i).getNome());
+                assertEquals(model.getAlbum("A" + i).getMusicas().get(0).getId(),
+                             recuperado.getAlbum("A" + i).getMusicas().get(0).getId());
+            }
+        } finally {
+            recuperado.fecharDiario();
+        }
+    }
+
+    /**
+     * Teste para a cache das listas de favoritos.
+     * Verifica se pedidos repetidos usam a cache e se as reproduções e as alterações ao catálogo a invalidam.
+     */
+    @Test
+    public void testCacheFavoritos() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        try {
+            SpotifyumModel model = new SpotifyumModel();
+            model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+            model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+            model.ouvirMusica("U1", "M1");
+
+            assertEquals(List.of("M1"), model.geraListaFavoritos("U1"));
+            assertEquals(List.of("M1"), model.geraListaFavoritos("U1"));
+            assertEquals(List.of("M1"), model.geraListaFavoritosTempo("U1", 1000));
+            assertEquals(1, model.getCacheFavoritas().getFalhas());
+            assertEquals(2, model.getCacheFavoritas().getAcertos());
+
+            // Uma nova reprodução muda os preferidos
+            model.ouvirMusica("U1", "M2");
+            assertEquals(2, model.geraListaFavoritos("U1").size());
+            assertEquals(2, model.getCacheFavoritas().getFalhas());
+
+            // Uma música nova de um género preferido entra nas candidatas
+            model.adicionarMusica(new Musica("M3", "Noite", "Outro", "XL", "", new ArrayList<>(), "Pop", 100));
+            assertEquals(3, model.geraListaFavoritos("U1").size());
+            assertEquals(3, model.getCacheFavoritas().getFalhas());
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+
+    /**
+     * Teste para as listas de favoritos e a biblioteca do utilizador.
+     * Verifica se planos gratuitos, utilizadores sem reproduções e entradas repetidas chegam a quem invoca como exceção.
+     */
+    @Test
+    public void testBibliotecaFavoritos() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        try {
+            SpotifyumModel model = new SpotifyumModel();
+            model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+            model.adicionarAlbum(model.criaAlbum("Álbum", "M1"));
+
+            assertThrows(PlanoException.class, () -> model.criaListaFavoritos("U1", "Favoritas"));
+            model.alterarPlano("U1", "PlanoPremiumTop");
+            assertThrows(EntidadeNaoExisteException.class, () -> model.criaListaFavoritos("U1", "Favoritas"));
+            assertThrows(EntidadeNaoExisteException.class, () -> model.criaListaFavoritosTempo("U2", "Favoritas", 1000));
+
+            model.ouvirMusica("U1", "M1");
+            model.criaListaFavoritos("U1", "Favoritas");
+            assertTrue(model.existePlaylist("Favoritas"));
+            assertThrows(EntidadeExisteException.class, () -> model.criaListaFavoritosTempo("U1", "Favoritas", 1000));
+            assertThrows(EntidadeNaoExisteException.class, () -> model.criaListaFavoritosExplicita("U1", "Explícitas"));
+
+            model.criarPlaylistPersonalizada("U1", "Minha", "M1", "sim");
+            assertThrows(EntidadeExisteException.class, () -> model.adicionarPlaylistBiblioteca("U1", "Minha"));
+
+            model.adicionarAlbumBiblioteca("U1", "Álbum");
+            assertThrows(EntidadeExisteException.class, () -> model.adicionarAlbumBiblioteca("U1", "Álbum"));
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+
+    /**
+     * Teste para os resultados das queries.
+     * Verifica se as queries devolvem os ids e contagens esperados, sem nada encontrado num model vazio.
+     */
+    @Test
+    public void testResultadosQueries() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        try {
+            SpotifyumModel model = new SpotifyumModel();
+            assertEquals(new ResultadoQuery.MusicaMaisReproduzida(null, null, 0), model.executarQuery(1));
+            assertThrows(OpcaoException.class, () -> model.executarQuery(8));
+
+            model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+            model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+            model.adicionarUtilizador(new Utilizador("U2", "Ana", "ana@exemplo.pt", "Porto", new PlanoFree()));
+            model.ouvirMusica("U1", "M1");
+            model.ouvirMusica("U1", "M1");
+            model.ouvirMusica("U2", "M2");
+
+            assertEquals(new ResultadoQuery.MusicaMaisReproduzida("M1", "Noite Dourado", 2), model.executarQuery(1));
+            assertEquals(new ResultadoQuery.ArtistaMaisEscutado("Ed Sheeran", 2), model.executarQuery(2));
+            assertEquals(new ResultadoQuery.UtilizadorMaisMusicas("U1", 2, null, null), model.executarQuery(3));
+            assertEquals(new ResultadoQuery.GeneroMaisReproduzido("Pop", 2), model.executarQuery(5));
+            assertEquals(new ResultadoQuery.PlaylistsPublicas(0), model.executarQuery(6));
+            assertEquals(new ResultadoQuery.UtilizadorMaisPlaylists(null, 0), model.executarQuery(7));
+
+            LocalDate hoje = LocalDate.now();
+            assertEquals(new ResultadoQuery.UtilizadorMaisMusicas("U1", 2, hoje, hoje), model.executarQueryEspecial(hoje, hoje));
+            assertEquals(List.of(new ReproducoesArtista("Ed Sheeran", 2)), model.getHistoricoArtistas("U1"));
+            assertEquals(2, model.getHistorico("U1").size());
+            assertThrows(EntidadeNaoExisteException.class, () -> model.getInformacoes("U3"));
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+
+    /**
+     * Teste para as listagens paginadas.
+     * Verifica se as páginas seguem a ordem dos IDs sem repetir nem saltar músicas, com e sem filtros.
+     */
+    @Test
+    public void testListagensPaginadas() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        model.adicionarMusica(new Musica("M3", "Noite", "Adele", "XL", "", new ArrayList<>(), "Pop", 100));
+        model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+        model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+        model.adicionarMusica(new Musica("M4", "Tarde", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 150));
+
+        Pagina<Musica> primeira = model.listarMusicas(null, 3, m -> true);
+        assertEquals(List.of("M1", "M2", "M3"), primeira.elementos().stream().map(Musica::getId).toList());
+        assertTrue(primeira.temSeguinte());
+
+        // Uma música removida antes do cursor não muda a página seguinte
+        model.removerMusica("M1");
+        Pagina<Musica> segunda = model.listarMusicas(primeira.cursorSeguinte(), 3, m -> true);
+        assertEquals(List.of("M4"), segunda.elementos().stream().map(Musica::getId).toList());
+        assertFalse(segunda.temSeguinte());
+
+        assertEquals(List.of("M3", "M4"), model.listarMusicasGenero("Pop", null, 10).elementos().stream().map(Musica::getId).toList());
+        assertEquals(List.of("M2", "M3"), model.listarMusicasArtista("Adele", null, 10).elementos().stream().map(Musica::getId).toList());
+        assertTrue(model.listarMusicasGenero("Jazz", null, 10).elementos().isEmpty());
+        assertEquals(List.of("M2"), model.listarMusicas(null, 10, m -> m.getDuracao() > 150).elementos().stream().map(Musica::getId).toList());
+
+        String texto = model.toStringMusica();
+        assertTrue(texto.startsWith("[MUSICAS]\n\n"));
+        assertTrue(texto.indexOf("M2") < texto.indexOf("M3") && texto.indexOf("M3") < texto.indexOf("M4"));
+    }
+
+    /**
+     * Teste para a reprodução de um lote de músicas.
+     * Verifica se o lote conta para o utilizador e para as estatísticas, e se um ID inválido não aplica nenhuma reprodução.
+     */
+    @Test
+    public void testOuvirLote() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        try {
+            SpotifyumModel model = new SpotifyumModel();
+            model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+            model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+
+            assertThrows(EntidadeNaoExisteException.class, () -> model.ouvirLote("U1", List.of("M1", "M3")));
+            assertThrows(EntidadeNaoExisteException.class, () -> model.ouvirLote("U2", List.of("M1")));
+            assertEquals(0, model.getUtilizador("U1").getNumMusicas());
+
+            model.ouvirLote("U1", List.of("M1", "M2", "M1"));
+            Utilizador u = model.getUtilizador("U1");
+            assertEquals(3, u.getNumMusicas());
+            assertEquals(15.0, u.getPontos());
+            assertEquals(2, model.getMusica("M1").getReproducoes());
+            assertEquals(new ResultadoQuery.MusicaMaisReproduzida("M1", "Noite Dourado", 2), model.executarQuery(1));
+            assertEquals(new ResultadoQuery.UtilizadorMaisMusicas("U1", 3, null, null), model.executarQuery(3));
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
+
+    /**
+     * Teste para a criação de playlists personalizadas a partir de texto.
+     * Verifica se parâmetros nulos, músicas inexistentes, planos gratuitos e nomes repetidos chegam a quem invoca como exceção.
+     */
+    @Test
+    public void testCriarPlaylistPersonalizada() throws Exception {
+        SpotifyumModel model = new SpotifyumModel();
+        model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+        model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+        model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+
+        assertThrows(PlanoException.class, () -> model.criarPlaylistPersonalizada("U1", "Minha", "M1;M2", "sim"));
+        model.alterarPlano("U1", "PlanoPremiumTop");
+        assertThrows(IllegalArgumentException.class, () -> model.criarPlaylistPersonalizada("U1", null, "M1;M2", "sim"));
+        assertThrows(IllegalArgumentException.class, () -> model.criarPlaylistPersonalizada("U1", "Minha", null, "sim"));
+        assertThrows(EntidadeNaoExisteException.class, () -> model.criarPlaylistPersonalizada("U1", "Minha", "M1;M3", "sim"));
+        assertFalse(model.existePlaylist("Minha"));
+
+        model.criarPlaylistPersonalizada("U1", "Minha", "M2;M1", "sim");
+        assertTrue(model.existePlaylist("Minha"));
+        assertThrows(EntidadeExisteException.class, () -> model.criarPlaylistPersonalizada("U1", "Minha", "M1", "nao"));
+    }
+
+    /**
+     * Teste para o pipeline de reproduções.
+     * Verifica se as reproduções publicadas por várias threads são todas aplicadas depois de sincronizar,
+     * se ficam no diário e se, desativado o pipeline, as reproduções voltam a ser registadas de imediato.
+     */
+    @Test
+    public void testPipelineReproducoes() throws Exception {
+        Reprodutor anterior = Musica.getReprodutor();
+        Musica.setReprodutor(new ReprodutorMetricas());
+        Path base = Files.createTempDirectory("spotifyum-pipeline").resolve("estado");
+        try {
+            SpotifyumModel model = new SpotifyumModel();
+            model.abrirDiario(base.toString());
+            model.adicionarMusica(new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+            model.adicionarMusica(new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200));
+            model.adicionarUtilizador(new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree()));
+            model.adicionarUtilizador(new Utilizador("U2", "Ana Silva", "ana.silva@exemplo.pt", "Porto", new PlanoFree()));
+
+            model.ativarPipeline(16, AnelEventos.Espera.BLOQUEAR);
+            assertThrows(IllegalStateException.class, () -> model.ativarPipeline(16, AnelEventos.Espera.BLOQUEAR));
+            assertThrows(EntidadeNaoExisteException.class, () -> model.ouvirMusica("U3", "M1"));
+            assertThrows(EntidadeNaoExisteException.class, () -> model.ouvirMusica("U1", "M3"));
+
+            List<Thread> threads = new ArrayList<>();
+            for (String utilizador : List.of("U1", "U2")) {
+                Thread t = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 100; i++) {
+                            model.ouvirMusica(utilizador, i % 2 == 0 ? "M1" : "M2");
+                        }
+                        model.ouvirLote(utilizador, List.of("M1", "M1"));
+                    } catch (EntidadeNaoExisteException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                threads.add(t);
+                t.start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            model.sincronizarReproducoes();
+            assertNotNull(model.getMetricasPipeline());
+
+            assertEquals(102, model.getUtilizador("U1").getNumMusicas());
+            assertEquals(102, model.getUtilizador("U2").getNumMusicas());
+            assertEquals(510.0, model.getUtilizador("U1").getPontos());
+            assertEquals(104, model.getMusica("M1").getReproducoes());
+            assertEquals(new ResultadoQuery.MusicaMaisReproduzida("M1", "Noite Dourado", 104), model.executarQuery(1));
+
+            model.desativarPipeline();
+            assertNull(model.getMetricasPipeline());
+            model.ouvirMusica("U1", "M2");
+            assertEquals(103, model.getUtilizador("U1").getNumMusicas());
+            model.fecharDiario();
+
+            SpotifyumModel recuperado = new SpotifyumModel();
+            recuperado.abrirDiario(base.toString());
+            try {
+                for (String id : List.of("U1", "U2")) {
+                    Utilizador u = model.getUtilizador(id);
+                    Utilizador r = recuperado.getUtilizador(id);
+                    assertEquals(u.getPontos(), r.getPontos());
+                    assertEquals(u.getNumMusicas(), r.getNumMusicas());
+                    assertEquals(u.getHistoricoArtistas(), r.getHistoricoArtistas());
+                }
+                assertEquals(model.getMusica("M1").getReproducoes(), recuperado.getMusica("M1").getReproducoes());
+            } finally {
+                recuperado.fecharDiario();
+            }
+        } finally {
+            Musica.setReprodutor(anterior);
+        }
+    }
 }
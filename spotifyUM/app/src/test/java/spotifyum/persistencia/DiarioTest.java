@@ -0,0 +1,100 @@
+package spotifyum.persistencia;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe para os testes do diário de eventos.
+ */
+public class DiarioTest {
+
+    /**
+     * Teste para o registo concorrente de eventos.
+     * Verifica se todos os registos são gravados e se os de cada thread mantêm a ordem.
+     */
+    @Test
+    public void testRegistarLer() throws Exception {
+        Path pasta = Files.createTempDirectory("spotifyum-diario");
+        Path base = pasta.resolve("estado");
+        int numThreads = 4;
+        int registosPorThread = 500;
+
+        try (Diario diario = Diario.abrir(base, 1)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < registosPorThread; i++) {
+                        int valor = i;
+                        try {
+                            diario.esperar(diario.registar(saida -> {
+                                saida.escreverVarInt(thread);
+                                saida.escreverVarInt(valor);
+                            }));
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }));
+            }
+            for (Thread t : threads) {
+                t.start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+        }
+
+        int[] proximo = new int[numThreads];
+        long validos = Diario.ler(Diario.segmento(base, 1), registo -> {
+            int thread = registo.lerVarInt();
+            assertEquals(proximo[thread], registo.lerVarInt());
+            proximo[thread]++;
+        });
+        assertEquals(Files.size(Diario.segmento(base, 1)), validos);
+        for (int t = 0; t < numThreads; t++) {
+            assertEquals(registosPorThread, proximo[t]);
+        }
+    }
+
+    /**
+     * Teste para a rotação e para um registo incompleto no fim de um segmento.
+     * Verifica se a leitura para no último registo completo e se os segmentos são listados por ordem.
+     */
+    @Test
+    public void testRodarRegistoIncompleto() throws Exception {
+        Path pasta = Files.createTempDirectory("spotifyum-diario");
+        Path base = pasta.resolve("estado");
+
+        try (Diario diario = Diario.abrir(base, 1)) {
+            diario.registar(saida -> saida.escreverString("primeiro"));
+            assertEquals(1, diario.rodar());
+            diario.registar(saida -> saida.escreverString("segundo"));
+            diario.registar(saida -> saida.escreverString("terceiro"));
+            diario.sincronizar();
+            assertEquals(2, diario.getSegmento());
+        }
+        assertEquals(List.of(1, 2), Diario.segmentos(base));
+
+        // Escrita interrompida: um cabeçalho sem o resto do registo
+        Path segmento = Diario.segmento(base, 2);
+        long tamanho = Files.size(segmento);
+        Files.write(segmento, new byte[] {0, 0, 0, 20, 1, 2}, StandardOpenOption.APPEND);
+
+        List<String> lidos = new ArrayList<>();
+        assertEquals(tamanho, Diario.ler(segmento, registo -> lidos.add(registo.lerString())));
+        assertEquals(List.of("segundo", "terceiro"), lidos);
+
+        Diario.truncar(segmento, tamanho);
+        assertEquals(tamanho, Files.size(segmento));
+
+        Diario.apagarAte(base, 1);
+        assertEquals(List.of(2), Diario.segmentos(base));
+    }
+}
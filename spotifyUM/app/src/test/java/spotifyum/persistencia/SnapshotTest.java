@@ -0,0 +1,127 @@
+package spotifyum.persistencia;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import spotifyum.album.Album;
+import spotifyum.musica.Musica;
+import spotifyum.musica.MusicaExplicita;
+import spotifyum.planos.PlanoPremiumBase;
+import spotifyum.planos.PlanoPremiumTop;
+import spotifyum.playlist.Playlist;
+import spotifyum.playlist.PlaylistPersonalizada;
+import spotifyum.utilizador.Utilizador;
+
+/**
+ * Classe para os testes dos snapshots binários.
+ */
+public class SnapshotTest {
+
+    /**
+     * Teste para os varints e strings da SaidaBinaria e EntradaBinaria.
+     * Verifica se os valores lidos são iguais aos escritos, incluindo strings maiores do que o buffer.
+     */
+    @Test
+    public void testVarIntString() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        String grande = "á".repeat(100_000);
+        try (SaidaBinaria saida = new SaidaBinaria(Channels.newChannel(bytes))) {
+            saida.escreverVarInt(0);
+            saida.escreverVarInt(300);
+            saida.escreverVarInt(Integer.MAX_VALUE);
+            saida.escreverVarIntSinal(-5);
+            saida.escreverString("Música");
+            saida.escreverString(grande);
+            saida.escreverDouble(2.5);
+        }
+
+        EntradaBinaria entrada = new EntradaBinaria(Channels.newChannel(new java.io.ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(0, entrada.lerVarInt());
+        assertEquals(300, entrada.lerVarInt());
+        assertEquals(Integer.MAX_VALUE, entrada.lerVarInt());
+        assertEquals(-5, entrada.lerVarIntSinal());
+        assertEquals("Música", entrada.lerString());
+        assertEquals(grande, entrada.lerString());
+        assertEquals(2.5, entrada.lerDouble());
+    }
+
+    /**
+     * Teste para a escrita e leitura de um snapshot.
+     * Verifica se as entidades são iguais e se as músicas partilhadas continuam partilhadas.
+     */
+    @Test
+    public void testEscreverLer() throws Exception {
+        Musica m1 = new Musica("M1", "Noite", "Ed Sheeran", "Def Jam", "Era só mais um verão...", List.of("Do", "Re"), "Pop", 130);
+        Musica m2 = new MusicaExplicita("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Rock", 200);
+        m1.setReproducoes(7);
+        Album album = new Album("Album", List.of(m1, m2));
+        Playlist playlist = new PlaylistPersonalizada("Playlist", List.of(m2), true, "U1");
+
+        PlanoPremiumBase plano = new PlanoPremiumTop();
+        plano.adicionarPlaylistBiblioteca(playlist);
+        plano.adicionarAlbumBiblioteca(album);
+        Utilizador u = new Utilizador("U1", "João", "joao@exemplo.pt", "Braga", plano);
+        LocalDate dia = LocalDate.of(2025, 3, 1);
+        u.atualizarHistorico("M1", dia);
+        u.atualizarHistorico("M2", dia);
+        u.atualizarHistorico("M1", dia.plusDays(3));
+        u.atualizarHistoricoArtistas("Ed Sheeran");
+        u.setNumMusicas(3);
+
+        Path ficheiro = Files.createTempFile("spotifyum", ".snapshot");
+        try {
+            Snapshot.escrever(ficheiro, List.of(u), List.of(m1, m2), List.of(playlist), List.of(album));
+            assertTrue(Snapshot.eSnapshot(ficheiro));
+
+            Snapshot.Conteudo conteudo = Snapshot.ler(ficheiro);
+            Utilizador lido = conteudo.getUtilizadores().get(0);
+            assertEquals(u.toString(), lido.toString());
+            assertEquals(u.getPontos(), lido.getPontos());
+            assertEquals(u.getNumMusicas(), lido.getNumMusicas());
+            assertEquals(u.getHistorico(), lido.getHistorico());
+            assertEquals(u.getHistoricoArtistas(), lido.getHistoricoArtistas());
+            assertTrue(lido.getPlano() instanceof PlanoPremiumTop);
+
+            assertEquals(List.of(m1, m2), conteudo.getMusicas());
+            assertTrue(conteudo.getMusicas().get(1) instanceof MusicaExplicita);
+            assertEquals(album, conteudo.getAlbuns().get(0));
+            assertEquals(playlist, conteudo.getPlaylists().get(0));
+
+            // A mesma música no catálogo, no álbum e na playlist é um único objeto
+            Musica lidaM2 = conteudo.getMusicas().get(1);
+            assertSame(lidaM2, conteudo.getAlbuns().get(0).getMusicasVista().get(1));
+            assertSame(lidaM2, conteudo.getPlaylists().get(0).getMusicasVista().get(0));
+            assertSame(conteudo.getPlaylists().get(0),
+                       ((PlanoPremiumBase) lido.getPlano()).getMinhasPlaylist().get(0));
+        } finally {
+            Files.deleteIfExists(ficheiro);
+        }
+    }
+
+    /**
+     * Teste para a leitura de um snapshot truncado.
+     * Verifica se é lançada uma exceção em vez de devolver um estado incompleto.
+     */
+    @Test
+    public void testSnapshotTruncado() throws Exception {
+        Musica m1 = new Musica("M1", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130);
+        Path ficheiro = Files.createTempFile("spotifyum", ".snapshot");
+        try {
+            Snapshot.escrever(ficheiro, List.of(), List.of(m1), List.of(), List.of());
+            byte[] bytes = Files.readAllBytes(ficheiro);
+            Files.write(ficheiro, java.util.Arrays.copyOf(bytes, bytes.length - 2));
+
+            assertThrows(java.io.IOException.class, () -> Snapshot.ler(ficheiro));
+        } finally {
+            Files.deleteIfExists(ficheiro);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe para os testes do anel de eventos.
+ */
+public class AnelEventosTest {
+
+    /** Evento dos testes */
+    private static final class Evento {
+        long valor;
+        boolean visto;
+    }
+
+    /**
+     * Teste para a publicação por várias threads e o consumo por etapas encadeadas.
+     * Verifica se todos os eventos são consumidos uma vez, por ordem de sequência, e se a segunda etapa
+     * só vê cada evento depois da primeira.
+     */
+    @Test
+    public void testEtapasEncadeadas() throws Exception {
+        AnelEventos<Evento> anel = new AnelEventos<>(8, Evento::new, AnelEventos.Espera.BLOQUEAR);
+        AtomicLong soma = new AtomicLong();
+        long[] ultima = {-1};
+        AnelEventos<Evento>.Etapa primeira = anel.adicionarEtapa("primeira", (e, s, fim) -> {
+            if (s != ultima[0] + 1) {
+                throw new IllegalStateException("Sequência fora de ordem: " + s);
+            }
+            ultima[0] = s;
+            e.visto = true;
+        });
+        anel.adicionarEtapa("segunda", (e, s, fim) -> {
+            if (!e.visto) {
+                throw new IllegalStateException("Evento não visto pela primeira etapa: " + s);
+            }
+            e.visto = false;
+            soma.addAndGet(e.valor);
+        }, List.of(primeira));
+        anel.iniciar();
+
+        int porThread = 5000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= porThread; i++) {
+                    long s = anel.reservar();
+                    anel.get(s).valor = i;
+                    anel.publicar(s);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        anel.esperarConsumo();
+
+        assertEquals(3L * porThread * (porThread + 1) / 2, soma.get());
+        assertEquals(3L * porThread, anel.getReservados());
+        assertEquals(0, anel.getErros());
+        for (AnelEventos<Evento>.Etapa etapa : anel.getEtapas()) {
+            assertEquals(3L * porThread, etapa.getEventos());
+            assertEquals(3L * porThread - 1, etapa.getSequencia());
+        }
+        anel.parar();
+    }
+
+    /**
+     * Teste para as estratégias de espera.
+     * Verifica se todas consomem os eventos todos com um anel pequeno (sempre cheio).
+     */
+    @Test
+    public void testEsperas() {
+        for (AnelEventos.Espera espera : AnelEventos.Espera.values()) {
+            AnelEventos<Evento> anel = new AnelEventos<>(4, Evento::new, espera);
+            long[] soma = {0};
+            anel.adicionarEtapa("soma", (e, s, fim) -> soma[0] += e.valor);
+            anel.iniciar();
+            for (int i = 1; i <= 1000; i++) {
+                long s = anel.reservar();
+                anel.get(s).valor = i;
+                anel.publicar(s);
+            }
+            anel.parar();
+            assertEquals(500500L, soma[0], espera.name());
+        }
+    }
+
+    /**
+     * Teste para a reserva de várias sequências e os lotes.
+     * Verifica se cada lote termina com um evento assinalado e se as sequências reservadas em bloco são seguidas.
+     */
+    @Test
+    public void testReservarVarias() {
+        AnelEventos<Evento> anel = new AnelEventos<>(16, Evento::new, AnelEventos.Espera.DORMIR);
+        long[] fins = {0};
+        List<Long> valores = new ArrayList<>();
+        anel.adicionarEtapa("valores", (e, s, fim) -> {
+            valores.add(e.valor);
+            if (fim) {
+                fins[0]++;
+            }
+        });
+        anel.iniciar();
+        for (int i = 0; i < 100; i += 10) {
+            long ultima = anel.reservar(10);
+            for (long s = ultima - 9; s <= ultima; s++) {
+                anel.get(s).valor = s;
+            }
+            anel.publicar(ultima - 9, ultima);
+        }
+        anel.esperarConsumo();
+        assertEquals(100, valores.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, valores.get(i).longValue());
+        }
+        AnelEventos<Evento>.Etapa etapa = anel.getEtapas().get(0);
+        assertEquals(fins[0], etapa.getLotes());
+        assertThrows(IllegalArgumentException.class, () -> anel.reservar(17));
+        anel.parar();
+    }
+
+    /**
+     * Teste para a backpressure.
+     * Verifica se tentarReservar falha com o anel cheio e volta a reservar depois de a etapa consumir.
+     */
+    @Test
+    public void testAnelCheio() throws Exception {
+        AnelEventos<Evento> anel = new AnelEventos<>(4, Evento::new, AnelEventos.Espera.BLOQUEAR);
+        CountDownLatch libertar = new CountDownLatch(1);
+        anel.adicionarEtapa("lenta", (e, s, fim) -> libertar.await());
+        anel.iniciar();
+        for (int i = 0; i < 4; i++) {
+            long s = anel.tentarReservar();
+            assertEquals(i, s);
+            anel.publicar(s);
+        }
+        assertEquals(-1, anel.tentarReservar());
+        libertar.countDown();
+        anel.esperarConsumo();
+        long s = anel.tentarReservar();
+        assertEquals(4, s);
+        anel.publicar(s);
+        anel.parar();
+    }
+
+    /**
+     * Teste para os erros dos consumidores.
+     * Verifica se uma exceção é contada sem parar a etapa.
+     */
+    @Test
+    public void testErros() {
+        AnelEventos<Evento> anel = new AnelEventos<>(8, Evento::new, AnelEventos.Espera.CEDER);
+        long[] consumidos = {0};
+        anel.adicionarEtapa("pares", (e, s, fim) -> {
+            if (e.valor % 2 == 1) {
+                throw new IllegalArgumentException("Ímpar: " + e.valor);
+            }
+            consumidos[0]++;
+        });
+        anel.iniciar();
+        for (int i = 0; i < 20; i++) {
+            long s = anel.reservar();
+            anel.get(s).valor = i;
+            anel.publicar(s);
+        }
+        anel.parar();
+        assertEquals(10, consumidos[0]);
+        assertEquals(10, anel.getErros());
+        assertTrue(anel.getUltimoErro() instanceof IllegalArgumentException);
+        assertThrows(IllegalStateException.class, anel::reservar);
+    }
+
+    /**
+     * Teste para os argumentos inválidos.
+     * Verifica se a capacidade tem de ser uma potência de 2 e se as etapas só são adicionadas antes de iniciar.
+     */
+    @Test
+    public void testInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new AnelEventos<>(6, Evento::new, AnelEventos.Espera.DORMIR));
+        assertThrows(IllegalArgumentException.class, () -> new AnelEventos<>(0, Evento::new, AnelEventos.Espera.DORMIR));
+        AnelEventos<Evento> anel = new AnelEventos<>(4, Evento::new, AnelEventos.Espera.DORMIR);
+        assertThrows(IllegalStateException.class, anel::reservar);
+        assertThrows(IllegalStateException.class, anel::iniciar);
+        anel.adicionarEtapa("nada", (e, s, fim) -> {});
+        anel.iniciar();
+        assertThrows(IllegalStateException.class, () -> anel.adicionarEtapa("tarde", (e, s, fim) -> {}));
+        anel.parar();
+    }
+}
@@ -0,0 +1,69 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Classe para os testes da cache LRU.
+ */
+public class CacheLRUTest {
+
+    /**
+     * Teste para os acertos e as falhas.
+     * Verifica se cada pedido conta como acerto ou falha, e se os valores desatualizados contam como falha.
+     */
+    @Test
+    public void testAcertosFalhas() {
+        CacheLRU<String, Integer> cache = new CacheLRU<>(4);
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        assertEquals(1, (int) cache.get("a"));
+        assertEquals(1, (int) cache.get("a", v -> v == 1));
+        assertNull(cache.get("a", v -> v == 2));
+        assertEquals(0, cache.tamanho());
+
+        assertEquals(2, cache.getAcertos());
+        assertEquals(2, cache.getFalhas());
+        assertEquals(0.5, cache.getTaxaAcertos(), 1e-9);
+    }
+
+    /**
+     * Teste para o descarte por falta de espaço.
+     * Verifica se é descartada a entrada usada há mais tempo, e não a adicionada há mais tempo.
+     */
+    @Test
+    public void testDescarte() {
+        CacheLRU<String, Integer> cache = new CacheLRU<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(2, cache.tamanho());
+        assertEquals(1, cache.getDescartes());
+        assertEquals(1, (int) cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, (int) cache.get("c"));
+    }
+
+    /**
+     * Teste para as invalidações.
+     * Verifica se só contam as entradas que existiam.
+     */
+    @Test
+    public void testInvalidar() {
+        CacheLRU<String, Integer> cache = new CacheLRU<>(4);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.invalidar("a");
+        cache.invalidar("x");
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getInvalidacoes());
+
+        cache.limpar();
+        assertEquals(0, cache.tamanho());
+        assertEquals(3, cache.getInvalidacoes());
+        assertThrows(IllegalArgumentException.class, () -> new CacheLRU<String, Integer>(0));
+    }
+}
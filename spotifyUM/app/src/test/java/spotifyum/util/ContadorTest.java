@@ -0,0 +1,62 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Classe para os testes do contador com endereçamento aberto.
+ */
+public class ContadorTest {
+
+    /**
+     * Teste para os incrementos.
+     * Verifica se o contador dá os mesmos resultados que um HashMap, incluindo depois de crescer.
+     */
+    @Test
+    public void testIncrementar() {
+        Contador<String> contador = new Contador<>();
+        Map<String, Integer> esperado = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            String chave = "Artista " + random.nextInt(500);
+            contador.incrementar(chave, 1);
+            esperado.merge(chave, 1, Integer::sum);
+        }
+
+        assertEquals(esperado.size(), contador.tamanho());
+        assertEquals(esperado, contador.paraMap());
+        assertEquals((int) esperado.get("Artista 7"), contador.get("Artista 7"));
+        assertEquals(0, contador.get("Desconhecido"));
+
+        Contador<String> copia = new Contador<>(contador);
+        copia.incrementar("Artista 7", 1);
+        assertEquals(esperado.get("Artista 7") + 1, copia.get("Artista 7"));
+        assertEquals((int) esperado.get("Artista 7"), contador.get("Artista 7"));
+    }
+
+    /**
+     * Teste para a seleção das chaves mais frequentes.
+     * Verifica a ordem, o desempate pela chave adicionada primeiro e que contadores a zero são ignorados.
+     */
+    @Test
+    public void testMaisFrequentes() {
+        Contador<String> contador = new Contador<>();
+        contador.incrementar("A", 2);
+        contador.incrementar("B", 5);
+        contador.incrementar("C", 0);
+        contador.incrementar("D", 2);
+        contador.incrementar("E", 1);
+
+        assertEquals(List.of("B", "A", "D"), contador.maisFrequentes(3));
+        assertEquals(List.of("B", "A", "D", "E"), contador.maisFrequentes(10));
+        assertEquals(List.of(), contador.maisFrequentes(0));
+
+        contador.definir("E", 9);
+        assertEquals(List.of("E", "B"), contador.maisFrequentes(2));
+    }
+}
@@ -0,0 +1,35 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import spotifyum.musica.Musica;
+
+/**
+ * Classe para os testes do dicionário de valores.
+ */
+public class DicionarioTest {
+
+    /**
+     * Teste para os valores partilhados.
+     * Verifica se valores iguais passam a ser a mesma instância e se as músicas guardam os ordinais.
+     */
+    @Test
+    public void testCanonico() {
+        Dicionario d = new Dicionario();
+        String a = new String("Pop");
+        String b = new String("Pop");
+        assertSame(d.canonico(a), d.canonico(b));
+        assertEquals(0, d.getOrdinal(b));
+        assertNull(d.canonico(null));
+
+        Musica m1 = new Musica("M1", "Noite", new String("Ed Sheeran"), "Def Jam", "", new ArrayList<>(), new String("Pop"), 130);
+        Musica m2 = new Musica("M2", "Dia", new String("Ed Sheeran"), "Def Jam", "", new ArrayList<>(), new String("Rock"), 200);
+        assertSame(m1.getArtista(), m2.getArtista());
+        assertEquals(m1.getOrdinalArtista(), m2.getOrdinalArtista());
+        assertEquals("Pop", Dicionario.GENEROS.getValor(m1.getOrdinalGenero()));
+        assertNotEquals(m1.getOrdinalGenero(), m2.getOrdinalGenero());
+    }
+}
@@ -0,0 +1,49 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Classe para os testes da escrita paginada das listagens.
+ */
+public class EscritaPaginadaTest {
+
+    /**
+     * Teste para o formato e a leitura por páginas.
+     * Verifica se o texto tem o formato das listagens e se cada página é pedida com o cursor da anterior.
+     */
+    @Test
+    public void testEscrever() throws IOException {
+        NavigableSet<String> chaves = new ConcurrentSkipListSet<>(List.of("c", "a", "e", "b", "d"));
+        List<String> cursores = new ArrayList<>();
+        StringWriter destino = new StringWriter();
+
+        long escritos = EscritaPaginada.escrever(destino, "[LETRAS]", (cursor, tamanho) -> {
+            cursores.add(cursor);
+            return Pagina.ler(chaves, String::toUpperCase, cursor, tamanho, v -> true);
+        }, 2);
+
+        assertEquals(5, escritos);
+        assertEquals("[LETRAS]\n\nA\nB\nC\nD\nE\n", destino.toString());
+        assertEquals(List.of("null", "b", "d"), cursores.stream().map(String::valueOf).toList());
+    }
+
+    /**
+     * Teste para uma listagem vazia.
+     * Verifica se só é escrito o título.
+     */
+    @Test
+    public void testVazia() throws IOException {
+        StringBuilder destino = new StringBuilder();
+        long escritos = EscritaPaginada.escrever(destino, "[VAZIA]", (cursor, tamanho) -> new Pagina<>(List.of(), null));
+        assertEquals(0, escritos);
+        assertEquals("[VAZIA]\n\n", destino.toString());
+    }
+}
@@ -0,0 +1,98 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Classe para os testes do preenchimento de durações.
+ */
+public class MochilaTest {
+
+    /**
+     * Método que soma as durações dos elementos escolhidos, verificando que não há repetidos.
+     *
+     * @param duracoes Durações
+     * @param escolhidos Índices escolhidos
+     * @return Soma das durações
+     */
+    private static long soma(int[] duracoes, int[] escolhidos) {
+        Set<Integer> vistos = new HashSet<>();
+        long soma = 0;
+        for (int i : escolhidos) {
+            assertTrue(vistos.add(i));
+            soma += duracoes[i];
+        }
+        return soma;
+    }
+
+    /**
+     * Teste para o preenchimento exato.
+     * Verifica se é encontrada a combinação que preenche o limite, que o preenchimento guloso por ordem falharia.
+     */
+    @Test
+    public void testExato() {
+        int[] duracoes = {200, 150, 150, 100, 90};
+        for (int semente = 0; semente < 20; semente++) {
+            int[] escolhidos = Mochila.preencher(duracoes, 300, new Random(semente));
+            assertEquals(300, soma(duracoes, escolhidos));
+        }
+        assertEquals(0, Mochila.preencher(duracoes, 80, new Random(1)).length);
+        assertEquals(0, Mochila.preencher(duracoes, -1, new Random(1)).length);
+        assertEquals(5, Mochila.preencher(duracoes, 1000, new Random(1)).length);
+    }
+
+    /**
+     * Teste para a otimalidade.
+     * Verifica, contra uma pesquisa exaustiva, se a soma escolhida é a maior que não ultrapassa o limite.
+     */
+    @Test
+    public void testOtimo() {
+        Random random = new Random(7);
+        for (int r = 0; r < 200; r++) {
+            int n = 1 + random.nextInt(12);
+            int[] duracoes = new int[n];
+            for (int i = 0; i < n; i++) {
+                duracoes[i] = random.nextInt(400);
+            }
+            int limite = random.nextInt(1500);
+
+            long otimo = 0;
+            for (int mascara = 0; mascara < (1 << n); mascara++) {
+                long s = 0;
+                for (int i = 0; i < n; i++) {
+                    if ((mascara & (1 << i)) != 0) {
+                        s += duracoes[i];
+                    }
+                }
+                if (s <= limite) {
+                    otimo = Math.max(otimo, s);
+                }
+            }
+            assertEquals(otimo, soma(duracoes, Mochila.preencher(duracoes, limite, random)), Arrays.toString(duracoes) + " " + limite);
+        }
+    }
+
+    /**
+     * Teste para limites grandes.
+     * Verifica se, com unidades maiores do que um segundo, o limite nunca é ultrapassado e fica quase preenchido.
+     */
+    @Test
+    public void testLimiteGrande() {
+        Random random = new Random(11);
+        int[] duracoes = new int[200_000];
+        long total = 0;
+        for (int i = 0; i < duracoes.length; i++) {
+            duracoes[i] = 90 + random.nextInt(300);
+            total += duracoes[i];
+        }
+        int limite = (int) (total / 2) + 1;
+        long soma = soma(duracoes, Mochila.preencher(duracoes, limite, random));
+        assertTrue(soma <= limite);
+        assertTrue(soma >= limite - 1000, "soma " + soma + " limite " + limite);
+    }
+}
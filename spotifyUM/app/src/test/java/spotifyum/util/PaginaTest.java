@@ -0,0 +1,67 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Classe para os testes das páginas de uma listagem.
+ */
+public class PaginaTest {
+
+    /**
+     * Teste para a paginação completa.
+     * Verifica se as páginas, seguidas pelo cursor, percorrem todas as chaves por ordem, uma única vez.
+     */
+    @Test
+    public void testPercorrerTudo() {
+        Map<String, Integer> catalogo = new TreeMap<>();
+        for (int i = 0; i < 25; i++) {
+            catalogo.put(String.format("K%02d", i), i);
+        }
+        NavigableSet<String> chaves = new ConcurrentSkipListSet<>(catalogo.keySet());
+
+        List<Integer> lidos = new ArrayList<>();
+        int paginas = 0;
+        String cursor = null;
+        do {
+            Pagina<Integer> pagina = Pagina.ler(chaves, catalogo::get, cursor, 10, v -> true);
+            assertTrue(pagina.elementos().size() <= 10);
+            lidos.addAll(pagina.elementos());
+            cursor = pagina.cursorSeguinte();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(3, paginas);
+        assertEquals(new ArrayList<>(catalogo.values()), lidos);
+        assertThrows(IllegalArgumentException.class, () -> Pagina.ler(chaves, catalogo::get, null, 0, v -> true));
+    }
+
+    /**
+     * Teste para os filtros e as chaves removidas.
+     * Verifica se só entram os elementos que cumprem o filtro e se as chaves sem elemento são ignoradas.
+     */
+    @Test
+    public void testFiltroERemovidos() {
+        Map<String, Integer> catalogo = new TreeMap<>(Map.of("a", 1, "b", 2, "c", 3, "d", 4, "e", 5));
+        NavigableSet<String> chaves = new ConcurrentSkipListSet<>(catalogo.keySet());
+        catalogo.remove("b");
+
+        Pagina<Integer> pares = Pagina.ler(chaves, catalogo::get, null, 1, v -> v % 2 == 0);
+        assertEquals(List.of(4), pares.elementos());
+        assertEquals("d", pares.cursorSeguinte());
+
+        // A última página pode vir vazia quando nenhum dos restantes cumpre o filtro
+        Pagina<Integer> resto = Pagina.ler(chaves, catalogo::get, pares.cursorSeguinte(), 1, v -> v % 2 == 0);
+        assertTrue(resto.elementos().isEmpty());
+        assertFalse(resto.temSeguinte());
+
+        assertEquals(List.of(1, 3), Pagina.ler(chaves, catalogo::get, null, 2, v -> true).elementos());
+    }
+}
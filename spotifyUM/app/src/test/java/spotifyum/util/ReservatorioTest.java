@@ -0,0 +1,43 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Classe para os testes da amostragem aleatória.
+ */
+public class ReservatorioTest {
+
+    /**
+     * Teste para a amostra de uma lista.
+     * Verifica se a amostra tem no máximo k elementos distintos e se todos são escolhidos com frequência próxima de k / n.
+     */
+    @Test
+    public void testAmostraLista() {
+        List<Integer> lista = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lista.add(i);
+        }
+        Random random = new Random(5);
+        assertEquals(new HashSet<>(lista), new HashSet<>(Reservatorio.amostra(lista, 30, random)));
+
+        int repeticoes = 20_000;
+        int[] escolhas = new int[lista.size()];
+        for (int r = 0; r < repeticoes; r++) {
+            List<Integer> amostra = Reservatorio.amostra(lista, 5, random);
+            assertEquals(5, new HashSet<>(amostra).size());
+            for (int i : amostra) {
+                escolhas[i]++;
+            }
+        }
+        double esperado = repeticoes * 5.0 / lista.size();
+        for (int i = 0; i < lista.size(); i++) {
+            assertEquals(esperado, escolhas[i], esperado * 0.1);
+        }
+    }
+}
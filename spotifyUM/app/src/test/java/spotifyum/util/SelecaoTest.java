@@ -0,0 +1,47 @@
+package spotifyum.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Classe para os testes da seleção dos maiores valores.
+ */
+public class SelecaoTest {
+
+    /**
+     * Teste para a seleção com o heap.
+     * Verifica se o resultado é igual ao de ordenar todos os índices e ficar com os k primeiros.
+     */
+    @Test
+    public void testMaiores() {
+        Random random = new Random(7);
+        for (int teste = 0; teste < 200; teste++) {
+            int[] valores = random.ints(random.nextInt(50), -2, 10).toArray();
+            int k = random.nextInt(8);
+
+            int[] esperado = IntStream.range(0, valores.length)
+                .filter(i -> valores[i] > 0)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(i -> -valores[i]).thenComparingInt(i -> i))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+            assertArrayEquals(esperado, Selecao.maiores(valores, valores.length, k));
+        }
+    }
+
+    /**
+     * Teste para a seleção sobre um prefixo do array.
+     * Verifica se os valores depois dos n primeiros são ignorados.
+     */
+    @Test
+    public void testMaioresPrefixo() {
+        int[] valores = {3, 1, 4, 1, 5, 9};
+        assertArrayEquals(new int[] {2, 0}, Selecao.maiores(valores, 4, 2));
+        assertArrayEquals(new int[0], Selecao.maiores(valores, 0, 2));
+    }
+}
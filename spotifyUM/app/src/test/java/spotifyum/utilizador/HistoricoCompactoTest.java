@@ -0,0 +1,107 @@
+package spotifyum.utilizador;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import spotifyum.util.Dicionario;
+
+/**
+ * Classe para os testes do histórico de reprodução em colunas.
+ */
+public class HistoricoCompactoTest {
+
+    /**
+     * Teste para a adição de reproduções.
+     * Verifica se os IDs e as datas são devolvidos pela ordem em que foram adicionados.
+     */
+    @Test
+    public void testAdicionar(){
+        LocalDate dia = LocalDate.of(2025, 3, 1);
+        HistoricoCompacto historico = new HistoricoCompacto();
+
+        historico.adicionar("M1", dia);
+        historico.adicionar("M2", dia);
+        historico.adicionar("M1", dia.plusDays(1));
+
+        assertEquals(3, historico.tamanho());
+        assertEquals("M2", historico.getIdMusica(1));
+        assertEquals(dia, historico.getData(1));
+        assertEquals(dia.plusDays(1), historico.getData(2));
+
+        List<Historico> lista = historico.getHistorico();
+        assertEquals(new Historico("M1", dia.plusDays(1)), lista.get(2));
+    }
+
+    /**
+     * Teste para históricos com vários blocos.
+     * Verifica se a conversão de e para uma lista de Historico preserva todas as reproduções.
+     */
+    @Test
+    public void testVariosBlocos(){
+        LocalDate dia = LocalDate.of(2025, 1, 1);
+        List<Historico> lista = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            lista.add(new Historico("M" + (i % 37), dia.plusDays(i / 100)));
+        }
+
+        HistoricoCompacto historico = new HistoricoCompacto(lista);
+
+        assertEquals(10000, historico.tamanho());
+        assertEquals(lista, historico.getHistorico());
+        assertEquals(lista, historico.clone().getHistorico());
+    }
+
+    /**
+     * Teste para as vistas só de leitura do histórico.
+     * Verifica se as vistas acompanham as novas reproduções e se não podem ser alteradas.
+     */
+    @Test
+    public void testVistas(){
+        LocalDate dia = LocalDate.of(2025, 3, 1);
+        HistoricoCompacto historico = new HistoricoCompacto();
+        historico.adicionar("M1", dia);
+
+        List<Historico> vista = historico.vista();
+        List<String> ids = historico.vistaIdsMusicas();
+        historico.adicionar("M2", dia.plusDays(1));
+
+        assertEquals(2, vista.size());
+        assertEquals(new Historico("M2", dia.plusDays(1)), vista.get(1));
+        assertEquals(List.of("M1", "M2"), ids);
+        assertEquals(historico.getHistorico(), vista);
+        assertThrows(UnsupportedOperationException.class, () -> ids.add("M3"));
+    }
+
+    /**
+     * Teste para a adição de um lote de reproduções.
+     * Verifica se um lote que atravessa vários blocos dá o mesmo histórico que adicionar uma a uma.
+     */
+    @Test
+    public void testAdicionarLote(){
+        LocalDate dia = LocalDate.of(2025, 3, 1);
+        HistoricoCompacto umaAUma = new HistoricoCompacto();
+        HistoricoCompacto lote = new HistoricoCompacto();
+        umaAUma.adicionar("M0", dia);
+        lote.adicionar("M0", dia);
+
+        int[] musicas = new int[5];
+        for (int i = 0; i < musicas.length; i++) {
+            musicas[i] = Dicionario.MUSICAS.getOrdinal("M" + i);
+        }
+        int[] ordinais = new int[9000];
+        for (int i = 0; i < ordinais.length; i++) {
+            ordinais[i] = musicas[i % 5];
+            umaAUma.adicionar(ordinais[i], (int) dia.plusDays(1).toEpochDay());
+        }
+        lote.adicionar(ordinais, (int) dia.plusDays(1).toEpochDay());
+        lote.adicionar(new int[0], (int) dia.plusDays(2).toEpochDay());
+
+        assertEquals(9001, lote.tamanho());
+        assertEquals(2, lote.getNumSequencias());
+        assertEquals(umaAUma.getHistorico(), lote.getHistorico());
+    }
+}
@@ -0,0 +1,73 @@
+package spotifyum.utilizador;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import spotifyum.musica.Musica;
+import spotifyum.planos.PlanoFree;
+
+/**
+ * Classe para os testes do perfil de gosto.
+ */
+public class PerfilGostoTest {
+
+    /**
+     * Teste para o perfil sem decaimento.
+     * Verifica se os pesos são o número de reproduções e se o utilizador atualiza o perfil ao ouvir.
+     */
+    @Test
+    public void testSemDecaimento() {
+        Utilizador u = new Utilizador("U1", "João", "joao@exemplo.pt", "Braga", new PlanoFree());
+        Musica pop = new Musica("M1", "Noite", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130);
+        Musica rock = new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Rock", 200);
+        LocalDate dia = LocalDate.of(2025, 3, 1);
+        u.registarReproducao(rock, dia);
+        u.registarReproducao(pop, dia);
+        u.registarReproducao(pop, dia.plusDays(1));
+
+        PerfilGosto perfil = u.getPerfil();
+        assertEquals(2, perfil.getPesoGenero("Pop"));
+        assertEquals(1, perfil.getPesoArtista("Adele"));
+        assertEquals(0, perfil.getPesoGenero("Jazz"));
+        assertEquals(List.of("Pop", "Rock"), perfil.getGenerosPreferidos(3));
+        assertEquals(List.of("Ed Sheeran"), perfil.getArtistasPreferidos(1));
+
+        // A cópia do utilizador tem um perfil independente
+        Utilizador copia = u.clone();
+        copia.registarReproducao(rock, dia);
+        assertEquals(2, copia.getPerfil().getPesoGenero("Rock"));
+        assertEquals(1, u.getPerfil().getPesoGenero("Rock"));
+    }
+
+    /**
+     * Teste para o perfil com decaimento.
+     * Verifica se as reproduções recentes pesam mais e se os pesos continuam finitos ao fim de muitos anos.
+     */
+    @Test
+    public void testDecaimento() {
+        PerfilGosto perfil = new PerfilGosto(7);
+        LocalDate inicio = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 10; i++) {
+            perfil.registar("Rock", "Adele", inicio);
+        }
+        perfil.registar("Pop", "Ed Sheeran", inicio.plusDays(28));
+        perfil.registar("Pop", "Ed Sheeran", inicio.plusDays(28));
+
+        // 10 reproduções há 4 meias-vidas valem 10/16; as 2 recentes valem 2
+        assertEquals(List.of("Pop", "Rock"), perfil.getGenerosPreferidos(2));
+        assertEquals(16.0 / 10 * 2, perfil.getPesoGenero("Pop") / perfil.getPesoGenero("Rock"), 1e-9);
+
+        perfil.registar("Jazz", "Miles Davis", inicio.plusYears(100));
+        assertTrue(Double.isFinite(perfil.getPesoGenero("Jazz")));
+        // Ao fim de 100 anos, as reproduções antigas já não têm peso representável
+        assertEquals(List.of("Jazz"), perfil.getGenerosPreferidos(3));
+        perfil.registar("Pop", "Ed Sheeran", inicio.plusYears(100).plusDays(7));
+        assertEquals(List.of("Pop", "Jazz"), perfil.getGenerosPreferidos(3));
+
+        assertThrows(IllegalArgumentException.class, () -> new PerfilGosto(-1));
+    }
+}
@@ -3,7 +3,13 @@ package spotifyum.utilizador;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import spotifyum.musica.Musica;
 import spotifyum.planos.PlanoFree;
+import spotifyum.planos.PlanoPremiumTop;
 
 /**
  * Classe para os testes dos utilizadores.
@@ -70,4 +76,42 @@ public class UtilizadorTest {
 
         assertEquals(user.getPontos(), 5);
     }
+
+    /**
+     * Teste para o registo de um lote de reproduções.
+     * Verifica se o lote tem o mesmo efeito que registar as reproduções uma a uma, incluindo os pontos
+     * compostos do plano Premium Top.
+     */
+    @Test
+    public void testRegistarLote(){
+        LocalDate dia = LocalDate.of(2025, 3, 1);
+        List<Musica> musicas = List.of(
+            new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130),
+            new Musica("M2", "Dia", "Adele", "XL", "", new ArrayList<>(), "Soul", 200),
+            new Musica("M1", "Noite Dourado", "Ed Sheeran", "Def Jam", "", new ArrayList<>(), "Pop", 130));
+
+        Utilizador umaAUma = new Utilizador("U1", "João Jesus", "joao.jesus@exemplo.pt", "Braga", new PlanoFree());
+        Utilizador lote = umaAUma.clone();
+        for (Musica m : musicas) {
+            umaAUma.registarReproducao(m, dia);
+        }
+        lote.registarLote(musicas, dia);
+
+        assertEquals(umaAUma.getPontos(), lote.getPontos());
+        assertEquals(3, lote.getNumMusicas());
+        assertEquals(umaAUma.getHistorico(), lote.getHistorico());
+        assertEquals(umaAUma.getHistoricoArtistas(), lote.getHistoricoArtistas());
+        assertEquals(umaAUma.getPerfil().getReproducoes(), lote.getPerfil().getReproducoes());
+
+        Utilizador top = new Utilizador("U2", "Ana", "ana@exemplo.pt", "Porto", new PlanoPremiumTop());
+        top.setPontos(100);
+        double pontos = top.getPontos();
+        List<Musica> muitas = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            muitas.add(musicas.get(i % 2));
+            pontos += pontos * 0.025;
+        }
+        top.registarLote(muitas, dia);
+        assertEquals(pontos, top.getPontos(), pontos * 1e-12);
+    }
 }